@@ -0,0 +1,122 @@
+package com.rsc_games.copperheadgl;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.renderer.DrawInfo;
+import com.rsc_games.velocity.renderer.ParticleBatch;
+import com.rsc_games.velocity.util.Point;
+
+/**
+ * CopperheadGL CPU side costs: filling the draw queue and packing textured quads into
+ * the vertex buffer. Neither touches GL, so no context is created. Lives in the
+ * renderer package since it's all package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopperheadBench {
+    /**
+     * Draw calls per frame.
+     */
+    @Param({"1000", "10000"})
+    int calls;
+
+    GLFrameBuffer fb;
+    GLRendererImage img;
+    DrawInfo[] draws;
+    float[] vertices;
+    ParticleBatch particles;
+    Point vres = new Point(1280, 720);
+
+    @Setup
+    public void setup() {
+        Random r = new Random(1234);
+        fb = new GLFrameBuffer(vres.x, vres.y);
+        img = new GLTextureEntry(new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB), null, 1, null, null).getNewHandle();
+        draws = new DrawInfo[calls];
+        vertices = new float[TexturedVertexInfo.FLOAT_CNT * 4 * calls];
+
+        // A few draws land offscreen so the cull path is exercised too.
+        for (int i = 0; i < calls; i++) {
+            Rect pos = new Rect(new Point(r.nextInt(1400) - 60, r.nextInt(840) - 60), 32, 32);
+            Point scale = new Point(1, 1);
+            draws[i] = new DrawInfo(pos, (i % 4 == 0) ? r.nextFloat() * 360 : 0, scale, r.nextInt(4));
+        }
+
+        float[] px = new float[calls], py = new float[calls], size = new float[calls], rot = new float[calls];
+        int[] color = new int[calls];
+        short[] frame = new short[calls];
+        for (int i = 0; i < calls; i++) {
+            px[i] = r.nextInt(1280);
+            py[i] = r.nextInt(720);
+            size[i] = 4 + r.nextInt(12);
+            rot[i] = r.nextFloat() * 360;
+            color[i] = r.nextInt();
+            frame[i] = (short)r.nextInt(4);
+        }
+        particles = new ParticleBatch(img, 4, px, py, size, rot, color, frame);
+        particles.set(calls, 0, 0);
+    }
+
+    @Benchmark
+    public GLFrameBuffer fillDrawQueue() {
+        fb.flushDrawQueue();
+
+        for (DrawInfo d : draws)
+            fb.blit(img, d);
+
+        return fb;
+    }
+
+    @Benchmark
+    public float[] packTiles() {
+        float[] out = vertices;
+
+        // Same quads as packQuads() without the rotation (what a tile map chunk draws).
+        for (int i = 0; i < calls; i++) {
+            Rect r = draws[i].drawRect;
+            GLTextureBatchRenderer.packTile(out, i * 4 * TexturedVertexInfo.FLOAT_CNT, r.getDrawX(), r.getDrawY(),
+                                            r.getW(), r.getH(), i & 15, vres);
+        }
+
+        return out;
+    }
+
+    @Benchmark
+    public float[] packParticles() {
+        float[] out = vertices;
+
+        for (int i = 0; i < calls; i++)
+            GLTextureBatchRenderer.packParticle(out, i * 4 * TexturedVertexInfo.FLOAT_CNT, particles, i, 0, vres);
+
+        return out;
+    }
+
+    @Benchmark
+    public float[] packQuads() {
+        float[] out = vertices;
+
+        for (int i = 0; i < calls; i++)
+            GLTextureBatchRenderer.packQuad(out, i * 4 * TexturedVertexInfo.FLOAT_CNT, draws[i], i & 15, vres);
+
+        return out;
+    }
+}
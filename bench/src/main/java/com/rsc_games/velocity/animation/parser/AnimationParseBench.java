@@ -0,0 +1,121 @@
+package com.rsc_games.velocity.animation.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.bench.BenchSupport;
+
+/**
+ * Animator loading: tokenizing with the legacy tokenizer and the single pass lexer,
+ * a full parse, and decoding the compiled form. Lives in the parser package to reach
+ * the package-private binary format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationParseBench {
+    /**
+     * Path the generated animator is served from.
+     */
+    static final String PATH = "bench.anim";
+
+    /**
+     * Amount of values of the generated "dir" parameter (two states each).
+     */
+    @Param({"4", "64"})
+    int directions;
+
+    byte[] src;
+    byte[] compiled;
+    byte[] hash;
+
+    @Setup
+    public void setup() {
+        BenchSupport.bootEngine();
+        src = generate(directions).getBytes(StandardCharsets.UTF_8);
+        BenchSupport.putFile(PATH, src);
+
+        hash = CompiledAnimation.hash(src);
+        compiled = CompiledAnimation.compile(src).toBinary(hash);
+    }
+
+    /**
+     * Generate an animator with a string and a bool parameter.
+     *
+     * @param dirs Amount of string values.
+     * @return The animator source.
+     */
+    static String generate(int dirs) {
+        StringBuilder b = new StringBuilder("@ANIM_ROOT;\n# generated benchmark animator\n@PARAM str \"dir\": {\n");
+
+        for (int d = 0; d < dirs; d++) {
+            b.append("@VALUE \"d").append(d).append("\": {\n  @PARAM bool \"idle\": {\n");
+
+            for (String v : new String[] {"true", "false"}) {
+                b.append("  @VALUE ").append(v).append(": {  # comment here\n");
+                b.append("    @FRAMES_PER_UPDATE 2;\n    @ONE_SHOT false;\n");
+
+                for (int f = 0; f < 8; f++)
+                    b.append("    @USE_TEX \"images/player/p_").append(d).append('_').append(f).append("\";\n");
+
+                b.append("  }\n");
+            }
+            b.append("  }\n}\n");
+        }
+
+        return b.append("}\n").toString();
+    }
+
+    /**
+     * Drain a token source.
+     *
+     * @param t The token source.
+     * @return Amount of tokens.
+     */
+    static int drain(TokenSource t) {
+        int n = 0;
+
+        while (t.available()) {
+            Token tok = t.getNextToken();
+            if (tok == null || tok.tok == TokenID.TOK_EOF)
+                break;
+            n++;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int tokenizeLegacy() {
+        return drain(new AFTokenizer(PATH));
+    }
+
+    @Benchmark
+    public int tokenizeLexer() {
+        return drain(new AFLexer(AFLexer.decode(src)));
+    }
+
+    @Benchmark
+    public CompiledAnimation parse() {
+        return CompiledAnimation.compile(src);
+    }
+
+    @Benchmark
+    public CompiledAnimation loadCompiled() {
+        return CompiledAnimation.fromBinary(compiled, hash);
+    }
+}
@@ -0,0 +1,99 @@
+package com.rsc_games.velocity.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.AABBArray;
+import com.rsc_games.velocity.Rect;
+
+/**
+ * One area tested against {@code count} boxes: a plain {@code Rect.overlaps()} loop versus
+ * {@code AABBArray} queries with the scalar and Vector API kernels. The boxes are spread
+ * over a large world so only a few overlap, like a collider or the viewport would see.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class AABBQueryBench {
+    @Param({"256", "4096"})
+    int count;
+
+    Rect[] rects;
+    AABBArray boxes;
+    Rect area;
+    int[] out;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(1234);
+        rects = new Rect[count];
+        boxes = new AABBArray(count);
+        out = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            rects[i] = new Rect(r.nextInt(8000), r.nextInt(8000), 8 + r.nextInt(64), 8 + r.nextInt(64));
+            boxes.add(rects[i]);
+        }
+
+        area = new Rect(4000, 4000, 640, 480);
+    }
+
+    @Benchmark
+    public int rectLoop() {
+        int hits = 0;
+
+        for (int i = 0; i < count; i++)
+            if (area.overlaps(rects[i]))
+                out[hits++] = i;
+
+        return hits;
+    }
+
+    @Benchmark
+    public int scalarQuery(ScalarKernel k) {
+        return boxes.query(area, out);
+    }
+
+    @Benchmark
+    public int vectorQuery(VectorKernel k) {
+        return boxes.query(area, out);
+    }
+
+    /**
+     * Selects the scalar kernel for a trial.
+     */
+    @State(Scope.Thread)
+    public static class ScalarKernel {
+        @Setup
+        public void setup() {
+            AABBArray.setVectorized(false);
+        }
+    }
+
+    /**
+     * Selects the Vector API kernel for a trial.
+     */
+    @State(Scope.Thread)
+    public static class VectorKernel {
+        @Setup
+        public void setup() {
+            if (!AABBArray.setVectorized(true))
+                throw new IllegalStateException("Vector API unavailable!");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.rsc_games.velocity.bench;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import javax.imageio.ImageIO;
+
+import com.rsc_games.velocity.PipelineManager;
+import com.rsc_games.velocity.config.GlobalAppConfig;
+import com.rsc_games.velocity.renderer.headless.HeadlessPipeline;
+import com.rsc_games.velocity.system.ResourceLoader;
+import com.rsc_games.velocity.util.Logger;
+import com.rsc_games.velocity.util.Point;
+
+/**
+ * Shared benchmark setup. Boots just enough of the engine to create sprites: a default
+ * app config, the headless pipeline, and an in-memory resource loader that hands out a
+ * generated image for every path that wasn't registered with {@code putFile()}, so no
+ * assets or GPU are needed.
+ */
+public final class BenchSupport {
+    /**
+     * The image every path resolves to.
+     */
+    private static final byte[] PNG = makePNG(32, 32);
+
+    /**
+     * Registered in-memory files.
+     */
+    private static final HashMap<String, byte[]> files = new HashMap<String, byte[]>();
+
+    private BenchSupport() {}
+
+    /**
+     * Set up the headless engine (only once per JVM).
+     */
+    public static synchronized void bootEngine() {
+        if (PipelineManager.getPipeline() != null)
+            return;
+
+        Logger.level = Logger.LOG_WARN;
+        GlobalAppConfig.bcfg = new GlobalAppConfig();
+        PipelineManager.installPipeline(new HeadlessPipeline(new Point(1280, 720)));
+        ResourceLoader.registerAppResourceLoader(new ResourceLoader() {
+            @Override
+            public BufferedInputStream load(String filePath) {
+                byte[] data;
+                synchronized (BenchSupport.class) {
+                    data = files.getOrDefault(filePath, PNG);
+                }
+                return new BufferedInputStream(new ByteArrayInputStream(data));
+            }
+        });
+    }
+
+    /**
+     * Serve a file from memory through the app resource loader.
+     *
+     * @param path The file path.
+     * @param data The file contents.
+     */
+    public static synchronized void putFile(String path, byte[] data) {
+        files.put(path, data);
+    }
+
+    /**
+     * Generate a test image with some alpha so conversions take the ABGR path.
+     *
+     * @param w Image width.
+     * @param h Image height.
+     * @return The image.
+     */
+    public static BufferedImage makeImage(int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++)
+                img.setRGB(x, y, ((x ^ y) << 24) | (x * 7 << 16) | (y * 13 << 8) | (x + y));
+
+        return img;
+    }
+
+    /**
+     * Encode a generated test image.
+     *
+     * @param w Image width.
+     * @param h Image height.
+     * @return PNG bytes.
+     */
+    private static byte[] makePNG(int w, int h) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(makeImage(w, h), "png", out);
+            return out.toByteArray();
+        }
+        catch (IOException ie) {
+            throw new RuntimeException(ie);
+        }
+    }
+}
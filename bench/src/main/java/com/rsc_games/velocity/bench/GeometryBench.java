@@ -0,0 +1,106 @@
+package com.rsc_games.velocity.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rsc_games.velocity.Line;
+import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Vector2;
+
+/**
+ * Collision primitives and vector math. Each invocation runs over a fixed set of
+ * {@code COUNT} random shapes so branch prediction sees a realistic mix of hits and misses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBench {
+    /**
+     * Shapes per invocation.
+     */
+    static final int COUNT = 1024;
+
+    Rect[] rects = new Rect[COUNT];
+    Line[] lines = new Line[COUNT];
+    Point[] points = new Point[COUNT];
+    Vector2[] vectors = new Vector2[COUNT];
+
+    @Setup
+    public void setup() {
+        Random r = new Random(1234);
+
+        for (int i = 0; i < COUNT; i++) {
+            rects[i] = new Rect(r.nextInt(1000), r.nextInt(1000), 8 + r.nextInt(64), 8 + r.nextInt(64));
+            lines[i] = new Line(new Point(r.nextInt(1000), r.nextInt(1000)),
+                                new Point(r.nextInt(1000), r.nextInt(1000)));
+            points[i] = new Point(r.nextInt(1000) - 500, r.nextInt(1000) - 500);
+            vectors[i] = new Vector2(r.nextFloat() * 1000 - 500, r.nextFloat() * 1000 - 500);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int rectOverlaps() {
+        int hits = 0;
+
+        for (int i = 0; i < COUNT; i++)
+            if (rects[i].overlaps(rects[(i * 31 + 7) & (COUNT - 1)]))
+                hits++;
+
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int lineOverlapsRect() {
+        int hits = 0;
+
+        for (int i = 0; i < COUNT; i++)
+            if (lines[i].overlaps(rects[(i * 31 + 7) & (COUNT - 1)]))
+                hits++;
+
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void pointArithmetic(Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            Point a = points[i], b = points[(i + 1) & (COUNT - 1)];
+            bh.consume(a.add(b).mult(3).sub(a).div(2));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void pointDistance(Blackhole bh) {
+        for (int i = 0; i < COUNT; i++)
+            bh.consume(points[i].distanceTo(points[(i + 1) & (COUNT - 1)]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void vectorArithmetic(Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            Vector2 a = vectors[i], b = vectors[(i + 1) & (COUNT - 1)];
+            bh.consume(a.add(b).mult(0.5f).sub(a).normalize());
+        }
+    }
+}
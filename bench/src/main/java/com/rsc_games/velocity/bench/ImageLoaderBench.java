@@ -0,0 +1,44 @@
+package com.rsc_games.velocity.bench;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.system.ImageLoader;
+
+/**
+ * Pixel format conversion done on every image load.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageLoaderBench {
+    @Param({"64", "512"})
+    int size;
+
+    BufferedImage src;
+
+    @Setup
+    public void setup() {
+        src = BenchSupport.makeImage(size, size);
+    }
+
+    @Benchmark
+    public BufferedImage convert() {
+        return ImageLoader.convert(src);
+    }
+}
@@ -0,0 +1,92 @@
+package com.rsc_games.velocity.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.util.Point;
+
+/**
+ * Allocating vs in-place math. Run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm}: the in-place variants should report 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathAllocBench {
+    /**
+     * Values per invocation.
+     */
+    static final int COUNT = 1024;
+
+    Point[] points = new Point[COUNT];
+    Rect[] rects = new Rect[COUNT];
+    Point acc = new Point(0, 0);
+
+    @Setup
+    public void setup() {
+        Random r = new Random(1234);
+
+        for (int i = 0; i < COUNT; i++) {
+            points[i] = new Point(r.nextInt(21) - 10, r.nextInt(21) - 10);
+            rects[i] = new Rect(r.nextInt(1000), r.nextInt(1000), 8 + r.nextInt(64), 8 + r.nextInt(64));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Point pointAdd() {
+        Point p = new Point(0, 0);
+        for (Point o : points)
+            p = p.add(o).sub(1);
+        return p;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Point pointAddLocal() {
+        Point p = acc.setTo(0, 0);
+        for (Point o : points)
+            p.addLocal(o).subLocal(1, 1);
+        return p;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int rectMoveViaPoints() {
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            Rect r = rects[i];
+            r.setPos(r.getPos().add(points[i]));
+            sum += r.getDrawLoc().x;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int rectMoveInPlace() {
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            Rect r = rects[i];
+            r.translate(points[i].x, points[i].y);
+            sum += r.getDrawX();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,116 @@
+package com.rsc_games.velocity.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.Scene;
+import com.rsc_games.velocity.sprite.ImageSprite;
+import com.rsc_games.velocity.sprite.ParticleEmitter;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * One 60 Hz step of an effect with {@code particles} live particles (one second
+ * lifetime, so a sixtieth of them are replaced every step). "emitter" is a
+ * {@code ParticleEmitter}; "sprites" is the same effect built from one sprite per
+ * particle, added to and removed from a scene. Run with {@code -prof gc} for the
+ * allocation per step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParticleBench {
+    static final float STEP = 1 / 60f;
+
+    @Param({"100000"})
+    int particles;
+
+    ParticleEmitter emitter;
+    Scene scene;
+    ArrayList<Spark> sparks = new ArrayList<Spark>();
+    int spawned = 0;
+
+    /**
+     * A particle as a sprite.
+     */
+    static class Spark extends ImageSprite {
+        float vx, vy, life = 1f;
+
+        Spark(int i) {
+            super(new Transform(new Point(0, 0)), "Spark", "spark.png");
+            vx = (i % 200) - 100;
+            vy = (i % 150) - 75;
+        }
+
+        @Override
+        protected void onTick() {
+            vy += 300 * STEP;
+            transform.location.translate((int)(vx * STEP), (int)(vy * STEP));
+            life -= STEP;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        BenchSupport.bootEngine();
+        emitter = new ParticleEmitter(new Transform(new Point(0, 0)), "Emitter", "spark.png", particles);
+        emitter.setRate(particles).setLifetime(1f, 1f).setSpeed(50, 150).setGravity(0, 300).setSpin(-90, 90);
+        for (int i = 0; i < 70; i++)
+            emitter.update(STEP);
+
+        scene = new Scene("ParticleBench", 0) {};
+        Scene.currentScene = scene;
+        for (int i = 0; i < particles; i++) {
+            Spark s = new Spark(spawned++);
+            s.life = (i % 60) * STEP;
+            sparks.add(s);
+            scene.addSprite(s);
+        }
+        scene.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Scene.currentScene = null;
+    }
+
+    @Benchmark
+    public ParticleEmitter emitter() {
+        emitter.update(STEP);
+        return emitter;
+    }
+
+    @Benchmark
+    public Scene sprites() {
+        scene.tick();
+
+        // Replace the dead sparks.
+        for (int i = 0; i < sparks.size(); i++) {
+            Spark s = sparks.get(i);
+            if (s.life > 0f)
+                continue;
+
+            scene.removeSprite(s);
+            Spark n = new Spark(spawned++);
+            sparks.set(i, n);
+            scene.addSprite(n);
+        }
+        return scene;
+    }
+}
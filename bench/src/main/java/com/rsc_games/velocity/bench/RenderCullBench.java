@@ -0,0 +1,88 @@
+package com.rsc_games.velocity.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.Scene;
+import com.rsc_games.velocity.renderer.headless.HeadlessFrameBuffer;
+import com.rsc_games.velocity.sprite.Camera;
+import com.rsc_games.velocity.sprite.ImageSprite;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * Rendering a large world of static image sprites (some scaled and rotated) with a
+ * 1280x720 camera. Sprites sit 64px apart, so the same ~240 are on screen whatever
+ * the world size; the render cost should stay flat as {@code sprites} grows. "tick"
+ * is there to show what keeping the render grid up to date costs the tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class RenderCullBench {
+    @Param({"10000", "100000"})
+    int sprites;
+
+    Scene scene;
+    HeadlessFrameBuffer fb = new HeadlessFrameBuffer();
+
+    /**
+     * The world. The camera sits on its top left corner.
+     */
+    static class BenchScene extends Scene {
+        BenchScene(int count) {
+            super("RenderCullBench", 0);
+            int side = (int)Math.ceil(Math.sqrt(count));
+
+            for (int i = 0; i < count; i++) {
+                Point p = new Point(-640 + (i % side) * 64 + 32, -360 + (i / side) * 64 + 32);
+                ImageSprite s = new ImageSprite(new Transform(p), "Prop" + i, "prop.png");
+                s.transform.rotation = (i % 4) * 30f;
+                s.transform.scale.setTo(1 + i % 2, 1 + i % 2);
+                sprites.add(s);
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        BenchSupport.bootEngine();
+        Camera.res = new Point(1280, 720);
+        scene = new BenchScene(sprites);
+        Scene.currentScene = scene;
+        scene.init();
+        scene.tick();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Scene.currentScene = null;
+    }
+
+    @Benchmark
+    public Scene tick() {
+        scene.tick();
+        return scene;
+    }
+
+    @Benchmark
+    public Scene render() {
+        scene.render(fb, fb);
+        return scene;
+    }
+}
@@ -0,0 +1,137 @@
+package com.rsc_games.velocity.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.SaveGame;
+import com.rsc_games.velocity.Saveable;
+import com.rsc_games.velocity.Scene;
+import com.rsc_games.velocity.Snapshot;
+import com.rsc_games.velocity.SnapshotReader;
+import com.rsc_games.velocity.SnapshotWriter;
+import com.rsc_games.velocity.sprite.Sprite;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * Save game costs for a scene of {@code sprites} saveable sprites. "capture" is what a
+ * background save costs the game thread; "saveFull" and "saveDelta" (1% of the sprites
+ * moved since the last save, including a compaction every {@code MAX_DELTAS} saves)
+ * are the work done on the save thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveGameBench {
+    @Param({"10000"})
+    int sprites;
+
+    Scene scene;
+    ArrayList<Unit> units;
+    File file;
+    SaveGame save;
+    int tick = 0;
+
+    /**
+     * Sprite with a few saved fields.
+     */
+    static class Unit extends Sprite implements Saveable {
+        int hp = 100, ammo = 30;
+        float heat = 0f;
+
+        Unit(Transform t, String name) {
+            super(t, name);
+        }
+
+        @Override
+        public int getSaveVersion() {
+            return 1;
+        }
+
+        @Override
+        public void save(SnapshotWriter out) {
+            out.putInt(hp);
+            out.putInt(ammo);
+            out.putFloat(heat);
+        }
+
+        @Override
+        public void load(SnapshotReader in, int version) {
+            hp = in.getInt();
+            ammo = in.getInt();
+            heat = in.getFloat();
+        }
+    }
+
+    /**
+     * Scene of units.
+     */
+    static class BenchScene extends Scene {
+        BenchScene(int count) {
+            super("SaveGameBench", 0);
+            for (int i = 0; i < count; i++)
+                sprites.add(new Unit(new Transform(new Point(i % 100, i / 100)), "Unit" + i));
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        BenchSupport.bootEngine();
+        scene = new BenchScene(sprites);
+        Scene.currentScene = scene;
+        units = scene.getSprites(Unit.class);
+
+        file = File.createTempFile("velocity-bench", ".vsav");
+        save = new SaveGame(file.getPath());
+        save.save();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Scene.currentScene = null;
+        file.delete();
+    }
+
+    @Benchmark
+    public Snapshot capture() {
+        return Snapshot.capture(scene);
+    }
+
+    @Benchmark
+    public SaveGame saveFull() throws IOException {
+        SaveGame g = new SaveGame(file.getPath());
+        g.save();
+        return g;
+    }
+
+    @Benchmark
+    public SaveGame saveDelta() throws IOException {
+        tick++;
+        for (int i = 0; i < units.size() / 100; i++) {
+            Unit u = units.get((tick * 37 + i * 101) % units.size());
+            u.transform.location.translate(1, 0);
+            u.hp--;
+        }
+
+        save.save();
+        return save;
+    }
+}
@@ -0,0 +1,102 @@
+package com.rsc_games.velocity.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.scene.SceneFile;
+import com.rsc_games.velocity.scene.SceneFileWriter;
+import com.rsc_games.velocity.scene.SceneObjectTypes;
+import com.rsc_games.velocity.sprite.ImageSprite;
+import com.rsc_games.velocity.sprite.Sprite;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * Loading a level of {@code objects} image sprites (16 distinct images, a couple of
+ * properties each). "parse" maps the scene file and reads its columns, "load" also
+ * creates every sprite, and "constructor" creates the same sprites the way a hand
+ * written scene constructor does, for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SceneFileBench {
+    @Param({"50000"})
+    int objects;
+
+    File file;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchSupport.bootEngine();
+
+        SceneFileWriter w = new SceneFileWriter();
+        for (int i = 0; i < objects; i++) {
+            w.addObject(SceneObjectTypes.IMAGE_SPRITE, "Object" + i,
+                        new Transform(new Point((i % 250) * 32, (i / 250) * 32)), "tile" + (i % 16) + ".png")
+             .setInt("hp", i % 100)
+             .setString("group", "g" + (i % 8));
+        }
+
+        file = File.createTempFile("velocity-bench", ".vscn");
+        w.write(file.getPath());
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Map and parse the file.
+     *
+     * @return The parsed file.
+     * @throws IOException Never.
+     */
+    private SceneFile map() throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return SceneFile.read(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    @Benchmark
+    public SceneFile parse() throws IOException {
+        return map();
+    }
+
+    @Benchmark
+    public ArrayList<Sprite> load() throws IOException {
+        ArrayList<Sprite> out = new ArrayList<Sprite>();
+        map().createSprites(out);
+        return out;
+    }
+
+    @Benchmark
+    public ArrayList<Sprite> constructor() {
+        ArrayList<Sprite> out = new ArrayList<Sprite>();
+        for (int i = 0; i < objects; i++)
+            out.add(new ImageSprite(new Transform(new Point((i % 250) * 32, (i / 250) * 32)), "Object" + i,
+                                    "tile" + (i % 16) + ".png"));
+        return out;
+    }
+}
@@ -0,0 +1,114 @@
+package com.rsc_games.velocity.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.Scene;
+import com.rsc_games.velocity.sprite.ConcurrentInit;
+import com.rsc_games.velocity.sprite.Sprite;
+import com.rsc_games.velocity.system.ImageLoader;
+import com.rsc_games.velocity.system.ResourceLoader;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * {@code Scene.init()} on a freshly built scene of {@code sprites} sprites. Sprites
+ * either have an empty {@code onInit()} ("empty") or decode an image in it, once on
+ * the game thread ("fetch") and once declared safe for parallel init ("parallelFetch").
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SceneInitBench {
+    @Param({"1000", "10000", "100000"})
+    int sprites;
+
+    @Param({"empty", "fetch", "parallelFetch"})
+    String init;
+
+    Scene scene;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        BenchSupport.bootEngine();
+        scene = new BenchScene(sprites, init);
+        Scene.currentScene = scene;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        Scene.currentScene = null;
+    }
+
+    /**
+     * Sprite with an empty init.
+     */
+    static class EmptySprite extends Sprite {
+        EmptySprite(Transform t, String name) {
+            super(t, name);
+        }
+    }
+
+    /**
+     * Sprite decoding its image at init (the asset fetch case).
+     */
+    static class FetchSprite extends Sprite {
+        FetchSprite(Transform t, String name) {
+            super(t, name);
+        }
+
+        @Override
+        protected void onInit() {
+            ImageLoader.loadRawImage(ResourceLoader.getAppLoader(), "fetch.png");
+        }
+    }
+
+    /**
+     * The same fetch, declared safe to run in parallel.
+     */
+    static class ParallelFetchSprite extends FetchSprite implements ConcurrentInit {
+        ParallelFetchSprite(Transform t, String name) {
+            super(t, name);
+        }
+    }
+
+    /**
+     * Scene filled the way a game scene constructor does it.
+     */
+    static class BenchScene extends Scene {
+        BenchScene(int count, String init) {
+            super("SceneInitBench", 0);
+
+            for (int i = 0; i < count; i++) {
+                Transform t = new Transform(new Point(i % 100, i / 100));
+                switch (init) {
+                    case "fetch": sprites.add(new FetchSprite(t, "Sprite" + i)); break;
+                    case "parallelFetch": sprites.add(new ParallelFetchSprite(t, "Sprite" + i)); break;
+                    default: sprites.add(new EmptySprite(t, "Sprite" + i));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Scene init() {
+        scene.init();
+        return scene;
+    }
+}
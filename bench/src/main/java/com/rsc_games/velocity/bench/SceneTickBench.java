@@ -0,0 +1,82 @@
+package com.rsc_games.velocity.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.Scene;
+import com.rsc_games.velocity.renderer.headless.HeadlessFrameBuffer;
+import com.rsc_games.velocity.sprite.collision.DynamicSprite;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * A full scene tick (sprite ticks, collision and physics) and render pass with
+ * {@code sprites} dynamic sprites laid out on a grid with touching neighbours.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneTickBench {
+    @Param({"100", "500", "2000"})
+    int sprites;
+
+    Scene scene;
+    HeadlessFrameBuffer fb = new HeadlessFrameBuffer();
+
+    @Setup
+    public void setup() {
+        BenchSupport.bootEngine();
+        scene = new BenchScene(sprites);
+        Scene.currentScene = scene;
+        scene.init();
+    }
+
+    /**
+     * Scene filled the way a game scene constructor does it (sprites are initialized
+     * by {@code Scene.init()}).
+     */
+    static class BenchScene extends Scene {
+        BenchScene(int count) {
+            super("SceneTickBench", 0);
+            int side = (int)Math.ceil(Math.sqrt(count));
+
+            // 32px sprites on a 30px grid, so every sprite touches its neighbours.
+            for (int i = 0; i < count; i++) {
+                Point p = new Point((i % side) * 30, (i / side) * 30);
+                sprites.add(new DynamicSprite(new Transform(p), "Sprite" + i, "bench.png"));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Scene.currentScene = null;
+    }
+
+    @Benchmark
+    public Scene tick() {
+        scene.tick();
+        return scene;
+    }
+
+    @Benchmark
+    public Scene render() {
+        scene.render(fb, fb);
+        return scene;
+    }
+}
@@ -0,0 +1,125 @@
+package com.rsc_games.velocity.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.Scene;
+import com.rsc_games.velocity.sprite.ImageSprite;
+import com.rsc_games.velocity.sprite.Poolable;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * One tick of a shooter with {@code bullets} live bullets, each living 60 ticks (so a
+ * sixtieth of them are replaced every tick). "alloc" creates every bullet with
+ * {@code new} and {@code addSprite()} and removes it with {@code removeSprite()};
+ * "pooled" uses {@code spawn()} and {@code despawn()}. Run with {@code -prof gc} for
+ * the allocation per tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpawnBench {
+    static final int LIFETIME = 60;
+
+    @Param({"1000"})
+    int bullets;
+
+    @Param({"alloc", "pooled"})
+    String mode;
+
+    Scene scene;
+    ArrayList<Bullet> live = new ArrayList<Bullet>();
+    boolean pooled;
+
+    /**
+     * A bullet that flies right for a second.
+     */
+    static class Bullet extends ImageSprite implements Poolable {
+        int age = 0;
+
+        Bullet() {
+            super(new Transform(new Point(0, 0)), "Bullet", "bullet.png");
+        }
+
+        @Override
+        public void onReuse() {
+            age = 0;
+            transform.location.setPos(0, 0);
+        }
+
+        @Override
+        protected void onTick() {
+            transform.location.translate(4, 0);
+            age++;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        BenchSupport.bootEngine();
+        pooled = mode.equals("pooled");
+        scene = new Scene("SpawnBench", 0) {};
+        Scene.currentScene = scene;
+        scene.init();
+
+        for (int i = 0; i < bullets; i++) {
+            Bullet b = fire();
+            b.age = i % LIFETIME;
+            live.add(b);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Scene.currentScene = null;
+    }
+
+    /**
+     * Fire a bullet.
+     */
+    Bullet fire() {
+        if (pooled)
+            return scene.spawn(Bullet.class, Bullet::new);
+
+        Bullet b = new Bullet();
+        scene.addSprite(b);
+        return b;
+    }
+
+    @Benchmark
+    public Scene tick() {
+        scene.tick();
+
+        // Replace the expired bullets.
+        for (int i = 0; i < live.size(); i++) {
+            Bullet b = live.get(i);
+            if (b.age < LIFETIME)
+                continue;
+
+            if (pooled)
+                scene.despawn(b);
+            else
+                scene.removeSprite(b);
+
+            live.set(i, fire());
+        }
+        return scene;
+    }
+}
@@ -0,0 +1,121 @@
+package com.rsc_games.velocity.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.Scene;
+import com.rsc_games.velocity.renderer.headless.HeadlessFrameBuffer;
+import com.rsc_games.velocity.sprite.ImageSprite;
+import com.rsc_games.velocity.sprite.TileMap;
+import com.rsc_games.velocity.sprite.collision.DynamicSprite;
+import com.rsc_games.velocity.sprite.collision.RectCollider;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * A {@code side} by {@code side} tile level (32px tiles, about 10% of them solid) with
+ * 100 dynamic sprites walking on it, built either the old way ("sprites": an
+ * {@code ImageSprite} per tile plus a {@code RectCollider} per solid tile) or as one
+ * {@code TileMap}. The camera sees about 40 by 23 tiles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class TileMapBench {
+    @Param({"500"})
+    int side;
+
+    @Param({"sprites", "tilemap"})
+    String layout;
+
+    Scene scene;
+    HeadlessFrameBuffer fb = new HeadlessFrameBuffer();
+
+    /**
+     * Whether a tile is solid.
+     */
+    static boolean solid(int tx, int ty) {
+        return (tx * 7 + ty * 13) % 10 == 0;
+    }
+
+    /**
+     * The level. Its top left corner is at the top left of the camera view.
+     */
+    static class BenchScene extends Scene {
+        BenchScene(int side, boolean tileMap) {
+            super("TileMapBench", 0);
+            int left = -640, top = -360;
+
+            if (tileMap) {
+                TileMap map = new TileMap(new Transform(new Point(left + side * 16, top + side * 16)), "Level",
+                                          side, side, 32, 32);
+                int floor = map.addTile("floor.png", false), wall = map.addTile("wall.png", true);
+
+                for (int ty = 0; ty < side; ty++)
+                    for (int tx = 0; tx < side; tx++)
+                        map.setTile(tx, ty, solid(tx, ty) ? wall : floor);
+                sprites.add(map);
+            }
+            else {
+                for (int ty = 0; ty < side; ty++) {
+                    for (int tx = 0; tx < side; tx++) {
+                        Point p = new Point(left + tx * 32 + 16, top + ty * 32 + 16);
+                        sprites.add(new ImageSprite(new Transform(p), "Tile", solid(tx, ty) ? "wall.png" : "floor.png"));
+                        if (solid(tx, ty)) {
+                            RectCollider c = new RectCollider(new Transform(new Point(p)), "Wall");
+                            c.transform.updateRect(new Point(32, 32));
+                            sprites.add(c);
+                        }
+                    }
+                }
+            }
+
+            // Walkers spread over the first 40 by 40 tiles.
+            for (int i = 0; i < 100; i++) {
+                Point p = new Point(left + (i % 10) * 128 + 16, top + (i / 10) * 128 + 16);
+                sprites.add(new DynamicSprite(new Transform(p), "Walker" + i, "walker.png"));
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        BenchSupport.bootEngine();
+        scene = new BenchScene(side, layout.equals("tilemap"));
+        Scene.currentScene = scene;
+        scene.init();
+        scene.tick();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Scene.currentScene = null;
+    }
+
+    @Benchmark
+    public Scene tick() {
+        scene.tick();
+        return scene;
+    }
+
+    @Benchmark
+    public Scene render() {
+        scene.render(fb, fb);
+        return scene;
+    }
+}
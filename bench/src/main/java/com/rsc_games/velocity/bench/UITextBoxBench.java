@@ -0,0 +1,68 @@
+package com.rsc_games.velocity.bench;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.renderer.DrawInfo;
+import com.rsc_games.velocity.renderer.headless.HeadlessFrameBuffer;
+import com.rsc_games.velocity.sprite.ui.UITextBox;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * Word wrapping a paragraph in a text box (done on every UI render).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UITextBoxBench {
+    /**
+     * Paragraph to wrap. No word may be wider than the box.
+     */
+    static final String TEXT = "The quick brown fox jumps over the lazy dog while the engine renders "
+                               + "another frame of text that has to be wrapped into a box of fixed "
+                               + "width every single time the UI is drawn on screen.";
+
+    /**
+     * Text box with settable text.
+     */
+    static class BenchTextBox extends UITextBox {
+        BenchTextBox(Transform t) {
+            super(t, "BenchTextBox", "Serif", Color.white);
+            this.text = TEXT;
+        }
+    }
+
+    BenchTextBox box;
+    DrawInfo info;
+    HeadlessFrameBuffer fb = new HeadlessFrameBuffer();
+
+    @Setup
+    public void setup() {
+        BenchSupport.bootEngine();
+        Rect r = new Rect(new Point(200, 200), 240, 400);
+        box = new BenchTextBox(new Transform(r));
+        info = new DrawInfo(r, 0, new Point(1, 1), 0);
+    }
+
+    @Benchmark
+    public UITextBox wrap() {
+        box.renderUI(info, fb);
+        return box;
+    }
+}
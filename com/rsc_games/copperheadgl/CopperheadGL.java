@@ -15,6 +15,7 @@ import com.rsc_games.velocity.renderer.window.Window;
 import com.rsc_games.velocity.renderer.window.WindowConfig;
 import com.rsc_games.velocity.renderer.window.WindowOption;
 import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Profiler;
 
 import static org.lwjgl.glfw.GLFW.glfwPollEvents;
 import static org.lwjgl.glfw.GLFW.glfwSwapBuffers;
@@ -104,7 +105,9 @@ public class CopperheadGL extends RenderPipeline {
 
         // Submit all the drawcalls to the backend renderer.
         GLFrameBuffer uiFrameBuffer = iRendererContext.getBackBuffer();
+        Profiler.begin("Scene.render");
         Scene.currentScene.render(backBuffer, uiFrameBuffer);
+        Profiler.end();
 
         // Modern replacement for the debug renderer.
         // Draw collision rects and other debug information.
@@ -113,10 +116,17 @@ public class CopperheadGL extends RenderPipeline {
 
         // Backbuffer has already submitted all of its data to the backend renderer.
         // Use that data to composite a frame.
+        Profiler.begin("GLRendererContext.renderFrame");
         iRendererContext.renderFrame();
+        Profiler.end();
 
         // Swap the framebuffers.
+        Profiler.begin("glfwSwapBuffers");
         glfwSwapBuffers(window.getHwnd());
+        Profiler.end();
+
+        // The frame is out; stay within the texture memory budget.
+        iRendererContext.manageTextureResidency();
     }
 
     /**
@@ -170,7 +180,14 @@ public class CopperheadGL extends RenderPipeline {
      */
     @Override
     public boolean registerTexture(BufferedImage image, String path) {
-        return this.iRendererContext.loadImage(image, path) != null;
+        // Only the cache entry is wanted here; drop the handle right away so the
+        // reference count stays exact.
+        RendererImage tmp = this.iRendererContext.loadImage(image, path);
+        if (tmp == null)
+            return false;
+
+        tmp.release();
+        return true;
     }
 
     /**
@@ -185,6 +202,57 @@ public class CopperheadGL extends RenderPipeline {
         return this.iRendererContext.lookupTexture(path);
     }
 
+    /**
+     * Upload textures that were registered while preloading a scene.
+     * 
+     * @param budgetNanos Time to spend uploading.
+     * @return Amount of textures still waiting.
+     */
+    @Override
+    public int uploadPendingTextures(long budgetNanos) {
+        return this.iRendererContext.uploadPendingTextures(budgetNanos);
+    }
+
+    /**
+     * Get the amount of textures waiting for upload.
+     * 
+     * @return The pending texture count.
+     */
+    @Override
+    public int getPendingTextureUploads() {
+        return this.iRendererContext.getPendingTextureUploads();
+    }
+
+    /**
+     * Get the estimated GPU memory used by textures.
+     * 
+     * @return Resident bytes.
+     */
+    @Override
+    public long getResidentTextureBytes() {
+        return this.iRendererContext.getResidentTextureBytes();
+    }
+
+    /**
+     * Get the amount of textures evicted to stay within the texture memory budget.
+     * 
+     * @return The eviction count.
+     */
+    @Override
+    public long getTextureEvictions() {
+        return this.iRendererContext.getTextureEvictions();
+    }
+
+    /**
+     * Get the amount of evicted textures that had to be uploaded again.
+     * 
+     * @return The re-upload count.
+     */
+    @Override
+    public long getTextureReuploads() {
+        return this.iRendererContext.getTextureReuploads();
+    }
+
     /**
      * Deinitialize the pipeline. Free all resources, release hardware, etc.
      */
@@ -195,10 +263,9 @@ public class CopperheadGL extends RenderPipeline {
     }
 
     /**
-     * By default in LumaViper CPU the texture GC only runs once you have 256 textures 
-     * loaded in texture memory. This behavior may vary across rendering backends, but
-     * in any case, if there are a bunch of unreferenced textures eating up memory, this
-     * will force the texture cache to erase them. Then it's up to the JVM GC to clear it.
+     * Erase every unreferenced texture from the texture cache. Otherwise CopperheadGL
+     * keeps unreferenced textures around until {@code TEXTURE_VRAM_BUDGET_MB} needs
+     * the space (they're freed right away when there is no budget).
      */
     public void forceGCRun() {
         iRendererContext.runTextureGC();
@@ -3,6 +3,8 @@ package com.rsc_games.copperheadgl;
 enum GLCallType {
     DRAW_BLIT,
     DRAW_SHADE,
+    DRAW_TILES,
+    DRAW_PARTICLES,
     DRAW_LINE,
     DRAW_LINES,
     DRAW_RECT,
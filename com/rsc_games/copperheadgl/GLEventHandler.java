@@ -16,13 +16,15 @@ import static org.lwjgl.glfw.GLFW.glfwSetMouseButtonCallback;
 import static org.lwjgl.opengl.GL11C.*;
 
 import java.awt.event.MouseEvent;
-import java.util.HashMap;
 
 import com.rsc_games.velocity.InputSystem;
 import com.rsc_games.velocity.config.GlobalAppConfig;
 
 class GLEventHandler {
-    private static final HashMap<Integer, Integer> GLFW_MOUSE_TO_AWT = new HashMap<Integer, Integer>();
+    /**
+     * AWT button for each GLFW mouse button (indexed by GLFW button).
+     */
+    private static final int[] GLFW_MOUSE_TO_AWT = new int[GLFW_MOUSE_BUTTON_6 + 1];
 
     static {
         fillMouseData();
@@ -32,12 +34,12 @@ class GLEventHandler {
     private InputSystem inputSystem;
 
     private static void fillMouseData() {
-        GLFW_MOUSE_TO_AWT.put(GLFW_MOUSE_BUTTON_1, MouseEvent.BUTTON1);
-        GLFW_MOUSE_TO_AWT.put(GLFW_MOUSE_BUTTON_2, MouseEvent.BUTTON3);
-        GLFW_MOUSE_TO_AWT.put(GLFW_MOUSE_BUTTON_3, MouseEvent.BUTTON2);
-        GLFW_MOUSE_TO_AWT.put(GLFW_MOUSE_BUTTON_4, 4);
-        GLFW_MOUSE_TO_AWT.put(GLFW_MOUSE_BUTTON_5, 5);
-        GLFW_MOUSE_TO_AWT.put(GLFW_MOUSE_BUTTON_6, 6);
+        GLFW_MOUSE_TO_AWT[GLFW_MOUSE_BUTTON_1] = MouseEvent.BUTTON1;
+        GLFW_MOUSE_TO_AWT[GLFW_MOUSE_BUTTON_2] = MouseEvent.BUTTON3;
+        GLFW_MOUSE_TO_AWT[GLFW_MOUSE_BUTTON_3] = MouseEvent.BUTTON2;
+        GLFW_MOUSE_TO_AWT[GLFW_MOUSE_BUTTON_4] = 4;
+        GLFW_MOUSE_TO_AWT[GLFW_MOUSE_BUTTON_5] = 5;
+        GLFW_MOUSE_TO_AWT[GLFW_MOUSE_BUTTON_6] = 6;
     }
 
     public GLEventHandler(GLWindow win) {
@@ -77,12 +79,12 @@ class GLEventHandler {
      * @param action Whether it was pressed or released.
      */
     private void iMouseHandler(int button, int action) {
-        if (!GLFW_MOUSE_TO_AWT.containsKey(button)) {
+        if (button < 0 || button >= GLFW_MOUSE_TO_AWT.length) {
             Logger.warn("copper", "Got unrecognized mouse button " + button);
             return;
         }
 
-        int awtButton = GLFW_MOUSE_TO_AWT.get(button);
+        int awtButton = GLFW_MOUSE_TO_AWT[button];
 
         if (action == GLFW_PRESS)
             this.inputSystem.mousePressed(awtButton);
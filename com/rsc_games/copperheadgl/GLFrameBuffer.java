@@ -4,7 +4,9 @@ import java.awt.Color;
 import com.rsc_games.velocity.util.Point;
 import com.rsc_games.velocity.renderer.DrawInfo;
 import com.rsc_games.velocity.renderer.FrameBuffer;
+import com.rsc_games.velocity.renderer.ParticleBatch;
 import com.rsc_games.velocity.renderer.RendererImage;
+import com.rsc_games.velocity.renderer.TileBatch;
 
 import java.awt.image.BufferedImage;
 
@@ -96,6 +98,42 @@ class GLFrameBuffer implements FrameBuffer {
         drawQueue.pushCall(d.drawLayer, drawcall);
     }
 
+    /**
+     * Draw every live particle of an emitter as one drawcall. The drawcall is kept
+     * on the batch and reused every frame.
+     * 
+     * @param batch The particles.
+     * @param drawLayer Sorting layer to draw on.
+     */
+    @Override
+    public void drawParticles(ParticleBatch batch, int drawLayer) {
+        if (batch.getCount() == 0 || batch.image == null) return;
+
+        if (!(batch.image instanceof GLRendererImage))
+            throw new IllegalArgumentException("CopperheadGL cannot use generic RendererImage!");
+
+        if (!(batch.rendererData instanceof GLDrawCall))
+            batch.rendererData = new GLDrawCall(GLCallType.DRAW_PARTICLES, new Object[] {batch});
+        drawQueue.pushCall(drawLayer, (GLDrawCall)batch.rendererData);
+    }
+
+    /**
+     * Draw a prebaked block of unshaded tiles. The whole block is one drawcall;
+     * the caller is expected to have culled offscreen blocks already.
+     * 
+     * @param batch The tiles.
+     * @param x Screen X location of the block's top left corner.
+     * @param y Screen Y location of the block's top left corner.
+     * @param drawLayer Sorting layer to draw on.
+     */
+    @Override
+    public void blitTiles(TileBatch batch, int x, int y, int drawLayer) {
+        if (batch.getCount() == 0) return;
+
+        Object[] params = new Object[] {batch, x, y};
+        drawQueue.pushCall(drawLayer, new GLDrawCall(GLCallType.DRAW_TILES, params));
+    }
+
     /**
      * Identify whether the provided object is cullable.
      * 
@@ -103,7 +141,6 @@ class GLFrameBuffer implements FrameBuffer {
      * @param d Draw info.
      * @return If its cullable.
      */
-    @SuppressWarnings("deprecation")
     private boolean cullable(RendererImage other, DrawInfo d) {
         // Don't waste time trying to draw a null image.
         if (other == null)
@@ -114,10 +151,12 @@ class GLFrameBuffer implements FrameBuffer {
         if (!(other instanceof GLRendererImage))
             throw new IllegalArgumentException("CopperheadGL cannot use generic RendererImage!");
 
-        // Attempt to cull the texture if offscreen.
-        Point pos = d.drawRect.getDrawLoc();
-        Rect imgRect = new Rect(new int[] {pos.x, pos.y, other.getWidth(), other.getHeight()}, true);
-        if (!this.fbRect.overlaps(imgRect))
+        // Attempt to cull the texture if offscreen (by the quad actually drawn, so
+        // scaled and rotated sprites aren't cut off).
+        Rect r = d.drawRect;
+        int ex = DrawInfo.extentX(r.getW(), r.getH(), d.scale.x, d.scale.y, d.rot);
+        int ey = DrawInfo.extentY(r.getW(), r.getH(), d.scale.x, d.scale.y, d.rot);
+        if (!this.fbRect.overlaps(r.getCenterX() - ex, r.getCenterY() - ey, ex * 2, ey * 2))
             return true;
 
         return false;
@@ -10,6 +10,7 @@ import static org.lwjgl.opengl.GL11.glBlendFunc;
 import static org.lwjgl.opengl.GL11.glClear;
 import static org.lwjgl.opengl.GL11.glClearColor;
 import static org.lwjgl.opengl.GL11.glEnable;
+import static org.lwjgl.opengl.GL11.glFinish;
 
 import java.awt.Color;
 import java.awt.Font;
@@ -19,11 +20,15 @@ import java.util.ArrayList;
 import org.joml.Vector3f;
 
 import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.config.GlobalAppConfig;
 
 import com.rsc_games.velocity.renderer.DrawInfo;
+import com.rsc_games.velocity.renderer.ParticleBatch;
 import com.rsc_games.velocity.renderer.RendererImage;
+import com.rsc_games.velocity.renderer.TileBatch;
 import com.rsc_games.velocity.util.Logger;
 import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Profiler;
 
 class GLRendererContext {
     CopperheadGL renderPipeline;
@@ -119,10 +124,32 @@ class GLRendererContext {
                 executeCall(call);
         }
 
+        Profiler.begin("GLTextureBatchRenderer.commit");
         batchRenderer.commit();
+        syncForProfiler();
+        Profiler.end();
+
+        Profiler.begin("GLTextBatchRenderer.commit");
         textRenderer.commit();
+        syncForProfiler();
+        Profiler.end();
+
         //primitiveRenderer.commit();
+
+        Profiler.begin("GLRectRenderer.commit");
         rectRenderer.commit();
+        syncForProfiler();
+        Profiler.end();
+    }
+
+    /**
+     * When shader time is being profiled, wait for the GPU to finish the submitted work
+     * so it's counted in the section that submitted it. Stalls the pipeline, so it's
+     * only done when asked for.
+     */
+    private void syncForProfiler() {
+        if (GlobalAppConfig.bcfg.PROFILE_SHADERTIME && Profiler.isEnabled())
+            glFinish();
     }
 
     /**
@@ -140,6 +167,12 @@ class GLRendererContext {
             case DRAW_SHADE:
                 batchRenderer.drawShaded((GLRendererImage)args[0], (DrawInfo)args[1]);
                 break;
+            case DRAW_PARTICLES:
+                batchRenderer.drawParticles((ParticleBatch)args[0]);
+                break;
+            case DRAW_TILES:
+                batchRenderer.drawTiles((TileBatch)args[0], (int)args[1], (int)args[2]);
+                break;
             case DRAW_CIRCLE:
                 Logger.warn("copper", "Received unsupported draw call: DRAW_CIRCLE");
                 break;
@@ -193,9 +226,20 @@ class GLRendererContext {
      * @return Transfomed coordinates.
      */
     public Vector3f toNDC(Vector3f in) {
+        return toNDC(in, virtualResolution);
+    }
+
+    /**
+     * Convert screen coordinates to normalized device coordinates for a given resolution.
+     * 
+     * @param in Input vertex.
+     * @param res Screen resolution.
+     * @return Transformed coordinates.
+     */
+    static Vector3f toNDC(Vector3f in, Point res) {
         return new Vector3f(
-            (in.x / (float)virtualResolution.x) * 2 - 1,
-            -((in.y / (float)virtualResolution.y) * 2 - 1),
+            (in.x / (float)res.x) * 2 - 1,
+            -((in.y / (float)res.y) * 2 - 1),
             in.z
         );
     }
@@ -242,6 +286,59 @@ class GLRendererContext {
         return this.batchRenderer.textureSystem.lookupTextureByPath(path);
     }
 
+    /**
+     * Upload textures registered off the GL thread.
+     * 
+     * @param budgetNanos Time to spend uploading.
+     * @return Amount of textures still waiting.
+     */
+    public int uploadPendingTextures(long budgetNanos) {
+        return this.batchRenderer.textureSystem.uploadPending(budgetNanos);
+    }
+
+    /**
+     * Get the amount of textures waiting for upload.
+     * 
+     * @return The pending texture count.
+     */
+    public int getPendingTextureUploads() {
+        return this.batchRenderer.textureSystem.getPendingUploads();
+    }
+
+    /**
+     * Evict textures if GPU memory is over budget. Called once per frame.
+     */
+    public void manageTextureResidency() {
+        this.batchRenderer.textureSystem.manageResidency();
+    }
+
+    /**
+     * Get the estimated GPU memory used by textures.
+     * 
+     * @return Resident bytes.
+     */
+    public long getResidentTextureBytes() {
+        return this.batchRenderer.textureSystem.getResidentBytes();
+    }
+
+    /**
+     * Get the amount of textures evicted to stay within budget.
+     * 
+     * @return The eviction count.
+     */
+    public long getTextureEvictions() {
+        return this.batchRenderer.textureSystem.getEvictions();
+    }
+
+    /**
+     * Get the amount of evicted textures that had to be uploaded again.
+     * 
+     * @return The re-upload count.
+     */
+    public long getTextureReuploads() {
+        return this.batchRenderer.textureSystem.getReuploads();
+    }
+
     /**
      * Clean out textures that are no currently being used and are wasting
      * memory.
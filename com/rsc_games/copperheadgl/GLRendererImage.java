@@ -3,9 +3,19 @@ package com.rsc_games.copperheadgl;
 import java.awt.image.BufferedImage;
 
 import com.rsc_games.velocity.renderer.RendererImage;
+import com.rsc_games.velocity.util.ResourceCleaner;
 
 public class GLRendererImage extends RendererImage {
-    private GLTextureEntry referent;
+    /**
+     * Drops the texture reference on release (or after GC as a fallback). Null for
+     * images without a cache entry.
+     */
+    private final ResourceCleaner.Handle cleanup;
+
+    /**
+     * The texture cache entry (saves a lookup on every draw).
+     */
+    final GLTextureEntry entry;
 
     /**
      * Create a reference to an image with this renderer.
@@ -13,10 +23,14 @@ public class GLRendererImage extends RendererImage {
      * @param imguid The internal image uid.
      * @param w Image width.
      * @param h Image height.
+     * @param cacheEntry The texture cache entry holding the texture (or null if there
+     *  is nothing to release).
      */
     public GLRendererImage(long imguid, int w, int h, GLTextureEntry cacheEntry) {
         super(imguid, w, h);
-        this.referent = cacheEntry;
+        this.entry = cacheEntry;
+        this.cleanup = (cacheEntry == null) ? null 
+                       : ResourceCleaner.register(this, "Texture reference", imguid, cacheEntry::deleteReference);
     }
 
     /**
@@ -41,17 +55,8 @@ public class GLRendererImage extends RendererImage {
     @Override
     protected void unlink() {
         //System.out.println("[lvogl]: Deleting image reference " + this);
-        referent.deleteReference(this);
-    }
-
-    /**
-     * Prevent any possible resource leakage.
-     */
-    @Override
-    @SuppressWarnings("deprecation")
-    protected void finalize() throws Throwable {
-        super.finalize();
-        this.unlink();
+        if (cleanup != null)
+            cleanup.release();
     }
 
     public long getUID() {
@@ -18,7 +18,7 @@ class GLShader {
     }
 
     public void delete() {
-        Logger.log("copper", "Deleting shader " + progID);
+        Logger.log("copper", "Deleting shader {}", progID);
         glDeleteProgram(this.progID);
     }
 }
@@ -176,7 +176,7 @@ public class GLTextBatchRenderer {
     public void commit() {
         // Flush quads.
         if (GlobalAppConfig.bcfg.EN_RENDERER_LOGS)
-            Logger.log("copper", "Batching " + texQty + " text instances.");
+            Logger.log("copper", "Batching {} text instances.", texQty);
         
         for (int i = 0; i < texQty; i++) {
             glActiveTexture(GL_TEXTURE0 + i);
@@ -3,16 +3,19 @@ package com.rsc_games.copperheadgl;
 import static org.lwjgl.opengl.GL33C.*;
 
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 
+import com.rsc_games.velocity.Rect;
 import com.rsc_games.velocity.config.GlobalAppConfig;
 import com.rsc_games.velocity.renderer.DrawInfo;
+import com.rsc_games.velocity.renderer.ParticleBatch;
 import com.rsc_games.velocity.renderer.RendererImage;
+import com.rsc_games.velocity.renderer.TileBatch;
 import com.rsc_games.velocity.util.Logger;
 import com.rsc_games.velocity.util.Point;
-import com.rsc_games.velocity.util.Vector2;
 
 import static org.lwjgl.opengl.GL11C.GL_FLOAT;
 import static org.lwjgl.opengl.GL11C.GL_TEXTURE_2D;
@@ -71,6 +74,12 @@ public class GLTextureBatchRenderer {
     private int[] textureSlots = null;
     private int texQty = 0;
 
+    // Batches committed so far (texture slots are only valid until the next one).
+    private int commits = 0;
+
+    // Texture slot of each tile palette entry in the current batch (-1 if not looked up yet).
+    private float[] tileSlots = new float[16];
+
     public GLTextureBatchRenderer(GLRendererContext rendererContext) {
         this.rendererContext = rendererContext;
 
@@ -174,7 +183,7 @@ public class GLTextureBatchRenderer {
     public void commit() {
         // Flush quads.
         if (GlobalAppConfig.bcfg.EN_RENDERER_LOGS)
-            Logger.log("copper", "Batching " + texQty + " unique textures.");
+            Logger.log("copper", "Batching {} unique textures.", texQty);
         
         for (int i = 0; i < texQty; i++) {
             glActiveTexture(GL_TEXTURE0 + i);
@@ -191,6 +200,7 @@ public class GLTextureBatchRenderer {
 
         indexQty = 0;
         texQty = 0;
+        commits++;
     }
 
     /**
@@ -242,70 +252,211 @@ public class GLTextureBatchRenderer {
     }
 
     private void drawQuad(GLTexture2D texture, DrawInfo drawInfo) {
-        // Find the texture if already present.
-        float texID = -1f;
+        // Flush first so the slot found below is still valid when the quad is drawn.
+        pipelineFlushIfRequired(false, null);
+        float texID = textureSlot(texture);
+
+        packQuad(currentVertices, vertexQty * TexturedVertexInfo.FLOAT_CNT, drawInfo, texID,
+                 rendererContext.virtualResolution);
+        vertexQty += 4;
+        indexQty += 6;
+    }
 
+    /**
+     * Find the texture slot a texture is bound to in the current batch, binding it to
+     * a free one if it isn't yet.
+     * 
+     * @param texture The texture.
+     * @return The slot.
+     */
+    private float textureSlot(GLTexture2D texture) {
         for (int i = 0; i < texQty; i++) {
-            if (textureSlots[i] == texture.getHandle()) {
-                texID = (float)i;
-                break;
-            }
+            if (textureSlots[i] == texture.getHandle())
+                return (float)i;
         }
 
-        pipelineFlushIfRequired(false, null);
+        textureSlots[texQty] = texture.getHandle();
+        return (float)texQty++;
+    }
 
-        // No texture found
-        if (texID == -1f) {
-            texID = (float)texQty;
-            textureSlots[texQty++] = texture.getHandle();
+    /**
+     * Render a prebaked block of unshaded tiles. Each palette texture is only looked
+     * up once per batch, and tiles are packed straight from the baked cells.
+     * 
+     * @param batch The tiles.
+     * @param x Screen X location of the block's top left corner.
+     * @param y Screen Y location of the block's top left corner.
+     */
+    public void drawTiles(TileBatch batch, int x, int y) {
+        RendererImage[] images = batch.getImages();
+        short[] cells = batch.getCells(), ids = batch.getImageIds();
+        int w = batch.tileW, h = batch.tileH;
+
+        changeShaderSafe(quadShader);
+        if (tileSlots.length < images.length)
+            tileSlots = new float[images.length];
+        Arrays.fill(tileSlots, -1f);
+        int batchNo = commits;
+
+        for (int i = 0; i < batch.getCount(); i++) {
+            pipelineFlushIfRequired(false, null);
+            if (batchNo != commits) {
+                Arrays.fill(tileSlots, -1f);
+                batchNo = commits;
+            }
+
+            int id = ids[i];
+            if (tileSlots[id] < 0f)
+                tileSlots[id] = textureSlot(textureSystem.getGLImage((GLRendererImage)images[id]));
+
+            int tx = x + (cells[i] % batch.columns) * w, ty = y + (cells[i] / batch.columns) * h;
+            packTile(currentVertices, vertexQty * TexturedVertexInfo.FLOAT_CNT, tx, ty, w, h, tileSlots[id],
+                     rendererContext.virtualResolution);
+            vertexQty += 4;
+            indexQty += 6;
         }
+    }
 
-        // Calculate rect corner locations (and apply transforms!)
-        Point centerPoint = drawInfo.drawRect.getPos();
-        Vector3f center = new Vector3f(centerPoint.x, centerPoint.y, 0f);
+    /**
+     * Render every live particle of an emitter (unshaded). Particles share one
+     * texture, so it only has to be looked up once per batch.
+     * 
+     * @param batch The particles.
+     */
+    public void drawParticles(ParticleBatch batch) {
+        GLTexture2D tex = textureSystem.getGLImage((GLRendererImage)batch.image);
+        changeShaderSafe(quadShader);
+        float texID = -1f;
+        int batchNo = -1;
 
-        // BUGFIX: Eliminate tile gaps from rounding error when using virtual resolution.
-        // GL_CLAMP_TO_EDGE required too.
-        Vector2 radius = new Vector2(drawInfo.drawRect.getWH()).div(2);
-        //radius = new Vector2((float)Math.ceil(radius.x), (float)Math.ceil(radius.y));
-
-        Vector3f scale = new Vector3f(drawInfo.scale.x, drawInfo.scale.y, 1);
-        float rot = (float)Math.toRadians(drawInfo.rot);
-        //int layer = drawInfo.drawLayer;
-
-        Vector3f[] corners = {
-            new Vector3f(-radius.x, -radius.y, 0).mul(scale).rotateZ(rot).add(center),
-            new Vector3f(-radius.x, radius.y + 1, 0).mul(scale).rotateZ(rot).add(center),
-            new Vector3f(radius.x + 1, radius.y + 1, 0).mul(scale).rotateZ(rot).add(center),
-            new Vector3f(radius.x + 1, -radius.y, 0).mul(scale).rotateZ(rot).add(center)
-        };
-
-        Vector2f[] texCoords = new Vector2f[] {
-            // top left
-            new Vector2f(0f, 0f),
-            new Vector2f(0f, 1f),
-            new Vector2f(1f, 1f),
-            new Vector2f(1f, 0f)
-        };
-
-        for (int i = 0; i < 4; i++) {
-            Vector3f current = rendererContext.toNDC(corners[i]);
-            TexturedVertexInfo vi = new TexturedVertexInfo(
-                current, 
-                1f, // alpha
-                texCoords[i], 
-                texID
-            );
-
-            float[] viFloats = vi.ToFloatArray();
-
-            for (int j = 0; j < viFloats.length; j++)
-                currentVertices[vertexQty * TexturedVertexInfo.FLOAT_CNT + j] = viFloats[j];
-
-            vertexQty++;
+        for (int i = 0; i < batch.getCount(); i++) {
+            pipelineFlushIfRequired(false, null);
+            if (batchNo != commits) {
+                texID = textureSlot(tex);
+                batchNo = commits;
+            }
+
+            packParticle(currentVertices, vertexQty * TexturedVertexInfo.FLOAT_CNT, batch, i, texID,
+                         rendererContext.virtualResolution);
+            vertexQty += 4;
+            indexQty += 6;
         }
+    }
 
-        indexQty += 6;
+    /**
+     * Write the four vertices of a particle: a rotated square showing one frame of the
+     * particle image, faded by the particle's color alpha. Allocation free.
+     * 
+     * @param out Vertex buffer.
+     * @param offset First float to write.
+     * @param batch The particles.
+     * @param i The particle.
+     * @param texID Texture slot.
+     * @param vres Virtual resolution (for NDC conversion).
+     */
+    static void packParticle(float[] out, int offset, ParticleBatch batch, int i, float texID, Point vres) {
+        float cx = batch.x[i] + batch.getOffsetX(), cy = batch.y[i] + batch.getOffsetY();
+        float r = batch.size[i] / 2f;
+        double rot = Math.toRadians(batch.rotation[i]);
+        float cos = (float)Math.cos(rot) * r, sin = (float)Math.sin(rot) * r;
+        float sx = 2f / vres.x, sy = 2f / vres.y;
+        float alpha = (batch.color[i] >>> 24) / 255f;
+        float u0 = batch.frame[i] / (float)batch.frames, u1 = (batch.frame[i] + 1) / (float)batch.frames;
+
+        // Corners (-r, -r), (-r, r), (r, r), (r, -r) rotated about the center.
+        putVertex(out, offset, (cx - cos + sin) * sx - 1, 1 - (cy - sin - cos) * sy, alpha, u0, 0f, texID);
+        putVertex(out, offset + TexturedVertexInfo.FLOAT_CNT, (cx - cos - sin) * sx - 1, 1 - (cy - sin + cos) * sy,
+                  alpha, u0, 1f, texID);
+        putVertex(out, offset + TexturedVertexInfo.FLOAT_CNT * 2, (cx + cos - sin) * sx - 1, 1 - (cy + sin + cos) * sy,
+                  alpha, u1, 1f, texID);
+        putVertex(out, offset + TexturedVertexInfo.FLOAT_CNT * 3, (cx + cos + sin) * sx - 1, 1 - (cy + sin - cos) * sy,
+                  alpha, u1, 0f, texID);
+    }
+
+    /**
+     * Write the four vertices of an unrotated, unscaled tile. Same corners as
+     * {@code packQuad()} (including the extra pixel that hides tile seams), skipping the
+     * scale and rotation math.
+     * 
+     * @param out Vertex buffer.
+     * @param offset First float to write.
+     * @param x Screen X location of the tile's top left corner.
+     * @param y Screen Y location of the tile's top left corner.
+     * @param w Tile width.
+     * @param h Tile height.
+     * @param texID Texture slot.
+     * @param vres Virtual resolution (for NDC conversion).
+     */
+    static void packTile(float[] out, int offset, int x, int y, int w, int h, float texID, Point vres) {
+        float cx = x + w / 2, cy = y + h / 2;
+        float sx = 2f / vres.x, sy = 2f / vres.y;
+        float left = (cx - w / 2f) * sx - 1, right = (cx + w / 2f + 1) * sx - 1;
+        float top = 1 - (cy - h / 2f) * sy, bottom = 1 - (cy + h / 2f + 1) * sy;
+
+        putVertex(out, offset, left, top, 1f, 0f, 0f, texID);
+        putVertex(out, offset + TexturedVertexInfo.FLOAT_CNT, left, bottom, 1f, 0f, 1f, texID);
+        putVertex(out, offset + TexturedVertexInfo.FLOAT_CNT * 2, right, bottom, 1f, 1f, 1f, texID);
+        putVertex(out, offset + TexturedVertexInfo.FLOAT_CNT * 3, right, top, 1f, 1f, 0f, texID);
+    }
+
+    /**
+     * Write one vertex (see {@code TexturedVertexInfo} for the layout).
+     * 
+     * @param out Vertex buffer.
+     * @param offset First float to write.
+     * @param x NDC X location.
+     * @param y NDC Y location.
+     * @param alpha Vertex alpha.
+     * @param u Texture U coordinate.
+     * @param v Texture V coordinate.
+     * @param texID Texture slot.
+     */
+    private static void putVertex(float[] out, int offset, float x, float y, float alpha, float u, float v,
+                                  float texID) {
+        out[offset] = x;
+        out[offset + 1] = y;
+        out[offset + 2] = 0f;
+        out[offset + 3] = alpha;
+        out[offset + 4] = u;
+        out[offset + 5] = v;
+        out[offset + 6] = texID;
+    }
+
+    /**
+     * Write the four vertices of a textured quad. Contains no GL calls, so the vertex
+     * math can be benchmarked without a GPU. Scale and rotation are done in scalar math
+     * straight into the buffer, so packing doesn't allocate.
+     * 
+     * @param out Vertex buffer.
+     * @param offset First float to write.
+     * @param drawInfo Texture transforms.
+     * @param texID Texture slot.
+     * @param vres Virtual resolution (for NDC conversion).
+     */
+    static void packQuad(float[] out, int offset, DrawInfo drawInfo, float texID, Point vres) {
+        Rect r = drawInfo.drawRect;
+        float cx = r.getCenterX(), cy = r.getCenterY();
+        float rx = r.getW() / 2f, ry = r.getH() / 2f;
+
+        // BUGFIX: Eliminate tile gaps from rounding error when using virtual resolution.
+        // The extra pixel on the right and bottom edges does that (GL_CLAMP_TO_EDGE required too).
+        float left = -rx * drawInfo.scale.x, right = (rx + 1) * drawInfo.scale.x;
+        float top = -ry * drawInfo.scale.y, bottom = (ry + 1) * drawInfo.scale.y;
+
+        // Rotate each corner about the center: (x cos - y sin, x sin + y cos).
+        double rot = Math.toRadians(drawInfo.rot);
+        float cos = (float)Math.cos(rot), sin = (float)Math.sin(rot);
+        float lc = left * cos, ls = left * sin, rc = right * cos, rs = right * sin;
+        float tc = top * cos, ts = top * sin, bc = bottom * cos, bs = bottom * sin;
+        float sx = 2f / vres.x, sy = 2f / vres.y;
+
+        putVertex(out, offset, (cx + lc - ts) * sx - 1, 1 - (cy + ls + tc) * sy, 1f, 0f, 0f, texID);
+        putVertex(out, offset + TexturedVertexInfo.FLOAT_CNT, (cx + lc - bs) * sx - 1, 1 - (cy + ls + bc) * sy,
+                  1f, 0f, 1f, texID);
+        putVertex(out, offset + TexturedVertexInfo.FLOAT_CNT * 2, (cx + rc - bs) * sx - 1, 1 - (cy + rs + bc) * sy,
+                  1f, 1f, 1f, texID);
+        putVertex(out, offset + TexturedVertexInfo.FLOAT_CNT * 3, (cx + rc - ts) * sx - 1, 1 - (cy + rs + tc) * sy,
+                  1f, 1f, 0f, texID);
     }
 
     public RendererImage loadTexture(BufferedImage image, String path) {
@@ -10,30 +10,121 @@ class GLTextureEntry {
     private int refCount = 0;
     private long uid;
 
+    /**
+     * Path the texture was loaded from.
+     */
+    private final String path;
+
+    /**
+     * Tracking system told when the last reference goes (null if untracked).
+     */
+    private final GLTextureTrackingSystem owner;
+
+    /**
+     * Frame this texture was last drawn in (for LRU eviction).
+     */
+    private long lastDrawn = 0L;
+
+    /**
+     * Whether the GPU copy was evicted at least once.
+     */
+    private boolean evicted = false;
+
     /**
      * Create a new texture cache entry.
      * 
      * @param inner Represented BufferedImage
-     * @param glTex Handle to the GPU instanced BufferedImage.
+     * @param glTex Handle to the GPU instanced BufferedImage (null until {@code upload()}).
      * @param uid Texture ID.
+     * @param path Texture path.
+     * @param owner The tracking system (null if untracked).
      */
-    public GLTextureEntry(BufferedImage inner, GLTexture2D glTex, long uid) {
+    public GLTextureEntry(BufferedImage inner, GLTexture2D glTex, long uid, String path,
+                          GLTextureTrackingSystem owner) {
         this.cachedImage = inner;
         this.glTexEntry = glTex;
         this.uid = uid;
+        this.path = path;
+        this.owner = owner;
     }
 
     /**
      * Create a new handle to this renderer image.
      * @return
      */
-    public GLRendererImage getNewHandle() {
+    public synchronized GLRendererImage getNewHandle() {
         refCount++;
         GLRendererImage img = new GLRendererImage(uid, cachedImage.getWidth(), 
                                                     cachedImage.getHeight(), this);
         return img;
     }
 
+    /**
+     * Send the image to the GPU if that hasn't happened yet. GL thread only.
+     */
+    public void upload() {
+        if (this.glTexEntry == null)
+            this.glTexEntry = new GLTexture2D(cachedImage);
+    }
+
+    /**
+     * Free the GPU copy but keep the image, so it can be uploaded again when it's
+     * drawn next. GL thread only.
+     */
+    public void evict() {
+        if (this.glTexEntry == null)
+            return;
+
+        this.glTexEntry.free();
+        this.glTexEntry = null;
+        this.evicted = true;
+    }
+
+    /**
+     * Whether the GPU copy was evicted before.
+     * 
+     * @return If the next upload is a re-upload.
+     */
+    public boolean wasEvicted() {
+        return this.evicted;
+    }
+
+    /**
+     * Estimate the GPU memory this texture takes when uploaded (RGBA8, no mipmaps).
+     * 
+     * @return The size in bytes.
+     */
+    public long getGPUBytes() {
+        return (long)cachedImage.getWidth() * cachedImage.getHeight() * 4;
+    }
+
+    /**
+     * Mark this texture as drawn.
+     * 
+     * @param frame The current frame.
+     */
+    public void markDrawn(long frame) {
+        this.lastDrawn = frame;
+    }
+
+    /**
+     * Get the frame this texture was last drawn in.
+     * 
+     * @return The frame number.
+     */
+    public long getLastDrawn() {
+        return this.lastDrawn;
+    }
+
+    /**
+     * Whether the image is on the GPU.
+     * 
+     * @return If the GL texture exists.
+     */
+    public boolean isUploaded() {
+        return this.glTexEntry != null;
+    }
+
     /**
      * Get the internal GPU texture reference.
      * 
@@ -45,11 +136,16 @@ class GLTextureEntry {
 
     /**
      * Delete a reference to this cache entry.
-     * 
-     * @param img Image to delete the reference.
      */
-    public void deleteReference(GLRendererImage img) {
-        this.refCount--;
+    public void deleteReference() {
+        int left;
+        synchronized (this) {
+            left = --this.refCount;
+        }
+
+        // Outside the entry lock, since the tracking system locks entries under its own.
+        if (left == 0 && owner != null)
+            owner.unreferenced(this);
     }
 
     /**
@@ -57,7 +153,7 @@ class GLTextureEntry {
      * 
      * @return Current reference count.
      */
-    public int getReferenceCount() {
+    public synchronized int getReferenceCount() {
         return this.refCount;
     }
 
@@ -73,6 +169,15 @@ class GLTextureEntry {
         return cachedImage;
     }
 
+    /**
+     * Get the path this texture was loaded from.
+     * 
+     * @return The texture path.
+     */
+    public String getPath() {
+        return path;
+    }
+
     /**
      * Get this images's UID.
      * 
@@ -87,7 +192,8 @@ class GLTextureEntry {
      * released.
      */
     public void cleanUp() {
-        Logger.log("copper", "Freeing texture entry for resource " + uid);
-        glTexEntry.free();
+        Logger.log("copper", "Freeing texture entry for resource {}", uid);
+        if (glTexEntry != null)
+            glTexEntry.free();
     }
 }
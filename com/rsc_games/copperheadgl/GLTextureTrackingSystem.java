@@ -1,48 +1,110 @@
 package com.rsc_games.copperheadgl;
 
 import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 import com.rsc_games.velocity.config.GlobalAppConfig;
 import com.rsc_games.velocity.renderer.RendererImage;
 import com.rsc_games.velocity.util.Logger;
 
 class GLTextureTrackingSystem {
-    private static final int TEX_GC_THRESHOLD = 128;
+    /**
+     * Most textures evicted per frame, so going over budget never stalls a frame.
+     */
+    private static final int MAX_EVICTIONS_PER_FRAME = 16;
 
     private HashMap<String, GLTextureEntry> loadedImages = new HashMap<String, GLTextureEntry>();
     private HashMap<Long, GLTextureEntry> imgLUT = new HashMap<Long, GLTextureEntry>();
     private long nextUID = 0L;
 
+    /**
+     * Textures registered off the GL thread that still have to be sent to the GPU.
+     */
+    private ArrayDeque<GLTextureEntry> pendingUploads = new ArrayDeque<GLTextureEntry>();
+
+    /**
+     * Uploaded textures by UID, least recently drawn first.
+     */
+    private LinkedHashMap<Long, GLTextureEntry> resident = 
+        new LinkedHashMap<Long, GLTextureEntry>(16, 0.75f, true);
+
+    /**
+     * Textures that lost their last reference since the last residency pass.
+     */
+    private ArrayDeque<GLTextureEntry> released = new ArrayDeque<GLTextureEntry>();
+
+    /**
+     * The thread owning the GL context (the one that created this system).
+     */
+    private final Thread glThread = Thread.currentThread();
+
+    /**
+     * Frames rendered so far (the LRU clock).
+     */
+    private long frame = 1L;
+
+    /**
+     * Distinct textures drawn this frame and last frame.
+     */
+    private int drawnThisFrame = 0, drawnLastFrame = 0;
+
+    /**
+     * Whether textures were uploaded, dropped or released since the last residency pass.
+     */
+    private boolean residencyChanged = false;
+
+    /**
+     * Estimated GPU memory used by uploaded textures.
+     */
+    private long residentBytes = 0L;
+
+    /**
+     * Textures evicted from the GPU and evicted textures uploaded again.
+     */
+    private long evictions = 0L, reuploads = 0L;
+
+    /**
+     * Whether the last residency pass couldn't get under budget (warned once).
+     */
+    private boolean overBudget = false;
+
     public GLTextureTrackingSystem() {}
 
     /**
      * Look up an image from its path and return a handle if an image already
-     * exists. 
+     * exists. May be called from any thread; off the GL thread the GPU upload is
+     * queued until {@code uploadPending()} runs.
      * 
      * @param in Input Image.
      * @param path Image path.
      * @return A reference to the image.
      */
-    public GLRendererImage getInternedReference(BufferedImage in, String path) {
+    public synchronized GLRendererImage getInternedReference(BufferedImage in, String path) {
         GLTextureEntry entry = loadedImages.get(path);
+        boolean onGLThread = Thread.currentThread() == glThread;
 
         // If no such loaded texture is already present then save it.
         if (entry == null) {
             long uid = this.nextUID++;
-            entry = new GLTextureEntry(in, new GLTexture2D(in), uid);
+            entry = new GLTextureEntry(in, null, uid, path, this);
+            entry.markDrawn(frame);
             loadedImages.put(path, entry);
             imgLUT.put(uid, entry);
-        }
-
-        GLRendererImage img = entry.getNewHandle();
 
-        // Clean out unreferenced textures.
-        if (imgLUT.size() >= TEX_GC_THRESHOLD)
-            textureGC();
+            if (onGLThread)
+                upload(entry);
+            else
+                pendingUploads.add(entry);
+        }
 
-        return img;
+        // Unreferenced textures stay cached until the VRAM budget needs the space
+        // (see manageResidency()) or the scene loader forces a texture GC. Without a
+        // budget they're freed after the frame their last reference goes.
+        return entry.getNewHandle();
     }
 
     /**
@@ -51,7 +113,7 @@ class GLTextureTrackingSystem {
      * @param path The texture path in question.
      * @return Whether the texture is present or not.
      */
-    public boolean isTextureLoaded(String path) {
+    public synchronized boolean isTextureLoaded(String path) {
         return loadedImages.get(path) != null;
     }
 
@@ -59,17 +121,18 @@ class GLTextureTrackingSystem {
      * Look up a texture by its path on disk and get a handle to it.
      * 
      * @param path Path to the texture on disk.
-     * @return An image handle.
+     * @return An image handle (null if the texture isn't loaded).
      */
-    public GLRendererImage lookupTextureByPath(String path) {
-        return loadedImages.get(path).getNewHandle();
+    public synchronized GLRendererImage lookupTextureByPath(String path) {
+        GLTextureEntry entry = loadedImages.get(path);
+        return entry != null ? entry.getNewHandle() : null;
     }
 
     /**
      * Perform a GC run on all of the currently loaded textures and prune
      * unreferenced ones.
      */
-    public void textureGC() {
+    public synchronized void textureGC() {
         ArrayList<Long> imgKeys = new ArrayList<Long>();
         ArrayList<String> pathKeys = new ArrayList<String>();
 
@@ -79,10 +142,16 @@ class GLTextureTrackingSystem {
 
             if (entry.getReferenceCount() == 0) {
                 if (GlobalAppConfig.bcfg.EN_RENDERER_LOGS)
-                    Logger.log("copper", "Found unreferenced texture during texture GC (id "
-                                       + entry.getUID() + ")");
+                    Logger.log("copper", "Found unreferenced texture during texture GC (id {})", entry.getUID());
                 
+                if (entry.isUploaded()) {
+                    residentBytes -= entry.getGPUBytes();
+                    resident.remove(entry.getUID());
+                }
+
                 entry.cleanUp();
+                pendingUploads.remove(entry);
+                residencyChanged = true;
                 pathKeys.add(key);
                 imgKeys.add(entry.getUID());
             }
@@ -100,8 +169,222 @@ class GLTextureTrackingSystem {
         }
     }
 
-    public GLTexture2D getGLImage(GLRendererImage img) {
-        GLTextureEntry entry = imgLUT.get(img.getUID());
+    /**
+     * Get the GPU texture of an image for drawing. Uploads it first if its queued
+     * upload hasn't run yet or it was evicted.
+     * 
+     * @param img The image.
+     * @return The GL texture.
+     */
+    public synchronized GLTexture2D getGLImage(GLRendererImage img) {
+        GLTextureEntry entry = img.entry;
+
+        if (!entry.isUploaded()) {
+            if (entry.wasEvicted())
+                reuploads++;
+            else
+                pendingUploads.remove(entry);
+
+            upload(entry);
+        }
+
+        // First draw this frame: move it to the recently drawn end of the LRU order.
+        if (entry.getLastDrawn() != frame) {
+            entry.markDrawn(frame);
+            resident.get(entry.getUID());
+            drawnThisFrame++;
+        }
         return entry.getGLTexture();
     }
+
+    /**
+     * Send a texture to the GPU and account for its memory.
+     * 
+     * @param entry The texture.
+     */
+    private void upload(GLTextureEntry entry) {
+        entry.upload();
+        residentBytes += entry.getGPUBytes();
+        resident.put(entry.getUID(), entry);
+        residencyChanged = true;
+    }
+
+    /**
+     * Note that a texture lost its last reference. May be called from any thread.
+     * 
+     * @param entry The texture.
+     */
+    synchronized void unreferenced(GLTextureEntry entry) {
+        released.add(entry);
+        residencyChanged = true;
+    }
+
+    /**
+     * Free a texture entirely (GPU copy, image and cache entries).
+     * 
+     * @param entry The texture.
+     */
+    private void drop(GLTextureEntry entry) {
+        if (entry.isUploaded()) {
+            residentBytes -= entry.getGPUBytes();
+            resident.remove(entry.getUID());
+        }
+        else
+            pendingUploads.remove(entry);
+
+        entry.cleanUp();
+        loadedImages.remove(entry.getPath());
+        imgLUT.remove(entry.getUID());
+    }
+
+    /**
+     * Keep GPU memory within the configured budget. Called once per frame on the GL
+     * thread after the frame was submitted. While over budget, unreferenced textures
+     * are dropped entirely and referenced ones not drawn last frame lose their GPU
+     * copy (re-uploaded when drawn again), least recently drawn first. At most
+     * {@code MAX_EVICTIONS_PER_FRAME} textures go per frame. Without a budget,
+     * textures are dropped as soon as they lose their last reference instead.
+     */
+    public synchronized void manageResidency() {
+        long budget = GlobalAppConfig.bcfg.TEXTURE_VRAM_BUDGET_MB * 1024L * 1024L;
+        frame++;
+        drawnLastFrame = drawnThisFrame;
+        drawnThisFrame = 0;
+
+        if (budget <= 0) {
+            dropReleased();
+            residencyChanged = false;
+            overBudget = false;
+            return;
+        }
+        released.clear();
+
+        if (residentBytes <= budget) {
+            residencyChanged = false;
+            overBudget = false;
+            return;
+        }
+
+        // Already warned and nothing can have become evictable: no texture was
+        // uploaded, dropped or released, and every resident one was drawn last frame.
+        if (overBudget && !residencyChanged && drawnLastFrame >= resident.size())
+            return;
+
+        int evicted = evict(budget, true, MAX_EVICTIONS_PER_FRAME);
+        evicted += evict(budget, false, MAX_EVICTIONS_PER_FRAME - evicted);
+        residencyChanged = false;
+
+        // Stopped early only because every resident texture is still in use.
+        if (residentBytes > budget && evicted < MAX_EVICTIONS_PER_FRAME) {
+            if (!overBudget)
+                Logger.warn("copper", "Texture memory over budget by " + (residentBytes - budget) / 1024
+                            + " kB, but every resident texture is in use.");
+            overBudget = true;
+        }
+        else
+            overBudget = false;
+    }
+
+    /**
+     * Evict resident textures until under budget, least recently drawn first.
+     * 
+     * @param budget The budget in bytes.
+     * @param unused Drop unreferenced textures (otherwise evict referenced ones that
+     *               weren't drawn last frame).
+     * @param max Most textures to evict.
+     * @return Amount of textures evicted.
+     */
+    private int evict(long budget, boolean unused, int max) {
+        Iterator<GLTextureEntry> it = resident.values().iterator();
+        int count = 0;
+
+        while (count < max && residentBytes > budget && it.hasNext()) {
+            GLTextureEntry victim = it.next();
+            boolean free = victim.getReferenceCount() == 0;
+
+            if (unused ? !free : victim.getLastDrawn() >= frame - 1)
+                continue;
+
+            it.remove();
+            residentBytes -= victim.getGPUBytes();
+            evictions++;
+            count++;
+
+            if (free) {
+                victim.cleanUp();
+                loadedImages.remove(victim.getPath());
+                imgLUT.remove(victim.getUID());
+            }
+            else
+                victim.evict();
+        }
+        return count;
+    }
+
+    /**
+     * Drop every texture that lost its last reference since the last pass, unless it
+     * was referenced again or already dropped.
+     */
+    private void dropReleased() {
+        GLTextureEntry entry;
+
+        while ((entry = released.poll()) != null) {
+            if (entry.getReferenceCount() == 0 && imgLUT.get(entry.getUID()) == entry)
+                drop(entry);
+        }
+    }
+
+    /**
+     * Upload textures registered off the GL thread. Must be called on the GL thread.
+     * 
+     * @param budgetNanos Time to spend (at least one texture is uploaded).
+     * @return Amount of textures still waiting.
+     */
+    public synchronized int uploadPending(long budgetNanos) {
+        long start = System.nanoTime();
+
+        while (!pendingUploads.isEmpty()) {
+            upload(pendingUploads.poll());
+
+            if (System.nanoTime() - start >= budgetNanos)
+                break;
+        }
+        return pendingUploads.size();
+    }
+
+    /**
+     * Get the amount of textures waiting for upload.
+     * 
+     * @return The pending texture count.
+     */
+    public synchronized int getPendingUploads() {
+        return pendingUploads.size();
+    }
+
+    /**
+     * Get the estimated GPU memory used by textures.
+     * 
+     * @return Resident bytes.
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Get the amount of textures evicted to stay within budget.
+     * 
+     * @return The eviction count.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get the amount of evicted textures that had to be uploaded again.
+     * 
+     * @return The re-upload count.
+     */
+    public synchronized long getReuploads() {
+        return reuploads;
+    }
 }
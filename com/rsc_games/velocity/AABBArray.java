@@ -0,0 +1,212 @@
+package com.rsc_games.velocity;
+
+import java.util.Arrays;
+
+import com.rsc_games.velocity.util.Logger;
+
+/**
+ * Packed array of axis aligned boxes for testing one area against many boxes at once.
+ * Edges are stored in four flat int arrays instead of one object per box, so batch
+ * queries stream through memory and can use SIMD instructions.
+ *
+ * Queries use the same edge rules as {@code Rect.overlaps()} (touching boxes don't
+ * overlap). When the JVM is started with {@code --add-modules jdk.incubator.vector},
+ * queries run on the Vector API; otherwise an equivalent scalar loop is used.
+ */
+public class AABBArray {
+    /**
+     * The batch query implementation.
+     */
+    private static AABBKernel kernel = loadKernel(true);
+
+    /**
+     * Box left edges.
+     */
+    int[] minX;
+
+    /**
+     * Box top edges.
+     */
+    int[] minY;
+
+    /**
+     * Box right edges.
+     */
+    int[] maxX;
+
+    /**
+     * Box bottom edges.
+     */
+    int[] maxY;
+
+    /**
+     * Amount of boxes.
+     */
+    private int size = 0;
+
+    /**
+     * Create an empty box array.
+     */
+    public AABBArray() {
+        this(64);
+    }
+
+    /**
+     * Create an empty box array.
+     *
+     * @param capacity Initial capacity.
+     */
+    public AABBArray(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.minX = new int[capacity];
+        this.minY = new int[capacity];
+        this.maxX = new int[capacity];
+        this.maxY = new int[capacity];
+    }
+
+    /**
+     * Pick the query implementation.
+     *
+     * @param vectorized Whether to use the Vector API if it is available.
+     * @return The kernel.
+     */
+    private static AABBKernel loadKernel(boolean vectorized) {
+        if (!vectorized || !Boolean.parseBoolean(System.getProperty("velocity.simd", "true")))
+            return new ScalarAABBKernel();
+
+        // The Vector API is an incubator module and usually not loaded. Only touch the
+        // vector kernel reflectively so its absence can't break class loading here.
+        try {
+            return (AABBKernel)Class.forName("com.rsc_games.velocity.AABBVectorKernel")
+                                   .getDeclaredConstructor().newInstance();
+        }
+        catch (Throwable t) {
+            return new ScalarAABBKernel();
+        }
+    }
+
+    /**
+     * Switch between the vector and scalar query implementations. Mostly useful for
+     * benchmarking.
+     *
+     * @param vectorized Whether to use the Vector API.
+     * @return Whether the Vector API is now in use (false if it's unavailable).
+     */
+    public static synchronized boolean setVectorized(boolean vectorized) {
+        kernel = loadKernel(vectorized);
+
+        if (vectorized && !isVectorized())
+            Logger.warn("velocity.AABBArray", "Vector API unavailable (start the JVM with "
+                        + "--add-modules jdk.incubator.vector). Using scalar queries.");
+        return isVectorized();
+    }
+
+    /**
+     * Whether queries run on the Vector API.
+     *
+     * @return If the vector kernel is in use.
+     */
+    public static boolean isVectorized() {
+        return !(kernel instanceof ScalarAABBKernel);
+    }
+
+    /**
+     * Get the amount of boxes.
+     *
+     * @return The box count.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Remove every box (keeps the storage).
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Append a box given by its edges.
+     *
+     * @param x0 Left edge.
+     * @param y0 Top edge.
+     * @param x1 Right edge.
+     * @param y1 Bottom edge.
+     * @return The box index.
+     */
+    public int add(int x0, int y0, int x1, int y1) {
+        if (size == minX.length) {
+            int cap = size * 2;
+            minX = Arrays.copyOf(minX, cap);
+            minY = Arrays.copyOf(minY, cap);
+            maxX = Arrays.copyOf(maxX, cap);
+            maxY = Arrays.copyOf(maxY, cap);
+        }
+
+        minX[size] = x0;
+        minY[size] = y0;
+        maxX[size] = x1;
+        maxY[size] = y1;
+        return size++;
+    }
+
+    /**
+     * Append a rect.
+     *
+     * @param r The rect.
+     * @return The box index.
+     */
+    public int add(Rect r) {
+        int x = r.getDrawX(), y = r.getDrawY();
+        return add(x, y, x + r.getW(), y + r.getH());
+    }
+
+    /**
+     * Replace a box with a rect.
+     *
+     * @param i The box index.
+     * @param r The rect.
+     */
+    public void set(int i, Rect r) {
+        if (i >= size)
+            throw new IndexOutOfBoundsException("Box " + i + " out of bounds for size " + size);
+
+        minX[i] = r.getDrawX();
+        minY[i] = r.getDrawY();
+        maxX[i] = minX[i] + r.getW();
+        maxY[i] = minY[i] + r.getH();
+    }
+
+    /**
+     * Find every box overlapping an area.
+     *
+     * @param x0 Area left edge.
+     * @param y0 Area top edge.
+     * @param x1 Area right edge.
+     * @param y1 Area bottom edge.
+     * @param out Receives the indices of overlapping boxes in ascending order. Must
+     *  be able to hold {@code size()} entries.
+     * @return Amount of overlapping boxes.
+     */
+    public int query(int x0, int y0, int x1, int y1, int[] out) {
+        if (out.length < size)
+            throw new IllegalArgumentException("Query output can't hold " + size + " results!");
+
+        return kernel.query(minX, minY, maxX, maxY, size, x0, y0, x1, y1, out);
+    }
+
+    /**
+     * Find every box overlapping a rect. Same results as calling {@code r.overlaps()}
+     * on every box.
+     *
+     * @param r The rect.
+     * @param out Receives the indices of overlapping boxes in ascending order. Must
+     *  be able to hold {@code size()} entries.
+     * @return Amount of overlapping boxes.
+     */
+    public int query(Rect r, int[] out) {
+        int x = r.getDrawX(), y = r.getDrawY();
+        return query(x, y, x + r.getW(), y + r.getH(), out);
+    }
+}
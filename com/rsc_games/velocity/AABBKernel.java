@@ -0,0 +1,25 @@
+package com.rsc_games.velocity;
+
+/**
+ * Internal. Batch overlap test used by {@code AABBArray}. Implementations must report
+ * exactly the boxes {@code Rect.overlaps()} would, in ascending index order.
+ */
+interface AABBKernel {
+    /**
+     * Find every box overlapping the query area.
+     * 
+     * @param minX Box left edges.
+     * @param minY Box top edges.
+     * @param maxX Box right edges.
+     * @param maxY Box bottom edges.
+     * @param n Amount of boxes.
+     * @param x0 Query left edge.
+     * @param y0 Query top edge.
+     * @param x1 Query right edge.
+     * @param y1 Query bottom edge.
+     * @param out Receives the overlapping box indices.
+     * @return Amount of overlapping boxes.
+     */
+    public int query(int[] minX, int[] minY, int[] maxX, int[] maxY, int n,
+                     int x0, int y0, int x1, int y1, int[] out);
+}
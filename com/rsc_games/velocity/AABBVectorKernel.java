@@ -0,0 +1,47 @@
+package com.rsc_games.velocity;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Internal. SIMD version of the batch overlap test; tests a whole vector of boxes per
+ * step. Needs the {@code jdk.incubator.vector} module at runtime (start the JVM with
+ * {@code --add-modules jdk.incubator.vector}). {@code AABBArray} only loads this class
+ * reflectively, so the engine still runs without the module.
+ */
+class AABBVectorKernel implements AABBKernel {
+    /**
+     * Widest vector shape the CPU supports.
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public int query(int[] minX, int[] minY, int[] maxX, int[] maxY, int n,
+                     int x0, int y0, int x1, int y1, int[] out) {
+        int count = 0;
+        int i = 0;
+        int bound = SPECIES.loopBound(n);
+
+        for (; i < bound; i += SPECIES.length()) {
+            VectorMask<Integer> m = IntVector.fromArray(SPECIES, minX, i).lt(x1)
+                .and(IntVector.fromArray(SPECIES, maxX, i).compare(VectorOperators.GT, x0))
+                .and(IntVector.fromArray(SPECIES, minY, i).lt(y1))
+                .and(IntVector.fromArray(SPECIES, maxY, i).compare(VectorOperators.GT, y0));
+
+            // Hits are rare, so most steps end here.
+            long bits = m.toLong();
+            while (bits != 0) {
+                out[count++] = i + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+
+        for (; i < n; i++) {
+            if (minX[i] < x1 && maxX[i] > x0 && minY[i] < y1 && maxY[i] > y0)
+                out[count++] = i;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,201 @@
+package com.rsc_games.velocity;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import com.rsc_games.velocity.util.GlobalRandom;
+import com.rsc_games.velocity.util.Logger;
+import com.rsc_games.velocity.util.Point;
+
+/**
+ * Records every tick of player input to a compact binary log so a session can be
+ * replayed later with {@code InputReplay}. Since the engine ticks at a fixed rate and
+ * {@code GlobalRandom} is reseeded when recording starts, replaying the log reproduces
+ * the session exactly (as long as the game itself only uses {@code GlobalRandom}).
+ *
+ * Log layout (big endian):
+ *  - Header: magic "VINR", version, RNG seed, start scene name, window resolution.
+ *  - One record per tick: a flags byte, then the pointer location if it moved, then
+ *    the input events published for that tick if there were any.
+ *  - An end marker.
+ *
+ * Idle ticks cost a single byte.
+ */
+public class InputRecorder {
+    /**
+     * Log file magic ("VINR").
+     */
+    static final int MAGIC = 0x56494e52;
+
+    /**
+     * Log format version.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Tick flag: the pointer moved this tick.
+     */
+    static final int T_POINTER = 0x1;
+
+    /**
+     * Tick flag: input events were published for this tick.
+     */
+    static final int T_EVENTS = 0x2;
+
+    /**
+     * Marks the end of the log.
+     */
+    static final int T_END = 0xff;
+
+    /**
+     * The active recorder (if any).
+     */
+    private static InputRecorder recorder;
+
+    /**
+     * The log output.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Last recorded pointer location.
+     */
+    private int lastX = Integer.MIN_VALUE, lastY = Integer.MIN_VALUE;
+
+    /**
+     * Amount of ticks recorded.
+     */
+    private long ticks = 0;
+
+    /**
+     * Open a new log and write the header.
+     *
+     * @param path Log file path.
+     * @param scene The scene the session starts in.
+     * @param res The window resolution.
+     * @param seed The RNG seed.
+     */
+    private InputRecorder(String path, String scene, Point res, long seed) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeLong(seed);
+        out.writeUTF(scene);
+        out.writeInt(res.x);
+        out.writeInt(res.y);
+    }
+
+    /**
+     * Start recording. Must be called before the first scene is loaded, since the
+     * replay starts from a fresh engine. Reseeds {@code GlobalRandom}.
+     *
+     * @param path Log file path.
+     * @param scene The scene the session starts in.
+     * @param res The window resolution.
+     */
+    public static synchronized void start(String path, String scene, Point res) {
+        if (recorder != null)
+            throw new IllegalStateException("Input is already being recorded!");
+
+        long seed = System.nanoTime();
+        GlobalRandom.setSeed(seed);
+
+        try {
+            recorder = new InputRecorder(path, scene, res, seed);
+        }
+        catch (IOException ie) {
+            Logger.error("velocity.input", "Unable to open input log " + path + ": " + ie.getMessage());
+            return;
+        }
+
+        // The engine exits with System.exit(), so make sure the log is completed.
+        Runtime.getRuntime().addShutdownHook(new Thread(InputRecorder::stop, "velocity.input.recorder"));
+        Logger.log("velocity.input", "Recording input to " + path + " (seed " + seed + ")");
+    }
+
+    /**
+     * Stop recording and close the log.
+     */
+    public static synchronized void stop() {
+        if (recorder == null)
+            return;
+
+        try {
+            recorder.out.writeByte(T_END);
+            recorder.out.close();
+            Logger.log("velocity.input", "Recorded " + recorder.ticks + " ticks of input.");
+        }
+        catch (IOException ie) {
+            Logger.error("velocity.input", "Unable to finish input log: " + ie.getMessage());
+        }
+
+        recorder = null;
+    }
+
+    /**
+     * Whether input is being recorded.
+     *
+     * @return If the recorder is running.
+     */
+    public static boolean isRecording() {
+        return recorder != null;
+    }
+
+    /**
+     * Record the input visible to the upcoming tick. Called by the engine at the start
+     * of every tick.
+     */
+    static synchronized void INTERNAL_captureTick() {
+        if (recorder == null)
+            return;
+
+        try {
+            recorder.capture();
+        }
+        catch (IOException ie) {
+            Logger.error("velocity.input", "Input recording stopped: " + ie.getMessage());
+            recorder = null;
+        }
+    }
+
+    /**
+     * Write the record for one tick.
+     */
+    private void capture() throws IOException {
+        InputSystem in = InputSystem.inputSystemBackend;
+        int events = (in == null) ? 0 : in.getFrameEventCount();
+        int x = 0, y = 0;
+
+        if (in != null) {
+            Point p = InputSystem.getMousePos();
+            x = p.x;
+            y = p.y;
+        }
+
+        int flags = 0;
+        if (x != lastX || y != lastY) flags |= T_POINTER;
+        if (events > 0) flags |= T_EVENTS;
+
+        out.writeByte(flags);
+
+        if ((flags & T_POINTER) != 0) {
+            out.writeShort(x);
+            out.writeShort(y);
+            lastX = x;
+            lastY = y;
+        }
+
+        // Event type in the top 2 bits, key code or button in the rest.
+        if ((flags & T_EVENTS) != 0) {
+            out.writeShort(events);
+
+            for (int i = 0; i < events; i++)
+                out.writeShort((in.getFrameEventType(i) << 14) | in.getFrameEventCode(i));
+        }
+
+        ticks++;
+    }
+}
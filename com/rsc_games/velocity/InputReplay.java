@@ -0,0 +1,172 @@
+package com.rsc_games.velocity;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import com.rsc_games.velocity.config.GlobalAppConfig;
+import com.rsc_games.velocity.config.GlobalSceneDefs;
+import com.rsc_games.velocity.renderer.headless.HeadlessPipeline;
+import com.rsc_games.velocity.renderer.headless.HeadlessWindow;
+import com.rsc_games.velocity.util.GlobalRandom;
+import com.rsc_games.velocity.util.Logger;
+import com.rsc_games.velocity.util.Point;
+
+/**
+ * Replays a session recorded by {@code InputRecorder} on the headless pipeline, as fast
+ * as the engine can tick, and times every tick. Running the same log against two engine
+ * versions gives directly comparable numbers.
+ *
+ * Usage (from the game's main, in place of {@code VelocityMain.app_main}):
+ * <pre>
+ *     long[] ticks = InputReplay.replay(new AppConfig(), new SceneDefs(), "session.vinr", "ticks.csv");
+ * </pre>
+ */
+public class InputReplay {
+    /**
+     * Replay a recorded session.
+     *
+     * @param bcfg The application config.
+     * @param sceneDefs The scene definitions.
+     * @param logPath The recorded input log.
+     * @param timingPath File to write per-tick timings to as CSV (or null to only log a summary).
+     * @return The time each tick took (in nanoseconds).
+     */
+    public static long[] replay(GlobalAppConfig bcfg, GlobalSceneDefs sceneDefs, String logPath,
+                                String timingPath) {
+        GlobalAppConfig.bcfg = bcfg;
+        Scene.setGlobalSceneLUT(sceneDefs);
+        VelocityMain.startLogging();
+        VelocityMain.registerAppResourceLoader();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logPath)))) {
+            if (in.readInt() != InputRecorder.MAGIC)
+                throw new IllegalStateException(logPath + " is not an input log!");
+            if (in.readUnsignedShort() != InputRecorder.FORMAT_VERSION)
+                throw new IllegalStateException(logPath + " was recorded by an unsupported Velocity version!");
+
+            long seed = in.readLong();
+            String scene = in.readUTF();
+            Point res = new Point(in.readInt(), in.readInt());
+
+            HeadlessPipeline rp = new HeadlessPipeline(res);
+            PipelineManager.installPipeline(rp);
+            HeadlessWindow window = (HeadlessWindow)rp.getWindow();
+            InputSystem input = (InputSystem.inputSystemBackend != null) ? InputSystem.inputSystemBackend
+                                : InputSystem.createInputSystem();
+
+            Logger.log("velocity.replay", "Replaying " + logPath + " (scene " + scene + ", seed " + seed + ")");
+            GlobalRandom.setSeed(seed);
+            Scene.scheduleSceneLoad(scene);
+
+            long[] times = new long[1024];
+            int ticks = 0;
+
+            while (true) {
+                int flags = in.readUnsignedByte();
+                if (flags == InputRecorder.T_END)
+                    break;
+
+                if ((flags & InputRecorder.T_POINTER) != 0)
+                    window.setPointerLocation(in.readShort(), in.readShort());
+
+                if ((flags & InputRecorder.T_EVENTS) != 0) {
+                    int n = in.readUnsignedShort();
+
+                    for (int i = 0; i < n; i++)
+                        applyEvent(input, in.readUnsignedShort());
+                }
+
+                // Publish the events exactly like the end of the previous live tick did.
+                input.clearKeyBuffers();
+
+                long start = System.nanoTime();
+                VelocityMain.runEngineTick();
+                long time = System.nanoTime() - start;
+
+                if (ticks == times.length)
+                    times = Arrays.copyOf(times, ticks * 2);
+                times[ticks++] = time;
+            }
+
+            times = Arrays.copyOf(times, ticks);
+            logSummary(times);
+
+            if (timingPath != null)
+                writeTimings(timingPath, times);
+
+            return times;
+        }
+        catch (EOFException ie) {
+            throw new IllegalStateException(logPath + " is truncated (was the game killed while recording?)", ie);
+        }
+        catch (IOException ie) {
+            throw new RuntimeException("Unable to replay " + logPath, ie);
+        }
+    }
+
+    /**
+     * Feed one recorded event back into the input system.
+     *
+     * @param input The input system.
+     * @param packed Event type (top 2 bits) and code.
+     */
+    private static void applyEvent(InputSystem input, int packed) {
+        int code = packed & 0x3fff;
+
+        switch (packed >>> 14) {
+            case InputSystem.EV_KEY_DOWN: input.keyPressed(code); break;
+            case InputSystem.EV_KEY_UP: input.keyReleased(code); break;
+            case InputSystem.EV_MOUSE_DOWN: input.mousePressed(code); break;
+            case InputSystem.EV_MOUSE_UP: input.mouseReleased(code); break;
+        }
+    }
+
+    /**
+     * Log tick time statistics.
+     *
+     * @param times Tick times (in nanoseconds).
+     */
+    private static void logSummary(long[] times) {
+        if (times.length == 0) {
+            Logger.warn("velocity.replay", "Input log contained no ticks.");
+            return;
+        }
+
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+
+        for (long t : times)
+            total += t;
+
+        Logger.log("velocity.replay", String.format(
+            "%d ticks in %.2f ms (avg %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us)",
+            times.length, total / 1e6, total / 1e3 / times.length,
+            sorted[sorted.length / 2] / 1e3, sorted[(int)(sorted.length * 0.99)] / 1e3,
+            sorted[sorted.length - 1] / 1e3
+        ));
+    }
+
+    /**
+     * Write the per-tick timings as CSV.
+     *
+     * @param path Output path.
+     * @param times Tick times (in nanoseconds).
+     */
+    private static void writeTimings(String path, long[] times) {
+        try (PrintWriter w = new PrintWriter(path)) {
+            w.println("tick,nanos");
+
+            for (int i = 0; i < times.length; i++)
+                w.println(i + "," + times[i]);
+        }
+        catch (IOException ie) {
+            Logger.error("velocity.replay", "Unable to write tick timings to " + path + ": " + ie.getMessage());
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.rsc_games.velocity;
 
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
 
 import com.rsc_games.velocity.InputSystem;
 import com.rsc_games.velocity.renderer.window.Window;
@@ -10,7 +9,9 @@ import com.rsc_games.velocity.util.Point;
 
 /**
  * Velocity's input system and HID event handler. Allows access to HID events
- * cleanly and effectively.
+ * cleanly and effectively. Key and button state is kept in bitsets keyed by
+ * GLFW key code, so every lookup is O(1) and allocation free. Raw events are
+ * also kept (with timestamps) in a preallocated ring buffer.
  */
 public class InputSystem {
     /**
@@ -18,81 +19,300 @@ public class InputSystem {
      */
     public static InputSystem inputSystemBackend;
 
-    /** 
-     * List of all keys pressed this frame.
+    /**
+     * Size of the key bitsets (in bits). Covers every GLFW key code.
+     */
+    public static final int KEY_COUNT = 512;
+
+    /**
+     * Input event type: key pressed.
+     */
+    public static final int EV_KEY_DOWN = 0;
+
+    /**
+     * Input event type: key released.
+     */
+    public static final int EV_KEY_UP = 1;
+
+    /**
+     * Input event type: mouse button pressed.
+     */
+    public static final int EV_MOUSE_DOWN = 2;
+
+    /**
+     * Input event type: mouse button released.
+     */
+    public static final int EV_MOUSE_UP = 3;
+
+    /**
+     * Capacity of the input event ring buffer.
+     */
+    public static final int EVENT_CAPACITY = 256;
+
+    /**
+     * Words per key bitset.
+     */
+    private static final int KEY_WORDS = KEY_COUNT / 64;
+
+    /**
+     * Currently pressed keys (updated as events arrive).
      */
-    private ArrayList<Integer> keysDown = new ArrayList<Integer>();
+    private final long[] keysActive = new long[KEY_WORDS];
 
-    /** 
-     * List of all keys pressed this frame.
+    /**
+     * Pressed keys as of the last published frame.
      */
-    private ArrayList<Integer> keysDownBuffer = new ArrayList<Integer>();
+    private final long[] keysPrev = new long[KEY_WORDS];
 
     /**
-     * List of all keys released this frame.
+     * Keys that got a press event since the last published frame.
      */
-    private ArrayList<Integer> keysUp = new ArrayList<Integer>();
+    private final long[] keysDownBuffer = new long[KEY_WORDS];
 
     /**
-     * Internal list of all keys released this frame.
+     * Keys that got a release event since the last published frame.
      */
-    private ArrayList<Integer> keysUpBuffer = new ArrayList<Integer>();
+    private final long[] keysUpBuffer = new long[KEY_WORDS];
 
     /**
-     * List of all currently pressed keys.
+     * Keys pressed this frame.
      */
-    private ArrayList<Integer> keysActive = new ArrayList<Integer>();
+    private final long[] keysDown = new long[KEY_WORDS];
 
     /**
-     * List of all mouse buttons pressed this frame.
+     * Keys released this frame.
      */
-    private ArrayList<Integer> mouseDown = new ArrayList<Integer>();
+    private final long[] keysUp = new long[KEY_WORDS];
 
     /**
-     * Internal list of newly pressed mouse buttons.
+     * Mouse button bitsets (bit n is button n). Same roles as the key bitsets.
      */
-    private ArrayList<Integer> mouseDownBuffer = new ArrayList<Integer>();
+    private int mouseActive, mousePrev, mouseDownBuffer, mouseUpBuffer, mouseDown, mouseUp;
 
     /**
-     * List of all mouse buttons released this frame.
+     * Pending input events (ring buffer) since the last published frame.
      */
-    private ArrayList<Integer> mouseUp = new ArrayList<Integer>();
+    private final int[] evType = new int[EVENT_CAPACITY], evCode = new int[EVENT_CAPACITY];
 
     /**
-     * Internal list of all mouse buttons released this frame.
+     * Pending event timestamps (from {@code System.nanoTime()}).
      */
-    private ArrayList<Integer> mouseUpBuffer = new ArrayList<Integer>();
+    private final long[] evTime = new long[EVENT_CAPACITY];
 
     /**
-     * List of all mouse buttons currently pressed.
+     * Oldest pending event and amount of pending events.
      */
-    private ArrayList<Integer> mouseActive = new ArrayList<Integer>();
+    private int evHead = 0, evCount = 0;
+
+    /**
+     * Events published for the current frame, in arrival order.
+     */
+    private final int[] frameType = new int[EVENT_CAPACITY], frameCode = new int[EVENT_CAPACITY];
+
+    /**
+     * Timestamps of the events published for the current frame.
+     */
+    private final long[] frameTime = new long[EVENT_CAPACITY];
+
+    /**
+     * Amount of events published for the current frame.
+     */
+    private int frameEventCount = 0;
+
+    /**
+     * Events dropped because the ring buffer was full.
+     */
+    private long droppedEvents = 0;
+
+    /**
+     * Input latency statistics (event arrival to the tick it's published to).
+     */
+    private long latencyLast = 0, latencyMax = 0, latencySum = 0, latencyCount = 0;
 
     /**
      * Refresh all key data. Called by the renderer redraw event handler.
+     * Pressed/released edges are the keys that changed state since the last frame
+     * (the XOR of the current and previous state), plus any key that was tapped
+     * faster than a frame.
      */
     public void clearKeyBuffers() {
-        keysDown.clear();
-        keysUp.clear();
-        mouseDown.clear();
-        mouseUp.clear();
+        for (int i = 0; i < KEY_WORDS; i++) {
+            long cur = keysActive[i];
+            long prev = keysPrev[i];
+            long edges = cur ^ prev;
+
+            keysDown[i] = (edges & cur) | keysDownBuffer[i];
+            keysUp[i] = (edges & prev) | keysUpBuffer[i];
+            keysPrev[i] = cur;
+            keysDownBuffer[i] = 0;
+            keysUpBuffer[i] = 0;
+        }
+
+        int mEdges = mouseActive ^ mousePrev;
+        mouseDown = (mEdges & mouseActive) | mouseDownBuffer;
+        mouseUp = (mEdges & mousePrev) | mouseUpBuffer;
+        mousePrev = mouseActive;
+        mouseDownBuffer = 0;
+        mouseUpBuffer = 0;
+
+        publishEvents();
+    }
 
-        publishKeyPresses();
+    /**
+     * Move the pending events into the current frame's event list and record how
+     * long each one waited.
+     */
+    private void publishEvents() {
+        long now = System.nanoTime();
+
+        for (int i = 0; i < evCount; i++) {
+            int idx = (evHead + i) % EVENT_CAPACITY;
+            frameType[i] = evType[idx];
+            frameCode[i] = evCode[idx];
+            frameTime[i] = evTime[idx];
+
+            long lat = now - evTime[idx];
+            latencyLast = lat;
+            latencySum += lat;
+            latencyCount++;
+            if (lat > latencyMax) latencyMax = lat;
+        }
+
+        frameEventCount = evCount;
+        evHead = 0;
+        evCount = 0;
     }
 
     /**
-     * Update the currently visible keypresses/mouse presses with the cached ones.
+     * Record an input event in the ring buffer. The oldest event is dropped if the
+     * buffer is full.
+     * 
+     * @param type The event type.
+     * @param code The key code or mouse button.
      */
-    private void publishKeyPresses() {
-        keysDown.addAll(keysDownBuffer);
-        keysDownBuffer.clear();
-        keysUp.addAll(keysUpBuffer);
-        keysUpBuffer.clear();
+    private void pushEvent(int type, int code) {
+        if (evCount == EVENT_CAPACITY) {
+            evHead = (evHead + 1) % EVENT_CAPACITY;
+            evCount--;
+            droppedEvents++;
+        }
+
+        int idx = (evHead + evCount) % EVENT_CAPACITY;
+        evType[idx] = type;
+        evCode[idx] = code;
+        evTime[idx] = System.nanoTime();
+        evCount++;
+    }
 
-        mouseDown.addAll(mouseDownBuffer);
-        mouseDownBuffer.clear();
-        mouseUp.addAll(mouseUpBuffer);
-        mouseUpBuffer.clear();
+    /**
+     * Get the amount of input events published this frame.
+     * 
+     * @return The event count.
+     */
+    public int getFrameEventCount() {
+        return frameEventCount;
+    }
+
+    /**
+     * Get the type of an event published this frame.
+     * 
+     * @param i The event index (arrival order).
+     * @return The event type (one of the {@code EV_} constants).
+     */
+    public int getFrameEventType(int i) {
+        return frameType[i];
+    }
+
+    /**
+     * Get the key code or mouse button of an event published this frame.
+     * 
+     * @param i The event index (arrival order).
+     * @return The key code or button.
+     */
+    public int getFrameEventCode(int i) {
+        return frameCode[i];
+    }
+
+    /**
+     * Get the arrival time of an event published this frame.
+     * 
+     * @param i The event index (arrival order).
+     * @return The {@code System.nanoTime()} timestamp.
+     */
+    public long getFrameEventTime(int i) {
+        return frameTime[i];
+    }
+
+    /**
+     * Get the latency of the most recently published event.
+     * 
+     * @return Nanoseconds between the event arriving and the tick seeing it.
+     */
+    public long getLastLatencyNanos() {
+        return latencyLast;
+    }
+
+    /**
+     * Get the worst input latency since the last reset.
+     * 
+     * @return Maximum latency (in nanoseconds).
+     */
+    public long getMaxLatencyNanos() {
+        return latencyMax;
+    }
+
+    /**
+     * Get the mean input latency since the last reset.
+     * 
+     * @return Average latency (in nanoseconds).
+     */
+    public long getAverageLatencyNanos() {
+        return (latencyCount == 0) ? 0 : latencySum / latencyCount;
+    }
+
+    /**
+     * Get how many events were dropped because too many arrived in one frame.
+     * 
+     * @return Dropped event count.
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents;
+    }
+
+    /**
+     * Reset the latency statistics.
+     */
+    public void resetLatencyStats() {
+        latencyLast = 0;
+        latencyMax = 0;
+        latencySum = 0;
+        latencyCount = 0;
+    }
+
+    /**
+     * Test a bit in a key bitset.
+     * 
+     * @param set The bitset.
+     * @param keyCode The key code.
+     * @return Whether the bit is set (false for out of range codes).
+     */
+    private static boolean testKey(long[] set, int keyCode) {
+        if (keyCode < 0 || keyCode >= KEY_COUNT)
+            return false;
+        return (set[keyCode >>> 6] & (1L << keyCode)) != 0;
+    }
+
+    /**
+     * Test a bit in a mouse button bitset.
+     * 
+     * @param set The bitset.
+     * @param buttonID The button.
+     * @return Whether the bit is set (false for out of range buttons).
+     */
+    private static boolean testButton(int set, int buttonID) {
+        if (buttonID < 0 || buttonID >= 32)
+            return false;
+        return (set & (1 << buttonID)) != 0;
     }
 
     /**
@@ -113,7 +333,7 @@ public class InputSystem {
      * @return Whether the key was pressed.
      */
     public boolean getKey0(int keyCode) {
-        return keysActive.contains(keyCode);
+        return testKey(keysActive, keyCode);
     }
 
     /**
@@ -133,7 +353,7 @@ public class InputSystem {
      * @return Whether the key was just pressed.
      */
     public boolean getKeyDown0(int keyCode) {
-        return keysDown.contains(keyCode);
+        return testKey(keysDown, keyCode);
     }
 
     /**
@@ -165,7 +385,7 @@ public class InputSystem {
      * @return Whether it's been pressed or not.
      */
     public boolean getKeyUp0(int keyCode) {
-        return keysUp.contains(keyCode);
+        return testKey(keysUp, keyCode);
     }
 
     /**
@@ -195,7 +415,7 @@ public class InputSystem {
      * @return Whether it's been pressed.
      */
     public boolean clicked0(int buttonID) {
-        return mouseActive.contains(buttonID);
+        return testButton(mouseActive, buttonID);
     }
 
     /**
@@ -208,6 +428,26 @@ public class InputSystem {
         return inputSystemBackend.clicked0(buttonID);
     }
 
+    /**
+     * Test for a button press this frame.
+     * 
+     * @param buttonID The mouse button id.
+     * @return Whether it's been pressed this frame.
+     */
+    public boolean pressed0(int buttonID) {
+        return testButton(mouseDown, buttonID);
+    }
+
+    /**
+     * Was a mouse button pressed this frame?
+     * 
+     * @param buttonID Button id.
+     * @return Whether it's pressed this frame or not.
+     */
+    public static boolean pressed(int buttonID) {
+        return inputSystemBackend.pressed0(buttonID);
+    }
+
     /**
      * Test for a button release.
      * 
@@ -215,7 +455,7 @@ public class InputSystem {
      * @return Whether it's been pressed.
      */
     public boolean released0(int buttonID) {
-        return mouseUp.contains(buttonID);
+        return testButton(mouseUp, buttonID);
     }
 
     /**
@@ -234,10 +474,13 @@ public class InputSystem {
      * @param keyCode Input key code.
      */
     public void keyPressed(int keyCode) {
-        keysDownBuffer.add(keyCode);
+        if (keyCode < 0 || keyCode >= KEY_COUNT)
+            return;
 
-        if (!keysActive.contains(keyCode))
-            keysActive.add(keyCode);
+        long bit = 1L << keyCode;
+        keysDownBuffer[keyCode >>> 6] |= bit;
+        keysActive[keyCode >>> 6] |= bit;
+        pushEvent(EV_KEY_DOWN, keyCode);
     }
 
     /**
@@ -246,8 +489,13 @@ public class InputSystem {
      * @param keyCode Code.
      */
     public void keyReleased(int keyCode) {
-        keysUpBuffer.add(keyCode);
-        keysActive.remove((Integer)keyCode); // Remove the object, not the index.
+        if (keyCode < 0 || keyCode >= KEY_COUNT)
+            return;
+
+        long bit = 1L << keyCode;
+        keysUpBuffer[keyCode >>> 6] |= bit;
+        keysActive[keyCode >>> 6] &= ~bit;
+        pushEvent(EV_KEY_UP, keyCode);
     }
 
     public void keyTyped(KeyEvent e) {}
@@ -261,10 +509,12 @@ public class InputSystem {
      * @param mouseButton
      */
     public void mousePressed(int mouseButton) {
-        mouseDownBuffer.add(mouseButton);
+        if (mouseButton < 0 || mouseButton >= 32)
+            return;
 
-        if (!mouseActive.contains(mouseButton))
-            mouseActive.add(mouseButton);
+        mouseDownBuffer |= 1 << mouseButton;
+        mouseActive |= 1 << mouseButton;
+        pushEvent(EV_MOUSE_DOWN, mouseButton);
     }
 
     /**
@@ -273,7 +523,11 @@ public class InputSystem {
      * @param mouseButton
      */
     public void mouseReleased(int mouseButton) {
-        mouseUpBuffer.add(mouseButton);
-        mouseActive.remove((Integer)mouseButton); // Remove the object, not the index.
+        if (mouseButton < 0 || mouseButton >= 32)
+            return;
+
+        mouseUpBuffer |= 1 << mouseButton;
+        mouseActive &= ~(1 << mouseButton);
+        pushEvent(EV_MOUSE_UP, mouseButton);
     }
 }
@@ -25,6 +25,22 @@ public class PipelineManager {
         return internalRP;
     }
 
+    /**
+     * Use an already constructed pipeline (like the headless pipeline) instead of
+     * CopperheadGL. Must be called before any pipeline is created.
+     * 
+     * @param rp The pipeline to use.
+     * @return The pipeline.
+     */
+    public static RenderPipeline installPipeline(RenderPipeline rp) {
+        if (internalRP != null)
+            throw new IllegalStateException("A render pipeline (" + internalRP.getRendererName() 
+                                            + ") is already active!");
+
+        internalRP = rp;
+        return internalRP;
+    }
+
     /**
      * Get the active render pipeline (frequently for management tasks)
      * 
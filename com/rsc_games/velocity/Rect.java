@@ -53,7 +53,7 @@ public class Rect {
     public Rect(int cx, int cy, int w, int h) {
         this.w = w;
         this.h = h;
-        this.setPos(new Point(cx, cy));
+        this.setPos(cx, cy);
     }
 
     /**
@@ -113,7 +113,7 @@ public class Rect {
     public void setWH(int w, int h) {
         this.w = w;
         this.h = h;
-        this.setPos(new Point(centerX, centerY));
+        this.setPos(centerX, centerY);
     }
 
     /**
@@ -122,9 +122,35 @@ public class Rect {
      * @param wh Width and Height of the rectangle.
      */
     public void setWH(Point wh) {
-        this.w = wh.x;
-        this.h = wh.y;
-        this.setPos(new Point(centerX, centerY));
+        this.setWH(wh.x, wh.y);
+    }
+
+    /**
+     * Set the center location and size of this rect at once.
+     * 
+     * @param cx Center X location (in pixels).
+     * @param cy Center Y location (in pixels).
+     * @param w Width (in pixels).
+     * @param h Height (in pixels).
+     */
+    public void set(int cx, int cy, int w, int h) {
+        this.w = w;
+        this.h = h;
+        this.setPos(cx, cy);
+    }
+
+    /**
+     * Make this rect match another one (in place; see {@code copy()}).
+     * 
+     * @param other The rect to copy.
+     */
+    public void setTo(Rect other) {
+        this.x = other.x;
+        this.y = other.y;
+        this.w = other.w;
+        this.h = other.h;
+        this.centerX = other.centerX;
+        this.centerY = other.centerY;
     }
 
     /**
@@ -160,7 +186,56 @@ public class Rect {
      * @param p Move distance.
      */
     public void translate(Point p) {
-        this.setPos(this.getPos().add(p));
+        this.translate(p.x, p.y);
+    }
+
+    /**
+     * Move this rect a given distance.
+     * 
+     * @param dx X distance (in pixels).
+     * @param dy Y distance (in pixels).
+     */
+    public void translate(int dx, int dy) {
+        this.centerX += dx;
+        this.centerY += dy;
+        this.x += dx;
+        this.y += dy;
+    }
+
+    /**
+     * Get the center X location without allocating a point.
+     * 
+     * @return Center X location (in pixels).
+     */
+    public int getCenterX() {
+        return this.centerX;
+    }
+
+    /**
+     * Get the center Y location without allocating a point.
+     * 
+     * @return Center Y location (in pixels).
+     */
+    public int getCenterY() {
+        return this.centerY;
+    }
+
+    /**
+     * Get the top left X location (see {@code getDrawLoc()}) without allocating a point.
+     * 
+     * @return Top left X location (in pixels).
+     */
+    public int getDrawX() {
+        return this.x;
+    }
+
+    /**
+     * Get the top left Y location (see {@code getDrawLoc()}) without allocating a point.
+     * 
+     * @return Top left Y location (in pixels).
+     */
+    public int getDrawY() {
+        return this.y;
     }
     
     /**
@@ -173,6 +248,16 @@ public class Rect {
         return new Point(this.x, this.y);
     }
 
+    /**
+     * Write this rect's top left corner location into an existing point.
+     * 
+     * @param out Point to write to.
+     * @return {@code out}.
+     */
+    public Point getDrawLoc(Point out) {
+        return out.setTo(this.x, this.y);
+    }
+
     /**
      * Get the current center location of this rectangle.
      * 
@@ -182,6 +267,16 @@ public class Rect {
         return new Point(this.centerX, this.centerY);
     }
 
+    /**
+     * Write the current center location of this rectangle into an existing point.
+     * 
+     * @param out Point to write to.
+     * @return {@code out}.
+     */
+    public Point getPos(Point out) {
+        return out.setTo(this.centerX, this.centerY);
+    }
+
     /**
      * Set the current center location of this rect.
      * Automatically regenerates inner values as needed.
@@ -189,8 +284,18 @@ public class Rect {
      * @param p New center.
      */
     public void setPos(Point p) {
-        this.centerX = p.x;
-        this.centerY = p.y;
+        this.setPos(p.x, p.y);
+    }
+
+    /**
+     * Set the current center location of this rect.
+     * 
+     * @param cx New center X location (in pixels).
+     * @param cy New center Y location (in pixels).
+     */
+    public void setPos(int cx, int cy) {
+        this.centerX = cx;
+        this.centerY = cy;
 
         // Maybe round later for slightly higher precision?
         this.x = this.centerX - (this.w / 2);
@@ -206,6 +311,21 @@ public class Rect {
         return new Rect(this.centerX, this.centerY, this.w, this.h);
     }
 
+    /**
+     * Collision detection against an area given by its top left corner and size,
+     * so callers don't need a temporary rect.
+     * 
+     * @param ox Other area's top left X location.
+     * @param oy Other area's top left Y location.
+     * @param ow Other area's width.
+     * @param oh Other area's height.
+     * @return If they overlap.
+     */
+    public boolean overlaps(int ox, int oy, int ow, int oh) {
+        return this.x < ox + ow && this.x + this.w > ox
+            && this.y < oy + oh && this.y + this.h > oy;
+    }
+
     /**
      * Collision detection. Detects any overlap on this rect and another
      * passed-in rect.
@@ -0,0 +1,511 @@
+package com.rsc_games.velocity;
+
+import java.util.Arrays;
+
+import com.rsc_games.velocity.renderer.DrawInfo;
+import com.rsc_games.velocity.sprite.Sprite;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * Uniform grid of the scene's renderables for view culling. Sprites with known draw
+ * bounds (their rect once scaled and rotated, see {@code DrawInfo.extentX()}) are
+ * filed under every grid cell they touch, so finding what's on screen only visits the
+ * cells under the camera. Sprites that draw wherever they like (custom renderers, UI)
+ * are kept in a separate list and returned by every query.
+ *
+ * Entries live in slots (a sprite keeps its slot until it's removed), and every entry
+ * remembers when it was inserted, so queries can return sprites in scene order.
+ */
+public class RenderGrid {
+    /**
+     * Entries spanning more cells than this skip the grid (and are tested by every query).
+     */
+    static final int MAX_SPAN = 64;
+
+    /**
+     * Entry kinds.
+     */
+    private static final byte FREE = 0;
+    private static final byte CELLS = 1;
+    private static final byte WIDE = 2;
+    private static final byte ALWAYS = 3;
+
+    /**
+     * Empty hash table key.
+     */
+    private static final long NO_CELL = Long.MIN_VALUE;
+
+    /**
+     * log2 of the cell size (in pixels).
+     */
+    private final int cellShift;
+
+    /**
+     * Entry fields, packed into one 64 byte record per slot (so refreshing an entry
+     * touches one cache line): bounds, cell range, the transform the extents were last
+     * computed from (so unchanged size, scale and rotation skip the trig), the extents
+     * and the insertion order.
+     */
+    private static final int MIN_X = 0, MIN_Y = 1, MAX_X = 2, MAX_Y = 3;
+    private static final int CELL_X0 = 4, CELL_Y0 = 5, CELL_X1 = 6, CELL_Y1 = 7;
+    private static final int W = 8, H = 9, SCALE_X = 10, SCALE_Y = 11, ROT = 12;
+    private static final int EXT_X = 13, EXT_Y = 14, ORDER = 15;
+    private static final int STRIDE = 16;
+
+    /**
+     * Entry state, by slot.
+     */
+    private Sprite[] sprites = new Sprite[64];
+    private byte[] kind = new byte[64];
+    private int[] data = new int[64 * STRIDE];
+
+    /**
+     * Last query each entry was returned by (so entries in several cells are only
+     * returned once).
+     */
+    private int[] seen = new int[64];
+    private int queryStamp = 0;
+
+    /**
+     * Slot allocation.
+     */
+    private int slotCount = 0;
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
+    private int live = 0;
+    private int nextOrder = 0;
+
+    /**
+     * Slots inserted since the last {@code refreshInserted()}.
+     */
+    private int[] inserted = new int[16];
+    private int insertedCount = 0;
+
+    /**
+     * Entries outside the grid (wide and unbounded ones).
+     */
+    private int[] loose = new int[16];
+    private int looseCount = 0;
+
+    /**
+     * Cell hash table (open addressing) and each cell's entries.
+     */
+    private long[] keys;
+    private int[] cellIds;
+    private int[][] members = new int[64][];
+    private int[] memberCount = new int[64];
+    private int cellCount = 0;
+
+    /**
+     * Query scratch space (order and slot packed together for sorting).
+     */
+    private long[] sortScratch = new long[64];
+
+    /**
+     * Create an empty grid.
+     *
+     * @param cellSize Cell size in pixels (rounded up to a power of two).
+     */
+    public RenderGrid(int cellSize) {
+        this.cellShift = 32 - Integer.numberOfLeadingZeros(Math.max(cellSize, 2) - 1);
+        this.keys = new long[256];
+        this.cellIds = new int[256];
+        Arrays.fill(keys, NO_CELL);
+    }
+
+    /**
+     * Get the amount of entries in the grid.
+     *
+     * @return The entry count.
+     */
+    public int size() {
+        return live;
+    }
+
+    /**
+     * Get the sprite in a slot.
+     *
+     * @param slot The slot.
+     * @return The sprite.
+     */
+    public Sprite get(int slot) {
+        return sprites[slot];
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear() {
+        for (int i = 0; i < slotCount; i++) {
+            if (sprites[i] != null)
+                sprites[i].INTERNAL_setRenderSlot(-1);
+            sprites[i] = null;
+            kind[i] = FREE;
+        }
+
+        Arrays.fill(keys, NO_CELL);
+        Arrays.fill(memberCount, 0, cellCount, 0);
+        cellCount = slotCount = freeCount = looseCount = insertedCount = live = nextOrder = 0;
+    }
+
+    /**
+     * Add a sprite after every sprite already in the grid. Bounded sprites draw
+     * inside their rect (scaled and rotated about its center); unbounded ones are
+     * returned by every query.
+     *
+     * @param s The sprite.
+     * @param bounded Whether the sprite draws within its transform's bounds.
+     * @return The sprite's slot.
+     */
+    public int insert(Sprite s, boolean bounded) {
+        int slot = (freeCount > 0) ? freeSlots[--freeCount] : slotCount++;
+        if (slot >= sprites.length)
+            grow(sprites.length * 2);
+
+        if (nextOrder == Integer.MAX_VALUE)
+            renumber();
+
+        sprites[slot] = s;
+        data[slot * STRIDE + ORDER] = nextOrder++;
+        seen[slot] = queryStamp;
+        live++;
+        s.INTERNAL_setRenderSlot(slot);
+
+        if (!bounded) {
+            kind[slot] = ALWAYS;
+            addLoose(slot);
+            return slot;
+        }
+
+        data[slot * STRIDE + W] = -1;
+        computeBounds(slot, s.transform);
+        if (insertedCount == inserted.length)
+            inserted = Arrays.copyOf(inserted, insertedCount * 2);
+        inserted[insertedCount++] = slot;
+        file(slot);
+        return slot;
+    }
+
+    /**
+     * Remove a sprite from the grid. Sprites that aren't in it are ignored.
+     *
+     * @param s The sprite.
+     */
+    public void remove(Sprite s) {
+        int slot = s.INTERNAL_getRenderSlot();
+        if (slot < 0 || slot >= slotCount || sprites[slot] != s)
+            return;
+
+        unfile(slot);
+        sprites[slot] = null;
+        kind[slot] = FREE;
+        live--;
+        s.INTERNAL_setRenderSlot(-1);
+
+        if (freeCount == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Update a sprite's bounds from its transform. It only moves between cells if it
+     * left the cells it was in. Sprites that aren't in the grid are ignored.
+     *
+     * @param s The sprite.
+     */
+    public void refresh(Sprite s) {
+        int slot = s.INTERNAL_getRenderSlot();
+        if (slot < 0 || slot >= slotCount || sprites[slot] != s)
+            return;
+
+        refreshSlot(slot);
+    }
+
+    /**
+     * Update the bounds of every entry inserted since the last call (sprites added
+     * mid-tick may have been moved after they were inserted).
+     */
+    public void refreshInserted() {
+        for (int i = 0; i < insertedCount; i++)
+            if (sprites[inserted[i]] != null)
+                refreshSlot(inserted[i]);
+        insertedCount = 0;
+    }
+
+    /**
+     * Update an entry's bounds (and cells).
+     *
+     * @param slot The slot.
+     */
+    private void refreshSlot(int slot) {
+        if (kind[slot] != CELLS && kind[slot] != WIDE)
+            return;
+
+        computeBounds(slot, sprites[slot].transform);
+        int e = slot * STRIDE;
+        if ((data[e + MIN_X] >> cellShift) == data[e + CELL_X0] && (data[e + MIN_Y] >> cellShift) == data[e + CELL_Y0]
+            && (data[e + MAX_X] >> cellShift) == data[e + CELL_X1] && (data[e + MAX_Y] >> cellShift) == data[e + CELL_Y1])
+            return;
+
+        unfile(slot);
+        file(slot);
+    }
+
+    /**
+     * Find every entry that may draw inside an area (plus every unbounded entry), in
+     * insertion order. Like {@code Rect.overlaps()}, touching edges don't count.
+     *
+     * @param x0 Area left edge.
+     * @param y0 Area top edge.
+     * @param x1 Area right edge.
+     * @param y1 Area bottom edge.
+     * @param out Receives the slots (must hold at least {@code size()} entries).
+     * @return The amount of slots found.
+     */
+    public int query(int x0, int y0, int x1, int y1, int[] out) {
+        int stamp = ++queryStamp, count = 0;
+        if (sortScratch.length < live)
+            sortScratch = new long[live * 2];
+
+        for (int i = 0; i < looseCount; i++) {
+            int slot = loose[i];
+            if (kind[slot] == ALWAYS || overlaps(slot, x0, y0, x1, y1))
+                sortScratch[count++] = ((long)data[slot * STRIDE + ORDER] << 32) | slot;
+        }
+
+        int cx0 = x0 >> cellShift, cy0 = y0 >> cellShift, cx1 = x1 >> cellShift, cy1 = y1 >> cellShift;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int cell = findCell(cx, cy, false);
+                if (cell < 0)
+                    continue;
+
+                int[] m = members[cell];
+                for (int k = 0; k < memberCount[cell]; k++) {
+                    int slot = m[k];
+                    if (seen[slot] == stamp)
+                        continue;
+
+                    seen[slot] = stamp;
+                    if (overlaps(slot, x0, y0, x1, y1))
+                        sortScratch[count++] = ((long)data[slot * STRIDE + ORDER] << 32) | slot;
+                }
+            }
+        }
+
+        Arrays.sort(sortScratch, 0, count);
+        for (int i = 0; i < count; i++)
+            out[i] = (int)sortScratch[i];
+        return count;
+    }
+
+    /**
+     * Test whether an entry overlaps an area.
+     */
+    private boolean overlaps(int slot, int x0, int y0, int x1, int y1) {
+        int e = slot * STRIDE;
+        return data[e + MIN_X] < x1 && data[e + MAX_X] > x0 && data[e + MIN_Y] < y1 && data[e + MAX_Y] > y0;
+    }
+
+    /**
+     * Recompute an entry's bounds from a transform. The extents are only recomputed
+     * when the size, scale or rotation changed.
+     */
+    private void computeBounds(int slot, Transform t) {
+        Rect r = t.location;
+        int rw = r.getW(), rh = r.getH(), sx = t.scale.x, sy = t.scale.y;
+        int a = Float.floatToIntBits(t.rotation);
+        int e = slot * STRIDE;
+
+        if (rw != data[e + W] || rh != data[e + H] || sx != data[e + SCALE_X] || sy != data[e + SCALE_Y] 
+            || a != data[e + ROT]) {
+            data[e + W] = rw;
+            data[e + H] = rh;
+            data[e + SCALE_X] = sx;
+            data[e + SCALE_Y] = sy;
+            data[e + ROT] = a;
+            data[e + EXT_X] = DrawInfo.extentX(rw, rh, sx, sy, t.rotation);
+            data[e + EXT_Y] = DrawInfo.extentY(rw, rh, sx, sy, t.rotation);
+        }
+
+        int cx = r.getCenterX(), cy = r.getCenterY();
+        data[e + MIN_X] = cx - data[e + EXT_X];
+        data[e + MIN_Y] = cy - data[e + EXT_Y];
+        data[e + MAX_X] = cx + data[e + EXT_X];
+        data[e + MAX_Y] = cy + data[e + EXT_Y];
+    }
+
+    /**
+     * File a bounded entry under the cells its bounds touch (or the loose list if it
+     * spans too many).
+     */
+    private void file(int slot) {
+        int e = slot * STRIDE;
+        int x0 = data[e + MIN_X] >> cellShift, y0 = data[e + MIN_Y] >> cellShift;
+        int x1 = data[e + MAX_X] >> cellShift, y1 = data[e + MAX_Y] >> cellShift;
+        data[e + CELL_X0] = x0;
+        data[e + CELL_Y0] = y0;
+        data[e + CELL_X1] = x1;
+        data[e + CELL_Y1] = y1;
+
+        if ((long)(x1 - x0 + 1) * (y1 - y0 + 1) > MAX_SPAN) {
+            kind[slot] = WIDE;
+            addLoose(slot);
+            return;
+        }
+
+        kind[slot] = CELLS;
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                int cell = findCell(cx, cy, true);
+                if (memberCount[cell] == members[cell].length)
+                    members[cell] = Arrays.copyOf(members[cell], memberCount[cell] * 2);
+                members[cell][memberCount[cell]++] = slot;
+            }
+        }
+    }
+
+    /**
+     * Take an entry out of the cells (or loose list) it's filed under.
+     */
+    private void unfile(int slot) {
+        if (kind[slot] != CELLS) {
+            for (int i = 0; i < looseCount; i++) {
+                if (loose[i] == slot) {
+                    loose[i] = loose[--looseCount];
+                    break;
+                }
+            }
+            return;
+        }
+
+        int e = slot * STRIDE;
+        for (int cy = data[e + CELL_Y0]; cy <= data[e + CELL_Y1]; cy++) {
+            for (int cx = data[e + CELL_X0]; cx <= data[e + CELL_X1]; cx++) {
+                int cell = findCell(cx, cy, false);
+                int[] m = members[cell];
+                for (int k = 0; k < memberCount[cell]; k++) {
+                    if (m[k] == slot) {
+                        m[k] = m[--memberCount[cell]];
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add an entry to the loose list.
+     */
+    private void addLoose(int slot) {
+        if (looseCount == loose.length)
+            loose = Arrays.copyOf(loose, looseCount * 2);
+        loose[looseCount++] = slot;
+    }
+
+    /**
+     * Look up a cell. Empty cells stay in the table once created.
+     *
+     * @param cx Cell X.
+     * @param cy Cell Y.
+     * @param create Whether to create the cell if it doesn't exist.
+     * @return The cell, or -1 if it doesn't exist (and wasn't created).
+     */
+    private int findCell(int cx, int cy, boolean create) {
+        long key = ((long)cx << 32) | (cy & 0xFFFFFFFFL);
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+
+        while (keys[i] != NO_CELL) {
+            if (keys[i] == key)
+                return cellIds[i];
+            i = (i + 1) & mask;
+        }
+
+        if (!create)
+            return -1;
+
+        // Keep the table at most half full.
+        if ((cellCount + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+            return findCell(cx, cy, true);
+        }
+
+        if (cellCount == members.length) {
+            members = Arrays.copyOf(members, cellCount * 2);
+            memberCount = Arrays.copyOf(memberCount, cellCount * 2);
+        }
+
+        if (members[cellCount] == null)
+            members[cellCount] = new int[4];
+
+        keys[i] = key;
+        cellIds[i] = cellCount;
+        return cellCount++;
+    }
+
+    /**
+     * Hash a cell key.
+     *
+     * @param key The cell key.
+     * @return The hash.
+     */
+    private static int hash(long key) {
+        return ((int)(key ^ (key >>> 32)) * 0x9E3779B9) >>> 7;
+    }
+
+    /**
+     * Renumber the insertion order of every entry from 0 (keeping it), so the order
+     * counter never overflows.
+     */
+    private void renumber() {
+        int n = 0;
+        long[] packed = new long[live];
+        for (int slot = 0; slot < slotCount; slot++)
+            if (kind[slot] != FREE)
+                packed[n++] = ((long)data[slot * STRIDE + ORDER] << 32) | slot;
+
+        Arrays.sort(packed, 0, n);
+        for (int i = 0; i < n; i++)
+            data[(int)packed[i] * STRIDE + ORDER] = i;
+        nextOrder = n;
+    }
+
+    /**
+     * Grow the cell hash table.
+     *
+     * @param capacity The new table size (a power of two).
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldIds = cellIds;
+        keys = new long[capacity];
+        cellIds = new int[capacity];
+        Arrays.fill(keys, NO_CELL);
+
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key == NO_CELL)
+                continue;
+
+            int i = hash(key) & mask;
+            while (keys[i] != NO_CELL)
+                i = (i + 1) & mask;
+            keys[i] = key;
+            cellIds[i] = oldIds[j];
+        }
+    }
+
+    /**
+     * Grow the entry arrays.
+     *
+     * @param capacity The new slot capacity.
+     */
+    private void grow(int capacity) {
+        sprites = Arrays.copyOf(sprites, capacity);
+        kind = Arrays.copyOf(kind, capacity);
+        data = Arrays.copyOf(data, capacity * STRIDE);
+        seen = Arrays.copyOf(seen, capacity);
+    }
+}
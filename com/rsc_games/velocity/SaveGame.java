@@ -0,0 +1,390 @@
+package com.rsc_games.velocity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import com.rsc_games.velocity.util.BytesFile;
+import com.rsc_games.velocity.util.Logger;
+
+/**
+ * A save game file holding {@code Snapshot}s. The first save writes a full snapshot;
+ * later saves only append the records that changed since the previous save (found by
+ * comparing record checksums) plus the keys of removed records. After
+ * {@code MAX_DELTAS} deltas the file is compacted back into one full snapshot, written
+ * to a temporary file and moved over the old one.
+ *
+ * {@code saveAsync()} captures the snapshot on the game thread (a packed copy of every
+ * record) and leaves diffing and file I/O to a background thread, so autosaves don't
+ * stall the tick. Every segment is checksummed: a save torn by a crash is ignored on
+ * load, leaving the state of the previous save.
+ *
+ * File layout (big endian):
+ * <pre>
+ *     int magic ("VSAV"), ushort version, ushort reserved
+ *     segments: byte kind (full or delta), ushort scene name length, scene name,
+ *               int record count, int removed count, int payload length, int payload CRC32,
+ *               payload: records (ushort key length, key, int length, record),
+ *                        removed keys (ushort key length, key)
+ * </pre>
+ */
+public class SaveGame {
+    /**
+     * File magic ("VSAV").
+     */
+    static final int MAGIC = 0x56534156;
+
+    /**
+     * Current format version.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Segment kinds.
+     */
+    static final byte S_FULL = 0;
+    static final byte S_DELTA = 1;
+
+    /**
+     * Deltas appended before the file is compacted.
+     */
+    public static final int MAX_DELTAS = 16;
+
+    /**
+     * Runs background saves, one at a time and in order.
+     */
+    private static final ExecutorService saver = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "velocity.save");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * The save file path.
+     */
+    public final String path;
+
+    /**
+     * Checksum of every record in the file (as of the last save or load).
+     */
+    private final HashMap<String, Long> savedCRCs = new HashMap<String, Long>();
+
+    /**
+     * Deltas in the file (-1 until a full snapshot was written or loaded).
+     */
+    private int deltas = -1;
+
+    /**
+     * Records written by the last save.
+     */
+    private volatile int lastWritten = 0;
+
+    /**
+     * Open a save file (doesn't touch the disk until the first save or load).
+     *
+     * @param path The file path.
+     */
+    public SaveGame(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Capture the current scene and save it on the background thread. Game thread only.
+     *
+     * @return Completes once the save is on disk (and throws what the save threw).
+     */
+    public Future<?> saveAsync() {
+        Snapshot s = Snapshot.capture(Scene.currentScene);
+        return saver.submit(() -> {
+            try {
+                write(s);
+            }
+            catch (IOException ie) {
+                Logger.error("velocity.SaveGame", "Failed to save " + path + ": " + ie);
+                throw new RuntimeException(ie);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Capture the current scene and save it right away. Game thread only.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    public void save() throws IOException {
+        write(Snapshot.capture(Scene.currentScene));
+    }
+
+    /**
+     * Write a snapshot: a delta if the file already has a full snapshot, a full one
+     * otherwise.
+     *
+     * @param s The snapshot.
+     * @throws IOException If the file can't be written.
+     */
+    synchronized void write(Snapshot s) throws IOException {
+        long start = System.nanoTime();
+        ArrayList<String> keys = s.keys();
+        CRC32 crc = new CRC32();
+        long[] crcs = new long[s.size()];
+
+        for (int i = 0; i < s.size(); i++) {
+            crc.reset();
+            crc.update(s.data, s.offsets[i], s.offsets[i + 1] - s.offsets[i]);
+            crcs[i] = crc.getValue();
+        }
+
+        boolean full = deltas < 0 || deltas >= MAX_DELTAS || !Files.exists(Path.of(path));
+        ArrayList<Integer> changed = new ArrayList<Integer>();
+        ArrayList<String> removed = new ArrayList<String>();
+
+        if (full) {
+            for (int i = 0; i < s.size(); i++)
+                changed.add(i);
+        }
+        else {
+            HashSet<String> live = new HashSet<String>(keys);
+            for (int i = 0; i < s.size(); i++) {
+                Long old = savedCRCs.get(keys.get(i));
+                if (old == null || old != crcs[i])
+                    changed.add(i);
+            }
+            for (String key : savedCRCs.keySet()) {
+                if (!live.contains(key))
+                    removed.add(key);
+            }
+
+            // Nothing changed since the last save.
+            if (changed.isEmpty() && removed.isEmpty()) {
+                lastWritten = 0;
+                return;
+            }
+        }
+
+        SnapshotWriter seg = new SnapshotWriter(64);
+        if (full) {
+            seg.putInt(MAGIC);
+            seg.putShort(FORMAT_VERSION);
+            seg.putShort(0);
+        }
+        writeSegment(seg, s, full ? S_FULL : S_DELTA, changed, removed);
+        ByteBuffer buf = ByteBuffer.wrap(seg.array(), 0, seg.size());
+
+        if (full) {
+            // Write next to the old save and swap it in, so a crash never loses both.
+            Path tmp = Path.of(path + ".tmp");
+            BytesFile f = new BytesFile(tmp.toString(), "wb");
+            try {
+                f.write(buf);
+            }
+            finally {
+                f.close();
+            }
+
+            try {
+                Files.move(tmp, Path.of(path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, Path.of(path), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            savedCRCs.clear();
+            deltas = 0;
+        }
+        else {
+            BytesFile f = new BytesFile(path, "ab");
+            try {
+                f.write(buf);
+            }
+            catch (IOException ie) {
+                deltas = -1;  // The file may end in a partial delta now; rewrite it next time.
+                throw ie;
+            }
+            finally {
+                f.close();
+            }
+
+            for (String key : removed)
+                savedCRCs.remove(key);
+            deltas++;
+        }
+
+        for (int i : changed)
+            savedCRCs.put(keys.get(i), crcs[i]);
+
+        lastWritten = changed.size();
+        Logger.log("velocity.SaveGame", "Saved " + path + " (" + (full ? "full, " : "delta, ") + changed.size()
+                   + " of " + s.size() + " records) in {} ms", (System.nanoTime() - start) / 1000000.0);
+    }
+
+    /**
+     * Encode a segment.
+     *
+     * @param out The output.
+     * @param s The snapshot.
+     * @param kind Segment kind.
+     * @param records Records to write.
+     * @param removed Removed keys.
+     */
+    private static void writeSegment(SnapshotWriter out, Snapshot s, byte kind, ArrayList<Integer> records,
+                                     ArrayList<String> removed) {
+        out.putByte(kind);
+        out.putString(s.scene);
+        out.putInt(records.size());
+        out.putInt(removed.size());
+
+        int header = out.size();
+        out.putInt(0);  // Payload length.
+        out.putInt(0);  // Payload CRC.
+
+        ArrayList<String> keys = s.keys();
+        for (int i : records) {
+            int len = s.offsets[i + 1] - s.offsets[i];
+            out.putString(keys.get(i));
+            out.putInt(len);
+            out.putBytes(s.data, s.offsets[i], len);
+        }
+        for (String key : removed)
+            out.putString(key);
+
+        int payload = header + 8;
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), payload, out.size() - payload);
+        out.setInt(header, out.size() - payload);
+        out.setInt(header + 4, (int)crc.getValue());
+    }
+
+    /**
+     * Load the save: the last full snapshot with every complete delta after it applied.
+     * Following saves continue appending deltas to it.
+     *
+     * @return The snapshot (null if there's no save file).
+     * @throws IOException If the file can't be read.
+     * @throws IllegalStateException If the file isn't a save file.
+     */
+    public synchronized Snapshot load() throws IOException {
+        byte[] file;
+        try {
+            file = Files.readAllBytes(Path.of(path));
+        }
+        catch (NoSuchFileException e) {
+            return null;
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(file);
+        if (buf.remaining() < 8 || buf.getInt() != MAGIC)
+            throw new IllegalStateException(path + " is not a save file!");
+        if (buf.getShort() != FORMAT_VERSION)
+            throw new IllegalStateException(path + " was saved by an unsupported Velocity version!");
+        buf.getShort();
+
+        LinkedHashMap<String, int[]> records = new LinkedHashMap<String, int[]>();
+        String scene = null;
+        int segments = 0;
+        boolean torn = false;
+
+        while (buf.hasRemaining()) {
+            int start = buf.position();
+
+            try {
+                byte kind = buf.get();
+                byte[] name = new byte[buf.getShort() & 0xFFFF];
+                buf.get(name);
+                int count = buf.getInt(), nRemoved = buf.getInt();
+                int len = buf.getInt(), crc = buf.getInt();
+
+                CRC32 check = new CRC32();
+                check.update(file, buf.position(), len);
+                if ((int)check.getValue() != crc)
+                    throw new IllegalStateException("checksum mismatch");
+
+                if (kind == S_FULL)
+                    records.clear();
+                scene = new String(name, StandardCharsets.UTF_8);
+
+                for (int i = 0; i < count; i++) {
+                    String key = readString(buf);
+                    int rlen = buf.getInt();
+                    records.put(key, new int[] {buf.position(), rlen});
+                    buf.position(buf.position() + rlen);
+                }
+                for (int i = 0; i < nRemoved; i++)
+                    records.remove(readString(buf));
+
+                segments++;
+            }
+            catch (RuntimeException e) {
+                Logger.warn("velocity.SaveGame", "Ignoring incomplete save at byte " + start + " of " + path
+                            + " (" + e + ").");
+                torn = true;
+                break;
+            }
+        }
+
+        if (scene == null)
+            return null;
+
+        // Repack the surviving records and remember them for the next delta.
+        ArrayList<String> keys = new ArrayList<String>(records.size());
+        int[] offsets = new int[records.size() + 1];
+        int size = 0;
+        for (int[] r : records.values())
+            size += r[1];
+
+        byte[] data = new byte[size];
+        CRC32 crc = new CRC32();
+        savedCRCs.clear();
+
+        for (Map.Entry<String, int[]> e : records.entrySet()) {
+            int[] r = e.getValue();
+            int i = keys.size();
+            System.arraycopy(file, r[0], data, offsets[i], r[1]);
+            offsets[i + 1] = offsets[i] + r[1];
+            keys.add(e.getKey());
+
+            crc.reset();
+            crc.update(data, offsets[i], r[1]);
+            savedCRCs.put(e.getKey(), crc.getValue());
+        }
+
+        // Anything appended after a torn segment would be ignored, so start over.
+        deltas = torn ? -1 : segments - 1;
+        return new Snapshot(scene, keys, 0, offsets, data);
+    }
+
+    /**
+     * Read a length prefixed UTF-8 string.
+     *
+     * @param buf The buffer.
+     * @return The string.
+     */
+    private static String readString(ByteBuffer buf) {
+        byte[] b = new byte[buf.getShort() & 0xFFFF];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the amount of records the last save wrote (0 if nothing had changed).
+     *
+     * @return The record count.
+     */
+    public int getLastWrittenRecords() {
+        return lastWritten;
+    }
+}
@@ -0,0 +1,33 @@
+package com.rsc_games.velocity;
+
+/**
+ * Informs Velocity that the implementer (a sprite or a persisted object) has state to
+ * save beyond its transform. Fields are written and read back in the same order.
+ *
+ * Every save records {@code getSaveVersion()}. Bump it when the saved fields change,
+ * and have {@code load()} handle the older versions still found in players' saves.
+ */
+public interface Saveable {
+    /**
+     * Get the version of the saved field layout.
+     *
+     * @return The schema version.
+     */
+    public int getSaveVersion();
+
+    /**
+     * Write this object's state. Called on the game thread while a snapshot is
+     * captured, so it must only write (and not wait on anything).
+     *
+     * @param out The snapshot record.
+     */
+    public void save(SnapshotWriter out);
+
+    /**
+     * Restore this object's state.
+     *
+     * @param in The snapshot record.
+     * @param version The schema version the record was saved with.
+     */
+    public void load(SnapshotReader in, int version);
+}
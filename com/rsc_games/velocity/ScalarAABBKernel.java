@@ -0,0 +1,18 @@
+package com.rsc_games.velocity;
+
+/**
+ * Plain loop over the packed arrays. Always available.
+ */
+class ScalarAABBKernel implements AABBKernel {
+    @Override
+    public int query(int[] minX, int[] minY, int[] maxX, int[] maxY, int n,
+                     int x0, int y0, int x1, int y1, int[] out) {
+        int count = 0;
+
+        for (int i = 0; i < n; i++) {
+            if (minX[i] < x1 && maxX[i] > x0 && minY[i] < y1 && maxY[i] > y0)
+                out[count++] = i;
+        }
+        return count;
+    }
+}
@@ -2,16 +2,24 @@ package com.rsc_games.velocity;
 
 import java.lang.reflect.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import com.rsc_games.velocity.config.GlobalAppConfig;
 import com.rsc_games.velocity.config.GlobalSceneDefs;
 import com.rsc_games.velocity.renderer.DrawInfo;
 import com.rsc_games.velocity.renderer.FrameBuffer;
+import com.rsc_games.velocity.scene.SceneFile;
 import com.rsc_games.velocity.sprite.Camera;
+import com.rsc_games.velocity.sprite.ConcurrentInit;
+import com.rsc_games.velocity.sprite.ImageSprite;
+import com.rsc_games.velocity.sprite.Poolable;
 import com.rsc_games.velocity.sprite.Renderable;
 import com.rsc_games.velocity.sprite.Sprite;
 import com.rsc_games.velocity.sprite.collision.Collidable;
 import com.rsc_games.velocity.sprite.collision.DynamicSprite;
+import com.rsc_games.velocity.sprite.collision.LineCollider;
 import com.rsc_games.velocity.sprite.collision.PhysicsSprite;
 import com.rsc_games.velocity.sprite.collision.Triggerable;
 import com.rsc_games.velocity.sprite.ui.UIRenderable;
@@ -20,6 +28,10 @@ import com.rsc_games.velocity.util.Logger;
 import com.rsc_games.velocity.util.MemTracerUtil;
 import com.rsc_games.velocity.util.Persistence;
 import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.AllocTelemetry;
+import com.rsc_games.velocity.util.Profiler;
+import com.rsc_games.velocity.util.ResourceCleaner;
+import com.rsc_games.velocity.util.SpriteAttribution;
 import com.rsc_games.velocity.util.Warnings;
 
 /**
@@ -67,6 +79,86 @@ public class Scene {
      */
     public final int uuid;
 
+    /**
+     * Sprite pools by class (see {@code spawn()}).
+     */
+    private final HashMap<Class<?>, SpritePool> pools = new HashMap<Class<?>, SpritePool>();
+
+    /**
+     * Sprites despawned since the last flush (still in {@code sprites}, but deleted).
+     */
+    private final ArrayList<Sprite> despawned = new ArrayList<Sprite>();
+
+    /**
+     * Per tick sprite lists (reused across ticks, emptied after each tick so they don't
+     * keep removed sprites alive).
+     */
+    private final ArrayList<Sprite> simObjects = new ArrayList<Sprite>();
+    private final ArrayList<Sprite> collidables = new ArrayList<Sprite>();
+    private final ArrayList<Sprite> triggerables = new ArrayList<Sprite>();
+
+    /**
+     * Collider bounds for the current tick (reused across ticks).
+     */
+    private final AABBArray collisionBounds = new AABBArray();
+
+    /**
+     * Scratch space for collision bound queries.
+     */
+    private int[] collisionHits = new int[64];
+
+    /**
+     * Grid cell size for render culling (in pixels).
+     */
+    private static final int RENDER_CELL_SIZE = 256;
+
+    /**
+     * Spatial index of the scene's renderables (see {@code render()}).
+     */
+    private final RenderGrid renderGrid = new RenderGrid(RENDER_CELL_SIZE);
+
+    /**
+     * Sprite list and its edit count the render grid was last in sync with (null to
+     * rebuild it). The scene keeps the grid up to date through its own sprite methods;
+     * any edit it didn't make (a subclass editing or replacing {@code sprites}
+     * directly) rebuilds the grid.
+     */
+    private ArrayList<Sprite> indexedList = null;
+    private int indexedEdits = 0;
+
+    /**
+     * Renderables drawn and culled in the last frame.
+     */
+    private int renderedCount = 0;
+    private int culledCount = 0;
+
+    /**
+     * Fewer {@code ConcurrentInit} sprites than this are initialized on the game thread
+     * (handing them to worker threads would cost more than it saves).
+     */
+    private static final int CONCURRENT_INIT_THRESHOLD = 64;
+
+    /**
+     * Scratch space for render culling queries.
+     */
+    private int[] renderHits = new int[64];
+
+    /**
+     * Whether a sprite class draws with {@code ImageSprite.render()} (and only draws its
+     * image, so can be culled by its bounds).
+     */
+    private static final ClassValue<Boolean> PLAIN_IMAGE_RENDER = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> c) {
+            try {
+                return c.getMethod("render", DrawInfo.class, FrameBuffer.class).getDeclaringClass() == ImageSprite.class;
+            }
+            catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     /**
      * Set the scene lookup table to use when resolving a name at scene loading time.
      * 
@@ -85,25 +177,57 @@ public class Scene {
         sceneQueue.add(name);
     }
 
+    /**
+     * Start building a scene on a background thread while the current scene keeps
+     * running. Images are decoded on that thread and sent to the GPU a few milliseconds
+     * per tick. Once it's ready, {@code scheduleSceneLoad(name)} switches to it within
+     * one tick; scheduling it earlier keeps the current scene running until it is.
+     * 
+     * Only one scene is preloaded at a time. Preloading another scene abandons the
+     * previous preload. The scene constructor runs off the game thread, so it must not
+     * touch the current scene or other live game state.
+     * 
+     * @param name The name of the scene as listed in {@code SceneDefs}.
+     * @return The preload (for progress reporting).
+     */
+    public static ScenePreload preloadScene(String name) {
+        return ScenePreload.INTERNAL_start(name);
+    }
+
     /**
      * Called by Velocity's tick system. Takes any queued scenes to load, unloads the
      * current scene, and instantiates a new one.
      */
     public static void INTERNAL_runSceneLoads() {
-        Runtime r = Runtime.getRuntime();
-        long preMemUse = (r.totalMemory() - r.freeMemory()) / 1024;
+        // Feed any preloading scene's textures to the GPU.
+        ScenePreload.INTERNAL_update(GlobalAppConfig.bcfg.PRELOAD_UPLOAD_BUDGET_MS * 1000000L);
 
         // No scenes to load; don't waste time here.
         if (sceneQueue.size() == 0)
             return;
+
+        // The requested scene is still being preloaded. Keep the current one running
+        // until it's built instead of stalling the game.
+        String next = sceneQueue.get(sceneQueue.size() - 1);
+        ScenePreload preload = ScenePreload.INTERNAL_get(next);
+        if (preload != null && !preload.isDone()) {
+            if (currentScene != null)
+                return;
+
+            preload.INTERNAL_await();
+        }
+
+        long switchStart = System.nanoTime();
+        Runtime r = Runtime.getRuntime();
+        long preMemUse = (r.totalMemory() - r.freeMemory()) / 1024;
+
+        Profiler.begin("Scene.INTERNAL_runSceneLoads");
     
         // Get rid of the old scene, if any.
         if (currentScene != null) {
             Logger.log("velocity.SceneManagement", "Unloading previous scene " + currentScene.name);
             currentScene.destroyAll();
             currentScene = null;
-            System.gc(); // Force object destruction on scene unload.
-            System.runFinalization(); // Force cleanup handlers in the JVM to run.
         }
 
         long lowMem = (r.totalMemory() - r.freeMemory()) / 1024;
@@ -111,10 +235,23 @@ public class Scene {
         if (GlobalAppConfig.bcfg.LOG_MEMORY)
             MemTracerUtil.printMemoryStatistics();
     
-        // Loading more than one scene can potentially cause issues..
-        for (String s : sceneQueue) {
-            currentScene = loadScene0(s);
+        // Switch straight to the preloaded scene if there is one.
+        preload = ScenePreload.INTERNAL_take(next);
+        Scene preloaded = preload != null ? preload.INTERNAL_claim() : null;
+
+        if (preloaded != null) {
+            currentScene = preloaded;
+            Logger.log("velocity.SceneManagement", "Switched to preloaded scene " + next);
+        }
+        else {
+            // Loading more than one scene can potentially cause issues..
+            for (String s : sceneQueue) {
+                currentScene = loadScene0(s);
+            }
         }
+
+        // Everything the new scene uses has to be on the GPU before it renders.
+        PipelineManager.getPipeline().uploadPendingTextures(Long.MAX_VALUE);
         
         // Force GPU texture heap to be cleaned out.
         PipelineManager.getPipeline().forceGCRun();
@@ -136,6 +273,12 @@ public class Scene {
             Logger.log("velocity.SceneManagement", "New scene memory (total: " + postMemUse 
                             + " kB, scenemem " + (postMemUse - lowMem) + " kB)");
         }
+
+        AllocTelemetry.INTERNAL_sceneLoaded(currentScene.name);
+
+        Logger.log("velocity.SceneManagement", "Scene switch to " + currentScene.name + " took {} ms",
+                   (System.nanoTime() - switchStart) / 1000000.0);
+        Profiler.end();
     }
 
     /**
@@ -150,10 +293,30 @@ public class Scene {
         // NOTE: Assuming previous scene was unloaded prior.
         if (currentScene != null)
             throw new IllegalStateException("[SceneMgr]: (INTERNAL) Previous scene was never unloaded!");
-    
+
+        return constructScene(name);
+    }
+
+    /**
+     * Instantiate a scene without touching the current one. Safe to call from a
+     * preload thread.
+     * 
+     * @param name Name of scene to load.
+     * @return Constructed scene.
+     */
+    static final Scene constructScene(String name) {
         // Find and load the class reference for the provided scene name.
         Class<?> idClass = sceneLUT.getSceneClass(name);
 
+        // Data driven scenes don't need a class at all.
+        String file = sceneLUT.getSceneFile(name);
+        if (idClass == null && file != null) {
+            Scene s = new Scene(name, name.hashCode());
+            s.loadObjects(file);
+            Logger.log("velocity.SceneManagement", "Loaded scene " + name + " from " + file);
+            return s;
+        }
+
         // No scene was found in the scene lookup table. Without a given class, no scene can be
         // instantiated. Inform the developer and assist them with patching it.
         if (idClass == null) {
@@ -231,10 +394,16 @@ public class Scene {
     public Scene(String name, int uuid) {
         this.name = name;
         this.uuid = uuid;
-        this.sprites = new ArrayList<Sprite>();
+        this.sprites = new SpriteList();
 
         // Required for scene initialization (though may be removed eventually)
         sprites.add(new Camera(new Point(0, 0)));
+
+        // Logging only; sprites release their own resources when the scene is destroyed.
+        if (GlobalAppConfig.bcfg.LOG_GC) {
+            String sname = name;
+            ResourceCleaner.onCollected(this, () -> Logger.log("velocity.Scene.gc", "GC'ing Scene " + sname));
+        }
     }
 
     /**
@@ -294,6 +463,17 @@ public class Scene {
         return sprites;
     }
 
+    /**
+     * Add every object of a scene file (see {@code SceneFile}) to this scene. Meant
+     * for scene constructors; like sprites added there, they're initialized with the
+     * scene.
+     * 
+     * @param path The scene file path.
+     */
+    protected void loadObjects(String path) {
+        SceneFile.load(path).createSprites(this.sprites);
+    }
+
     /**
      * Register a given sprite for the rendering and tick loop. The sprite
      * must be created elsewhere.
@@ -302,7 +482,10 @@ public class Scene {
      */
     public void addSprite(Sprite s) {
         s.init();
+
+        boolean synced = gridSynced();
         this.sprites.add(s);
+        indexAdded(s, synced);
     }
 
     /**
@@ -312,7 +495,166 @@ public class Scene {
      */
     public void removeSprite(Sprite s) {
         s.delete();
+
+        boolean synced = gridSynced();
         this.sprites.remove(s);
+        indexRemoved(s, synced);
+    }
+
+    /**
+     * Spawn a {@code Poolable} sprite, reusing a despawned one of the same class if
+     * there is one (after its {@code onReuse()}), or creating one with {@code factory}
+     * otherwise. Either way the sprite is initialized and added like with
+     * {@code addSprite()}. A reused sprite keeps its old location until it's placed,
+     * so sprites whose {@code onInit()} uses their transform should be spawned with
+     * the setup overload instead.
+     * <pre>
+     *     Bullet b = spawn(Bullet.class, () -> new Bullet(new Transform(new Point(0, 0))));
+     * </pre>
+     * 
+     * @param <T> The sprite type.
+     * @param type The exact sprite class (pools are per class).
+     * @param factory Creates a new sprite when the pool is empty.
+     * @return The spawned sprite.
+     */
+    public <T extends Sprite & Poolable> T spawn(Class<T> type, Supplier<T> factory) {
+        return spawn(type, factory, null);
+    }
+
+    /**
+     * Spawn a {@code Poolable} sprite like {@code spawn(type, factory)}, but configure
+     * it (place it, set its direction...) before it's initialized. {@code setup} runs
+     * on new and reused sprites alike, after {@code onReuse()} and before
+     * {@code onInit()}, so init logic never sees a previous life's transform.
+     * <pre>
+     *     spawn(Bullet.class, () -> new Bullet(new Transform(new Point(0, 0))),
+     *           (b) -> b.transform.location.setPos(gun));
+     * </pre>
+     * 
+     * @param <T> The sprite type.
+     * @param type The exact sprite class (pools are per class).
+     * @param factory Creates a new sprite when the pool is empty.
+     * @param setup Configures the sprite before it's initialized (null for none).
+     * @return The spawned sprite.
+     */
+    public <T extends Sprite & Poolable> T spawn(Class<T> type, Supplier<T> factory, 
+                                                 Consumer<? super T> setup) {
+        SpritePool pool = getOrCreatePool(type);
+        Sprite s = pool.take();
+        T t;
+
+        if (s == null) {
+            t = factory.get();
+            if (t.getClass() != type)
+                throw new IllegalArgumentException("Spawn factory for " + type.getName() + " created a " 
+                                                   + t.getClass().getName() + "!");
+        }
+        else {
+            t = type.cast(s);
+            t.INTERNAL_reuse();
+        }
+
+        if (setup != null)
+            setup.accept(t);
+
+        addSprite(t);
+        return t;
+    }
+
+    /**
+     * Despawn a {@code Poolable} sprite. Like {@code removeSprite()}, but the sprite
+     * keeps its resources and goes back to its class's pool for the next
+     * {@code spawn()}. It stops ticking and rendering right away; it actually leaves
+     * the sprite list (in one pass for every despawn) at the end of the tick or the
+     * start of the next frame, whichever comes first.
+     * 
+     * @param s Sprite to despawn.
+     */
+    public void despawn(Sprite s) {
+        if (!(s instanceof Poolable))
+            throw new IllegalArgumentException("Cannot despawn sprite " + s.name + " (not Poolable)!");
+
+        s.INTERNAL_pool();
+        renderGrid.remove(s);
+        despawned.add(s);
+    }
+
+    /**
+     * Fill a sprite pool ahead of time, so the first spawns don't allocate either.
+     * 
+     * @param <T> The sprite type.
+     * @param type The exact sprite class.
+     * @param factory Creates the sprites.
+     * @param count Sprites to create.
+     */
+    public <T extends Sprite & Poolable> void prewarm(Class<T> type, Supplier<T> factory, int count) {
+        SpritePool pool = getOrCreatePool(type);
+
+        for (int i = 0; i < count; i++) {
+            T t = factory.get();
+            if (t.getClass() != type)
+                throw new IllegalArgumentException("Spawn factory for " + type.getName() + " created a " 
+                                                   + t.getClass().getName() + "!");
+            pool.stock(t);
+        }
+    }
+
+    /**
+     * Get the pool of a sprite class (for its live counts and high-water mark).
+     * 
+     * @param type The sprite class.
+     * @return The pool, or null if nothing of that class was spawned or prewarmed.
+     */
+    public SpritePool getPool(Class<? extends Sprite> type) {
+        return pools.get(type);
+    }
+
+    /**
+     * Get the pool of a sprite class, creating it if needed.
+     * 
+     * @param type The sprite class.
+     * @return The pool.
+     */
+    private SpritePool getOrCreatePool(Class<? extends Sprite> type) {
+        SpritePool pool = pools.get(type);
+        if (pool == null) {
+            pool = new SpritePool(type);
+            pools.put(type, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Drop every despawned sprite from the sprite list (in place, in one pass) and only
+     * then hand them to their pools, so a sprite can't be respawned while its old
+     * entry is still in the list.
+     */
+    private void flushDespawns() {
+        if (despawned.isEmpty())
+            return;
+
+        boolean synced = gridSynced();
+        int n = this.sprites.size(), kept = 0;
+        for (int i = 0; i < n; i++) {
+            Sprite s = this.sprites.get(i);
+            if (s instanceof Poolable && s.hasReachedState(Sprite.State.DELETED))
+                continue;
+            this.sprites.set(kept++, s);
+        }
+
+        // Truncate from the end (no copying, no allocation).
+        for (int i = n - 1; i >= kept; i--)
+            this.sprites.remove(i);
+
+        // Despawned sprites already left the grid.
+        if (synced)
+            markGridSynced();
+
+        for (int i = 0; i < despawned.size(); i++) {
+            Sprite s = despawned.get(i);
+            getOrCreatePool(s.getClass()).give(s);
+        }
+        despawned.clear();
     }
 
     /**
@@ -323,7 +665,9 @@ public class Scene {
      * @param s Sprite to add.
      */
     public void moveToPersistence(String key, Sprite s) {
+        boolean synced = gridSynced();
         this.sprites.remove(s);
+        indexRemoved(s, synced);
         Persistence.push(key, s);
     }
 
@@ -336,7 +680,10 @@ public class Scene {
      */
     public Sprite restoreFromPersistence(String key) {
         Sprite s = (Sprite)Persistence.pop(key);
+
+        boolean synced = gridSynced();
         this.sprites.add(s);
+        indexAdded(s, synced);
         return s;
     }
 
@@ -397,36 +744,49 @@ public class Scene {
 
     /**
      * Initialize all sprites in a scene regardless of whether scene objects
-     * have been rearranged or not.
+     * have been rearranged or not. Sprites added during init are initialized as
+     * well; sprites already initialized (or removed) are skipped. Linear in the
+     * sprite count: the sprite state says what still needs an init.
      */
     private void forceInitAllSprites() {
-        ArrayList<Sprite> initSprites = new ArrayList<Sprite>();
-        ArrayList<Sprite> remainingSprites = new ArrayList<Sprite>();
+        initConcurrentSprites();
 
-        while (!allSpritesInitialized(initSprites, remainingSprites)) {
-            for (Sprite s : remainingSprites) {
-                s.init();
-                initSprites.add(s);
+        // Removing a sprite during init shifts the rest down, which can skip one.
+        // Repeat until a pass finds nothing left (normally the second pass).
+        boolean initialized = true;
+        while (initialized) {
+            initialized = false;
+
+            for (int i = 0; i < this.sprites.size(); i++) {
+                Sprite s = this.sprites.get(i);
+
+                if (!s.hasReachedState(Sprite.State.ACTIVE)) {
+                    s.init();
+                    initialized = true;
+                }
             }
         }
     }
 
     /**
-     * Ensure all sprites have been initialized.
-     * 
-     * @param init Currently initialized sprites.
-     * @param out A list of uninitialized sprites.
-     * @return Whether all sprites have been initialized.
+     * Initialize every {@code ConcurrentInit} sprite ahead of the others, on the common
+     * fork join pool past a handful of sprites and on the game thread otherwise.
      */
-    private boolean allSpritesInitialized(ArrayList<Sprite> init, ArrayList<Sprite> out) {
-        out.clear();
+    private void initConcurrentSprites() {
+        ArrayList<Sprite> concurrent = new ArrayList<Sprite>();
 
         for (Sprite s : this.sprites) {
-            if (!init.contains(s))
-                out.add(s);
+            if (s instanceof ConcurrentInit && !s.hasReachedState(Sprite.State.ACTIVE))
+                concurrent.add(s);
         }
 
-        return out.size() == 0;
+        if (concurrent.size() < CONCURRENT_INIT_THRESHOLD) {
+            for (Sprite s : concurrent)
+                s.init();
+            return;
+        }
+
+        concurrent.parallelStream().forEach(Sprite::init);
     }
 
     /**
@@ -435,50 +795,118 @@ public class Scene {
      * tick.
      */
     public final void tick() {
-        ArrayList<Sprite> collidables = new ArrayList<Sprite>();
-        ArrayList<Sprite> triggerables = new ArrayList<Sprite>();
-
         // BUGFIX: Since the sprites array can be modified at any time by the internal
         // sprite, the array is cloned and that is operated on instead. Updates to new
         // sprites introduced into the scene context are deferred until the next tick.
-        @SuppressWarnings("unchecked")
-        ArrayList<Sprite> simObjects = (ArrayList<Sprite>)this.sprites.clone();
+        // Copied by hand into a reused list, so spawn heavy scenes tick without allocating
+        // (cleared here too in case the last tick threw).
+        simObjects.clear();
+        collidables.clear();
+        triggerables.clear();
+        for (int i = 0; i < this.sprites.size(); i++)
+            simObjects.add(this.sprites.get(i));
+
+        Profiler.begin("Scene.tick.sprites");
         for (Sprite s : simObjects) {
+            // Removed or despawned by a sprite earlier in this tick.
+            if (s.hasReachedState(Sprite.State.DELETED))
+                continue;
+
+            long t = SpriteAttribution.start();
             s.tick();
+            SpriteAttribution.stop(s, SpriteAttribution.TICK, t);
         }
+        Profiler.end();
 
         // Build collision geometry (probably doesn't need to happen every frame)
         // Doesn't use simObjects since no context modification will occur and allows
         // more up-to-date geometry generation and simulation. Colliders could also
         // have been added this frame, and we don't want to miss those.
+        Profiler.begin("Scene.tick.collision");
         for (Sprite s : this.sprites) {
+            if (s.hasReachedState(Sprite.State.DELETED))
+                continue;
+
             if (s instanceof Collidable)
                 collidables.add(s);
             else if (s instanceof Triggerable)
                 triggerables.add(s);
         }
     
+        // Pack the collider bounds so every dynamic sprite only has to test the
+        // collidables near it.
+        buildCollisionBounds(collidables);
+
         // Collision sim after update to prevent weird collision glitching errors stemming
         // from out of date geometry. Currently operates on the generated simulation array
         // since any deleted geometry still won't be simulated and prevents concurrency issues.
         for (Sprite s : simObjects) {
-            if (s instanceof DynamicSprite) {
+            if (s instanceof DynamicSprite && !s.hasReachedState(Sprite.State.DELETED)) {
                 DynamicSprite ds = (DynamicSprite)s;
-                ds.simCollide(collidables);
+                long t = SpriteAttribution.start();
+                ds.simCollide(collidables, collisionBounds, collisionHits);
                 ds.simTrigger(triggerables);
+                SpriteAttribution.stop(s, SpriteAttribution.COLLIDE, t);
             }
         }
+        Profiler.end();
 
         // Physics sim runs after everything else to prevent arbitrary collisions with non-updated
-        // geometry.
+        // geometry. Nothing moves after it, so this is also where every sprite's render
+        // bounds are brought up to date (and rendering only has to visit what's on screen).
+        Profiler.begin("Scene.tick.physics");
         for (Sprite s : simObjects) {
+            if (s.hasReachedState(Sprite.State.DELETED))
+                continue;
+
             if (s instanceof PhysicsSprite) {
                 PhysicsSprite ps = (PhysicsSprite)s;
+                long t = SpriteAttribution.start();
                 ps.simPhysics();
+                SpriteAttribution.stop(s, SpriteAttribution.PHYSICS, t);
             }
+            renderGrid.refresh(s);
         }
+        renderGrid.refreshInserted();
+        Profiler.end();
+
+        simObjects.clear();
+        collidables.clear();
+        triggerables.clear();
+        flushDespawns();
+        syncRenderGrid();
     }
     
+    /**
+     * Fill the collision bounds with the bounding box of every collidable.
+     * 
+     * @param collidables The collidables (in simulation order).
+     */
+    private void buildCollisionBounds(ArrayList<Sprite> collidables) {
+        collisionBounds.clear();
+        if (collisionHits.length < collidables.size())
+            collisionHits = new int[collidables.size() * 2];
+
+        for (int i = 0; i < collidables.size(); i++) {
+            Sprite s = collidables.get(i);
+
+            if (s instanceof LineCollider) {
+                // Padded by a pixel since lines also hit rects that only touch them.
+                Line l = ((LineCollider)s).l;
+                Point a = l.getStart(), b = l.getEnd();
+                collisionBounds.add(Math.min(a.x, b.x) - 1, Math.min(a.y, b.y) - 1, 
+                                    Math.max(a.x, b.x) + 1, Math.max(a.y, b.y) + 1);
+            }
+            else if (s instanceof DynamicSprite) {
+                DynamicSprite ds = (DynamicSprite)s;
+                ds.INTERNAL_setBoundsIndex(i);
+                collisionBounds.add(ds.col);
+            }
+            else
+                collisionBounds.add(s.transform.location);
+        }
+    }
+
     /**
      * VXRA API REFERENCE:
      * Callback from the currently available VXRA renderer. The renderer calls this
@@ -488,39 +916,137 @@ public class Scene {
      * @param uifb Supplied UI framebuffer
      */
     public void render(FrameBuffer fb, FrameBuffer uifb) {
-        Point cPos = camera.transform.location.getDrawLoc();
-    
-        for (Sprite s : this.sprites) {
+        flushDespawns();
+        syncRenderGrid();
+
+        Rect cRect = camera.transform.location;
+        int camX = cRect.getDrawX(), camY = cRect.getDrawY();
+
+        // Only visit the renderables that can reach the screen (in scene order, so
+        // sprites on the same layer still draw in the same order).
+        if (renderHits.length < renderGrid.size())
+            renderHits = new int[renderGrid.size() * 2];
+
+        int count = renderGrid.query(camX, camY, camX + Camera.res.x, camY + Camera.res.y, renderHits);
+        renderedCount = count;
+        culledCount = renderGrid.size() - count;
+
+        for (int k = 0; k < count; k++) {
+            Sprite s = renderGrid.get(renderHits[k]);
+
             // Note: Camera position will be important later on.
-            // Also try to collapse this loop and only render Renderables.
+            // Draw info is reused per sprite, so nothing is allocated per frame.
             if (s instanceof UIRenderable) {
                 UIRenderable uis = (UIRenderable) s;
-                DrawInfo info = new DrawInfo(
-                    uis.transform.location.copy(), 
-                    uis.transform.rotation, 
-                    new Point(uis.transform.scale), 
-                    uis.transform.sortOrder // Sort layer default 0.
-                );
+                DrawInfo info = uis.INTERNAL_getDrawInfo(0, 0);
 
+                long t = SpriteAttribution.start();
                 uis.renderUI(info, uifb);
+                SpriteAttribution.stop(s, SpriteAttribution.RENDER, t);
             }
-            else if (s instanceof Renderable) {
+            else {
                 Renderable is = (Renderable) s;
-                Rect renderableRect = is.transform.location.copy();
-                renderableRect.translate(cPos.mult(-1));
-
-                DrawInfo info = new DrawInfo(
-                    renderableRect,
-                    is.transform.rotation,
-                    new Point(is.transform.scale),
-                    is.transform.sortOrder
-                );
+                DrawInfo info = is.INTERNAL_getDrawInfo(camX, camY);
 
+                long t = SpriteAttribution.start();
                 is.render(info, fb);
+                SpriteAttribution.stop(s, SpriteAttribution.RENDER, t);
             }
         }
     }
 
+    /**
+     * Get the amount of renderables drawn in the last frame.
+     * 
+     * @return The drawn count.
+     */
+    public int getRenderedCount() {
+        return renderedCount;
+    }
+
+    /**
+     * Get the amount of renderables culled (skipped as offscreen) in the last frame.
+     * 
+     * @return The culled count.
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+
+    /**
+     * Rebuild the render grid if the sprite list changed behind the scene's back.
+     */
+    private void syncRenderGrid() {
+        if (gridSynced())
+            return;
+
+        renderGrid.clear();
+        for (int i = 0; i < this.sprites.size(); i++)
+            indexSprite(this.sprites.get(i));
+
+        markGridSynced();
+    }
+
+    /**
+     * Whether the render grid matches the sprite list. Always false if a subclass
+     * replaced the list with one that doesn't count its edits.
+     * 
+     * @return If no edit was made behind the scene's back.
+     */
+    private boolean gridSynced() {
+        return this.sprites == indexedList && this.sprites instanceof SpriteList
+               && ((SpriteList)this.sprites).edits() == indexedEdits;
+    }
+
+    /**
+     * Record that the render grid matches the sprite list as it is now.
+     */
+    private void markGridSynced() {
+        indexedList = this.sprites;
+        indexedEdits = (this.sprites instanceof SpriteList) ? ((SpriteList)this.sprites).edits() : 0;
+    }
+
+    /**
+     * Add a sprite to the render grid if it renders. Sprites that only draw their image
+     * are culled by their scaled and rotated rect; anything else may draw anywhere, so
+     * it's visited every frame.
+     * 
+     * @param s The sprite.
+     */
+    private void indexSprite(Sprite s) {
+        if (s instanceof UIRenderable)
+            renderGrid.insert(s, false);
+        else if (s instanceof Renderable)
+            renderGrid.insert(s, s instanceof ImageSprite && PLAIN_IMAGE_RENDER.get(s.getClass()));
+    }
+
+    /**
+     * Keep the render grid in sync with a sprite just appended to the sprite list.
+     * 
+     * @param s The sprite.
+     * @param synced Whether the grid was in sync before the sprite was added (if not,
+     *               the next sync rebuilds it anyway).
+     */
+    private void indexAdded(Sprite s, boolean synced) {
+        if (!synced)
+            return;
+
+        indexSprite(s);
+        markGridSynced();
+    }
+
+    /**
+     * Keep the render grid in sync with a sprite just removed from the sprite list.
+     * 
+     * @param s The sprite.
+     * @param synced Whether the grid was in sync before the sprite was removed.
+     */
+    private void indexRemoved(Sprite s, boolean synced) {
+        renderGrid.remove(s);
+        if (synced)
+            markGridSynced();
+    }
+
     /**
      * #deprecated This function was originally meant for debug hooks, but its very
      * inflexible and outdated. A new function will be written that will do a full render
@@ -565,31 +1091,17 @@ public class Scene {
      * Called implicitly by the scene loading machinery. Calls the {@code delete}
      * function on all attached sprites and deallocates all used Scene memory.
      */
-    private void destroyAll() {
+    void destroyAll() {
+        flushDespawns();
+        renderGrid.clear();
         for (Sprite s : this.sprites) {
             s.delete();
         }
+
+        for (SpritePool pool : pools.values())
+            pool.release();
+        pools.clear();
         this.sprites = null;
         this.camera = null;
     }
-
-    /** 
-     * Destructor. Should be called when the scene is unloaded or close.
-     * Replace with java.lang.ref.Cleaner or something eventually.
-     * 
-     * Currently used for logging purposes.
-     * @throws Throwable Any exception may occur in a finalizer.
-     */
-    protected void finalize() throws Throwable {
-        super.finalize();
-
-        if (GlobalAppConfig.bcfg.LOG_GC)
-            Logger.log("velocity.Scene.gc", "GC'ing Scene " + this.name);
-         
-        // Should never occur but is a good debug test case for now.
-        if (this.sprites != null) {
-            Logger.warn("velocity.Scene.gc", "Sprites list never cleared!");
-            this.destroyAll();
-        }
-    }
 }
@@ -0,0 +1,306 @@
+package com.rsc_games.velocity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.rsc_games.velocity.util.Logger;
+import com.rsc_games.velocity.util.Time;
+
+/**
+ * A scene being built on a background thread while the current scene keeps running.
+ * Created by {@code Scene.preloadScene()}. The scene constructor (and with it every
+ * sprite constructor and image decode) runs on the preload thread; GPU uploads are
+ * queued and drained by the game thread a few milliseconds per tick. Once the preload
+ * is ready, {@code Scene.scheduleSceneLoad()} with the same name switches to it within
+ * a single tick.
+ *
+ * Loading screens can poll {@code getProgress()} and {@code getStage()}.
+ */
+public class ScenePreload {
+    /**
+     * Preload stages.
+     *  CONSTRUCTING: The scene constructor is running on the preload thread.
+     *  UPLOADING: The scene is built but some of its textures aren't on the GPU yet.
+     *  READY: The scene can be switched to.
+     *  FAILED: The scene constructor threw. Switching to it loads it normally instead
+     *      (so the error surfaces on the game thread).
+     */
+    public enum Stage {
+        CONSTRUCTING,
+        UPLOADING,
+        READY,
+        FAILED
+    };
+
+    /**
+     * The preload currently offered to the scene loader (null if none).
+     */
+    private static ScenePreload active;
+
+    /**
+     * Preloads that were replaced while still running. Their scenes are destroyed on
+     * the game thread once they finish.
+     */
+    private static final ArrayList<ScenePreload> abandoned = new ArrayList<ScenePreload>();
+
+    /**
+     * Images loaded by each scene's last preload, used to estimate progress.
+     */
+    private static final HashMap<String, Integer> assetCounts = new HashMap<String, Integer>();
+
+    /**
+     * The preload running on the current thread (null on every other thread).
+     */
+    private static final ThreadLocal<ScenePreload> current = new ThreadLocal<ScenePreload>();
+
+    /**
+     * The scene's name.
+     */
+    public final String name;
+
+    /**
+     * Images loaded so far.
+     */
+    private volatile int assets = 0;
+
+    /**
+     * Images loaded the last time this scene was preloaded (-1 if unknown).
+     */
+    private final int expectedAssets;
+
+    /**
+     * The built scene (null until constructed).
+     */
+    private volatile Scene scene;
+
+    /**
+     * Error thrown by the scene constructor, if any.
+     */
+    private volatile Throwable error;
+
+    /**
+     * Whether the preload thread has finished.
+     */
+    private volatile boolean finished = false;
+
+    /**
+     * Whether the scene was handed to the scene loader.
+     */
+    private boolean claimed = false;
+
+    /**
+     * Start preloading a scene.
+     *
+     * @param name The scene name.
+     */
+    private ScenePreload(String name) {
+        this.name = name;
+
+        synchronized (assetCounts) {
+            Integer n = assetCounts.get(name);
+            this.expectedAssets = n != null ? n : -1;
+        }
+
+        Thread t = new Thread(this::run, "velocity.preload");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);  // The game thread comes first.
+        t.start();
+    }
+
+    /**
+     * Preload thread body.
+     */
+    private void run() {
+        current.set(this);
+        long start = System.nanoTime();
+
+        try {
+            this.scene = Scene.constructScene(name);
+            Logger.log("velocity.SceneManagement", "Preloaded scene " + name + " in "
+                       + (System.nanoTime() - start) / 1000000 + " ms (" + assets + " images)");
+
+            synchronized (assetCounts) {
+                assetCounts.put(name, assets);
+            }
+        }
+        catch (Throwable t) {
+            this.error = t;
+            Logger.error("velocity.SceneManagement", "Failed to preload scene " + name + ": " + t);
+        }
+        finally {
+            current.remove();
+            this.finished = true;
+        }
+    }
+
+    /**
+     * Internal. Start a preload, or return the running one if the scene is already
+     * being preloaded. A different running preload is abandoned.
+     *
+     * @param name The scene name.
+     * @return The preload.
+     */
+    static synchronized ScenePreload INTERNAL_start(String name) {
+        if (active != null) {
+            if (active.name.equals(name))
+                return active;
+
+            abandoned.add(active);
+        }
+
+        Logger.log("velocity.SceneManagement", "Preloading scene " + name);
+        active = new ScenePreload(name);
+        return active;
+    }
+
+    /**
+     * Internal. Take the preload for a scene away from the preload list.
+     *
+     * @param name The scene name.
+     * @return The preload (null if that scene isn't being preloaded).
+     */
+    static synchronized ScenePreload INTERNAL_take(String name) {
+        if (active == null || !active.name.equals(name))
+            return null;
+
+        ScenePreload p = active;
+        active = null;
+        return p;
+    }
+
+    /**
+     * Internal. Peek at the preload for a scene.
+     *
+     * @param name The scene name.
+     * @return The preload (null if that scene isn't being preloaded).
+     */
+    static synchronized ScenePreload INTERNAL_get(String name) {
+        return active != null && active.name.equals(name) ? active : null;
+    }
+
+    /**
+     * Internal. Send queued textures to the GPU and clean up abandoned preloads. Called
+     * by the scene loader every tick on the game thread.
+     *
+     * @param budgetNanos Time to spend uploading.
+     */
+    static void INTERNAL_update(long budgetNanos) {
+        PipelineManager.getPipeline().uploadPendingTextures(budgetNanos);
+
+        synchronized (ScenePreload.class) {
+            for (int i = abandoned.size() - 1; i >= 0; i--) {
+                ScenePreload p = abandoned.get(i);
+                if (!p.finished)
+                    continue;
+
+                // Never initialized, but sprites may still hold resources.
+                if (p.scene != null)
+                    p.scene.destroyAll();
+                abandoned.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Internal. Called by the image loader for every requested image.
+     */
+    public static void INTERNAL_countAsset() {
+        ScenePreload p = current.get();
+        if (p != null)
+            p.assets++;
+    }
+
+    /**
+     * Internal. Block until the preload thread finishes, uploading its textures
+     * meanwhile. Only used when there's no scene to keep running.
+     */
+    void INTERNAL_await() {
+        while (!finished) {
+            PipelineManager.getPipeline().uploadPendingTextures(Long.MAX_VALUE);
+            Time.sleepms(1);
+        }
+    }
+
+    /**
+     * Internal. Hand the built scene to the scene loader.
+     *
+     * @return The scene (null if the preload failed).
+     */
+    Scene INTERNAL_claim() {
+        if (claimed)
+            throw new IllegalStateException("Preloaded scene " + name + " was already used!");
+
+        claimed = true;
+        return scene;
+    }
+
+    /**
+     * Get the current stage.
+     *
+     * @return The stage.
+     */
+    public Stage getStage() {
+        if (!finished)
+            return Stage.CONSTRUCTING;
+        if (scene == null)
+            return Stage.FAILED;
+
+        return getPendingUploads() > 0 ? Stage.UPLOADING : Stage.READY;
+    }
+
+    /**
+     * Whether the preload thread has finished (successfully or not).
+     *
+     * @return If the scene can be switched to without waiting.
+     */
+    public boolean isDone() {
+        return finished;
+    }
+
+    /**
+     * Estimate how far along the preload is. Construction counts for 90%, based on the
+     * images the previous preload of this scene loaded (or a rough curve the first
+     * time); uploads make up the rest.
+     *
+     * @return Progress between 0 and 1.
+     */
+    public float getProgress() {
+        switch (getStage()) {
+            case CONSTRUCTING:
+                float c = expectedAssets > 0 ? Math.min(1f, (float)assets / expectedAssets)
+                                             : assets / (assets + 16f);
+                return 0.9f * Math.min(c, 0.99f);
+            case UPLOADING:
+                return 0.9f + 0.1f * (1f - Math.min(1f, (float)getPendingUploads() / Math.max(1, assets)));
+            default:
+                return 1f;
+        }
+    }
+
+    /**
+     * Get the amount of images loaded so far.
+     *
+     * @return The image count.
+     */
+    public int getLoadedAssets() {
+        return assets;
+    }
+
+    /**
+     * Get the amount of textures still waiting for the GPU.
+     *
+     * @return The pending texture count.
+     */
+    public int getPendingUploads() {
+        return PipelineManager.getPipeline().getPendingTextureUploads();
+    }
+
+    /**
+     * Get the error thrown by the scene constructor.
+     *
+     * @return The error (null if none).
+     */
+    public Throwable getError() {
+        return error;
+    }
+}
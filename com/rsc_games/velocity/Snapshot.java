@@ -0,0 +1,291 @@
+package com.rsc_games.velocity;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.rsc_games.velocity.sprite.Sprite;
+import com.rsc_games.velocity.util.Persistence;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * The saved state of a scene: one packed record per sprite (its transform, plus its
+ * {@code Saveable} fields) and per {@code Saveable} object in {@code Persistence}.
+ * Captured on the game thread into a private byte array, so the copy can be written
+ * out on another thread while the game keeps changing the live sprites.
+ *
+ * Records are keyed by sprite name (the second sprite with the same name gets
+ * "name#1" and so on, in scene order); persisted objects are keyed "@" + their
+ * persistence key. Sprite names are escaped first ("\", "#" and a leading "@" get a
+ * "\" in front), so no sprite name can produce another record's key. Restoring only
+ * updates objects that exist, so sprites a scene creates at runtime need to be
+ * recreated by the game before {@code apply()}.
+ */
+public class Snapshot {
+    /**
+     * Record flags.
+     */
+    static final int R_TRANSFORM = 1;
+    static final int R_SAVEABLE = 2;
+
+    /**
+     * The scene the snapshot was taken in.
+     */
+    final String scene;
+
+    /**
+     * Record names (sprite names may repeat; see {@code keys()}).
+     */
+    final ArrayList<String> names;
+
+    /**
+     * Unique record keys (made from the names when first needed).
+     */
+    private ArrayList<String> keys;
+
+    /**
+     * Leading records whose names still need making unique (the sprites).
+     */
+    private final int spriteRecords;
+
+    /**
+     * Record boundaries in {@code data} (record i spans offsets[i] to offsets[i + 1]).
+     */
+    final int[] offsets;
+
+    /**
+     * Packed records.
+     */
+    final byte[] data;
+
+    /**
+     * Wrap packed records.
+     *
+     * @param scene The scene name.
+     * @param names Record names.
+     * @param spriteRecords Leading records named after sprites (0 if the names are already unique).
+     * @param offsets Record boundaries.
+     * @param data Packed records.
+     */
+    Snapshot(String scene, ArrayList<String> names, int spriteRecords, int[] offsets, byte[] data) {
+        this.scene = scene;
+        this.names = names;
+        this.spriteRecords = spriteRecords;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    /**
+     * Capture a scene and the saveable objects in persistence. Game thread only.
+     *
+     * @param s The scene.
+     * @return The snapshot.
+     */
+    public static Snapshot capture(Scene s) {
+        Map<String, Object> persisted = Persistence.INTERNAL_getEntries();
+        int n = s.sprites.size() + persisted.size();
+
+        SnapshotWriter out = new SnapshotWriter(n * 48);
+        ArrayList<String> names = new ArrayList<String>(n);
+        int[] offsets = new int[n + 1];
+
+        // Only copy here; making the names unique is left to whoever writes the snapshot.
+        for (Sprite spr : s.sprites) {
+            offsets[names.size()] = out.size();
+            names.add(spr.name);
+            writeRecord(out, spr.transform, spr);
+        }
+        int spriteRecords = names.size();
+
+        for (Map.Entry<String, Object> e : persisted.entrySet()) {
+            Object o = e.getValue();
+            if (!(o instanceof Sprite) && !(o instanceof Saveable))
+                continue;
+
+            offsets[names.size()] = out.size();
+            names.add("@" + e.getKey());
+            writeRecord(out, o instanceof Sprite ? ((Sprite)o).transform : null, o);
+        }
+
+        offsets[names.size()] = out.size();
+        byte[] data = new byte[out.size()];
+        System.arraycopy(out.array(), 0, data, 0, data.length);
+        return new Snapshot(s.name, names, spriteRecords, offsets, data);
+    }
+
+    /**
+     * Pack one object.
+     *
+     * @param out The output.
+     * @param t The object's transform (null if it has none).
+     * @param o The object.
+     */
+    private static void writeRecord(SnapshotWriter out, Transform t, Object o) {
+        Saveable sv = o instanceof Saveable ? (Saveable)o : null;
+        out.putInt((t != null ? R_TRANSFORM : 0) | (sv != null ? R_SAVEABLE : 0));
+
+        if (t != null) {
+            Rect r = t.location;
+            out.putInt(r.getCenterX());
+            out.putInt(r.getCenterY());
+            out.putInt(r.getW());
+            out.putInt(r.getH());
+            out.putFloat(t.rotation);
+            out.putInt(t.scale.x);
+            out.putInt(t.scale.y);
+            out.putInt(t.sortOrder);
+        }
+
+        if (sv != null) {
+            out.putInt(sv.getSaveVersion());
+            sv.save(out);
+        }
+    }
+
+    /**
+     * Restore the snapshot into a scene and persistence. Game thread only.
+     *
+     * @param s The scene (usually the one named by {@code getScene()}).
+     * @return The amount of restored objects.
+     */
+    public int apply(Scene s) {
+        ArrayList<String> keys = keys();
+        HashMap<String, Integer> index = new HashMap<String, Integer>(keys.size() * 2);
+        for (int i = 0; i < keys.size(); i++)
+            index.put(keys.get(i), i);
+
+        int restored = 0;
+        KeyGen gen = new KeyGen();
+
+        for (Sprite spr : s.sprites) {
+            Integer i = index.get(gen.next(spr.name));
+            if (i != null) {
+                readRecord(i, spr.transform, spr);
+                restored++;
+            }
+        }
+
+        for (Map.Entry<String, Object> e : Persistence.INTERNAL_getEntries().entrySet()) {
+            Integer i = index.get("@" + e.getKey());
+            Object o = e.getValue();
+
+            if (i != null) {
+                readRecord(i, o instanceof Sprite ? ((Sprite)o).transform : null, o);
+                restored++;
+            }
+        }
+
+        return restored;
+    }
+
+    /**
+     * Unpack one record into an object.
+     *
+     * @param i The record.
+     * @param t The object's transform (null if it has none).
+     * @param o The object.
+     */
+    private void readRecord(int i, Transform t, Object o) {
+        ByteBuffer buf = ByteBuffer.wrap(data, offsets[i], offsets[i + 1] - offsets[i]).slice();
+        int flags = buf.getInt();
+
+        if ((flags & R_TRANSFORM) != 0) {
+            int x = buf.getInt(), y = buf.getInt(), w = buf.getInt(), h = buf.getInt();
+            float rot = buf.getFloat();
+            int sx = buf.getInt(), sy = buf.getInt(), sort = buf.getInt();
+
+            if (t != null) {
+                t.location.set(x, y, w, h);
+                t.rotation = rot;
+                t.scale.setTo(sx, sy);
+                t.sortOrder = sort;
+            }
+        }
+
+        if ((flags & R_SAVEABLE) != 0 && o instanceof Saveable) {
+            int version = buf.getInt();
+            ((Saveable)o).load(new SnapshotReader(buf), version);
+        }
+    }
+
+    /**
+     * Get the unique record keys ("name", "name#1", "name#2"... for repeated names).
+     *
+     * @return The keys, in record order.
+     */
+    ArrayList<String> keys() {
+        if (keys != null)
+            return keys;
+
+        ArrayList<String> k = new ArrayList<String>(names.size());
+        KeyGen gen = new KeyGen();
+        for (int i = 0; i < names.size(); i++)
+            k.add(i < spriteRecords ? gen.next(names.get(i)) : names.get(i));
+
+        return keys = k;
+    }
+
+    /**
+     * Get the name of the scene the snapshot was taken in.
+     *
+     * @return The scene name.
+     */
+    public String getScene() {
+        return scene;
+    }
+
+    /**
+     * Get the amount of records.
+     *
+     * @return The record count.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Makes record keys unique ("name", "name#1", "name#2"...) and keeps them apart
+     * from persisted object keys ("@key").
+     */
+    private static class KeyGen {
+        /**
+         * Times each name was seen.
+         */
+        private final HashMap<String, Integer> seen = new HashMap<String, Integer>();
+
+        /**
+         * Get the key for the next object with a name.
+         *
+         * @param name The name.
+         * @return The key.
+         */
+        String next(String name) {
+            String key = escape(name);
+            Integer n = seen.merge(key, 1, Integer::sum);
+            return n == 1 ? key : key + "#" + (n - 1);
+        }
+
+        /**
+         * Escape a sprite name so it can't end in a generated "#n" suffix or start like
+         * a persisted object key.
+         *
+         * @param name The name.
+         * @return The escaped name (the same string if nothing needed escaping).
+         */
+        private static String escape(String name) {
+            if (name == null
+                || (name.indexOf('#') < 0 && name.indexOf('\\') < 0 && !name.startsWith("@")))
+                return name;
+
+            StringBuilder b = new StringBuilder(name.length() + 4);
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c == '#' || c == '\\' || (c == '@' && i == 0))
+                    b.append('\\');
+                b.append(c);
+            }
+            return b.toString();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.rsc_games.velocity;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads snapshot fields back in the order they were written. Handed to
+ * {@code Saveable.load()}.
+ */
+public class SnapshotReader {
+    /**
+     * The record data.
+     */
+    private final ByteBuffer buf;
+
+    /**
+     * Read a record.
+     *
+     * @param buf The record data (position to limit).
+     */
+    SnapshotReader(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    /**
+     * Read an integer.
+     *
+     * @return The value.
+     */
+    public int getInt() {
+        return buf.getInt();
+    }
+
+    /**
+     * Read a long.
+     *
+     * @return The value.
+     */
+    public long getLong() {
+        return buf.getLong();
+    }
+
+    /**
+     * Read a float.
+     *
+     * @return The value.
+     */
+    public float getFloat() {
+        return buf.getFloat();
+    }
+
+    /**
+     * Read a double.
+     *
+     * @return The value.
+     */
+    public double getDouble() {
+        return buf.getDouble();
+    }
+
+    /**
+     * Read a boolean.
+     *
+     * @return The value.
+     */
+    public boolean getBoolean() {
+        return buf.get() != 0;
+    }
+
+    /**
+     * Read a string.
+     *
+     * @return The string.
+     */
+    public String getString() {
+        byte[] b = new byte[buf.getShort() & 0xFFFF];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Whether the record has unread data (for fields added in later versions).
+     *
+     * @return If there's more to read.
+     */
+    public boolean hasRemaining() {
+        return buf.hasRemaining();
+    }
+}
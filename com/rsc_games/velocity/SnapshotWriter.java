@@ -0,0 +1,163 @@
+package com.rsc_games.velocity;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Packs snapshot fields into a growable buffer. Handed to {@code Saveable.save()}.
+ */
+public class SnapshotWriter {
+    /**
+     * The packed data.
+     */
+    private ByteBuffer buf;
+
+    /**
+     * Create an empty writer.
+     *
+     * @param capacity Initial capacity in bytes.
+     */
+    SnapshotWriter(int capacity) {
+        this.buf = ByteBuffer.allocate(Math.max(capacity, 64));
+    }
+
+    /**
+     * Make room for more data.
+     *
+     * @param n Bytes about to be written.
+     */
+    private void ensure(int n) {
+        if (buf.remaining() >= n)
+            return;
+
+        ByteBuffer b = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+        buf.flip();
+        b.put(buf);
+        buf = b;
+    }
+
+    /**
+     * Write an integer.
+     *
+     * @param v The value.
+     */
+    public void putInt(int v) {
+        ensure(4);
+        buf.putInt(v);
+    }
+
+    /**
+     * Write a long.
+     *
+     * @param v The value.
+     */
+    public void putLong(long v) {
+        ensure(8);
+        buf.putLong(v);
+    }
+
+    /**
+     * Write a float.
+     *
+     * @param v The value.
+     */
+    public void putFloat(float v) {
+        ensure(4);
+        buf.putFloat(v);
+    }
+
+    /**
+     * Write a double.
+     *
+     * @param v The value.
+     */
+    public void putDouble(double v) {
+        ensure(8);
+        buf.putDouble(v);
+    }
+
+    /**
+     * Write a boolean.
+     *
+     * @param v The value.
+     */
+    public void putBoolean(boolean v) {
+        ensure(1);
+        buf.put((byte)(v ? 1 : 0));
+    }
+
+    /**
+     * Write a string (UTF-8, under 64 kB).
+     *
+     * @param s The string (not null).
+     */
+    public void putString(String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        if (b.length > 0xFFFF)
+            throw new IllegalArgumentException("Snapshot strings must be under 64 kB!");
+
+        ensure(2 + b.length);
+        buf.putShort((short)b.length);
+        buf.put(b);
+    }
+
+    /**
+     * Write a byte.
+     *
+     * @param v The value.
+     */
+    void putByte(int v) {
+        ensure(1);
+        buf.put((byte)v);
+    }
+
+    /**
+     * Write a short.
+     *
+     * @param v The value.
+     */
+    void putShort(int v) {
+        ensure(2);
+        buf.putShort((short)v);
+    }
+
+    /**
+     * Write raw bytes.
+     *
+     * @param b The bytes.
+     * @param off First byte.
+     * @param len Byte count.
+     */
+    void putBytes(byte[] b, int off, int len) {
+        ensure(len);
+        buf.put(b, off, len);
+    }
+
+    /**
+     * Overwrite an integer written earlier (for lengths only known afterwards).
+     *
+     * @param pos Byte position of the integer.
+     * @param v The value.
+     */
+    void setInt(int pos, int v) {
+        buf.putInt(pos, v);
+    }
+
+    /**
+     * Get the amount of bytes written.
+     *
+     * @return The size.
+     */
+    int size() {
+        return buf.position();
+    }
+
+    /**
+     * Get the backing array (valid up to {@code size()}).
+     *
+     * @return The data.
+     */
+    byte[] array() {
+        return buf.array();
+    }
+}
@@ -0,0 +1,34 @@
+package com.rsc_games.velocity;
+
+import java.util.ArrayList;
+
+import com.rsc_games.velocity.sprite.Sprite;
+
+/**
+ * The scene's sprite list. A plain {@code ArrayList} that also exposes how often it was
+ * edited, so the scene can tell when a subclass changed its sprites directly (even if
+ * the size stayed the same) and resync the render grid.
+ */
+class SpriteList extends ArrayList<Sprite> {
+    /**
+     * Replace a sprite. Counts as an edit (a plain {@code ArrayList} doesn't count it).
+     *
+     * @param index The index.
+     * @param s The new sprite.
+     * @return The replaced sprite.
+     */
+    @Override
+    public Sprite set(int index, Sprite s) {
+        modCount++;
+        return super.set(index, s);
+    }
+
+    /**
+     * Get the edit counter. Changes with every structural change and {@code set()}.
+     *
+     * @return The counter.
+     */
+    int edits() {
+        return modCount;
+    }
+}
@@ -0,0 +1,122 @@
+package com.rsc_games.velocity;
+
+import java.util.ArrayList;
+
+import com.rsc_games.velocity.sprite.Sprite;
+
+/**
+ * Despawned sprites of one class, kept around for {@code Scene.spawn()} to reuse (see
+ * {@code Poolable}). Also tracks how many are out, so the pool can be sized (or
+ * prewarmed) from the high-water mark of a real play session.
+ */
+public class SpritePool {
+    /**
+     * The pooled sprite class.
+     */
+    public final Class<? extends Sprite> type;
+
+    /**
+     * Despawned sprites ready for reuse.
+     */
+    private final ArrayList<Sprite> free = new ArrayList<Sprite>();
+
+    /**
+     * Sprites currently spawned, the most ever spawned at once, and the amount of
+     * sprites this pool had to create.
+     */
+    private int live = 0;
+    private int highWater = 0;
+    private int created = 0;
+
+    /**
+     * Create an empty pool.
+     *
+     * @param type The pooled sprite class.
+     */
+    SpritePool(Class<? extends Sprite> type) {
+        this.type = type;
+    }
+
+    /**
+     * Take a sprite out of the pool for a spawn.
+     *
+     * @return A reusable sprite, or null if the pool is empty (the caller creates one).
+     */
+    Sprite take() {
+        if (++live > highWater)
+            highWater = live;
+
+        if (free.isEmpty()) {
+            created++;
+            return null;
+        }
+        return free.remove(free.size() - 1);
+    }
+
+    /**
+     * Return a despawned sprite to the pool. Sprites that weren't spawned (added with
+     * {@code addSprite()}) are adopted by the pool.
+     *
+     * @param s The sprite.
+     */
+    void give(Sprite s) {
+        if (live > 0)
+            live--;
+        free.add(s);
+    }
+
+    /**
+     * Add a fresh sprite to the pool without spawning it.
+     *
+     * @param s The sprite (already moved to its pooled state).
+     */
+    void stock(Sprite s) {
+        created++;
+        free.add(s);
+    }
+
+    /**
+     * Release the resources of every pooled sprite and empty the pool.
+     */
+    void release() {
+        for (Sprite s : free)
+            s.INTERNAL_releasePooled();
+        free.clear();
+    }
+
+    /**
+     * Get the amount of sprites currently spawned from this pool.
+     *
+     * @return The live sprite count.
+     */
+    public int getLive() {
+        return live;
+    }
+
+    /**
+     * Get the most sprites this pool ever had spawned at once.
+     *
+     * @return The high-water mark.
+     */
+    public int getHighWater() {
+        return highWater;
+    }
+
+    /**
+     * Get the amount of sprites waiting in the pool.
+     *
+     * @return The free sprite count.
+     */
+    public int getFree() {
+        return free.size();
+    }
+
+    /**
+     * Get the amount of sprites this pool created (including prewarmed ones).
+     *
+     * @return The created sprite count.
+     */
+    public int getCreated() {
+        return created;
+    }
+}
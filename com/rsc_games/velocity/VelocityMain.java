@@ -1,5 +1,7 @@
 package com.rsc_games.velocity;
 
+import com.rsc_games.velocity.animation.AnimationSystem;
+import com.rsc_games.velocity.audio.AudioMixer;
 import com.rsc_games.velocity.renderer.window.WindowConfig;
 import com.rsc_games.velocity.renderer.window.WindowOption;
 import com.rsc_games.velocity.system.FileResourceLoader;
@@ -11,6 +13,10 @@ import java.io.IOException;
 
 import com.rsc_games.velocity.renderer.RenderPipeline;
 import com.rsc_games.velocity.util.MemTracerUtil;
+import com.rsc_games.velocity.util.AllocTelemetry;
+import com.rsc_games.velocity.util.Profiler;
+import com.rsc_games.velocity.util.ResourceCleaner;
+import com.rsc_games.velocity.util.SpriteAttribution;
 
 import com.rsc_games.velocity.config.GlobalAppConfig;
 import com.rsc_games.velocity.config.GlobalSceneDefs;
@@ -157,6 +163,11 @@ public class VelocityMain {
      */
     public static final String VELOCITY_EXT = "dev";
 
+    /**
+     * Where the profiler trace is written on exit when {@code EN_RENDERER_PROFILER} is set.
+     */
+    public static final String PROFILER_TRACE_PATH = "velocity_trace.json";
+
     /**
      * For internal use only. Quick access handle to the render thread.
      */
@@ -172,26 +183,10 @@ public class VelocityMain {
         // Initial velocity engine property provisioning.
         GlobalAppConfig.bcfg = bcfg;
         Scene.setGlobalSceneLUT(sceneDefs);
+        startLogging();
 
         // Initialize the application resource loader.
-        String mainFile = System.getProperty("sun.java.command");
-
-        // Assume file resources (probably compiled with GraalVM).
-        if (mainFile == null)
-            ResourceLoader.registerAppResourceLoader(new FileResourceLoader());
-
-        // Try standard resourceLoader system.
-        else {
-            try {
-                ResourceLoader appLdr = !mainFile.endsWith(".jar") ? new FileResourceLoader() 
-                                        : new JARResourceLoader(mainFile);
-                ResourceLoader.registerAppResourceLoader(appLdr);
-            }
-            catch (IOException ie) {
-                ie.printStackTrace();
-                System.exit(1);
-            }
-        }
+        registerAppResourceLoader();
 
         // Start Velocity.
         Logger.log("main", "Launched Velocity version " + VELOCITY_VER + "-" + VELOCITY_EXT);
@@ -244,6 +239,41 @@ public class VelocityMain {
         }
     }              
 
+    /**
+     * Pick and register the application resource loader based on how the app was launched.
+     */
+    static void registerAppResourceLoader() {
+        String mainFile = System.getProperty("sun.java.command");
+
+        // Assume file resources (probably compiled with GraalVM).
+        if (mainFile == null)
+            ResourceLoader.registerAppResourceLoader(new FileResourceLoader());
+
+        // Try standard resourceLoader system.
+        else {
+            try {
+                ResourceLoader appLdr = !mainFile.endsWith(".jar") ? new FileResourceLoader() 
+                                        : new JARResourceLoader(mainFile);
+                ResourceLoader.registerAppResourceLoader(appLdr);
+            }
+            catch (IOException ie) {
+                ie.printStackTrace();
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Configure the logger according to the app config.
+     */
+    static void startLogging() {
+        if (GlobalAppConfig.bcfg.ASYNC_LOGGING)
+            Logger.startAsync();
+
+        if (GlobalAppConfig.bcfg.LOG_BINARY_PATH != null)
+            Logger.openBinaryLog(GlobalAppConfig.bcfg.LOG_BINARY_PATH);
+    }
+
     /**
      * Creates the window context, renderer, and initializes the full Velocity callback
      * system.
@@ -265,9 +295,36 @@ public class VelocityMain {
         /*this.rThreadCtl = */
         RenderPipeline rp = PipelineManager.newPipeline(windowConfig);
 
+        // Profile every frame and dump the recent history when the app exits.
+        if (GlobalAppConfig.bcfg.EN_RENDERER_PROFILER) {
+            Profiler.setEnabled(true);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                Profiler.setEnabled(false);
+                Profiler.exportChromeTrace(PROFILER_TRACE_PATH);
+            }, "velocity.profiler"));
+        }
+
+        // Attribute tick and render time to sprites and report the worst ones on exit.
+        if (GlobalAppConfig.bcfg.LOG_SPRITE_COSTS) {
+            SpriteAttribution.setEnabled(true);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> SpriteAttribution.printReport(10),
+                                                            "velocity.attribution"));
+        }
+
+        // Measure per frame allocations and GC pauses and report them on exit.
+        if (GlobalAppConfig.bcfg.LOG_ALLOCATIONS) {
+            AllocTelemetry.setEnabled(true);
+            Runtime.getRuntime().addShutdownHook(new Thread(AllocTelemetry::printReport, "velocity.telemetry"));
+        }
+
         // Enable scene allocation memory tracing.
         new MemTracerUtil();  // Stored internally in the class.
 
+        // Record the session so it can be replayed headlessly later.
+        if (GlobalAppConfig.bcfg.INPUT_RECORD_PATH != null)
+            InputRecorder.start(GlobalAppConfig.bcfg.INPUT_RECORD_PATH, GlobalAppConfig.bcfg.START_SCENE,
+                                rp.getWindow().getResolution());
+
         // Pre-load the first scene (usually the shader loading scene).
         Logger.log("main", "Starting Velocity Scene subsystem.");
         Scene.scheduleSceneLoad(GlobalAppConfig.bcfg.START_SCENE);
@@ -316,15 +373,53 @@ public class VelocityMain {
      * rendering.
      */
     public void gameLoop() {
+        runEngineTick();
+    }
+
+    /**
+     * Run one engine tick: scene loads, the game tick, engine systems and rendering.
+     * Shared by the windowed game loop and the headless input replay.
+     */
+    static void runEngineTick() {
+        Profiler.begin("frame");
+        AllocTelemetry.begin(AllocTelemetry.FRAME);
+
+        // Capture this tick's input before anything can react to it.
+        InputRecorder.INTERNAL_captureTick();
+
+        // Free resources whose owners were collected without releasing them.
+        ResourceCleaner.INTERNAL_runCollected();
+
         // Process any scene load requests that may have come up during the last tick.
         Scene.INTERNAL_runSceneLoads();
 
         // Game tick
+        Profiler.begin("tick");
+        AllocTelemetry.begin(AllocTelemetry.TICK);
         Scene.currentScene.tick();
 
+        // Advance every engine managed animator in one sweep.
+        Profiler.begin("AnimationSystem.tick");
+        AnimationSystem.getSystem().tick();
+        Profiler.end();
+
+        // Positional audio follows the camera and sources after they've moved.
+        AudioMixer.INTERNAL_updatePositional();
+        AllocTelemetry.end(AllocTelemetry.TICK);
+        Profiler.end();
+
         // Wait for the render thread to be ready to render the next frame.
+        Profiler.begin("render");
+        AllocTelemetry.begin(AllocTelemetry.RENDER);
         PipelineManager.render();
+        AllocTelemetry.end(AllocTelemetry.RENDER);
+        Profiler.end();
         //rThreadCtl.syncWithRenderThread();
+
+        AllocTelemetry.end(AllocTelemetry.FRAME);
+        AllocTelemetry.endFrame();
+        Profiler.end();
+        Profiler.endFrame();
     }
 
     /**
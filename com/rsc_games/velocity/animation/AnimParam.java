@@ -1,34 +1,77 @@
 package com.rsc_games.velocity.animation;
 
+import com.rsc_games.velocity.util.Logger;
+
 /**
  * Animator parameter. High-level abstraction of a parameter for setting
- * states.
+ * states. Shared by every animator using the same definition, so the current
+ * value is stored by the animator instead.
+ * 
+ * Every value a parameter can take is known once the file is parsed, so values
+ * are resolved to small integer ids (their index in the parameter's domain). The
+ * active state is then found with a mixed-radix index built from the value ids.
  */
 class AnimParam {
     /**
      * Parameter name.
      */
-    String name;
+    final String name;
 
     /**
      * Parameter data type.
      */
-    String dtype;
+    final String dtype;
+
+    /**
+     * Every value used for this parameter in the file. The index is the value id.
+     */
+    final String[] domain;
+
+    /**
+     * The domain parsed as integers (for int parameters).
+     */
+    private final int[] intDomain;
+
+    /**
+     * The domain parsed as floats (for float parameters).
+     */
+    private final float[] floatDomain;
+
+    /**
+     * Value ids for false and true (for bool parameters).
+     */
+    private final int falseId, trueId;
 
     /**
-     * Parameter set value.
+     * Multiplier for this parameter's value id in the state index.
      */
-    String currentValue = "";
+    long stride = 1;
 
     /**
      * Create the parameter for use. 
      * 
      * @param name The parameter name.
      * @param dtype The data type.
+     * @param domain Every value this parameter takes in the file.
      */
-    public AnimParam(String name, String dtype) {
+    public AnimParam(String name, String dtype, String[] domain) {
         this.name = name;
         this.dtype = dtype;
+        this.domain = domain;
+
+        this.intDomain = dtype.equals("int") ? new int[domain.length] : null;
+        this.floatDomain = dtype.equals("float") ? new float[domain.length] : null;
+        int f = -1, t = -1;
+
+        for (int i = 0; i < domain.length; i++) {
+            if (intDomain != null) intDomain[i] = parseIntOr(domain[i], Integer.MIN_VALUE);
+            if (floatDomain != null) floatDomain[i] = parseFloatOr(domain[i], Float.NaN);
+            if (domain[i].equals("false")) f = i;
+            if (domain[i].equals("true")) t = i;
+        }
+
+        this.falseId = f;
+        this.trueId = t;
     }
 
     /**
@@ -41,22 +84,112 @@ class AnimParam {
     }
 
     /**
-     * Get the current parameter value. 
+     * Identify whether this parameter has a given type.
+     * 
+     * @param type The type code (str, bool, int or float).
+     * @return Whether the type matches.
+     */
+    boolean isType(String type) {
+        return this.dtype.equals(type);
+    }
+
+    /**
+     * Find a value exactly as it was written in the file.
      * 
-     * @return The current parameter value.
+     * @param raw The value text.
+     * @return The value id, or -1 if it isn't in the domain.
      */
-    public String getCurValue() {
-        return this.currentValue;
+    int domainId(String raw) {
+        for (int i = 0; i < domain.length; i++) {
+            if (domain[i].equals(raw)) return i;
+        }
+        return -1;
     }
 
     /**
-     * Set the parameter value. Must be the correct data type.
+     * Resolve a string value. Must be the correct data type.
      * 
-     * @param val The value to set.
+     * @param val The value.
+     * @return The value id, or -1 if no state uses the value.
      */
-    public void setValue(String val) {
+    int valueId(String val) {
         validateField(val);  // Crashes if not a valid field.
-        this.currentValue = val;
+
+        if (intDomain != null) return valueId(Integer.parseInt(val));
+        if (floatDomain != null) return valueId(Float.parseFloat(val));
+
+        return domainId(val);
+    }
+
+    /**
+     * Resolve an integer value.
+     * 
+     * @param val The value.
+     * @return The value id, or -1 if no state uses the value.
+     */
+    int valueId(int val) {
+        for (int i = 0; i < intDomain.length; i++) {
+            if (intDomain[i] == val) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Resolve a float value.
+     * 
+     * @param val The value.
+     * @return The value id, or -1 if no state uses the value.
+     */
+    int valueId(float val) {
+        for (int i = 0; i < floatDomain.length; i++) {
+            if (floatDomain[i] == val) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Resolve a boolean value.
+     * 
+     * @param val The value.
+     * @return The value id, or -1 if no state uses the value.
+     */
+    int valueId(boolean val) {
+        return val ? trueId : falseId;
+    }
+
+    /**
+     * Parse a value from the file. Values of the wrong type can never be selected,
+     * so they're replaced with a value nothing will compare equal to.
+     * 
+     * @param v The value.
+     * @param bad Value to use if it's not an integer.
+     * @return The parsed value.
+     */
+    private int parseIntOr(String v, int bad) {
+        try {
+            return Integer.parseInt(v);
+        }
+        catch (NumberFormatException ie) {
+            Logger.warn("velocity.anim", "Value " + v + " of int parameter " + name + " is not an int.");
+            return bad;
+        }
+    }
+
+    /**
+     * Parse a value from the file (see {@code parseIntOr()}).
+     * 
+     * @param v The value.
+     * @param bad Value to use if it's not a float.
+     * @return The parsed value.
+     */
+    private float parseFloatOr(String v, float bad) {
+        try {
+            return Float.parseFloat(v);
+        }
+        catch (NumberFormatException ie) {
+            Logger.warn("velocity.anim", "Value " + v + " of float parameter " + name + " is not a float.");
+            return bad;
+        }
     }
 
     /**
@@ -64,7 +197,7 @@ class AnimParam {
      * 
      * @param type The parameter value.
      */
-    private void validateField(String type) {
+    public void validateField(String type) {
         if (this.dtype.equals("str"))
             return;
 
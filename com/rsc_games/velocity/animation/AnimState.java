@@ -1,159 +1,70 @@
 package com.rsc_games.velocity.animation;
 
-import java.util.ArrayList;
-
-import com.rsc_games.velocity.animation.parser.ops.Directive;
-import com.rsc_games.velocity.animation.parser.ops.FramesPerUpdate;
-import com.rsc_games.velocity.animation.parser.ops.OneShot;
-import com.rsc_games.velocity.animation.parser.ops.UseTex;
+import com.rsc_games.velocity.animation.parser.StateInfo;
 import com.rsc_games.velocity.renderer.RendererImage;
 import com.rsc_games.velocity.system.ImageLoader;
-import com.rsc_games.velocity.util.Logger;
 
 /**
- * High level state abstraction.
+ * High level state abstraction. Immutable and shared between every animator using
+ * the same definition; playback position is tracked by the animator (per state, so
+ * switching back to a state resumes it).
  */
 class AnimState {
     /**
      * Frames to wait between each change in the character's drawn frame.
      */
-    int framesPerUpdate;
+    final int framesPerUpdate;
 
     /**
      * Whether this animation repeats or stops playing at the end.
      */
-    boolean oneShot = false;
+    final boolean oneShot;
 
     /**
      * The images to use to draw the character.
      */
-    ArrayList<RendererImage> imgs;
-
-    /**
-     * Current counter between each frame transition.
-     */
-    int cntr = 0;
+    final RendererImage[] imgs;
 
     /**
-     * Current frame to render.
-     */
-    int frameCounter = 0;
-
-    /**
-     * Find the essential texture loading and frame update information 
-     * for state update.
-     * 
-     * @param d The provided directive to parse.
+     * Index of this state in its definition (for per-animator playback positions).
      */
-    public AnimState(Directive d) {
-        this.framesPerUpdate = findFPUVal(d);
-        this.oneShot = determineOneShot(d);
-        this.imgs = loadAllImages(d);
-    }
+    final int id;
 
     /**
-     * Get the Frames Per Update value required for proper state update
-     * and drawing.
+     * Load the textures and frame update information for a state.
      * 
-     * @param d The directive to parse.
-     * @return The identified Frames per Update.
+     * @param s The parsed state description.
+     * @param id The state index.
      */
-    private int findFPUVal(Directive d) {
-        FramesPerUpdate fpu = null;
-
-        for (Directive cd : d.getChildren()) {
-            if (cd instanceof FramesPerUpdate) {
-                fpu = (FramesPerUpdate)cd;
-                break;
-            }
-        }
-
-        if (fpu == null) { 
-            throw new IllegalStateException("Found no @FRAMES_PER_UPDATE value to parse in provided case!"); 
-        }
-        
-        return Integer.parseInt(fpu.getArgs().get(0).data);
+    public AnimState(StateInfo s, int id) {
+        this.id = id;
+        this.framesPerUpdate = s.framesPerUpdate;
+        this.oneShot = s.oneShot;
+        this.imgs = loadAllImages(s.textures);
     }
 
-
-    /**
-     * Get the Frames Per Update value required for proper state update
-     * and drawing.
-     * 
-     * @param d The directive to parse.
-     * @return The identified Frames per Update.
-     */
-    private boolean determineOneShot(Directive d) {
-        OneShot oneShot = null;
-
-        for (Directive cd : d.getChildren()) {
-            if (cd instanceof OneShot) {
-                oneShot = (OneShot)cd;
-                break;
-            }
-        }
-
-        // Debugging info is terrible throughout this entire parser, so the user will have to guess.
-        if (oneShot == null) { 
-            Logger.log("anim", "found no @ONE_SHOT in current case. assuming looping animation.");
-            return false;
-        }
-        
-        return Boolean.parseBoolean(oneShot.getArgs().get(0).data);
-    }
-    
     /**
      * Load all of the required images for the animator up front.
      * 
-     * @param d The directive to parse.
+     * @param paths The texture paths.
      * @return The loaded images.
      */
-    private ArrayList<RendererImage> loadAllImages(Directive d) {
-        ArrayList<String> paths = new ArrayList<String>();
-
-        for (Directive cd : d.getChildren()) {
-            if (cd instanceof UseTex) {
-                //System.out.println("found img path " + cd.getArgs().get(0).data);
-                paths.add(cd.getArgs().get(0).data);
-            }
-        }
+    private static RendererImage[] loadAllImages(String[] paths) {
+        RendererImage[] imgArr = new RendererImage[paths.length];
 
-        ArrayList<RendererImage> imgArr = new ArrayList<RendererImage>();
-
-        for (String path : paths) {
-            imgArr.add(ImageLoader.loadImage(path));
+        for (int i = 0; i < paths.length; i++) {
+            imgArr[i] = ImageLoader.loadImage(paths[i]);
         }
 
         return imgArr;
     }
 
     /**
-     * Update the counters in the animator, and change the frame if the
-     * counter hits the FPU value.
-     */
-    public void tick() {
-        this.cntr++;
-
-        if (this.cntr == this.framesPerUpdate) {
-            if (this.frameCounter == imgs.size() - 1) {
-                if (oneShot) return;  // Don't loop the animation.
-                this.frameCounter = 0;
-            }
-            else
-                this.frameCounter++;
-
-            //this.frameCounter = (this.frameCounter != imgs.size() - 1) ? 
-            //    frameCounter + 1 : 0;
-            this.cntr = 0;
-        }
-    }
-
-    /**
-     * Get the current frame to draw.
+     * Get the amount of frames in this state.
      * 
-     * @return The current frame outlined by the Frame Counter.
+     * @return The frame count.
      */
-    public RendererImage getDrawFrame() {
-        return imgs.get(this.frameCounter);
+    public int getFrameCount() {
+        return imgs.length;
     }
 }
@@ -1,83 +1,184 @@
 package com.rsc_games.velocity.animation;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
 
-import com.rsc_games.velocity.animation.parser.State;
-import com.rsc_games.velocity.animation.parser.StateParser;
-
-import com.rsc_games.velocity.animation.parser.Parameter;
 import com.rsc_games.velocity.renderer.RendererImage;
 import com.rsc_games.velocity.util.Logger;
 
 /**
  * One of multiple different PluginAnimator types. This one parses a
- * nested file.
+ * nested file. The parsed file is shared (see {@code AnimationDefinition}),
+ * so each animator is only a small playback cursor into it.
+ * 
+ * Parameters can be set by name, but code setting parameters every tick should
+ * resolve a handle once with {@code getParamHandle()} and use the handle setters,
+ * which don't allocate.
+ * 
+ * Playback cursors live in the {@code AnimationSystem}. Managed animators are advanced
+ * by the engine; unmanaged ones (the default) by calling {@code animTick()}.
  */
 public class AnimStateMachine implements PluginAnimator {
     /**
-     * All params contained within the parsed file.
+     * The shared animation definition.
      */
-    ArrayList<AnimParam> params;
+    final AnimationDefinition def;
 
     /**
-     * All states, addressable by name, referred to by the parameters.
+     * Current value id of every parameter (-1 if unset or not used by any state).
      */
-    HashMap<String, AnimState> aStates;
+    int[] values;
 
     /**
      * Current animator state. None by default.
      */
     AnimState currentState = null;
 
+    /**
+     * Saved frame and counter of every state (by state id), so switching back to a
+     * state resumes where it left off.
+     */
+    private final int[] statePos;
+
+    /**
+     * This animator's playback cursor in the {@code AnimationSystem} (-1 once released).
+     */
+    int slot;
+
+    /**
+     * Whether the engine advances this animator (instead of {@code animTick()}).
+     */
+    boolean managed;
+
+    /**
+     * Frees the cursor slot if this animator is collected without being released.
+     */
+    private final Cleaner.Cleanable cleanable;
+
     /**
      * Create the animator state machine.
      * 
      * @param path The path to the animator file.
      */
     public AnimStateMachine(String path) {
-        StateParser parser = new StateParser(path);
-        parser.genState();
+        this(AnimationDefinition.get(path));
+    }
 
-        ArrayList<Parameter> outP = parser.getParameters();
-        ArrayList<State> states = parser.getStates();
+    /**
+     * Create the animator state machine.
+     * 
+     * @param path The path to the animator file.
+     * @param managed Whether the engine advances this animator every tick.
+     */
+    public AnimStateMachine(String path, boolean managed) {
+        this(AnimationDefinition.get(path), managed);
+    }
 
-        this.params = buildParameters(outP);
-        this.aStates = genStateLUT(states);
+    /**
+     * Create an animator state machine from an already loaded definition.
+     * 
+     * @param def The animation definition.
+     */
+    public AnimStateMachine(AnimationDefinition def) {
+        this(def, false);
     }
 
     /**
-     * Build the list of parameters from the parsed data.
+     * Create an animator state machine from an already loaded definition.
      * 
-     * @param outP The identified parameters by the parser.
-     * @return A processed array of parameters.
+     * @param def The animation definition.
+     * @param managed Whether the engine advances this animator every tick. Managed
+     *  animators must not be advanced with {@code animTick()}.
      */
-    private ArrayList<AnimParam> buildParameters(ArrayList<Parameter> outP) {
-        ArrayList<AnimParam> bParam = new ArrayList<AnimParam>();
-        for (Parameter p : outP) {
-            bParam.add(new AnimParam(p.name, p.type));
+    public AnimStateMachine(AnimationDefinition def, boolean managed) {
+        this.def = def;
+        this.values = new int[def.params.length];
+        Arrays.fill(this.values, -1);
+        this.statePos = new int[def.stateCount * 2];
+
+        this.managed = managed;
+        this.slot = AnimationSystem.getSystem().claim(managed);
+        this.cleanable = AnimationSystem.cleaner.register(this, new SlotReleaser(this.slot));
+    }
+
+    /**
+     * Releases a cursor slot. Must not reference the animator itself, otherwise it
+     * could never be collected.
+     */
+    private static class SlotReleaser implements Runnable {
+        /**
+         * The slot to free.
+         */
+        private final int slot;
+
+        /**
+         * Create the releaser.
+         * 
+         * @param slot The slot to free.
+         */
+        SlotReleaser(int slot) {
+            this.slot = slot;
         }
 
-        return bParam;
+        /**
+         * Free the slot.
+         */
+        @Override
+        public void run() {
+            AnimationSystem.getSystem().free(slot);
+        }
     }
 
     /**
-     * Generate the state look up table for transitions and state changes.
+     * Choose whether the engine advances this animator every tick.
      * 
-     * @param states The parsed states.
-     * @return The generated executable states.
+     * @param managed Whether the animator is managed by the engine.
      */
-    private HashMap<String, AnimState> genStateLUT(ArrayList<State> states) {
-        HashMap<String, AnimState> animStates = new HashMap<String, AnimState>();
+    public void setManaged(boolean managed) {
+        checkReleased();
+        this.managed = managed;
+        AnimationSystem.getSystem().setManaged(slot, managed);
+    }
 
-        for (State s : states) {
-            animStates.put(
-                s.getCondition(),
-                new AnimState(s.getValueCase())
-            );
-        }
+    /**
+     * Free this animator's playback cursor. The animator cannot be used afterwards.
+     * Animators that are simply dropped are released once they are garbage collected.
+     */
+    public void release() {
+        this.slot = -1;
+        this.cleanable.clean();
+    }
 
-        return animStates;
+    /**
+     * Ensure this animator hasn't been released.
+     */
+    private void checkReleased() {
+        if (this.slot < 0)
+            throw new IllegalStateException("AnimStateMachine used after release()!");
+    }
+
+    /**
+     * Get the definition this animator plays.
+     * 
+     * @return The animation definition.
+     */
+    public AnimationDefinition getDefinition() {
+        return this.def;
+    }
+
+    /**
+     * Resolve a parameter name to a handle for the allocation free setters.
+     * Handles are shared by every animator with the same definition.
+     * 
+     * @param param The parameter name.
+     * @return The parameter handle, or -1 if there is no such parameter.
+     */
+    public int getParamHandle(String param) {
+        int idx = def.findParam(param);
+
+        if (idx == -1)
+            Logger.warn("velocity.anim", "Cannot find parameter " + param);
+        return idx;
     }
 
     /**
@@ -87,7 +188,7 @@ public class AnimStateMachine implements PluginAnimator {
      * @param val The new value to set.
      */
     public void setBool(String param, boolean val) {
-        setString(param, "" + val);
+        setBool(getParamHandle(param), val);
     }
 
     /**
@@ -97,7 +198,7 @@ public class AnimStateMachine implements PluginAnimator {
      * @param val The new value to set.
      */
     public void setFloat(String param, float val) {
-        setString(param, "" + val);
+        setFloat(getParamHandle(param), val);
     }
 
     /**
@@ -107,31 +208,81 @@ public class AnimStateMachine implements PluginAnimator {
      * @param val The new value to set.
      */
     public void setInt(String param, int val) {
-        setString(param, "" + val);
+        setInt(getParamHandle(param), val);
     }
 
     /**
-     * Set a string parameter. The other functions trampoline here.
+     * Set a string parameter.
      * 
      * @param param The parameter to set.
      * @param val The new value to set.
      */
     public void setString(String param, String val) {
-        AnimParam findP = null;
+        setString(getParamHandle(param), val);
+    }
 
-        for (AnimParam p : params) {
-            if (p.name.equals(param)) {
-                findP = p;
-                break;
-            }
-        }
+    /**
+     * Set a boolean parameter.
+     * 
+     * @param handle The parameter handle.
+     * @param val The new value to set.
+     */
+    public void setBool(int handle, boolean val) {
+        if (handle < 0) return;
 
-        if (findP == null) {
-            Logger.warn("velocity.anim", "Cannot find parameter " + param);
+        AnimParam p = def.params[handle];
+        setValue(handle, p.isType("bool") ? p.valueId(val) : p.valueId("" + val));
+    }
+
+    /**
+     * Set a float parameter.
+     * 
+     * @param handle The parameter handle.
+     * @param val The new value to set.
+     */
+    public void setFloat(int handle, float val) {
+        if (handle < 0) return;
+
+        AnimParam p = def.params[handle];
+        setValue(handle, p.isType("float") ? p.valueId(val) : p.valueId("" + val));
+    }
+
+    /**
+     * Set a integer parameter.
+     * 
+     * @param handle The parameter handle.
+     * @param val The new value to set.
+     */
+    public void setInt(int handle, int val) {
+        if (handle < 0) return;
+
+        AnimParam p = def.params[handle];
+        setValue(handle, p.isType("int") ? p.valueId(val) : p.valueId("" + val));
+    }
+
+    /**
+     * Set a string parameter. Also accepts the string form of any other type.
+     * 
+     * @param handle The parameter handle.
+     * @param val The new value to set.
+     */
+    public void setString(int handle, String val) {
+        if (handle < 0) return;
+
+        setValue(handle, def.params[handle].valueId(val));
+    }
+
+    /**
+     * Store a parameter's value id and update the state if it changed.
+     * 
+     * @param handle The parameter handle.
+     * @param id The value id.
+     */
+    private void setValue(int handle, int id) {
+        if (this.values[handle] == id)
             return;
-        }
 
-        findP.setValue(val);
+        this.values[handle] = id;
 
         // Regenerate current state from all values.
         generateState();
@@ -141,36 +292,44 @@ public class AnimStateMachine implements PluginAnimator {
      * Generate the state transition required when a parameter is updated.
      */
     public void generateState() {
-        String paramVal = "";
+        AnimParam[] params = def.params;
+        long idx = 0;
 
-        for (AnimParam p : params) {
-            paramVal += p.getCurValue() + "~";
-        }
+        for (int i = 0; i < params.length; i++) {
+            // No state uses this value (or it's not set yet).
+            if (values[i] < 0) return;
 
-        paramVal = paramVal.substring(0, paramVal.length() - 1);
+            idx += values[i] * params[i].stride;
+        }
 
-        AnimState s = aStates.get(paramVal);
+        AnimState s = def.getState(idx);
+        if (s == null) return;
 
-        if (s == null) {
-            //System.out.println("Cannot find state " + paramVal);
-            return;
+        // Set current usable state. Each state resumes where it was left.
+        if (s != this.currentState) {
+            checkReleased();
+            AnimationSystem.getSystem().setState(slot, this.currentState, s, statePos);
+            this.currentState = s;
         }
-
-        // Set current usable state.
-        this.currentState = s;
     }
 
     /**
-     * Update the current animator state.
+     * Update the counters in the animator, and change the frame if the
+     * counter hits the FPU value. Does nothing for managed animators, since
+     * the engine already advances them.
      */
     public void animTick() {
-        currentState.tick();
+        if (this.managed) return;
+
+        checkReleased();
+        AnimationSystem.getSystem().advance(slot);
     }
 
     /**
      * Get the current frame to draw from the current state.
      */
     public RendererImage getDrawFrame() {
-        return currentState.getDrawFrame();
+        checkReleased();
+        return currentState.imgs[AnimationSystem.getSystem().getFrame(slot)];
     }
 }
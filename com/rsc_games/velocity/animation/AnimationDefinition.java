@@ -0,0 +1,295 @@
+package com.rsc_games.velocity.animation;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import com.rsc_games.velocity.animation.parser.CompiledAnimation;
+import com.rsc_games.velocity.animation.parser.Parameter;
+import com.rsc_games.velocity.animation.parser.StateInfo;
+import com.rsc_games.velocity.util.Logger;
+
+/**
+ * Immutable, shared form of an animator file: its parameters, states and frame textures.
+ * Every {@code AnimStateMachine} created from the same path shares one definition, so the
+ * file is parsed and its textures are loaded only once no matter how many sprites use it.
+ */
+public class AnimationDefinition {
+    /**
+     * Amount of recently used definitions kept alive even when nothing uses them.
+     */
+    private static final int LRU_SIZE = 32;
+
+    /**
+     * Largest state table (in value combinations) stored densely. Bigger ones are
+     * mostly empty, so only the states that exist are kept in a map instead.
+     */
+    private static final long MAX_DENSE_STATES = 1 << 16;
+
+    /**
+     * Recently used definitions (strongly held, least recently used evicted first).
+     */
+    private static LinkedHashMap<String, AnimationDefinition> recent = 
+        new LinkedHashMap<String, AnimationDefinition>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AnimationDefinition> e) {
+                return size() > LRU_SIZE;
+            }
+        };
+
+    /**
+     * Every loaded definition. Weakly held, so evicted definitions stay shared while
+     * animators still use them and are collected afterwards.
+     */
+    private static HashMap<String, WeakReference<AnimationDefinition>> loaded = 
+        new HashMap<String, WeakReference<AnimationDefinition>>();
+
+    /**
+     * Path of the animator file.
+     */
+    public final String path;
+
+    /**
+     * All params contained within the parsed file.
+     */
+    final AnimParam[] params;
+
+    /**
+     * All states, indexed by the sum of each parameter's value id times its stride.
+     * Value combinations without a state are null. Null if the table is too big, in
+     * which case {@code sparseStates} is used.
+     */
+    private final AnimState[] stateTable;
+
+    /**
+     * States by index, used instead of {@code stateTable} for large parameter spaces.
+     */
+    private final HashMap<Long, AnimState> sparseStates;
+
+    /**
+     * Amount of parsed states (state ids are below this).
+     */
+    final int stateCount;
+
+    /**
+     * Load and build a definition.
+     * 
+     * @param path The path to the animator file.
+     */
+    private AnimationDefinition(String path) {
+        CompiledAnimation anim = CompiledAnimation.load(path);
+
+        this.path = path;
+
+        ArrayList<StateInfo> states = anim.getStates();
+        String[][] conds = splitConditions(anim.getParameters().size(), states);
+
+        this.params = buildParameters(anim.getParameters(), conds);
+        this.stateCount = states.size();
+        long size = stateCount(params);
+
+        if (size <= MAX_DENSE_STATES) {
+            this.stateTable = genStateTable(states, conds, (int)size);
+            this.sparseStates = null;
+        }
+        else {
+            this.stateTable = null;
+            this.sparseStates = genSparseStates(states, conds);
+        }
+    }
+
+    /**
+     * Get the definition for an animator file, loading it if it isn't cached.
+     * 
+     * @param path The path to the animator file.
+     * @return The shared definition.
+     */
+    public static synchronized AnimationDefinition get(String path) {
+        AnimationDefinition def = recent.get(path);
+        if (def != null) return def;
+
+        WeakReference<AnimationDefinition> ref = loaded.get(path);
+        def = (ref != null) ? ref.get() : null;
+
+        if (def == null) {
+            Logger.log("velocity.anim", "Loading animation definition " + path);
+            def = new AnimationDefinition(path);
+            loaded.put(path, new WeakReference<AnimationDefinition>(def));
+        }
+
+        recent.put(path, def);
+        return def;
+    }
+
+    /**
+     * Drop all strongly cached definitions. Definitions still in use stay shared.
+     */
+    public static synchronized void clearCache() {
+        recent.clear();
+        loaded.values().removeIf((r) -> r.get() == null);
+    }
+
+    /**
+     * Split every state's condition into one value per parameter. States that don't
+     * specify a value for every parameter can never be selected and are dropped.
+     * 
+     * @param paramCount The amount of parameters.
+     * @param states The parsed states.
+     * @return The values selecting each state (null for dropped states).
+     */
+    private String[][] splitConditions(int paramCount, ArrayList<StateInfo> states) {
+        String[][] conds = new String[states.size()][];
+
+        for (int i = 0; i < conds.length; i++) {
+            String[] c = states.get(i).condition.split("~", -1);
+
+            if (c.length != paramCount) {
+                Logger.warn("velocity.anim", "State " + states.get(i).condition + " in " + path
+                            + " doesn't set every parameter and can never be selected.");
+                continue;
+            }
+            conds[i] = c;
+        }
+
+        return conds;
+    }
+
+    /**
+     * Build the list of parameters from the parsed data, along with every value each
+     * parameter takes.
+     * 
+     * @param outP The identified parameters by the parser.
+     * @param conds The split state conditions.
+     * @return A processed array of parameters.
+     */
+    private AnimParam[] buildParameters(ArrayList<Parameter> outP, String[][] conds) {
+        AnimParam[] bParam = new AnimParam[outP.size()];
+        long stride = 1;
+
+        for (int i = 0; i < bParam.length; i++) {
+            LinkedHashSet<String> domain = new LinkedHashSet<String>();
+
+            for (String[] c : conds) {
+                if (c != null) domain.add(c[i]);
+            }
+
+            Parameter p = outP.get(i);
+            bParam[i] = new AnimParam(p.name, p.type, domain.toArray(new String[0]));
+            bParam[i].stride = stride;
+
+            try {
+                stride = Math.multiplyExact(stride, Math.max(1, domain.size()));
+            }
+            catch (ArithmeticException e) {
+                throw new IllegalStateException("Animator " + path + " has too many parameter "
+                                                + "value combinations to index.");
+            }
+        }
+
+        return bParam;
+    }
+
+    /**
+     * Get the amount of parameter value combinations (the dense state table size).
+     * Can't overflow, since the last stride was already checked.
+     * 
+     * @param params The built parameters.
+     * @return The combination count.
+     */
+    private static long stateCount(AnimParam[] params) {
+        if (params.length == 0) return 1;
+
+        AnimParam last = params[params.length - 1];
+        return last.stride * Math.max(1, last.domain.length);
+    }
+
+    /**
+     * Get the state table index of a state's condition.
+     * 
+     * @param cond The split state condition.
+     * @return The index.
+     */
+    private long indexOf(String[] cond) {
+        long idx = 0;
+        for (int j = 0; j < params.length; j++)
+            idx += params[j].domainId(cond[j]) * params[j].stride;
+
+        return idx;
+    }
+
+    /**
+     * Generate the state table for transitions and state changes.
+     * 
+     * @param states The parsed states.
+     * @param conds The split state conditions.
+     * @param size The table size.
+     * @return The generated executable states.
+     */
+    private AnimState[] genStateTable(ArrayList<StateInfo> states, String[][] conds, int size) {
+        AnimState[] table = new AnimState[size];
+
+        for (int i = 0; i < conds.length; i++) {
+            if (conds[i] == null) continue;
+            table[(int)indexOf(conds[i])] = new AnimState(states.get(i), i);
+        }
+
+        return table;
+    }
+
+    /**
+     * Generate the sparse state lookup, for parameter spaces too large for a table.
+     * 
+     * @param states The parsed states.
+     * @param conds The split state conditions.
+     * @return The executable states by index.
+     */
+    private HashMap<Long, AnimState> genSparseStates(ArrayList<StateInfo> states, String[][] conds) {
+        HashMap<Long, AnimState> map = new HashMap<Long, AnimState>();
+
+        for (int i = 0; i < conds.length; i++) {
+            if (conds[i] == null) continue;
+            map.put(indexOf(conds[i]), new AnimState(states.get(i), i));
+        }
+
+        return map;
+    }
+
+    /**
+     * Get the state selected by a value combination.
+     * 
+     * @param idx The state index (sum of each value id times its parameter's stride).
+     * @return The state, or null if no state uses this combination.
+     */
+    AnimState getState(long idx) {
+        if (stateTable != null)
+            return stateTable[(int)idx];
+
+        return sparseStates.get(idx);
+    }
+
+    /**
+     * Find a parameter by name. The index doubles as the parameter's handle.
+     * 
+     * @param name The parameter name.
+     * @return The parameter index, or -1 if it doesn't exist.
+     */
+    public int findParam(String name) {
+        for (int i = 0; i < params.length; i++) {
+            if (params[i].name.equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the amount of parameters.
+     * 
+     * @return The parameter count.
+     */
+    public int getParamCount() {
+        return params.length;
+    }
+}
@@ -0,0 +1,293 @@
+package com.rsc_games.velocity.animation;
+
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Engine-level animation system. Stores the playback cursor of every animator (frame,
+ * counter, frames per update, frame count and one shot flag) in flat primitive arrays,
+ * and advances every managed cursor in one tight loop per tick instead of through one
+ * virtual call per sprite.
+ *
+ * Animators are unmanaged by default, meaning their owning sprite still advances them
+ * with {@code animTick()}. Managed animators are advanced by the engine once per tick
+ * and the sprite only reads the current frame.
+ */
+public class AnimationSystem {
+    /**
+     * Slot flag: the slot is in use.
+     */
+    static final int F_ACTIVE = 0x1;
+
+    /**
+     * Slot flag: the slot is advanced by the engine.
+     */
+    static final int F_MANAGED = 0x2;
+
+    /**
+     * Minimum slot count before the tick is split across threads.
+     */
+    static final int PARALLEL_THRESHOLD = 65536;
+
+    /**
+     * Slots per parallel chunk.
+     */
+    static final int CHUNK_SIZE = 4096;
+
+    /**
+     * The engine animation system.
+     */
+    private static final AnimationSystem system = new AnimationSystem();
+
+    /**
+     * Releases slots of animators that were garbage collected without {@code release()}.
+     */
+    static final Cleaner cleaner = Cleaner.create();
+
+    /**
+     * Slot flags.
+     */
+    int[] flags;
+
+    /**
+     * Current frame of each slot.
+     */
+    int[] frame;
+
+    /**
+     * Frame counter of each slot.
+     */
+    int[] counter;
+
+    /**
+     * Frames per update of each slot (0 if the slot has no state yet).
+     */
+    int[] fpu;
+
+    /**
+     * Frame count of each slot's state.
+     */
+    int[] frameCount;
+
+    /**
+     * Whether each slot's state plays once.
+     */
+    boolean[] oneShot;
+
+    /**
+     * Stack of free slots below the high water mark.
+     */
+    private int[] freeList;
+
+    /**
+     * Amount of free slots in the free list.
+     */
+    private int freeCount = 0;
+
+    /**
+     * One above the highest slot ever used. The tick never looks past this.
+     */
+    private int highWater = 0;
+
+    /**
+     * Whether large ticks are split across threads. Off by default; the sweep is
+     * cheap enough that thread handoff only pays off with very large counts.
+     */
+    private boolean parallel = false;
+
+    /**
+     * Create an animation system.
+     */
+    AnimationSystem() {
+        allocate(256);
+    }
+
+    /**
+     * Get the engine animation system.
+     *
+     * @return The animation system.
+     */
+    public static AnimationSystem getSystem() {
+        return system;
+    }
+
+    /**
+     * Allow or disallow splitting large ticks across threads.
+     *
+     * @param parallel Whether parallel ticking is allowed.
+     */
+    public synchronized void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Get the amount of slots in use.
+     *
+     * @return The amount of live animators.
+     */
+    public synchronized int getActiveCount() {
+        return highWater - freeCount;
+    }
+
+    /**
+     * Resize the slot arrays.
+     *
+     * @param size The new capacity.
+     */
+    private void allocate(int size) {
+        flags = (flags == null) ? new int[size] : Arrays.copyOf(flags, size);
+        frame = (frame == null) ? new int[size] : Arrays.copyOf(frame, size);
+        counter = (counter == null) ? new int[size] : Arrays.copyOf(counter, size);
+        fpu = (fpu == null) ? new int[size] : Arrays.copyOf(fpu, size);
+        frameCount = (frameCount == null) ? new int[size] : Arrays.copyOf(frameCount, size);
+        oneShot = (oneShot == null) ? new boolean[size] : Arrays.copyOf(oneShot, size);
+        freeList = (freeList == null) ? new int[size] : Arrays.copyOf(freeList, size);
+    }
+
+    /**
+     * Claim a slot for a new animator.
+     *
+     * @param managed Whether the engine advances the slot.
+     * @return The slot.
+     */
+    synchronized int claim(boolean managed) {
+        int slot;
+
+        if (freeCount > 0)
+            slot = freeList[--freeCount];
+        else {
+            if (highWater == flags.length)
+                allocate(flags.length * 2);
+            slot = highWater++;
+        }
+
+        flags[slot] = F_ACTIVE | (managed ? F_MANAGED : 0);
+        frame[slot] = 0;
+        counter[slot] = 0;
+        fpu[slot] = 0;
+        frameCount[slot] = 0;
+        oneShot[slot] = false;
+        return slot;
+    }
+
+    /**
+     * Return a slot to the free list.
+     *
+     * @param slot The slot.
+     */
+    synchronized void free(int slot) {
+        if (flags[slot] == 0)
+            return;
+
+        flags[slot] = 0;
+        freeList[freeCount++] = slot;
+    }
+
+    /**
+     * Change whether the engine advances a slot.
+     *
+     * @param slot The slot.
+     * @param managed Whether it is managed.
+     */
+    synchronized void setManaged(int slot, boolean managed) {
+        flags[slot] = F_ACTIVE | (managed ? F_MANAGED : 0);
+    }
+
+    /**
+     * Switch a slot to a new state. The cursor of the old state is saved and the new
+     * state resumes from where its cursor was saved (the first frame if never played).
+     *
+     * @param slot The slot.
+     * @param from The current state (null if none).
+     * @param s The new state.
+     * @param saved Frame and counter of every state of the animator, by state id.
+     */
+    synchronized void setState(int slot, AnimState from, AnimState s, int[] saved) {
+        if (from != null) {
+            saved[from.id * 2] = frame[slot];
+            saved[from.id * 2 + 1] = counter[slot];
+        }
+
+        frame[slot] = saved[s.id * 2];
+        counter[slot] = saved[s.id * 2 + 1];
+        fpu[slot] = s.framesPerUpdate;
+        frameCount[slot] = s.imgs.length;
+        oneShot[slot] = s.oneShot;
+    }
+
+    /**
+     * Get the current frame of a slot.
+     *
+     * @param slot The slot.
+     * @return The frame index.
+     */
+    int getFrame(int slot) {
+        return frame[slot];
+    }
+
+    /**
+     * Advance every managed slot by one tick. Called by the engine once per tick.
+     */
+    public synchronized void tick() {
+        int n = highWater;
+
+        if (!parallel || n < PARALLEL_THRESHOLD) {
+            advanceRange(0, n, F_ACTIVE | F_MANAGED);
+            return;
+        }
+
+        // Chunks never share slots, so they can safely run at the same time.
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach((c) ->
+            advanceRange(c * CHUNK_SIZE, Math.min(n, (c + 1) * CHUNK_SIZE), F_ACTIVE | F_MANAGED)
+        );
+    }
+
+    /**
+     * Advance a single slot (for unmanaged animators).
+     *
+     * @param slot The slot.
+     */
+    synchronized void advance(int slot) {
+        advanceRange(slot, slot + 1, F_ACTIVE);
+    }
+
+    /**
+     * Advance the counters of a range of slots, changing the frame if the counter hits
+     * the FPU value.
+     *
+     * @param from First slot.
+     * @param to One past the last slot.
+     * @param mask Flags a slot needs to be advanced.
+     */
+    private void advanceRange(int from, int to, int mask) {
+        int[] flags = this.flags, frame = this.frame, counter = this.counter;
+        int[] fpu = this.fpu, frameCount = this.frameCount;
+        boolean[] oneShot = this.oneShot;
+
+        for (int i = from; i < to; i++) {
+            if ((flags[i] & mask) != mask || fpu[i] == 0)
+                continue;
+
+            int c = counter[i] + 1;
+
+            if (c == fpu[i]) {
+                if (frame[i] == frameCount[i] - 1) {
+                    // Don't loop the animation.
+                    if (oneShot[i]) {
+                        counter[i] = c;
+                        continue;
+                    }
+                    frame[i] = 0;
+                }
+                else
+                    frame[i]++;
+
+                c = 0;
+            }
+
+            counter[i] = c;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.rsc_games.velocity.animation.parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import com.rsc_games.velocity.system.ResourceLoader;
+
+/**
+ * Single pass replacement for the {@code AFTokenizer}. The whole source is read into a
+ * char array up front and tokens are sliced straight out of it, instead of reading (and
+ * regex matching) one single character string at a time. Produces exactly the same token
+ * stream as the {@code AFTokenizer}.
+ */
+class AFLexer implements TokenSource {
+    /**
+     * The animator source.
+     */
+    private final char[] src;
+
+    /**
+     * Current read position.
+     */
+    private int pos = 0;
+
+    /**
+     * Set once the EOF token has been returned.
+     */
+    private boolean done = false;
+
+    /**
+     * Lex an animator file.
+     * 
+     * @param inputFile Animator file.
+     */
+    public AFLexer(String inputFile) {
+        this(decode(readSource(inputFile)));
+    }
+
+    /**
+     * Lex animator source already in memory.
+     * 
+     * @param src The source text.
+     */
+    public AFLexer(char[] src) {
+        this.src = src;
+    }
+
+    /**
+     * Read an entire file from the app resource loader.
+     * 
+     * @param path The file path.
+     * @return The raw file bytes.
+     */
+    static byte[] readSource(String path) {
+        try (BufferedInputStream in = ResourceLoader.getAppLoader().load(path)) {
+            return in.readAllBytes();
+        }
+        catch (IOException ie) {
+            throw new RuntimeException("Cannot open animator file " + path, ie);
+        }
+    }
+
+    /**
+     * Decode raw source bytes. Uses the platform charset, like {@code TextFile} does.
+     * 
+     * @param raw The raw bytes.
+     * @return The decoded source.
+     */
+    static char[] decode(byte[] raw) {
+        return new String(raw, Charset.defaultCharset()).toCharArray();
+    }
+
+    /**
+     * Is more text available in the source?
+     * 
+     * @return Whether EOF has been reached or not.
+     */
+    @Override
+    public boolean available() {
+        return !done;
+    }
+
+    /**
+     * Generate the next token.
+     * 
+     * @return The next token.
+     */
+    @Override
+    public Token getNextToken() {
+        if (done)
+            return null;
+
+        char[] s = this.src;
+        int n = s.length;
+
+        // Carriage return unsupported.
+        while (pos < n && s[pos] == '\r')
+            pos++;
+
+        if (pos >= n) {
+            done = true;
+            return new Token(TokenID.TOK_EOF, "EOF");
+        }
+
+        char c = s[pos++];
+
+        switch (c) {
+            case '@': return new Token(TokenID.TOK_DIRECTIVE, "@");
+            case '\n': return new Token(TokenID.TOK_NEWLINE, "\n");
+            case ' ': return new Token(TokenID.TOK_SPACE, " ");
+            case ':': return new Token(TokenID.TOK_COLON, ":");
+            case ';': return new Token(TokenID.TOK_SEMICOLON, ";");
+            case '{': return new Token(TokenID.TOK_BRACE_OPEN, "{");
+            case '}': return new Token(TokenID.TOK_BRACE_CLOSE, "}");
+            case '"': return new Token(TokenID.TOK_STRING, readUntil('"', true));
+
+            // The newline ending a comment is consumed with it.
+            case '#': return new Token(TokenID.TOK_COMMENT, readUntil('\n', false));
+            default: break;
+        }
+
+        if (!isWordChar(c))
+            throw new BadParserTokenException("Got bad char: " + c);
+
+        int start = pos - 1;
+        while (pos < n && isWordChar(s[pos]))
+            pos++;
+
+        return new Token(TokenID.TOK_WORD, new String(s, start, pos - start));
+    }
+
+    /**
+     * Read up to (and consume) a terminating character. Carriage returns are dropped.
+     * 
+     * @param term The terminator.
+     * @param required Whether hitting EOF first is an error.
+     * @return The text before the terminator.
+     */
+    private String readUntil(char term, boolean required) {
+        char[] s = this.src;
+        int start = pos;
+        boolean hasCR = false;
+
+        while (pos < s.length && s[pos] != term) {
+            if (s[pos] == '\r') hasCR = true;
+            pos++;
+        }
+
+        if (pos >= s.length && required)
+            throw new BadParserTokenException("Unterminated string starting at char " + start);
+
+        String out = new String(s, start, pos - start);
+        if (pos < s.length) pos++;  // Skip the terminator.
+
+        return hasCR ? out.replace("\r", "") : out;
+    }
+
+    /**
+     * Identify characters allowed in a word.
+     * 
+     * @param c The character.
+     * @return Whether it's [A-Za-z0-9_].
+     */
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
@@ -26,7 +26,7 @@ class AFParserCST {
     /**
      * The previous stage tokenizer.
      */
-    AFTokenizer lexer;
+    TokenSource lexer;
     
     /**
      * Detected EOF. Stop parsing when this is hit.
@@ -66,7 +66,7 @@ class AFParserCST {
      * 
      * @param lexer The previous stage Lexer.
      */
-    public AFParserCST(AFTokenizer lexer) {
+    public AFParserCST(TokenSource lexer) {
         this.lexer = lexer;
     }
 
@@ -188,6 +188,10 @@ class AFParserCST {
      * @return Whether it is an integer.
      */
     private boolean isInt(String d) {
+        // Fast path: avoid throwing for every directive and type code.
+        if (!startsNumeric(d))
+            return false;
+
         try {
             Integer.parseInt(d);
             return true;
@@ -204,6 +208,9 @@ class AFParserCST {
      * @return Whether it is a float.
      */
     private boolean isFloat(String d) {
+        if (!startsNumeric(d) && !d.equals("NaN") && !d.equals("Infinity"))
+            return false;
+
         try {
             Float.parseFloat(d);
             return true;
@@ -212,4 +219,15 @@ class AFParserCST {
             return false;
         }
     }
+
+    /**
+     * Identify if a string could possibly be a number. The lexer only produces
+     * [A-Za-z0-9_] words, so anything numeric starts with a digit.
+     * 
+     * @param d The string.
+     * @return Whether it starts with a digit.
+     */
+    private boolean startsNumeric(String d) {
+        return d.length() > 0 && d.charAt(0) >= '0' && d.charAt(0) <= '9';
+    }
 }
@@ -10,9 +10,10 @@ import com.rsc_games.velocity.util.Warnings;
 
 /**
  * The first stage of parsing. Takes an input file and converts it into an
- * input token stream.
+ * input token stream. Superseded by the {@code AFLexer}, which is much faster
+ * and produces the same tokens.
  */
-class AFTokenizer {
+class AFTokenizer implements TokenSource {
     /**
      * Allowed parsable tokenes.
      */
@@ -82,6 +83,7 @@ class AFTokenizer {
      * 
      * @return Whether the file has been closed (because of EOF) or not.
      */
+    @Override
     public boolean available() {
         return this.inputf != null;
     }
@@ -91,6 +93,7 @@ class AFTokenizer {
      * 
      * @return The next token.
      */
+    @Override
     public Token getNextToken() {
         Token t = null;
 
@@ -267,12 +270,3 @@ class AFTokenizer {
         }
     }
 }
-
-/**
- * Can't parse a token properly or an unrecognized token.
- */
-class BadParserTokenException extends RuntimeException {
-    public BadParserTokenException(String message) {
-        super(message);
-    }
-}
@@ -0,0 +1,10 @@
+package com.rsc_games.velocity.animation.parser;
+
+/**
+ * Can't parse a token properly or an unrecognized token.
+ */
+class BadParserTokenException extends RuntimeException {
+    public BadParserTokenException(String message) {
+        super(message);
+    }
+}
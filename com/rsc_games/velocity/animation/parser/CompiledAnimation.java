@@ -0,0 +1,269 @@
+package com.rsc_games.velocity.animation.parser;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.rsc_games.velocity.system.ResourceLoader;
+import com.rsc_games.velocity.util.Logger;
+
+/**
+ * Fully parsed animator file. Parsing an animator runs three parser passes, so the result
+ * is also stored in a compact binary form beside the source ({@code player.anim} gets a
+ * {@code player.animc}). The binary form is keyed by a hash of the source, so it is
+ * rebuilt automatically whenever the source changes, and warm loads skip tokenizing and
+ * parsing entirely.
+ */
+public class CompiledAnimation {
+    /**
+     * Compiled file magic ("VANC").
+     */
+    private static final int MAGIC = 0x56414e43;
+
+    /**
+     * Compiled format version. Bump when the layout changes to invalidate old caches.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Extension appended to the source path for the compiled file.
+     */
+    public static final String EXT_SUFFIX = "c";
+
+    /**
+     * All parameters declared in the file, in declaration order.
+     */
+    private final ArrayList<Parameter> params;
+
+    /**
+     * All states in the file.
+     */
+    private final ArrayList<StateInfo> states;
+
+    /**
+     * Create a compiled animation.
+     *
+     * @param params The parameters.
+     * @param states The states.
+     */
+    CompiledAnimation(ArrayList<Parameter> params, ArrayList<StateInfo> states) {
+        this.params = params;
+        this.states = states;
+    }
+
+    /**
+     * Get the declared parameters.
+     *
+     * @return The parameters.
+     */
+    public ArrayList<Parameter> getParameters() {
+        return this.params;
+    }
+
+    /**
+     * Get the states.
+     *
+     * @return The states.
+     */
+    public ArrayList<StateInfo> getStates() {
+        return this.states;
+    }
+
+    /**
+     * Load an animator file. Uses the compiled form if it is present and up to date;
+     * otherwise the source is parsed and the compiled form is (re)written when possible.
+     *
+     * @param path The animator source path.
+     * @return The parsed animation.
+     */
+    public static CompiledAnimation load(String path) {
+        byte[] src = AFLexer.readSource(path);
+        byte[] hash = hash(src);
+        String cPath = path + EXT_SUFFIX;
+
+        byte[] compiled = readCompiled(cPath);
+        if (compiled != null) {
+            CompiledAnimation a = fromBinary(compiled, hash);
+            if (a != null) return a;
+        }
+
+        CompiledAnimation a = compile(src);
+        writeCompiled(path, cPath, a.toBinary(hash));
+        return a;
+    }
+
+    /**
+     * Parse animator source.
+     *
+     * @param src The raw source bytes.
+     * @return The parsed animation.
+     */
+    public static CompiledAnimation compile(byte[] src) {
+        StateParser parser = new StateParser(new AFLexer(AFLexer.decode(src)));
+        parser.genState();
+
+        return new CompiledAnimation(parser.getParameters(), parser.getStateInfo());
+    }
+
+    /**
+     * Hash the animator source.
+     *
+     * @param src The raw source bytes.
+     * @return The SHA-256 digest.
+     */
+    static byte[] hash(byte[] src) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(src);
+        }
+        catch (NoSuchAlgorithmException ie) {
+            throw new RuntimeException(ie);  // Every JRE must provide SHA-256.
+        }
+    }
+
+    /**
+     * Serialize this animation.
+     *
+     * @param hash Hash of the source it was built from.
+     * @return The compiled file contents.
+     */
+    byte[] toBinary(byte[] hash) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeByte(hash.length);
+            out.write(hash);
+
+            out.writeInt(params.size());
+            for (Parameter p : params) {
+                out.writeUTF(p.name);
+                out.writeUTF(p.type);
+            }
+
+            out.writeInt(states.size());
+            for (StateInfo s : states) {
+                out.writeUTF(s.condition);
+                out.writeInt(s.framesPerUpdate);
+                out.writeBoolean(s.oneShot);
+                out.writeInt(s.textures.length);
+
+                for (String t : s.textures)
+                    out.writeUTF(t);
+            }
+        }
+        catch (IOException ie) {
+            throw new RuntimeException(ie);  // Not possible for in-memory streams.
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialize a compiled animation.
+     *
+     * @param data The compiled file contents.
+     * @param hash Expected source hash.
+     * @return The animation, or null if the file is stale or not a compiled animation.
+     */
+    static CompiledAnimation fromBinary(byte[] data, byte[] hash) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+                return null;
+
+            byte[] fileHash = new byte[in.readUnsignedByte()];
+            in.readFully(fileHash);
+
+            if (!Arrays.equals(fileHash, hash))
+                return null;
+
+            int pc = in.readInt();
+            ArrayList<Parameter> params = new ArrayList<Parameter>(pc);
+
+            for (int i = 0; i < pc; i++) {
+                String name = in.readUTF();
+                params.add(new Parameter(in.readUTF(), name));
+            }
+
+            int sc = in.readInt();
+            ArrayList<StateInfo> states = new ArrayList<StateInfo>(sc);
+
+            for (int i = 0; i < sc; i++) {
+                String cond = in.readUTF();
+                int fpu = in.readInt();
+                boolean oneShot = in.readBoolean();
+                String[] tex = new String[in.readInt()];
+
+                for (int j = 0; j < tex.length; j++)
+                    tex[j] = in.readUTF();
+
+                states.add(new StateInfo(cond, fpu, oneShot, tex));
+            }
+
+            return new CompiledAnimation(params, states);
+        }
+        catch (IOException ie) {
+            // Truncated or corrupted; just recompile.
+            return null;
+        }
+    }
+
+    /**
+     * Read a compiled file. Checks the local filesystem first (where compiled files are
+     * written) and then the app resource loader (for compiled files shipped in a jar).
+     *
+     * @param cPath Compiled file path.
+     * @return The file contents, or null if there is none.
+     */
+    private static byte[] readCompiled(String cPath) {
+        File f = new File(cPath);
+
+        try {
+            if (f.isFile())
+                return Files.readAllBytes(f.toPath());
+
+            try (BufferedInputStream in = ResourceLoader.getAppLoader().load(cPath)) {
+                return in.readAllBytes();
+            }
+        }
+        catch (IOException ie) {
+            return null;
+        }
+    }
+
+    /**
+     * Write a compiled file beside its source. Only possible if the source lives on
+     * the local filesystem; otherwise nothing is written.
+     *
+     * @param path Source path.
+     * @param cPath Compiled file path.
+     * @param data Compiled file contents.
+     */
+    private static void writeCompiled(String path, String cPath, byte[] data) {
+        if (!new File(path).isFile())
+            return;
+
+        try {
+            // Write then rename so a crash never leaves a half written cache behind.
+            Path target = Path.of(cPath);
+            Path tmp = Path.of(cPath + ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            Logger.log("velocity.anim", "Compiled animator " + path);
+        }
+        catch (IOException ie) {
+            Logger.warn("velocity.anim", "Unable to write compiled animator " + cPath + ": " + ie.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.rsc_games.velocity.animation.parser;
+
+import java.util.ArrayList;
+
+import com.rsc_games.velocity.animation.parser.ops.Directive;
+import com.rsc_games.velocity.animation.parser.ops.FramesPerUpdate;
+import com.rsc_games.velocity.animation.parser.ops.OneShot;
+import com.rsc_games.velocity.animation.parser.ops.UseTex;
+import com.rsc_games.velocity.util.Logger;
+
+/**
+ * Everything the animator needs to know about a single state, detached from the parse
+ * tree. This is what gets stored in compiled animation files.
+ */
+public class StateInfo {
+    /**
+     * The "~" joined parameter values that select this state.
+     */
+    public final String condition;
+
+    /**
+     * Frames to wait between each change in the drawn frame.
+     */
+    public final int framesPerUpdate;
+
+    /**
+     * Whether this animation stops playing at the end.
+     */
+    public final boolean oneShot;
+
+    /**
+     * Paths of every frame's texture, in order.
+     */
+    public final String[] textures;
+
+    /**
+     * Create a state description.
+     * 
+     * @param condition The state condition.
+     * @param framesPerUpdate Frames per update.
+     * @param oneShot Whether it's a one shot animation.
+     * @param textures Frame texture paths.
+     */
+    public StateInfo(String condition, int framesPerUpdate, boolean oneShot, String[] textures) {
+        this.condition = condition;
+        this.framesPerUpdate = framesPerUpdate;
+        this.oneShot = oneShot;
+        this.textures = textures;
+    }
+
+    /**
+     * Extract the state description from a parsed state.
+     * 
+     * @param s The parsed state.
+     */
+    StateInfo(State s) {
+        this(s.getCondition(), findFPUVal(s.getValueCase()), 
+             determineOneShot(s.getValueCase()), findTextures(s.getValueCase()));
+    }
+
+    /**
+     * Get the Frames Per Update value required for proper state update
+     * and drawing.
+     * 
+     * @param d The directive to parse.
+     * @return The identified Frames per Update.
+     */
+    private static int findFPUVal(Directive d) {
+        FramesPerUpdate fpu = null;
+
+        for (Directive cd : d.getChildren()) {
+            if (cd instanceof FramesPerUpdate) {
+                fpu = (FramesPerUpdate)cd;
+                break;
+            }
+        }
+
+        if (fpu == null) { 
+            throw new IllegalStateException("Found no @FRAMES_PER_UPDATE value to parse in provided case!"); 
+        }
+        
+        return Integer.parseInt(fpu.getArgs().get(0).data);
+    }
+
+    /**
+     * Determine whether the state is a one shot animation.
+     * 
+     * @param d The directive to parse.
+     * @return Whether the animation plays once.
+     */
+    private static boolean determineOneShot(Directive d) {
+        OneShot oneShot = null;
+
+        for (Directive cd : d.getChildren()) {
+            if (cd instanceof OneShot) {
+                oneShot = (OneShot)cd;
+                break;
+            }
+        }
+
+        // Debugging info is terrible throughout this entire parser, so the user will have to guess.
+        if (oneShot == null) { 
+            Logger.log("anim", "found no @ONE_SHOT in current case. assuming looping animation.");
+            return false;
+        }
+        
+        return Boolean.parseBoolean(oneShot.getArgs().get(0).data);
+    }
+
+    /**
+     * Find every texture path used by the state.
+     * 
+     * @param d The directive to parse.
+     * @return The texture paths.
+     */
+    private static String[] findTextures(Directive d) {
+        ArrayList<String> paths = new ArrayList<String>();
+
+        for (Directive cd : d.getChildren()) {
+            if (cd instanceof UseTex)
+                paths.add(cd.getArgs().get(0).data);
+        }
+
+        return paths.toArray(new String[0]);
+    }
+}
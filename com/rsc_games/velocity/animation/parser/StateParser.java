@@ -39,7 +39,15 @@ public class StateParser {
      * @param path Animator path.
      */
     public StateParser(String path) {
-        AFTokenizer t = new AFTokenizer(path);
+        this(new AFLexer(path));
+    }
+
+    /**
+     * Parse from any token source.
+     * 
+     * @param t The lexer.
+     */
+    StateParser(TokenSource t) {
         AFParserCST cst = new AFParserCST(t);
         this.ast = new AFParserAST(cst);
     }
@@ -83,6 +91,20 @@ public class StateParser {
         return states;
     }
 
+    /**
+     * Get the possible states, detached from the parse tree.
+     * 
+     * @return The state descriptions.
+     */
+    public ArrayList<StateInfo> getStateInfo() {
+        ArrayList<StateInfo> out = new ArrayList<StateInfo>(states.size());
+
+        for (State s : states)
+            out.add(new StateInfo(s));
+
+        return out;
+    }
+
     /**
      * Find all of the parameters from a tree.
      * 
@@ -0,0 +1,20 @@
+package com.rsc_games.velocity.animation.parser;
+
+/**
+ * Anything that can feed lexer tokens into the CST parser.
+ */
+interface TokenSource {
+    /**
+     * Is more text available in the source?
+     * 
+     * @return Whether EOF has been reached or not.
+     */
+    public boolean available();
+
+    /**
+     * Generate the next token.
+     * 
+     * @return The next token, or null if the source is exhausted.
+     */
+    public Token getNextToken();
+}
@@ -0,0 +1,47 @@
+package com.rsc_games.velocity.audio;
+
+/**
+ * Distance attenuation model for positional sounds. Positional voices are attenuated based
+ * on the distance between their source {@code Transform} and the scene camera.
+ */
+@FunctionalInterface
+public interface AudioAttenuation {
+    /**
+     * Attenuation used when none is set: full volume up to 200 pixels, silent past 1200.
+     */
+    public static final AudioAttenuation DEFAULT = linear(200, 1200);
+
+    /**
+     * Calculate the gain of a sound at a given distance from the listener.
+     *
+     * @param distance Distance from the camera (in pixels).
+     * @return Gain multiplier (0 to 1).
+     */
+    public float attenuate(float distance);
+
+    /**
+     * Linear falloff between two distances.
+     *
+     * @param minDist Distance at which attenuation starts.
+     * @param maxDist Distance at which the sound is silent.
+     * @return The attenuation model.
+     */
+    public static AudioAttenuation linear(float minDist, float maxDist) {
+        return (d) -> {
+            if (d <= minDist) return 1f;
+            if (d >= maxDist) return 0f;
+            return 1f - (d - minDist) / (maxDist - minDist);
+        };
+    }
+
+    /**
+     * Inverse distance falloff (1 / distance), clamped to full volume within a reference
+     * distance.
+     *
+     * @param refDist Distance at which the sound is at full volume.
+     * @return The attenuation model.
+     */
+    public static AudioAttenuation inverse(float refDist) {
+        return (d) -> (d <= refDist) ? 1f : refDist / d;
+    }
+}
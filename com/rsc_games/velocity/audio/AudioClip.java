@@ -1,24 +1,32 @@
 package com.rsc_games.velocity.audio;
 
-import javax.sound.sampled.Clip;
-//import javax.sound.sampled.TargetDataLine;
-import javax.sound.sampled.AudioSystem;
-//import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.DataLine;
-
-import com.rsc_games.velocity.system.ResourceLoader;
-import com.rsc_games.velocity.util.Logger;
+import com.rsc_games.velocity.util.Transform;
 
 /**
  * Velocity AudioClip representation. Stores a deduplicated audioclip in memory. Useful for
- * fast playback of small audio files (for like SFX or something.)
+ * fast playback of small audio files (for like SFX or something.) Clips are played through
+ * the engine's {@code AudioMixer}, so the same clip can overlap itself freely.
  */
 public class AudioClip {
     /**
-     * The internal clip.
+     * The shared sample data.
      */
-    private Clip clip;  // Targetdataline for streamed.
+    private AudioSample sample;
+
+    /**
+     * Gain, pan and pitch applied to new plays of this clip.
+     */
+    private float gain = 1f, pan = 0f, pitch = 1f;
+
+    /**
+     * Whether this clip loops.
+     */
+    private boolean loop = false;
+
+    /**
+     * Handle of the most recently started voice.
+     */
+    private int lastVoice = -1;
 
     /**
      * Create an audio clip for playback.
@@ -26,10 +34,7 @@ public class AudioClip {
      * @param path The audio file path.
      */
     public AudioClip(String path) {
-        /* TODO: BUG: Multiple instance of audio files are currently loaded into memory for the
-         * same clip. This wastes a TON of memory! 
-         */
-        this.clip = (Clip) getLine0(path);
+        this.sample = AudioSample.load(path);
     }
 
     /**
@@ -41,64 +46,89 @@ public class AudioClip {
     @Deprecated(since="v0.5.2.4", forRemoval=true)
     public AudioClip(String path, boolean loop) {
         this(path);
-        if (loop) this.clip.loop(Clip.LOOP_CONTINUOUSLY);
+        this.loop = loop;
+        if (loop) play();
+    }
+
+    /**
+     * Start playing the audio clip.
+     */
+    public void play() {
+        checkRemoved();
+        this.lastVoice = AudioMixer.getMixer().play(sample, null, gain, pan, pitch, loop, this);
     }
 
     /**
-     * Open the audio clip data line for playback.
+     * Play the audio clip from a position in the world. The sound is attenuated and panned
+     * based on the source's distance from the camera (and follows the source as it moves).
      * 
-     * @param path Audio clip path.
-     * @return The audio clip.
+     * @param source The sound source.
      */
-    private Clip getLine0(String path) {
-        ResourceLoader ldr = ResourceLoader.getAppLoader();
-
-        try {
-            // Get stream info.
-            AudioInputStream soundStream = AudioSystem.getAudioInputStream(ldr.load(path));
-            DataLine.Info sndInfo = new DataLine.Info(Clip.class, soundStream.getFormat());
-            
-            // Start the stream.
-            Clip line = (Clip) AudioSystem.getLine(sndInfo);
-            line.open(soundStream);
-            return line;
-        }
-        catch (Exception ie) {
-            throw new RuntimeException(ie);
-        }
+    public void play(Transform source) {
+        checkRemoved();
+        this.lastVoice = AudioMixer.getMixer().play(sample, source, gain, pan, pitch, loop, this);
     }
 
     /**
-     * Start playing the audio clip.
+     * Set the gain of this clip. Also applies to the most recently started play.
+     * 
+     * @param gain Linear gain (1 is unchanged).
      */
-    public void play() {
-        this.clip.setFramePosition(0);
-        this.clip.start();
+    public void setGain(float gain) {
+        this.gain = gain;
+        AudioMixer.getMixer().setGain(lastVoice, gain);
+    }
+
+    /**
+     * Set the stereo pan of this clip. Also applies to the most recently started play.
+     * 
+     * @param pan Stereo pan (-1 is left, 0 is centered, 1 is right).
+     */
+    public void setPan(float pan) {
+        this.pan = pan;
+        AudioMixer.getMixer().setPan(lastVoice, pan);
+    }
+
+    /**
+     * Set the pitch of this clip. Also applies to the most recently started play.
+     * 
+     * @param pitch Playback rate (1 is unchanged, 2 is an octave up).
+     */
+    public void setPitch(float pitch) {
+        this.pitch = pitch;
+        AudioMixer.getMixer().setPitch(lastVoice, pitch);
+    }
+
+    /**
+     * Identify whether any play of this clip is still running.
+     * 
+     * @return Whether the most recent play is still running.
+     */
+    public boolean isPlaying() {
+        return AudioMixer.getMixer().isPlaying(lastVoice);
     }
 
     /**
      * Stop playing the audio clip.
      */
     public void stop() {
-        this.clip.stop();
+        AudioMixer.getMixer().stopOwner(this);
     }
 
     /**
      * Delete this audioclip from memory.
      */
     public void remove() {
-        this.clip.stop();
-        this.clip.close();
+        stop();
+        this.sample = null;
     }
 
     /**
-     * Track audio clip deletion.
+     * Ensure this clip hasn't been removed.
      */
-    // TODO: Improve audio clip deallocation and playback.
-    @SuppressWarnings("deprecated")
-    protected void finalize() throws Throwable {
-        super.finalize();
-        Logger.log("velocity.audio", "AudioClip deallocated, freeing memory.");
+    private void checkRemoved() {
+        if (this.sample == null)
+            throw new IllegalStateException("AudioClip used after remove()!");
     }
 }   
  
\ No newline at end of file
@@ -0,0 +1,595 @@
+package com.rsc_games.velocity.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+import com.rsc_games.velocity.Scene;
+import com.rsc_games.velocity.sprite.Camera;
+import com.rsc_games.velocity.util.Logger;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * Velocity's software audio mixer. Instead of every clip holding its own device line,
+ * all sounds are summed into a single output line by one mixing thread. This removes the
+ * limit on simultaneous sounds imposed by the sound device and the per-line start latency.
+ *
+ * Every voice supports gain, pan and pitch. Voices can also be attached to a
+ * {@code Transform}, in which case they are attenuated and panned based on their position
+ * relative to the scene camera.
+ *
+ * The mixing itself ({@code mix()}) never allocates and does not need a sound device, so a
+ * mixer created with {@code new AudioMixer()} can be driven offline and its output compared
+ * against reference buffers.
+ */
+public class AudioMixer {
+    /**
+     * Output sample rate (in Hz).
+     */
+    public static final int SAMPLE_RATE = 44100;
+
+    /**
+     * Output PCM format (16 bit signed little endian stereo).
+     */
+    public static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+
+    /**
+     * Frames mixed per block. Roughly 11.6ms at 44.1kHz.
+     */
+    public static final int BLOCK_FRAMES = 512;
+
+    /**
+     * Maximum amount of simultaneously playing voices.
+     */
+    public static final int MAX_VOICES = 32;
+
+    /**
+     * Maximum amount of attached music streams.
+     */
+    public static final int MAX_STREAMS = 4;
+
+    /**
+     * The engine's mixer (created on first use).
+     */
+    private static AudioMixer mixer;
+
+    /**
+     * Voice slots.
+     */
+    private final MixerVoice[] voices = new MixerVoice[MAX_VOICES];
+
+    /**
+     * Attached music streams.
+     */
+    private final MusicStream[] streams = new MusicStream[MAX_STREAMS];
+
+    /**
+     * Scratch buffer for pulling music stream data.
+     */
+    private final byte[] streamBuf = new byte[BLOCK_FRAMES * 4];
+
+    /**
+     * Scratch point for the listener position (guarded by the mixer lock).
+     */
+    private final Point listener = new Point(0, 0);
+
+    /**
+     * Distance attenuation model for positional voices.
+     */
+    private AudioAttenuation attenuation = AudioAttenuation.DEFAULT;
+
+    /**
+     * Master output gain.
+     */
+    private volatile float masterGain = 1f;
+
+    /**
+     * Sounds dropped because every voice was busy.
+     */
+    private volatile long droppedVoices = 0;
+
+    /**
+     * Whether the output thread should keep running.
+     */
+    private volatile boolean running = false;
+
+    /**
+     * Create a mixer without an output. Use {@code start()} to attach one, or call
+     * {@code mix()} directly to render audio offline.
+     */
+    public AudioMixer() {
+        for (int i = 0; i < MAX_VOICES; i++)
+            voices[i] = new MixerVoice();
+    }
+
+    /**
+     * Get the engine mixer. The output line and mixing thread are started on first use.
+     *
+     * @return The engine mixer.
+     */
+    public static synchronized AudioMixer getMixer() {
+        if (mixer == null) {
+            mixer = new AudioMixer();
+            mixer.start(new LineAudioSink(FORMAT, BLOCK_FRAMES * 4 * 4));
+            Logger.log("velocity.audio", "Started software mixer (" + MAX_VOICES + " voices, "
+                       + SAMPLE_RATE + "Hz)");
+        }
+        return mixer;
+    }
+
+    /**
+     * Start a mixing thread that feeds the provided sink.
+     *
+     * @param sink The output sink (accepts data in {@code FORMAT}).
+     */
+    public void start(AudioSink sink) {
+        if (running)
+            throw new IllegalStateException("Mixer is already running!");
+
+        running = true;
+        Thread t = new Thread(() -> outputLoop(sink), "velocity.audio.mixer");
+        t.setDaemon(true);
+        t.setPriority(Thread.MAX_PRIORITY);
+        t.start();
+    }
+
+    /**
+     * Stop the mixing thread. The sink is closed once the thread exits.
+     */
+    public void shutdown() {
+        running = false;
+    }
+
+    /**
+     * Mixing thread body. The sink blocks when its buffer is full, which paces the loop.
+     *
+     * @param sink The output sink.
+     */
+    private void outputLoop(AudioSink sink) {
+        float[] mixBuf = new float[BLOCK_FRAMES * 2];
+        byte[] outBuf = new byte[BLOCK_FRAMES * 4];
+
+        while (running) {
+            mix(mixBuf, BLOCK_FRAMES);
+            toPCM16(mixBuf, outBuf, BLOCK_FRAMES * 2);
+            sink.write(outBuf, 0, outBuf.length);
+        }
+
+        sink.close();
+    }
+
+    /**
+     * Start playing a sample.
+     *
+     * @param sample The sample.
+     * @param gain Linear gain (1 is unchanged).
+     * @param pan Stereo pan (-1 is left, 0 is centered, 1 is right).
+     * @param pitch Playback rate (1 is unchanged, 2 is an octave up).
+     * @param loop Whether the sample loops.
+     * @return A voice handle, or -1 if every voice is busy.
+     */
+    public int play(AudioSample sample, float gain, float pan, float pitch, boolean loop) {
+        return play(sample, null, gain, pan, pitch, loop, null);
+    }
+
+    /**
+     * Start playing a sample at a position in the world. The voice is attenuated and panned
+     * based on its distance from the scene camera.
+     *
+     * @param sample The sample.
+     * @param source The sound source position (tracked while the voice plays).
+     * @param gain Linear gain (1 is unchanged).
+     * @param loop Whether the sample loops.
+     * @return A voice handle, or -1 if every voice is busy.
+     */
+    public int play(AudioSample sample, Transform source, float gain, boolean loop) {
+        return play(sample, source, gain, 0f, 1f, loop, null);
+    }
+
+    /**
+     * Start playing a sample.
+     *
+     * @param sample The sample.
+     * @param source The sound source position, or null for a non-positional voice.
+     * @param gain Linear gain.
+     * @param pan Stereo pan.
+     * @param pitch Playback rate.
+     * @param loop Whether the sample loops.
+     * @param owner The object that owns this voice (may be null).
+     * @return A voice handle, or -1 if every voice is busy.
+     */
+    synchronized int play(AudioSample sample, Transform source, float gain, float pan,
+                          float pitch, boolean loop, Object owner) {
+        for (int i = 0; i < MAX_VOICES; i++) {
+            MixerVoice v = voices[i];
+            if (v.active) continue;
+
+            // 23 bits, so handles (generation above the 8 bit slot) never go negative.
+            v.generation = (v.generation + 1) & 0x7fffff;
+            v.sample = sample;
+            v.owner = owner;
+            v.source = source;
+            v.loop = loop;
+            v.pos = 0;
+            v.gain = gain;
+            v.pan = pan;
+            v.pitch = pitch;
+            v.step = pitch * sample.sampleRate / SAMPLE_RATE;
+            v.posGain = 1f;
+            v.posPan = 0f;
+
+            if (source != null)
+                updatePositional(v, listenerPos());
+
+            v.updateTargets();
+            v.curL = v.targetL;
+            v.curR = v.targetR;
+            v.active = true;
+            return (v.generation << 8) | i;
+        }
+
+        droppedVoices++;
+        return -1;
+    }
+
+    /**
+     * Look up a voice from a handle.
+     *
+     * @param handle The voice handle.
+     * @return The voice, or null if the handle is stale.
+     */
+    private MixerVoice voice(int handle) {
+        if (handle < 0) return null;
+
+        MixerVoice v = voices[handle & 0xff];
+        return (v.active && v.generation == (handle >>> 8)) ? v : null;
+    }
+
+    /**
+     * Stop a voice.
+     *
+     * @param handle The voice handle.
+     */
+    public synchronized void stop(int handle) {
+        MixerVoice v = voice(handle);
+        if (v != null) release(v);
+    }
+
+    /**
+     * Stop every voice started by an owner.
+     *
+     * @param owner The owner.
+     */
+    synchronized void stopOwner(Object owner) {
+        for (MixerVoice v : voices) {
+            if (v.active && v.owner == owner)
+                release(v);
+        }
+    }
+
+    /**
+     * Stop every voice.
+     */
+    public synchronized void stopAll() {
+        for (MixerVoice v : voices) {
+            if (v.active) release(v);
+        }
+    }
+
+    /**
+     * Free a voice slot.
+     *
+     * @param v The voice.
+     */
+    private void release(MixerVoice v) {
+        v.active = false;
+        v.sample = null;
+        v.owner = null;
+        v.source = null;
+    }
+
+    /**
+     * Identify whether a voice is still playing.
+     *
+     * @param handle The voice handle.
+     * @return Whether it is playing.
+     */
+    public synchronized boolean isPlaying(int handle) {
+        return voice(handle) != null;
+    }
+
+    /**
+     * Set a voice's gain.
+     *
+     * @param handle The voice handle.
+     * @param gain Linear gain.
+     */
+    public synchronized void setGain(int handle, float gain) {
+        MixerVoice v = voice(handle);
+        if (v == null) return;
+
+        v.gain = gain;
+        v.updateTargets();
+    }
+
+    /**
+     * Set a voice's pan.
+     *
+     * @param handle The voice handle.
+     * @param pan Stereo pan (-1 to 1).
+     */
+    public synchronized void setPan(int handle, float pan) {
+        MixerVoice v = voice(handle);
+        if (v == null) return;
+
+        v.pan = pan;
+        v.updateTargets();
+    }
+
+    /**
+     * Set a voice's pitch.
+     *
+     * @param handle The voice handle.
+     * @param pitch Playback rate.
+     */
+    public synchronized void setPitch(int handle, float pitch) {
+        MixerVoice v = voice(handle);
+        if (v == null) return;
+
+        v.pitch = pitch;
+        v.step = pitch * v.sample.sampleRate / SAMPLE_RATE;
+    }
+
+    /**
+     * Set the master output gain.
+     *
+     * @param gain Linear gain.
+     */
+    public void setMasterGain(float gain) {
+        this.masterGain = gain;
+    }
+
+    /**
+     * Replace the distance attenuation model used for positional voices.
+     *
+     * @param attenuation The new model.
+     */
+    public synchronized void setAttenuation(AudioAttenuation attenuation) {
+        this.attenuation = attenuation;
+    }
+
+    /**
+     * Get how many sounds were dropped because all voices were in use.
+     *
+     * @return Dropped sound count.
+     */
+    public long getDroppedVoiceCount() {
+        return this.droppedVoices;
+    }
+
+    /**
+     * Get how many voices are currently playing.
+     *
+     * @return Active voice count.
+     */
+    public synchronized int getActiveVoiceCount() {
+        int n = 0;
+        for (MixerVoice v : voices)
+            if (v.active) n++;
+        return n;
+    }
+
+    /**
+     * Attach a music stream. Its output is summed into the mix.
+     *
+     * @param stream The stream (must output {@code FORMAT}).
+     */
+    public synchronized void addStream(MusicStream stream) {
+        if (!stream.getFormat().matches(FORMAT))
+            throw new IllegalArgumentException("Music stream format " + stream.getFormat()
+                                               + " does not match the mixer format " + FORMAT);
+
+        for (int i = 0; i < MAX_STREAMS; i++) {
+            if (streams[i] == null) {
+                streams[i] = stream;
+                return;
+            }
+        }
+        throw new IllegalStateException("Too many music streams attached (max " + MAX_STREAMS + ")");
+    }
+
+    /**
+     * Detach a music stream.
+     *
+     * @param stream The stream.
+     */
+    public synchronized void removeStream(MusicStream stream) {
+        for (int i = 0; i < MAX_STREAMS; i++) {
+            if (streams[i] == stream)
+                streams[i] = null;
+        }
+    }
+
+    /**
+     * Update the attenuation and pan of every positional voice from the current camera
+     * position. Called by the engine once per tick.
+     */
+    public static void INTERNAL_updatePositional() {
+        AudioMixer m = mixer;
+        if (m == null) return;
+
+        synchronized (m) {
+            Point listener = m.listenerPos();
+
+            for (MixerVoice v : m.voices) {
+                if (v.active && v.source != null) {
+                    m.updatePositional(v, listener);
+                    v.updateTargets();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the listener (camera) position.
+     *
+     * @return The camera position (reused between calls), or null if there is no scene.
+     */
+    private Point listenerPos() {
+        Scene s = Scene.currentScene;
+        if (s == null || s.getCamera() == null) return null;
+
+        return s.getCamera().transform.location.getPos(listener);
+    }
+
+    /**
+     * Recalculate a positional voice's attenuation and pan.
+     *
+     * @param v The voice.
+     * @param listener The listener position (may be null).
+     */
+    private void updatePositional(MixerVoice v, Point listener) {
+        if (listener == null) {
+            v.posGain = 1f;
+            v.posPan = 0f;
+            return;
+        }
+
+        Point p = v.source.location.getPos();
+        float dx = p.x - listener.x;
+        float dy = p.y - listener.y;
+
+        v.posGain = attenuation.attenuate((float)Math.sqrt(dx * dx + dy * dy));
+        v.posPan = dx / Math.max(1f, Camera.res.x / 2f);
+    }
+
+    /**
+     * Mix the next block of audio. The output is overwritten (not added to). Does not
+     * allocate.
+     *
+     * @param out Interleaved stereo output, at least {@code frames * 2} long.
+     * @param frames Frames to mix.
+     */
+    public synchronized void mix(float[] out, int frames) {
+        int samples = frames * 2;
+
+        for (int i = 0; i < samples; i++)
+            out[i] = 0f;
+
+        for (MixerVoice v : voices) {
+            if (v.active)
+                mixVoice(v, out, frames);
+        }
+
+        mixStreams(out, frames);
+
+        float mg = this.masterGain;
+        if (mg != 1f) {
+            for (int i = 0; i < samples; i++)
+                out[i] *= mg;
+        }
+    }
+
+    /**
+     * Add one voice into the mix. Resamples with linear interpolation and ramps the
+     * channel gains across the block to avoid clicks when they change.
+     *
+     * @param v The voice.
+     * @param out The mix buffer.
+     * @param frames Frames to mix.
+     */
+    private void mixVoice(MixerVoice v, float[] out, int frames) {
+        float[] d = v.sample.data;
+        int len = v.sample.frames;
+        boolean stereo = v.sample.channels == 2;
+
+        // Nothing to play (and looping would wrap with pos % 0).
+        if (len == 0) {
+            release(v);
+            return;
+        }
+
+        double pos = v.pos;
+        double step = v.step;
+        float gl = v.curL, gr = v.curR;
+        float dl = (v.targetL - gl) / frames;
+        float dr = (v.targetR - gr) / frames;
+
+        for (int f = 0; f < frames; f++) {
+            if (pos >= len) {
+                if (!v.loop) {
+                    release(v);
+                    return;
+                }
+                pos %= len;
+            }
+
+            int i = (int)pos;
+            int j = i + 1;
+            if (j >= len) j = v.loop ? 0 : i;
+            float frac = (float)(pos - i);
+
+            float sl, sr;
+            if (stereo) {
+                sl = d[i * 2] + (d[j * 2] - d[i * 2]) * frac;
+                sr = d[i * 2 + 1] + (d[j * 2 + 1] - d[i * 2 + 1]) * frac;
+            }
+            else {
+                sl = sr = d[i] + (d[j] - d[i]) * frac;
+            }
+
+            gl += dl;
+            gr += dr;
+            out[f * 2] += sl * gl;
+            out[f * 2 + 1] += sr * gr;
+            pos += step;
+        }
+
+        v.pos = pos;
+        v.curL = v.targetL;
+        v.curR = v.targetR;
+    }
+
+    /**
+     * Add the attached music streams into the mix.
+     *
+     * @param out The mix buffer.
+     * @param frames Frames to mix.
+     */
+    private void mixStreams(float[] out, int frames) {
+        for (MusicStream s : streams) {
+            if (s == null) continue;
+
+            int done = 0;
+            while (done < frames) {
+                int n = Math.min(frames - done, BLOCK_FRAMES);
+                s.mixInto(streamBuf, 0, n * 4);
+
+                for (int i = 0; i < n * 2; i++) {
+                    int b = i * 2;
+                    out[(done * 2) + i] += (short)((streamBuf[b] & 0xff) | (streamBuf[b + 1] << 8)) / 32768f;
+                }
+                done += n;
+            }
+        }
+    }
+
+    /**
+     * Convert floating point samples to 16 bit signed little endian PCM, clipping anything
+     * out of range.
+     *
+     * @param in Float samples.
+     * @param out Output bytes (at least {@code samples * 2} long).
+     * @param samples Sample count.
+     */
+    public static void toPCM16(float[] in, byte[] out, int samples) {
+        for (int i = 0; i < samples; i++) {
+            float f = in[i];
+            if (f > 1f) f = 1f;
+            else if (f < -1f) f = -1f;
+
+            int s = (int)(f * 32767f);
+            out[i * 2] = (byte)s;
+            out[i * 2 + 1] = (byte)(s >> 8);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.rsc_games.velocity.audio;
+
+/**
+ * Bounded single-producer/single-consumer byte ring used between an audio decoder
+ * thread and the thread mixing the output. Writes block while the ring is full; reads
+ * never block and only return whole frames.
+ */
+class AudioRingBuffer {
+    /**
+     * Backing storage.
+     */
+    private final byte[] data;
+
+    /**
+     * Next byte to read.
+     */
+    private int readPos = 0;
+
+    /**
+     * Bytes currently stored.
+     */
+    private int count = 0;
+
+    /**
+     * Set once the ring is closed. Blocked writers are released.
+     */
+    private boolean closed = false;
+
+    /**
+     * Create a ring buffer.
+     *
+     * @param capacity Capacity in bytes. Should be a multiple of the frame size.
+     */
+    public AudioRingBuffer(int capacity) {
+        this.data = new byte[capacity];
+    }
+
+    /**
+     * Write data into the ring, blocking until everything has been written or the
+     * ring has been closed.
+     *
+     * @param src Source data.
+     * @param off Source offset.
+     * @param len Amount of bytes to write.
+     * @return Whether all of the data was written (false if the ring was closed).
+     */
+    public synchronized boolean write(byte[] src, int off, int len) {
+        while (len > 0) {
+            while (count == data.length && !closed)
+                waitSafe();
+
+            if (closed)
+                return false;
+
+            int writePos = (readPos + count) % data.length;
+            int n = Math.min(len, Math.min(data.length - count, data.length - writePos));
+            System.arraycopy(src, off, data, writePos, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+
+        return true;
+    }
+
+    /**
+     * Read up to {@code len} bytes out of the ring without blocking. Only whole frames
+     * are returned.
+     *
+     * @param dst Destination array.
+     * @param off Destination offset.
+     * @param len Maximum bytes to read.
+     * @param frameSize Audio frame size in bytes.
+     * @return Bytes actually read.
+     */
+    public synchronized int read(byte[] dst, int off, int len, int frameSize) {
+        int n = Math.min(len, count);
+        n -= n % frameSize;
+
+        int first = Math.min(n, data.length - readPos);
+        System.arraycopy(data, readPos, dst, off, first);
+        System.arraycopy(data, 0, dst, off + first, n - first);
+
+        readPos = (readPos + n) % data.length;
+        count -= n;
+
+        if (n > 0)
+            notifyAll();
+        return n;
+    }
+
+    /**
+     * Get how many bytes are buffered.
+     *
+     * @return Buffered byte count.
+     */
+    public synchronized int available() {
+        return count;
+    }
+
+    /**
+     * Drop all buffered data.
+     */
+    public synchronized void clear() {
+        readPos = 0;
+        count = 0;
+        notifyAll();
+    }
+
+    /**
+     * Close the ring and release any blocked writer.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Wait on this ring's monitor, ignoring interrupts.
+     */
+    private void waitSafe() {
+        try {
+            wait();
+        }
+        catch (InterruptedException ie) {}
+    }
+}
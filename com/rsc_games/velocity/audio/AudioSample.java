@@ -0,0 +1,166 @@
+package com.rsc_games.velocity.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import com.rsc_games.velocity.system.ResourceLoader;
+
+/**
+ * Fully decoded audio data, ready to be played by the {@code AudioMixer}. Samples loaded
+ * from a file are deduplicated, so every {@code AudioClip} pointing at the same file shares
+ * one copy of the data.
+ */
+public class AudioSample {
+    /**
+     * Loaded samples by path. Weakly held so unused samples can be collected.
+     */
+    private static HashMap<String, CacheRef> cache = new HashMap<>();
+
+    /**
+     * Cache references whose sample was collected (their entries are dropped on the
+     * next load).
+     */
+    private static final ReferenceQueue<AudioSample> collected = new ReferenceQueue<AudioSample>();
+
+    /**
+     * A cache entry (remembers its path so it can be removed once collected).
+     */
+    private static class CacheRef extends WeakReference<AudioSample> {
+        final String path;
+
+        CacheRef(String path, AudioSample s) {
+            super(s, collected);
+            this.path = path;
+        }
+    }
+
+    /**
+     * Interleaved sample data in the range [-1, 1].
+     */
+    final float[] data;
+
+    /**
+     * Channel count (1 or 2).
+     */
+    final int channels;
+
+    /**
+     * Length in frames.
+     */
+    final int frames;
+
+    /**
+     * Sample rate of the data (in Hz).
+     */
+    final float sampleRate;
+
+    /**
+     * Wrap already decoded sample data. Mostly useful for generated audio and for
+     * checking the mixer output against known buffers.
+     *
+     * @param data Interleaved sample data in the range [-1, 1].
+     * @param channels Channel count (1 or 2).
+     * @param sampleRate Sample rate (in Hz).
+     */
+    public AudioSample(float[] data, int channels, float sampleRate) {
+        if (channels != 1 && channels != 2)
+            throw new IllegalArgumentException("Only mono and stereo samples are supported (got "
+                                               + channels + " channels)");
+
+        this.data = data;
+        this.channels = channels;
+        this.frames = data.length / channels;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Load (or reuse) the sample stored at the provided path.
+     *
+     * @param path The audio file path.
+     * @return The decoded sample.
+     */
+    public static synchronized AudioSample load(String path) {
+        // Drop entries of collected samples (only if they weren't replaced since).
+        CacheRef dead;
+        while ((dead = (CacheRef)collected.poll()) != null)
+            cache.remove(dead.path, dead);
+
+        CacheRef ref = cache.get(path);
+        AudioSample s = (ref != null) ? ref.get() : null;
+
+        if (s == null) {
+            s = decode(path);
+            cache.put(path, new CacheRef(path, s));
+        }
+        return s;
+    }
+
+    /**
+     * Decode an audio file into floating point samples.
+     *
+     * @param path The audio file path.
+     * @return The decoded sample.
+     */
+    private static AudioSample decode(String path) {
+        ResourceLoader ldr = ResourceLoader.getAppLoader();
+
+        try (AudioInputStream src = AudioSystem.getAudioInputStream(ldr.load(path))) {
+            AudioFormat sf = src.getFormat();
+            AudioFormat pcm = new AudioFormat(sf.getSampleRate(), 16, sf.getChannels(), true, false);
+            AudioInputStream in = sf.matches(pcm) ? src : AudioSystem.getAudioInputStream(pcm, src);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int n;
+
+            while ((n = in.read(chunk)) != -1)
+                bytes.write(chunk, 0, n);
+
+            byte[] raw = bytes.toByteArray();
+            float[] data = new float[raw.length / 2];
+
+            for (int i = 0; i < data.length; i++)
+                data[i] = (short)((raw[i * 2] & 0xff) | (raw[i * 2 + 1] << 8)) / 32768f;
+
+            return new AudioSample(data, pcm.getChannels(), pcm.getSampleRate());
+        }
+        catch (IOException | UnsupportedAudioFileException ie) {
+            throw new RuntimeException("Unable to load audio file " + path, ie);
+        }
+    }
+
+    /**
+     * Get the sample length.
+     *
+     * @return Length in frames.
+     */
+    public int getFrameCount() {
+        return this.frames;
+    }
+
+    /**
+     * Get the channel count.
+     *
+     * @return 1 for mono, 2 for stereo.
+     */
+    public int getChannels() {
+        return this.channels;
+    }
+
+    /**
+     * Get the sample rate.
+     *
+     * @return Sample rate (in Hz).
+     */
+    public float getSampleRate() {
+        return this.sampleRate;
+    }
+}
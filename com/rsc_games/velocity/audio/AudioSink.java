@@ -0,0 +1,23 @@
+package com.rsc_games.velocity.audio;
+
+/**
+ * Destination for mixed PCM audio. Normally a sound device line, but anything that
+ * accepts raw bytes (like a file or an in-memory buffer) works, which allows the audio
+ * code to be exercised without a sound card.
+ */
+public interface AudioSink {
+    /**
+     * Write mixed PCM data to this sink. May block until the sink can accept
+     * more data (a device line will block once its hardware buffer is full).
+     *
+     * @param data The PCM bytes to write.
+     * @param off Offset into the data.
+     * @param len Amount of bytes to write.
+     */
+    public void write(byte[] data, int off, int len);
+
+    /**
+     * Release any resources this sink holds.
+     */
+    public void close();
+}
@@ -0,0 +1,56 @@
+package com.rsc_games.velocity.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Audio sink backed by a {@code SourceDataLine} on the default sound device.
+ */
+public class LineAudioSink implements AudioSink {
+    /**
+     * The device line.
+     */
+    private SourceDataLine line;
+
+    /**
+     * Open a device line for playback.
+     *
+     * @param format The PCM format that will be written.
+     * @param bufferBytes Requested hardware buffer size (in bytes).
+     */
+    public LineAudioSink(AudioFormat format, int bufferBytes) {
+        try {
+            DataLine.Info info = new DataLine.Info(SourceDataLine.class, format, bufferBytes);
+            this.line = (SourceDataLine) AudioSystem.getLine(info);
+            this.line.open(format, bufferBytes);
+            this.line.start();
+        }
+        catch (LineUnavailableException ie) {
+            throw new RuntimeException(ie);
+        }
+    }
+
+    /**
+     * Write data to the device. Blocks once the device buffer is full.
+     *
+     * @param data The PCM bytes to write.
+     * @param off Offset into the data.
+     * @param len Amount of bytes to write.
+     */
+    @Override
+    public void write(byte[] data, int off, int len) {
+        this.line.write(data, off, len);
+    }
+
+    /**
+     * Close the device line.
+     */
+    @Override
+    public void close() {
+        this.line.stop();
+        this.line.close();
+    }
+}
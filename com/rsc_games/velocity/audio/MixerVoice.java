@@ -0,0 +1,82 @@
+package com.rsc_games.velocity.audio;
+
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * A single playback slot in the {@code AudioMixer}. Voices are preallocated and reused, so
+ * starting a sound never allocates.
+ */
+class MixerVoice {
+    /**
+     * The sample being played. Null when the voice is free.
+     */
+    AudioSample sample;
+
+    /**
+     * Object that started this voice (usually an {@code AudioClip}). Used to stop every
+     * voice belonging to a clip.
+     */
+    Object owner;
+
+    /**
+     * Bumped every time the voice is reused so stale handles are ignored.
+     */
+    int generation = 0;
+
+    /**
+     * Whether the voice is currently playing.
+     */
+    boolean active = false;
+
+    /**
+     * Whether the sample restarts when it ends.
+     */
+    boolean loop = false;
+
+    /**
+     * Read position (in source frames).
+     */
+    double pos = 0;
+
+    /**
+     * Read position increment per output frame (pitch and sample rate adjusted).
+     */
+    double step = 1;
+
+    /**
+     * User gain, pan and pitch.
+     */
+    float gain = 1f, pan = 0f, pitch = 1f;
+
+    /**
+     * Source position for positional voices (null for non-positional voices).
+     */
+    Transform source;
+
+    /**
+     * Gain and pan offset derived from the source position.
+     */
+    float posGain = 1f, posPan = 0f;
+
+    /**
+     * Channel gains the mixer is ramping towards.
+     */
+    float targetL = 1f, targetR = 1f;
+
+    /**
+     * Channel gains applied at the end of the last mixed block.
+     */
+    float curL = 1f, curR = 1f;
+
+    /**
+     * Recalculate the channel gains from the gain and pan values.
+     */
+    void updateTargets() {
+        float p = Math.max(-1f, Math.min(1f, this.pan + this.posPan));
+        float g = this.gain * this.posGain;
+
+        // Balance law: centered sounds play at unity on both channels.
+        this.targetL = g * (p <= 0 ? 1f : 1f - p);
+        this.targetR = g * (p >= 0 ? 1f : 1f + p);
+    }
+}
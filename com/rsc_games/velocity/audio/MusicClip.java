@@ -1,22 +1,23 @@
 package com.rsc_games.velocity.audio;
 
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.DataLine;
-
-import com.rsc_games.velocity.system.ResourceLoader;
-import com.rsc_games.velocity.util.Logger;
+import com.rsc_games.velocity.util.ResourceCleaner;
 
 /**
- * Velocity MusicClip representation. Streams an audioclip in memory. Useful for
- * fast playback of large audio files (for like music or something.)
+ * Velocity MusicClip representation. Streams an audio file from disk instead of
+ * loading it whole, so large audio files (for like music or something) only keep a
+ * small decode buffer in memory. Played through the engine's {@code AudioMixer}. See
+ * {@code MusicStream} for crossfading and headless use.
  */
 public class MusicClip {
     /**
-     * Dataline for audio playback.
+     * The underlying music stream.
+     */
+    private MusicStream stream;
+
+    /**
+     * Detaches the stream from the mixer.
      */
-    private Clip line;
+    private final ResourceCleaner.Handle cleanup;
 
     /**
      * Load a music clip.
@@ -24,7 +25,7 @@ public class MusicClip {
      * @param path The audio file path.
      */
     public MusicClip(String path) {
-        this.line = (Clip)getLine0(path);
+        this(path, false);
     }
 
     /**
@@ -34,63 +35,61 @@ public class MusicClip {
      * @param loop Whether it loops.
      */
     public MusicClip(String path, boolean loop) {
-        this(path);
-        if (loop) this.line.loop(Clip.LOOP_CONTINUOUSLY);
+        this.stream = new MusicStream(path, loop, AudioMixer.FORMAT);
+        AudioMixer.getMixer().addStream(this.stream);
+
+        // A clip dropped while it's still playing keeps playing (like before), so only
+        // streams that are stopped are freed after GC.
+        MusicStream s = this.stream;
+        this.cleanup = ResourceCleaner.register(this, "MusicClip " + path, () -> {
+            if (s.isPlaying())
+                return;
+
+            AudioMixer.getMixer().removeStream(s);
+            s.close();
+        });
+
+        if (loop) this.stream.play();
     }
 
     /**
-     * Open the audio clip data line for playback.
+     * Get the stream backing this clip.
      * 
-     * @param path Audio clip path.
-     * @return The audio clip.
+     * @return The music stream.
      */
-    private Clip getLine0(String path) {
-        ResourceLoader ldr = ResourceLoader.getAppLoader();
+    public MusicStream getStream() {
+        return this.stream;
+    }
 
-        try {
-            // Get stream info.
-            AudioInputStream soundStream = AudioSystem.getAudioInputStream(ldr.load(path));
-            Clip.Info sndInfo = new DataLine.Info(Clip.class, soundStream.getFormat(), 512);
-            
-            // Start the stream.
-            Clip line = (Clip) AudioSystem.getLine(sndInfo);
-            line.open(soundStream);
-            return line;
-        }
-        catch (Exception ie) {
-            throw new RuntimeException(ie);
-        }
+    /**
+     * Crossfade this clip into another (looping) track.
+     * 
+     * @param path The new track's path.
+     * @param ms Crossfade length in milliseconds.
+     */
+    public void crossfadeTo(String path, int ms) {
+        this.stream.crossfadeTo(path, ms);
     }
 
     /**
      * Play the audio file.
      */
     public void play() {
-        this.line.start();
+        this.stream.play();
     }
 
     /**
      * Stop the audio file.
      */
     public void stop() {
-        this.line.stop();
+        this.stream.pause();
     }
 
     /**
      * Deallocate the audio file from memory.
      */
     public void remove() {
-        this.line.stop();
-        this.line.close();
-    }
-
-    /**
-     * Finalize the audio clip.
-     */
-    // TODO: Improve audio clip deallocation and playback.
-    @SuppressWarnings("deprecated")
-    protected void finalize() throws Throwable {
-        super.finalize();
-        Logger.log("velocity.audio", "MusicClip deallocated, freeing memory.");
+        this.stream.pause();
+        cleanup.release();
     }
 }
@@ -0,0 +1,422 @@
+package com.rsc_games.velocity.audio;
+
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Streaming music player. Tracks are decoded incrementally on a background thread into a
+ * small ring buffer instead of being loaded whole, so a long song costs a few tens of
+ * kilobytes instead of tens of megabytes. Supports looping and crossfading between tracks.
+ *
+ * The stream produces 16 bit signed little endian PCM. Output is pulled through
+ * {@code mixInto()}, either by an attached {@code AudioSink} (see {@code attach()}) or
+ * directly by the caller when running headless.
+ */
+public class MusicStream {
+    /**
+     * Decoded audio buffered per track (in bytes).
+     */
+    static final int RING_BYTES = 32 * 1024;
+
+    /**
+     * Size of each block handed to the output sink (in bytes).
+     */
+    static final int MIX_CHUNK = 4096;
+
+    /**
+     * Output format. Every track played on this stream is converted to it.
+     */
+    private final AudioFormat format;
+
+    /**
+     * Output frame size (in bytes).
+     */
+    private final int frameSize;
+
+    /**
+     * The track currently playing (or fading out).
+     */
+    private StreamDecoder current;
+
+    /**
+     * The track being faded in, if a crossfade is running.
+     */
+    private StreamDecoder next;
+
+    /**
+     * Crossfade length in frames.
+     */
+    private long fadeFrames = 0;
+
+    /**
+     * Frames of the crossfade already mixed.
+     */
+    private long fadePos = 0;
+
+    /**
+     * Scratch space for the outgoing track.
+     */
+    private byte[] bufA = new byte[MIX_CHUNK];
+
+    /**
+     * Scratch space for the incoming track.
+     */
+    private byte[] bufB = new byte[MIX_CHUNK];
+
+    /**
+     * Whether the stream is currently playing.
+     */
+    private volatile boolean playing = false;
+
+    /**
+     * Whether the stream is still open.
+     */
+    private volatile boolean open = true;
+
+    /**
+     * Output volume (linear gain).
+     */
+    private volatile float volume = 1f;
+
+    /**
+     * Number of times the decoder failed to keep up with the output.
+     */
+    private volatile long underruns = 0;
+
+    /**
+     * Lock used to park the output thread while paused.
+     */
+    private final Object playLock = new Object();
+
+    /**
+     * Open a track for streaming. Playback does not start until {@code play()} is called.
+     *
+     * @param path The audio file path.
+     * @param loop Whether the track loops.
+     */
+    public MusicStream(String path, boolean loop) {
+        this(path, loop, null);
+    }
+
+    /**
+     * Open a track for streaming, converting it to a specific output format.
+     *
+     * @param path The audio file path.
+     * @param loop Whether the track loops.
+     * @param format The 16 bit PCM output format, or null to use the file's rate and channels.
+     */
+    public MusicStream(String path, boolean loop, AudioFormat format) {
+        this.current = new StreamDecoder(path, loop, format, RING_BYTES);
+        this.format = this.current.format;
+        this.frameSize = this.format.getFrameSize();
+        this.current.start();
+    }
+
+    /**
+     * Get the PCM format this stream outputs.
+     *
+     * @return The output format.
+     */
+    public AudioFormat getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Attach an output sink and start a thread that feeds it. The sink is closed when
+     * the stream is closed.
+     *
+     * @param sink The sink to write mixed audio to.
+     */
+    public void attach(AudioSink sink) {
+        Thread t = new Thread(() -> outputLoop(sink), "velocity.audio.music");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Output thread body. Mixes and writes blocks until the stream is closed, sleeping
+     * while paused.
+     *
+     * @param sink The output sink.
+     */
+    private void outputLoop(AudioSink sink) {
+        byte[] buf = new byte[MIX_CHUNK - (MIX_CHUNK % frameSize)];
+
+        while (open) {
+            synchronized (playLock) {
+                while (!playing && open)
+                    waitSafe();
+            }
+
+            if (!open)
+                break;
+
+            mixInto(buf, 0, buf.length);
+            sink.write(buf, 0, buf.length);
+        }
+
+        sink.close();
+    }
+
+    /**
+     * Start or resume playback.
+     */
+    public void play() {
+        synchronized (playLock) {
+            this.playing = true;
+            playLock.notifyAll();
+        }
+    }
+
+    /**
+     * Pause playback. The stream position is kept.
+     */
+    public void pause() {
+        this.playing = false;
+    }
+
+    /**
+     * Identify whether the stream is playing.
+     *
+     * @return Whether the stream is playing.
+     */
+    public boolean isPlaying() {
+        return this.playing;
+    }
+
+    /**
+     * Identify whether a non-looping track has fully played out.
+     *
+     * @return Whether playback has ended.
+     */
+    public synchronized boolean hasEnded() {
+        return this.next == null && this.current.ended();
+    }
+
+    /**
+     * Set the output volume.
+     *
+     * @param volume Linear gain (1 is unchanged, 0 is silent).
+     */
+    public void setVolume(float volume) {
+        this.volume = Math.max(0f, volume);
+    }
+
+    /**
+     * Get how many times the decoder fell behind the output. Each underrun is an audible
+     * gap, so this should stay at 0.
+     *
+     * @return Underrun count.
+     */
+    public long getUnderrunCount() {
+        return this.underruns;
+    }
+
+    /**
+     * Crossfade into another track. If a crossfade is already running, the track being
+     * faded in is replaced.
+     *
+     * @param path The new track's path.
+     * @param loop Whether the new track loops.
+     * @param ms Crossfade length in milliseconds. 0 switches immediately.
+     */
+    public void crossfadeTo(String path, boolean loop, int ms) {
+        // Open the new track outside of the lock; this reads the file header.
+        StreamDecoder dec = new StreamDecoder(path, loop, format, RING_BYTES);
+        dec.start();
+
+        synchronized (this) {
+            if (this.next != null)
+                this.next.close();
+
+            this.next = dec;
+            this.fadeFrames = (long)(format.getFrameRate() * ms / 1000f);
+            this.fadePos = 0;
+
+            if (this.fadeFrames <= 0)
+                finishFade();
+        }
+    }
+
+    /**
+     * Crossfade into a looping track.
+     *
+     * @param path The new track's path.
+     * @param ms Crossfade length in milliseconds.
+     */
+    public void crossfadeTo(String path, int ms) {
+        crossfadeTo(path, true, ms);
+    }
+
+    /**
+     * Fill a buffer with the next block of output. Writes silence while paused or after
+     * the track has ended. Does not allocate.
+     *
+     * @param out Output buffer (16 bit signed little endian PCM in this stream's format).
+     * @param off Offset into the output buffer.
+     * @param len Bytes to produce. Should be a multiple of the frame size.
+     */
+    public synchronized void mixInto(byte[] out, int off, int len) {
+        while (len > 0) {
+            int n = Math.min(len, bufA.length);
+            n -= n % frameSize;
+            if (n == 0) break;
+
+            mixBlock(out, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Mix a single block (at most one scratch buffer in size).
+     *
+     * @param out Output buffer.
+     * @param off Output offset.
+     * @param n Byte count (whole frames).
+     */
+    private void mixBlock(byte[] out, int off, int n) {
+        if (!playing) {
+            Arrays.fill(out, off, off + n, (byte)0);
+            return;
+        }
+
+        int a = readTrack(current, bufA, n);
+        float gain = this.volume;
+
+        if (next == null) {
+            if (gain == 1f)
+                System.arraycopy(bufA, 0, out, off, n);
+            else
+                scale(bufA, out, off, n, gain);
+
+            // Park the output thread once a non-looping track has played out.
+            if (current.ended())
+                playing = false;
+            return;
+        }
+
+        readTrack(next, bufB, n);
+
+        // Linear crossfade: the outgoing track ramps down as the new one ramps up.
+        int channels = format.getChannels();
+        int frames = n / frameSize;
+
+        for (int f = 0; f < frames; f++) {
+            float t = Math.min(1f, (float)(fadePos + f) / fadeFrames);
+            float ga = (1f - t) * gain;
+            float gb = t * gain;
+
+            for (int c = 0; c < channels; c++) {
+                int i = (f * channels + c) * 2;
+                int sa = (i < a) ? getSample(bufA, i) : 0;
+                putSample(out, off + i, sa * ga + getSample(bufB, i) * gb);
+            }
+        }
+
+        fadePos += frames;
+        if (fadePos >= fadeFrames)
+            finishFade();
+    }
+
+    /**
+     * Read a block from a track, padding with silence if the decoder fell behind.
+     *
+     * @param dec The track.
+     * @param dst Scratch buffer.
+     * @param n Requested bytes.
+     * @return Bytes of real audio read.
+     */
+    private int readTrack(StreamDecoder dec, byte[] dst, int n) {
+        int r = dec.ring.read(dst, 0, n, frameSize);
+
+        if (r < n) {
+            if (!dec.finished())
+                underruns++;
+
+            Arrays.fill(dst, r, n, (byte)0);
+        }
+        return r;
+    }
+
+    /**
+     * Complete a crossfade: the incoming track becomes the current track.
+     */
+    private void finishFade() {
+        this.current.close();
+        this.current = this.next;
+        this.next = null;
+        this.fadeFrames = 0;
+        this.fadePos = 0;
+    }
+
+    /**
+     * Copy samples while applying a gain.
+     *
+     * @param src Source samples.
+     * @param out Output buffer.
+     * @param off Output offset.
+     * @param n Byte count.
+     * @param gain Linear gain.
+     */
+    private static void scale(byte[] src, byte[] out, int off, int n, float gain) {
+        for (int i = 0; i < n; i += 2)
+            putSample(out, off + i, getSample(src, i) * gain);
+    }
+
+    /**
+     * Read a 16 bit little endian sample.
+     *
+     * @param b Buffer.
+     * @param i Byte index.
+     * @return The sample.
+     */
+    private static int getSample(byte[] b, int i) {
+        return (short)((b[i] & 0xff) | (b[i + 1] << 8));
+    }
+
+    /**
+     * Write a 16 bit little endian sample, clipping it into range.
+     *
+     * @param b Buffer.
+     * @param i Byte index.
+     * @param v Sample value.
+     */
+    private static void putSample(byte[] b, int i, float v) {
+        int s = (int)v;
+        if (s > Short.MAX_VALUE) s = Short.MAX_VALUE;
+        else if (s < Short.MIN_VALUE) s = Short.MIN_VALUE;
+
+        b[i] = (byte)s;
+        b[i + 1] = (byte)(s >> 8);
+    }
+
+    /**
+     * Stop playback and release all tracks. The attached sink (if any) is closed.
+     */
+    public void close() {
+        synchronized (playLock) {
+            this.open = false;
+            this.playing = false;
+            playLock.notifyAll();
+        }
+
+        synchronized (this) {
+            this.current.close();
+
+            if (this.next != null)
+                this.next.close();
+        }
+    }
+
+    /**
+     * Wait on the play lock, ignoring interrupts.
+     */
+    private void waitSafe() {
+        try {
+            playLock.wait();
+        }
+        catch (InterruptedException ie) {}
+    }
+}
@@ -0,0 +1,52 @@
+package com.rsc_games.velocity.audio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Audio sink that writes raw PCM into any output stream. Useful for headless testing
+ * (write into a {@code ByteArrayOutputStream}) or for dumping the mix to disk.
+ */
+public class StreamAudioSink implements AudioSink {
+    /**
+     * The output stream.
+     */
+    private OutputStream out;
+
+    /**
+     * Create a sink around an output stream.
+     *
+     * @param out The stream to write PCM data to.
+     */
+    public StreamAudioSink(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Write data to the stream.
+     *
+     * @param data The PCM bytes to write.
+     * @param off Offset into the data.
+     * @param len Amount of bytes to write.
+     */
+    @Override
+    public void write(byte[] data, int off, int len) {
+        try {
+            this.out.write(data, off, len);
+        }
+        catch (IOException ie) {
+            throw new RuntimeException(ie);
+        }
+    }
+
+    /**
+     * Close the underlying stream.
+     */
+    @Override
+    public void close() {
+        try {
+            this.out.close();
+        }
+        catch (IOException ie) {/* fail silently */}
+    }
+}
@@ -0,0 +1,193 @@
+package com.rsc_games.velocity.audio;
+
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import com.rsc_games.velocity.system.ResourceLoader;
+import com.rsc_games.velocity.util.Logger;
+
+/**
+ * Incremental audio decoder. Owns one track and a background thread that decodes it
+ * a chunk at a time into a bounded ring buffer, so only a few tens of kilobytes of the
+ * track are ever resident.
+ */
+class StreamDecoder implements Runnable {
+    /**
+     * Size of each decode step. Must be a multiple of every supported frame size.
+     */
+    private static final int DECODE_CHUNK = 4096;
+
+    /**
+     * The track path.
+     */
+    final String path;
+
+    /**
+     * Whether to restart the track when the end is reached.
+     */
+    final boolean loop;
+
+    /**
+     * The decoded PCM format (always 16 bit signed little endian).
+     */
+    final AudioFormat format;
+
+    /**
+     * Decoded audio waiting to be mixed.
+     */
+    final AudioRingBuffer ring;
+
+    /**
+     * Current decode stream. Owned by the decoder thread once started.
+     */
+    private AudioInputStream stream;
+
+    /**
+     * Set once the last byte of a non-looping track has been decoded.
+     */
+    private volatile boolean finished = false;
+
+    /**
+     * Set when this decoder is shut down.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Open a track for decoding. Only the file header is read here; decoding happens
+     * on the decoder thread once {@code start()} is called.
+     *
+     * @param path The audio file path.
+     * @param loop Whether the track loops.
+     * @param target Required output format, or null to derive one from the file.
+     * @param ringBytes Ring buffer capacity.
+     * @throws RuntimeException If the track can't be opened.
+     */
+    public StreamDecoder(String path, boolean loop, AudioFormat target, int ringBytes) {
+        this.path = path;
+        this.loop = loop;
+
+        try {
+            this.stream = openStream(path, target);
+        }
+        catch (IOException ie) {
+            throw new RuntimeException(ie);
+        }
+        this.format = this.stream.getFormat();
+        this.ring = new AudioRingBuffer(ringBytes - (ringBytes % format.getFrameSize()));
+    }
+
+    /**
+     * Open an audio stream and convert it to 16 bit PCM.
+     *
+     * @param path The audio file path.
+     * @param target Required format, or null for 16 bit PCM at the file's rate and channels.
+     * @return The decoding stream.
+     * @throws IOException If the file can't be read, isn't a supported format or
+     *                     can't be converted.
+     */
+    private static AudioInputStream openStream(String path, AudioFormat target) throws IOException {
+        ResourceLoader ldr = ResourceLoader.getAppLoader();
+
+        try {
+            AudioInputStream src = AudioSystem.getAudioInputStream(ldr.load(path));
+            AudioFormat sf = src.getFormat();
+
+            if (target == null)
+                target = new AudioFormat(sf.getSampleRate(), 16, sf.getChannels(), true, false);
+
+            if (sf.matches(target))
+                return src;
+
+            return AudioSystem.getAudioInputStream(target, src);
+        }
+        catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            // IllegalArgumentException: no converter to the target format.
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Start decoding on a background thread.
+     */
+    public void start() {
+        Thread t = new Thread(this, "velocity.audio.decode");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Decoder thread body. Keeps the ring topped up until the track ends or the
+     * decoder is closed.
+     */
+    @Override
+    public void run() {
+        byte[] chunk = new byte[DECODE_CHUNK];
+
+        try {
+            while (!closed) {
+                int n = stream.read(chunk, 0, chunk.length);
+
+                if (n == -1) {
+                    if (!loop)
+                        break;
+
+                    // Looping: reopen and keep feeding the same ring so there is no gap.
+                    stream.close();
+                    stream = openStream(path, format);
+                    continue;
+                }
+
+                if (!ring.write(chunk, 0, n))
+                    break;
+            }
+        }
+        catch (IOException ie) {
+            Logger.error("velocity.audio", "Failed to decode " + path + ": " + ie.getMessage());
+        }
+        finally {
+            // Always end the track, so the stream reports it instead of underrunning.
+            finished = true;
+            closeStream();
+        }
+    }
+
+    /**
+     * Identify whether everything has been decoded and consumed.
+     *
+     * @return Whether the track is over.
+     */
+    public boolean ended() {
+        return finished && ring.available() < format.getFrameSize();
+    }
+
+    /**
+     * Identify whether the decoder has finished producing data.
+     *
+     * @return Whether decoding has finished.
+     */
+    public boolean finished() {
+        return finished;
+    }
+
+    /**
+     * Stop decoding and release the track.
+     */
+    public void close() {
+        closed = true;
+        ring.close();
+    }
+
+    /**
+     * Close the decode stream.
+     */
+    private void closeStream() {
+        try {
+            stream.close();
+        }
+        catch (IOException ie) {/* fail silently */}
+    }
+}
@@ -79,6 +79,13 @@ public class GlobalAppConfig {
     /** Worker core count for renderers that use worker threads (like LVCPU). */
     public int REND_WORKER_COUNT;
 
+    /** 
+     * GPU memory textures may use before the least recently drawn ones are evicted (MB, 0
+     * for no limit). Evicted textures still in use are uploaded again when drawn. With no
+     * limit, unreferenced textures are freed right away instead of being cached.
+     */
+    public int TEXTURE_VRAM_BUDGET_MB;
+
     /********************* SCENE LOAD CONFIG ************************/
     /** The scene first loaded when Velocity starts. */
     public String START_SCENE;
@@ -89,6 +96,9 @@ public class GlobalAppConfig {
     /** A failed scene load crashes the game instead of loading the error scene. */
     public boolean SCENE_LOAD_FAILURE_FATAL;
 
+    /** Time per tick spent sending a preloading scene's textures to the GPU (ms). */
+    public int PRELOAD_UPLOAD_BUDGET_MS;
+
     /******************** WARNINGS AND ERRORS ***********************/
     /** Missing images, instead of returning no image, crash the game. */
     public boolean MISSING_IMAGE_FATAL;
@@ -103,6 +113,21 @@ public class GlobalAppConfig {
     /** Enable the memory allocation/deallocation profiler for sprites. */
     public boolean LOG_MEMORY;
 
+    /** Write log messages from a background thread instead of the calling thread. */
+    public boolean ASYNC_LOGGING;
+
+    /** Also write every log message to this compact binary log (null to disable). */
+    public String LOG_BINARY_PATH;
+
+    /** Measure per frame allocations and GC pauses, warn about allocation creep and report on exit. */
+    public boolean LOG_ALLOCATIONS;
+
+    /** Time every sprite's tick and render calls and log the hottest sprites on exit. */
+    public boolean LOG_SPRITE_COSTS;
+
+    /** Record every tick of input to this file for headless replay (null to disable). */
+    public String INPUT_RECORD_PATH;
+
     /********************* RENDERER DEBUGGING ***********************/
     /** 
      * Disable the pop-up warning for incomplete renderers. With this option enabled,
@@ -147,11 +172,13 @@ public class GlobalAppConfig {
         this.WARN_RENDERER_INIT_FAIL = true;  // Warn the dev when the renderer cannot start.
         this.EN_DEBUG_RENDERER = false;  // The Debug Renderer is a finicky thing and doesn't really work.
         this.REND_WORKER_COUNT = Runtime.getRuntime().availableProcessors() - 1; // Default CPU count.
+        this.TEXTURE_VRAM_BUDGET_MB = 256;  // Fits integrated GPUs with room for framebuffers.
 
         // Scene loader config.
         this.START_SCENE = "DefaultScene";  // Velocity will start an internal scene in library.
         this.LOAD_FAILURE_SCENE = "ErrorScene";  // Default scene load failure scene.
         this.SCENE_LOAD_FAILURE_FATAL = true;  // Missing scenes will trigger the crash handler.
+        this.PRELOAD_UPLOAD_BUDGET_MS = 2;  // Leaves most of a 60 FPS frame for the game.
 
         // Generic warnings and error system.
         this.MISSING_IMAGE_FATAL = true;  // Report all images Velocity cannot find.
@@ -160,6 +187,11 @@ public class GlobalAppConfig {
         // Velocity/application debugging system.
         this.LOG_GC = false;  // By default do not log any GC/Warning messages.
         this.LOG_MEMORY = false;  // Disable the memory tracing and profiling system.
+        this.ASYNC_LOGGING = true;  // Logging never blocks the game thread.
+        this.LOG_BINARY_PATH = null;  // Only log to the console.
+        this.LOG_ALLOCATIONS = false;  // Allocations are not measured.
+        this.LOG_SPRITE_COSTS = false;  // Sprite calls are not individually timed.
+        this.INPUT_RECORD_PATH = null;  // Sessions are not recorded.
 
         // Renderer debugging/profiling system.
         this.SUPPRESS_UNSTABLE_RENDERER_WARNING = true;  // Renderer warning can be lost by DWM.
@@ -19,6 +19,12 @@ public abstract class GlobalSceneDefs {
      */
     protected HashMap<String, Class<? extends Scene>> sceneDefs = new HashMap<String, Class<? extends Scene>>();
 
+    /**
+     * Data driven scenes (see {@code SceneFile}), loaded into a plain Scene.
+     * To add an entry, use sceneFiles.put(<name>, <file_path>);
+     */
+    protected HashMap<String, String> sceneFiles = new HashMap<String, String>();
+
     /**
      * Override this constructor in your own code and define scenes in it.
      * Do not forget the super() call!
@@ -39,6 +45,16 @@ public abstract class GlobalSceneDefs {
         return sceneDefs.get(name);
     }
 
+    /**
+     * Internal facing API. Get the scene file registered for a scene name.
+     * 
+     * @param name Scene name to find.
+     * @return The scene file path (null if none).
+     */
+    public final String getSceneFile(String name) {
+        return sceneFiles.get(name);
+    }
+
     /**
      * Internal facing API. Print all of the defined scenes into the console for
      * load failure debugging.
@@ -50,6 +66,10 @@ public abstract class GlobalSceneDefs {
             Logger.error("velocity.Scene", "\t" + sceneName + " : " + sceneDefs.get(sceneName).getSimpleName());
         }
 
+        for (String sceneName : sceneFiles.keySet()) {
+            Logger.error("velocity.Scene", "\t" + sceneName + " : " + sceneFiles.get(sceneName));
+        }
+
         System.out.println();
     }
 }
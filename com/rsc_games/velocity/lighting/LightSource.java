@@ -3,8 +3,8 @@ package com.rsc_games.velocity.lighting;
 import com.rsc_games.velocity.PipelineManager;
 
 import com.rsc_games.velocity.renderer.LightingEngine;
-import com.rsc_games.velocity.util.Logger;
 import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.ResourceCleaner;
 
 /**
  * General abstract LightSource representation in Velocity. Hides the
@@ -24,6 +24,11 @@ public abstract class LightSource {
      */
     protected long lightid;
 
+    /**
+     * Deletes the renderer light (null until one was issued).
+     */
+    private ResourceCleaner.Handle cleanup;
+
     /**
      * Base constructor. Not really used by any code.
      */
@@ -58,24 +63,20 @@ public abstract class LightSource {
     }
 
     /**
-     * Delete this light source.
+     * Track the light issued by the renderer so it's deleted even if {@code delete()}
+     * is never called. Subclasses call this once {@code lightid} is set.
      */
-    public void delete() {
-        if (!lePresent()) return;
-        this.le.deleteLightSource(lightid);
+    protected void trackLight() {
+        LightingEngine engine = this.le;
+        long id = this.lightid;
+        this.cleanup = ResourceCleaner.register(this, "Light " + id, () -> engine.deleteLightSource(id));
     }
 
     /**
-     * Automagically delete this light source after a scene destruction
-     * or other event.
+     * Delete this light source.
      */
-    @SuppressWarnings("deprecated")
-    protected void finalize() throws Throwable {
-        super.finalize();
-        Logger.log("velocity.lighting", "Deallocated light found. Deleting.");
-        if (!lePresent())
-            return;
-
-        this.le.deleteLightSource(this.lightid);
+    public void delete() {
+        if (!lePresent() || cleanup == null) return;
+        cleanup.release();
     }
 }
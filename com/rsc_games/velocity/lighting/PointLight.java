@@ -46,6 +46,7 @@ public class PointLight extends LightSource {
             return;
 
         this.lightid = this.le.newPointLight(center, radius, intensity, color);
+        trackLight();
     }
 
     /**
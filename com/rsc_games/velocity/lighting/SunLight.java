@@ -29,6 +29,7 @@ public class SunLight extends LightSource {
             return;
 
         this.lightid = this.le.newSunLight(intensity, color);
+        trackLight();
     }
 
     /**
@@ -50,4 +50,56 @@ public class DrawInfo {
         this.scale = scale;
         this.drawLayer = drawLayer;
     }
+
+    /**
+     * Get half the width of the screen area a sprite rect covers once scaled and
+     * rotated about its center (rounded up, and a pixel wider than the rect like the
+     * drawn quad), for culling.
+     * 
+     * @param w Rect width.
+     * @param h Rect height.
+     * @param sx X scale.
+     * @param sy Y scale.
+     * @param rot Rotation (in degrees).
+     * @return The half width.
+     */
+    public static int extentX(int w, int h, int sx, int sy, float rot) {
+        return extent(w, h, sx, sy, rot);
+    }
+
+    /**
+     * Get half the height of the screen area a sprite rect covers once scaled and
+     * rotated. See {@code extentX()}.
+     * 
+     * @param w Rect width.
+     * @param h Rect height.
+     * @param sx X scale.
+     * @param sy Y scale.
+     * @param rot Rotation (in degrees).
+     * @return The half height.
+     */
+    public static int extentY(int w, int h, int sx, int sy, float rot) {
+        return extent(h, w, sy, sx, rot);
+    }
+
+    /**
+     * Get the half extent of a rotated, scaled rect along one axis.
+     * 
+     * @param along Rect size along the axis.
+     * @param across Rect size across the axis.
+     * @param sAlong Scale along the axis.
+     * @param sAcross Scale across the axis.
+     * @param rot Rotation (in degrees).
+     * @return The half extent.
+     */
+    private static int extent(int along, int across, int sAlong, int sAcross, float rot) {
+        long a = (long)((along + 1) / 2 + 1) * Math.abs(sAlong);
+        if (rot == 0f)
+            return (int)Math.min(a, Integer.MAX_VALUE / 4);
+
+        long b = (long)((across + 1) / 2 + 1) * Math.abs(sAcross);
+        double r = Math.toRadians(rot);
+        double e = a * Math.abs(Math.cos(r)) + b * Math.abs(Math.sin(r));
+        return (int)Math.min(Math.ceil(e), Integer.MAX_VALUE / 4);
+    }
 }
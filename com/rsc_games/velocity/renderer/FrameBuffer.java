@@ -58,6 +58,44 @@ public interface FrameBuffer {
      */
     public void drawShaded(RendererImage img, DrawInfo d);
 
+    /**
+     * Draw every live particle of an emitter in one go (unshaded). Renderers without a
+     * faster path fall back to one {@code blit()} per particle, which ignores the
+     * particle colors and image frames.
+     *
+     * @param batch The particles (with the world to screen offset for this frame).
+     * @param drawLayer Sorting layer to draw on.
+     */
+    public default void drawParticles(ParticleBatch batch, int drawLayer) {
+        for (int i = 0; i < batch.getCount(); i++) {
+            int s = (int)batch.size[i];
+            Rect r = new Rect((int)batch.x[i] + batch.getOffsetX(), (int)batch.y[i] + batch.getOffsetY(), s, s);
+            blit(batch.image, new DrawInfo(r, batch.rotation[i], new Point(1, 1), drawLayer));
+        }
+    }
+
+    /**
+     * Draw a prebaked block of unshaded tiles in screen space. Renderers without a
+     * faster path fall back to one {@code blit()} per tile.
+     *
+     * @param batch The tiles.
+     * @param x Screen X location of the block's top left corner.
+     * @param y Screen Y location of the block's top left corner.
+     * @param drawLayer Sorting layer to draw on.
+     */
+    public default void blitTiles(TileBatch batch, int x, int y, int drawLayer) {
+        RendererImage[] images = batch.getImages();
+        short[] cells = batch.getCells(), ids = batch.getImageIds();
+        int w = batch.tileW, h = batch.tileH;
+
+        // Draw calls may be queued until the end of the frame, so each tile gets its own draw info.
+        for (int i = 0; i < batch.getCount(); i++) {
+            int tx = x + (cells[i] % batch.columns) * w, ty = y + (cells[i] / batch.columns) * h;
+            Rect r = new Rect(tx + w / 2, ty + h / 2, w, h);
+            blit(images[ids[i]], new DrawInfo(r, 0f, new Point(1, 1), drawLayer));
+        }
+    }
+
 
 
     /**
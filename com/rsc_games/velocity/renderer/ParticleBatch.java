@@ -0,0 +1,113 @@
+package com.rsc_games.velocity.renderer;
+
+/**
+ * The live particles of one emitter, handed to the renderer as a single draw (see
+ * {@code ParticleEmitter}). Particle state stays in the emitter's own arrays (one array
+ * per field, particle i at index i), so drawing copies nothing and allocates nothing.
+ * Every particle is a square textured quad centered on its position.
+ */
+public class ParticleBatch {
+    /**
+     * The particle image. Holds {@code frames} equally wide frames side by side.
+     */
+    public final RendererImage image;
+    public final int frames;
+
+    /**
+     * Particle centers (in world space), sizes (in pixels) and rotations (in degrees).
+     */
+    public final float[] x;
+    public final float[] y;
+    public final float[] size;
+    public final float[] rotation;
+
+    /**
+     * Particle colors (ARGB). Renderers may only support the alpha.
+     */
+    public final int[] color;
+
+    /**
+     * Particle image frames.
+     */
+    public final short[] frame;
+
+    /**
+     * Live particles (the first {@code count} entries of every array).
+     */
+    int count = 0;
+
+    /**
+     * World to screen offset for the current frame.
+     */
+    int offsetX = 0;
+    int offsetY = 0;
+
+    /**
+     * Internal. Lets a renderer keep its own per batch data (like a reusable drawcall).
+     */
+    public Object rendererData;
+
+    /**
+     * Wrap an emitter's particle arrays.
+     *
+     * @param image The particle image.
+     * @param frames Frames in the image.
+     * @param x Center X locations.
+     * @param y Center Y locations.
+     * @param size Sizes.
+     * @param rotation Rotations.
+     * @param color Colors.
+     * @param frame Image frames.
+     */
+    public ParticleBatch(RendererImage image, int frames, float[] x, float[] y, float[] size, float[] rotation,
+                         int[] color, short[] frame) {
+        this.image = image;
+        this.frames = frames;
+        this.x = x;
+        this.y = y;
+        this.size = size;
+        this.rotation = rotation;
+        this.color = color;
+        this.frame = frame;
+    }
+
+    /**
+     * Set what to draw this frame.
+     *
+     * @param count Live particles.
+     * @param offsetX Added to every X location to get the screen location.
+     * @param offsetY Added to every Y location to get the screen location.
+     */
+    public void set(int count, int offsetX, int offsetY) {
+        this.count = count;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+
+    /**
+     * Get the amount of live particles.
+     *
+     * @return The particle count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the world to screen X offset.
+     *
+     * @return The offset.
+     */
+    public int getOffsetX() {
+        return offsetX;
+    }
+
+    /**
+     * Get the world to screen Y offset.
+     *
+     * @return The offset.
+     */
+    public int getOffsetY() {
+        return offsetY;
+    }
+}
@@ -117,7 +117,8 @@ public abstract class RenderPipeline {
 
     /**
      * Internal function. Queries the renderer cache for the texture associated with
-     * the provided file path. Ideally used to reduce disk I/O time.
+     * the provided file path. Ideally used to reduce disk I/O time. Texture functions
+     * must be callable from any thread (scenes are preloaded in the background).
      * 
      * @param path Texture path.
      * @return Whether the provided texture has already been loaded.
@@ -127,7 +128,8 @@ public abstract class RenderPipeline {
     /**
      * Send a loaded texture to the render pipeline for handling. The plugin renderer
      * is expected to handle this intelligently (and ideally make it part of a texture
-     * cache).
+     * cache). When called off the render thread, GPU work may be deferred until
+     * {@code uploadPendingTextures()}.
      * 
      * @param image The loaded image from disk.
      * @param path The image path (for caching purposes).
@@ -140,10 +142,59 @@ public abstract class RenderPipeline {
      * fetch from the render cache.
      * 
      * @param path The image path.
-     * @return The image handle.
+     * @return The image handle (null if the texture isn't loaded).
      */
     public abstract RendererImage getTextureHandleFromPath(String path);
 
+    /**
+     * Send textures registered off the render thread to the GPU. Called by the engine
+     * every tick on the render thread.
+     * 
+     * @param budgetNanos Time to spend uploading (at least one texture is uploaded).
+     * @return Amount of textures still waiting.
+     */
+    public int uploadPendingTextures(long budgetNanos) {
+        return 0;
+    }
+
+    /**
+     * Get the amount of textures waiting to be sent to the GPU.
+     * 
+     * @return The pending texture count.
+     */
+    public int getPendingTextureUploads() {
+        return 0;
+    }
+
+    /**
+     * Get the estimated GPU memory used by textures. Renderers that keep textures
+     * within {@code TEXTURE_VRAM_BUDGET_MB} report it here.
+     * 
+     * @return Resident bytes (0 if not tracked).
+     */
+    public long getResidentTextureBytes() {
+        return 0;
+    }
+
+    /**
+     * Get the amount of textures evicted from the GPU to stay within budget.
+     * 
+     * @return The eviction count.
+     */
+    public long getTextureEvictions() {
+        return 0;
+    }
+
+    /**
+     * Get the amount of evicted textures that were sent to the GPU again because they
+     * were drawn. A high count means the budget is too small for the scene.
+     * 
+     * @return The re-upload count.
+     */
+    public long getTextureReuploads() {
+        return 0;
+    }
+
     /**
      * By default in LumaViper CPU the texture GC only runs once you have 256 textures 
      * loaded in texture memory. This behavior may vary across rendering backends, but
@@ -81,9 +81,17 @@ public abstract class RendererImage {
     public abstract BufferedImage getTexture();
 
     /**
-     * Callback during deallocation and GC. Delete and unreference this image
-     * reference. Helps the reference counter keep track of the allocated
-     * and dead images.
+     * Release this image reference. The texture is freed by the renderer once no
+     * references are left. Only the first call does anything; the reference must not
+     * be drawn afterwards. Unreleased references are released after they're GC'd.
+     */
+    public void release() {
+        unlink();
+    }
+
+    /**
+     * Delete and unreference this image reference. Helps the reference counter keep
+     * track of the allocated and dead images. Must be safe to call more than once.
      */
     protected abstract void unlink();
 }
@@ -0,0 +1,96 @@
+package com.rsc_games.velocity.renderer;
+
+/**
+ * Prebaked geometry for a block of same sized tiles (see {@code TileMap}). Only the
+ * tiles that draw something are stored, as a cell index into the block plus an index
+ * into the image palette, so drawing the block doesn't have to walk its empty cells or
+ * build a {@code DrawInfo} per tile. Rebuilt by the owner whenever its tiles change.
+ */
+public class TileBatch {
+    /**
+     * Cells per row of the block.
+     */
+    public final int columns;
+
+    /**
+     * Tile size (in pixels).
+     */
+    public final int tileW;
+    public final int tileH;
+
+    /**
+     * The image palette the tiles index into.
+     */
+    private RendererImage[] images = new RendererImage[0];
+
+    /**
+     * Cell (row * columns + column) and palette index of every tile.
+     */
+    private short[] cells = new short[0];
+    private short[] imageIds = new short[0];
+    private int count = 0;
+
+    /**
+     * Create an empty batch.
+     *
+     * @param columns Cells per row.
+     * @param tileW Tile width.
+     * @param tileH Tile height.
+     */
+    public TileBatch(int columns, int tileW, int tileH) {
+        this.columns = columns;
+        this.tileW = tileW;
+        this.tileH = tileH;
+    }
+
+    /**
+     * Replace the batch contents. The arrays are kept, not copied.
+     *
+     * @param images The image palette.
+     * @param cells Tile cells.
+     * @param imageIds Tile palette indices.
+     * @param count Tile count.
+     */
+    public void set(RendererImage[] images, short[] cells, short[] imageIds, int count) {
+        this.images = images;
+        this.cells = cells;
+        this.imageIds = imageIds;
+        this.count = count;
+    }
+
+    /**
+     * Get the image palette.
+     *
+     * @return The palette.
+     */
+    public RendererImage[] getImages() {
+        return images;
+    }
+
+    /**
+     * Get the tile cells (only the first {@code getCount()} are used).
+     *
+     * @return The cells.
+     */
+    public short[] getCells() {
+        return cells;
+    }
+
+    /**
+     * Get the tile palette indices (only the first {@code getCount()} are used).
+     *
+     * @return The palette indices.
+     */
+    public short[] getImageIds() {
+        return imageIds;
+    }
+
+    /**
+     * Get the amount of tiles.
+     *
+     * @return The tile count.
+     */
+    public int getCount() {
+        return count;
+    }
+}
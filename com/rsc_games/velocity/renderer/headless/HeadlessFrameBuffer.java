@@ -0,0 +1,87 @@
+package com.rsc_games.velocity.renderer.headless;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.renderer.DrawInfo;
+import com.rsc_games.velocity.renderer.FrameBuffer;
+import com.rsc_games.velocity.renderer.ParticleBatch;
+import com.rsc_games.velocity.renderer.RendererImage;
+import com.rsc_games.velocity.renderer.TileBatch;
+import com.rsc_games.velocity.renderer.UnsupportedFrameBufferOperation;
+import com.rsc_games.velocity.util.Point;
+
+/**
+ * Framebuffer that discards every drawcall. Lets the scene render code run at full
+ * speed without a GPU. Also handy for benchmarking sprite render code on its own.
+ */
+public class HeadlessFrameBuffer implements FrameBuffer {
+    @Override
+    @Deprecated
+    public Graphics getGraphics() {
+        throw new UnsupportedFrameBufferOperation("HeadlessFrameBuffer", "getGraphics()");
+    }
+
+    @Override
+    @SuppressWarnings("removal")
+    @Deprecated(since="v0.2.0.0", forRemoval=true)
+    public BufferedImage DEBUG_getBufferedImage() {
+        throw new UnsupportedFrameBufferOperation("HeadlessFrameBuffer", "DEBUG_getBufferedImage()");
+    }
+
+    @Override
+    public void blit(RendererImage img, DrawInfo d) {}
+
+    @Override
+    public void drawShaded(RendererImage img, DrawInfo d) {}
+
+    @Override
+    public void drawParticles(ParticleBatch batch, int drawLayer) {}
+
+    @Override
+    public void blitTiles(TileBatch batch, int x, int y, int drawLayer) {}
+
+    @Override
+    public void drawLine(Point p1, Point p2, int weight, Color c) {}
+
+    @Override
+    public void drawLine(Point p1, Point p2, int weight, Color c, int sortLayer) {}
+
+    @Override
+    public void drawLines(Point[] points, int weight, Color c, boolean closed) {}
+
+    @Override
+    public void drawLines(Point[] points, int weight, Color c, boolean closed, int sortLayer) {}
+
+    @Override
+    public void drawRect(Rect r, int weight, Color c, boolean filled) {}
+
+    @Override
+    public void drawRect(Rect r, int weight, Color c, boolean filled, int sortLayer) {}
+
+    @Override
+    public void drawTriangle(Point p1, Point p2, Point p3, int weight, Color c) {}
+
+    @Override
+    public void drawTriangle(Point p1, Point p2, Point p3, int weight, Color c, int sortLayer) {}
+
+    @Override
+    public void drawCircle(Point center, int r, int weight, Color c, boolean filled) {}
+
+    @Override
+    public void drawCircle(Point center, int r, int weight, Color c, boolean filled, int sortLayer) {}
+
+    @Override
+    public void drawText(Point pos, String text, Font font, Color c) {}
+
+    @Override
+    public void drawText(Point pos, String text, Font font, Color c, int sortLayer) {}
+
+    @Override
+    public FrameBuffer copy() {
+        throw new UnsupportedOperationException("Cannot copy framebuffer!");
+    }
+}
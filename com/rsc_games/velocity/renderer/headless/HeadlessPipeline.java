@@ -0,0 +1,109 @@
+package com.rsc_games.velocity.renderer.headless;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+import com.rsc_games.velocity.Scene;
+import com.rsc_games.velocity.renderer.LightingEngine;
+import com.rsc_games.velocity.renderer.RenderPipeline;
+import com.rsc_games.velocity.renderer.RendererFeatures;
+import com.rsc_games.velocity.renderer.RendererImage;
+import com.rsc_games.velocity.renderer.window.Window;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Profiler;
+
+/**
+ * Render pipeline that never touches a GPU or opens a window. Scenes still receive
+ * their render callback, but every drawcall is thrown away. Used for replaying
+ * recorded sessions as fast as possible and for running the engine on build machines.
+ */
+public class HeadlessPipeline extends RenderPipeline {
+    /**
+     * The (invisible) window.
+     */
+    private final HeadlessWindow window;
+
+    /**
+     * Scene and UI framebuffers. Both discard everything.
+     */
+    private final HeadlessFrameBuffer fb = new HeadlessFrameBuffer(), uifb = new HeadlessFrameBuffer();
+
+    /**
+     * Loaded image sizes by path.
+     */
+    private final HashMap<String, HeadlessRendererImage> textures = new HashMap<String, HeadlessRendererImage>();
+
+    /**
+     * Next image uid.
+     */
+    private long nextImageID = 0;
+
+    /**
+     * Create the headless pipeline.
+     * 
+     * @param resolution The resolution the window should report.
+     */
+    public HeadlessPipeline(Point resolution) {
+        super((LightingEngine)null);  // Lighting is not supported.
+        this.window = new HeadlessWindow(resolution);
+
+        this.featureSet = new RendererFeatures(
+            true,  // Everything required is implemented (as a no-op).
+            false,  // Nothing is presented, so there is nothing to double buffer.
+            false,  // No lighting engine.
+            false,  // No extended features.
+            false,  // No sprite shading.
+            false,  // No full screen shading.
+            false,  // No shading support exists.
+            new HashMap<String, String>()  // No additional features.
+        );
+    }
+
+    @Override
+    public void init() {}
+
+    @Override
+    public void deinit() {}
+
+    /**
+     * Run the scene render callback into discarding framebuffers.
+     */
+    @Override
+    public void render() {
+        Profiler.begin("Scene.render");
+        Scene.currentScene.render(fb, uifb);
+        Profiler.end();
+    }
+
+    @Override
+    public String getRendererName() {
+        return "Headless";
+    }
+
+    @Override
+    public Window getWindow() {
+        return this.window;
+    }
+
+    @Override
+    public synchronized boolean isTextureCached(String path) {
+        return textures.containsKey(path);
+    }
+
+    @Override
+    public synchronized boolean registerTexture(BufferedImage image, String path) {
+        textures.put(path, new HeadlessRendererImage(nextImageID++, image.getWidth(), image.getHeight()));
+        return true;
+    }
+
+    @Override
+    public synchronized RendererImage getTextureHandleFromPath(String path) {
+        return textures.get(path);
+    }
+
+    /**
+     * Image sizes are tiny, so they're kept for the whole run.
+     */
+    @Override
+    public void forceGCRun() {}
+}
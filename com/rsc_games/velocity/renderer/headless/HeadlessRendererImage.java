@@ -0,0 +1,46 @@
+package com.rsc_games.velocity.renderer.headless;
+
+import java.awt.image.BufferedImage;
+
+import com.rsc_games.velocity.renderer.RendererImage;
+
+/**
+ * Image reference for the headless pipeline. Only the image size is kept; the pixel data
+ * is dropped since nothing is ever drawn.
+ */
+class HeadlessRendererImage extends RendererImage {
+    /**
+     * Create an image reference.
+     * 
+     * @param imguid The internal image uid.
+     * @param w Image width.
+     * @param h Image height.
+     */
+    HeadlessRendererImage(long imguid, int w, int h) {
+        super(imguid, w, h);
+    }
+
+    /**
+     * Copy this image reference.
+     */
+    @Override
+    @SuppressWarnings("removal")
+    @Deprecated(since="v0.5.2.3", forRemoval=true)
+    public RendererImage copy() {
+        return new HeadlessRendererImage(this.imguid, this.w, this.h);
+    }
+
+    /**
+     * The headless pipeline does not keep pixel data.
+     */
+    @Override
+    public BufferedImage getTexture() {
+        throw new UnsupportedOperationException("Headless images have no texture data!");
+    }
+
+    /**
+     * Headless images are never freed, so there is nothing to unlink.
+     */
+    @Override
+    protected void unlink() {}
+}
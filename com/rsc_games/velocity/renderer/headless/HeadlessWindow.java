@@ -0,0 +1,70 @@
+package com.rsc_games.velocity.renderer.headless;
+
+import com.rsc_games.velocity.renderer.window.Window;
+import com.rsc_games.velocity.sprite.Camera;
+import com.rsc_games.velocity.util.Point;
+
+/**
+ * Window stand in for the headless pipeline. Never shown; the pointer location is set
+ * by whatever is driving the engine (usually the input replay).
+ */
+public class HeadlessWindow implements Window {
+    /**
+     * The window resolution.
+     */
+    private final Point resolution;
+
+    /**
+     * The current pointer location.
+     */
+    private Point pointer = new Point(0, 0);
+
+    /**
+     * Create a headless window.
+     * 
+     * @param resolution The resolution to report.
+     */
+    HeadlessWindow(Point resolution) {
+        this.resolution = resolution;
+        Camera.res = new Point(resolution.x, resolution.y);
+    }
+
+    /**
+     * Move the pointer.
+     * 
+     * @param x Pointer x position.
+     * @param y Pointer y position.
+     */
+    public void setPointerLocation(int x, int y) {
+        this.pointer = new Point(x, y);
+    }
+
+    @Override
+    public Point getResolution() {
+        return this.resolution;
+    }
+
+    @Override
+    public Point getVirtualResolution() {
+        return this.resolution;
+    }
+
+    @Override
+    public Point getPosition() {
+        return new Point(0, 0);
+    }
+
+    @Override
+    public Point getPointerLocation() {
+        return this.pointer;
+    }
+
+    @Override
+    public void enterFullScreen() {}
+
+    @Override
+    public void exitFullScreen() {}
+
+    @Override
+    public void setVisible(boolean state) {}
+}
@@ -0,0 +1,294 @@
+package com.rsc_games.velocity.scene;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import com.rsc_games.velocity.InvalidSceneException;
+import com.rsc_games.velocity.sprite.Sprite;
+import com.rsc_games.velocity.system.ResourceLoader;
+
+/**
+ * A data driven scene (usually a {@code .vscn} file written by {@code SceneFileWriter}).
+ * Holds every object's type, name, transform, image and custom properties in packed
+ * arrays; {@code createSprites()} turns them into sprites through the factories in
+ * {@code SceneObjectTypes}, without any reflection.
+ *
+ * Files on disk are memory mapped and every column is copied out in bulk. Layout
+ * (little endian, so columns copy out without byte swapping on common hardware):
+ * <pre>
+ *     int    magic ("VSCN")
+ *     ushort version
+ *     ushort reserved (0)
+ *     int    string count, object count, property count
+ *     int[]  object types, names, images (-1 for none), x, y, w, h
+ *     float[] object rotations
+ *     int[]  object scale x, scale y, sort orders, property ends
+ *     int[]  property keys, values (int or float bits, or a string index)
+ *     byte[] property kinds
+ *     strings (ushort UTF-8 length + bytes each)
+ * </pre>
+ * Names, images and property keys are string indices. An object's properties run from
+ * the previous object's property end up to its own.
+ */
+public class SceneFile {
+    /**
+     * File magic ("VSCN").
+     */
+    static final int MAGIC = 0x5653434e;
+
+    /**
+     * Current format version.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Header size (magic, version, reserved and the three counts).
+     */
+    static final int HEADER_SIZE = 20;
+
+    /**
+     * Bytes per object (twelve 4 byte columns), per property (two ints and a kind) and
+     * the least a string takes (its length).
+     */
+    static final int OBJECT_SIZE = 48;
+    static final int PROPERTY_SIZE = 9;
+    static final int MIN_STRING_SIZE = 2;
+
+    /**
+     * Property kinds.
+     */
+    static final byte P_INT = 0;
+    static final byte P_FLOAT = 1;
+    static final byte P_STRING = 2;
+
+    /**
+     * The string table.
+     */
+    final String[] strings;
+
+    /**
+     * Object columns.
+     */
+    final int[] type, name, image, x, y, w, h;
+    final float[] rotation;
+    final int[] scaleX, scaleY, sortOrder, propEnd;
+
+    /**
+     * Property columns.
+     */
+    final int[] propKey, propValue;
+    final byte[] propKind;
+
+    /**
+     * Parse a scene file.
+     *
+     * @param buf The file contents (from its current position).
+     * @param path File path (for errors).
+     */
+    private SceneFile(ByteBuffer buf, String path) {
+        buf = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC)
+            throw new InvalidSceneException(path + " is not a scene file!");
+        if (buf.getShort() != FORMAT_VERSION)
+            throw new InvalidSceneException(path + " was written by an unsupported Velocity version!");
+        buf.getShort();
+
+        int nStrings = buf.getInt();
+        int n = buf.getInt();
+        int nProps = buf.getInt();
+
+        // Check the counts before allocating anything, so a corrupt header can't ask
+        // for huge arrays.
+        if (nStrings < 0 || n < 0 || nProps < 0
+            || (long)n * OBJECT_SIZE + (long)nProps * PROPERTY_SIZE
+               + (long)nStrings * MIN_STRING_SIZE > buf.remaining())
+            throw new InvalidSceneException(path + " is truncated or corrupt! (bad counts: " + n 
+                                            + " objects, " + nProps + " properties, " + nStrings 
+                                            + " strings)");
+
+        try {
+            this.type = ints(buf, n);
+            this.name = ints(buf, n);
+            this.image = ints(buf, n);
+            this.x = ints(buf, n);
+            this.y = ints(buf, n);
+            this.w = ints(buf, n);
+            this.h = ints(buf, n);
+            this.rotation = new float[n];
+            buf.asFloatBuffer().get(rotation);
+            buf.position(buf.position() + n * 4);
+            this.scaleX = ints(buf, n);
+            this.scaleY = ints(buf, n);
+            this.sortOrder = ints(buf, n);
+            this.propEnd = ints(buf, n);
+
+            this.propKey = ints(buf, nProps);
+            this.propValue = ints(buf, nProps);
+            this.propKind = new byte[nProps];
+            buf.get(propKind);
+
+            this.strings = new String[nStrings];
+            byte[] tmp = new byte[256];
+            for (int i = 0; i < nStrings; i++) {
+                int len = buf.getShort() & 0xFFFF;
+                if (len > tmp.length)
+                    tmp = new byte[len];
+
+                buf.get(tmp, 0, len);
+                strings[i] = new String(tmp, 0, len, StandardCharsets.UTF_8);
+            }
+        }
+        catch (RuntimeException e) {
+            throw new InvalidSceneException(path + " is truncated or corrupt! (" + e + ")");
+        }
+
+        validate(path);
+    }
+
+    /**
+     * Check every index and kind in the file, so accessing objects can't fail later.
+     *
+     * @param path File path (for errors).
+     * @throws InvalidSceneException If anything is out of range.
+     */
+    private void validate(String path) {
+        int prevEnd = 0;
+
+        for (int i = 0; i < type.length; i++) {
+            if (type[i] < 0)
+                throw corrupt(path, "object " + i + " has type " + type[i]);
+            if (!isString(name[i]))
+                throw corrupt(path, "object " + i + " has name " + name[i]);
+            if (image[i] != -1 && !isString(image[i]))
+                throw corrupt(path, "object " + i + " has image " + image[i]);
+            if (propEnd[i] < prevEnd || propEnd[i] > propKey.length)
+                throw corrupt(path, "object " + i + " has property end " + propEnd[i]);
+
+            prevEnd = propEnd[i];
+        }
+
+        for (int i = 0; i < propKey.length; i++) {
+            if (!isString(propKey[i]))
+                throw corrupt(path, "property " + i + " has key " + propKey[i]);
+            if (propKind[i] < P_INT || propKind[i] > P_STRING)
+                throw corrupt(path, "property " + i + " has kind " + propKind[i]);
+            if (propKind[i] == P_STRING && !isString(propValue[i]))
+                throw corrupt(path, "property " + i + " has string " + propValue[i]);
+        }
+    }
+
+    /**
+     * Check a string index.
+     *
+     * @param i The index.
+     * @return Whether it's in the string table.
+     */
+    private boolean isString(int i) {
+        return i >= 0 && i < strings.length;
+    }
+
+    /**
+     * Create the error for an out of range value.
+     *
+     * @param path File path.
+     * @param what What's wrong.
+     * @return The exception.
+     */
+    private static InvalidSceneException corrupt(String path, String what) {
+        return new InvalidSceneException(path + " is corrupt! (" + what + ")");
+    }
+
+    /**
+     * Copy an int column out of the buffer.
+     *
+     * @param buf The buffer (advanced past the column).
+     * @param n Column length.
+     * @return The column.
+     */
+    private static int[] ints(ByteBuffer buf, int n) {
+        int[] out = new int[n];
+        buf.asIntBuffer().get(out);
+        buf.position(buf.position() + n * 4);
+        return out;
+    }
+
+    /**
+     * Load a scene file through the app resource loader. Plain files are memory
+     * mapped; anything else (like files in a JAR) is read into memory first.
+     *
+     * @param path The file path.
+     * @return The scene file.
+     * @throws InvalidSceneException If the file is missing or not a valid scene file.
+     */
+    public static SceneFile load(String path) {
+        ResourceLoader ldr = ResourceLoader.getAppLoader();
+        File f = ldr.getFile(path);
+
+        try {
+            if (f != null) {
+                try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+                    return new SceneFile(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()), path);
+                }
+            }
+
+            try (InputStream in = ldr.load(path)) {
+                return new SceneFile(ByteBuffer.wrap(in.readAllBytes()), path);
+            }
+        }
+        catch (IOException ie) {
+            throw new InvalidSceneException("Could not load scene file " + path + " (" + ie + ")");
+        }
+    }
+
+    /**
+     * Parse a scene file that's already in memory.
+     *
+     * @param buf The file contents (from its current position).
+     * @return The scene file.
+     * @throws InvalidSceneException If the data isn't a valid scene file.
+     */
+    public static SceneFile read(ByteBuffer buf) {
+        return new SceneFile(buf, "<buffer>");
+    }
+
+    /**
+     * Get the amount of objects in the file.
+     *
+     * @return The object count.
+     */
+    public int size() {
+        return type.length;
+    }
+
+    /**
+     * Create every object's sprite and append them to a list (sized up front). Objects
+     * whose factory returns null are skipped.
+     *
+     * @param out The list to add the sprites to (like the scene's sprite list).
+     * @throws InvalidSceneException If an object has an unregistered type.
+     */
+    public void createSprites(ArrayList<Sprite> out) {
+        out.ensureCapacity(out.size() + size());
+        SceneObject obj = new SceneObject(this);
+
+        for (int i = 0; i < size(); i++) {
+            SceneObjectFactory f = SceneObjectTypes.get(type[i]);
+            if (f == null)
+                throw new InvalidSceneException("Unknown scene object type " + type[i] + " (object "
+                                                + strings[name[i]] + ")! Register it in SceneObjectTypes.");
+
+            obj.index = i;
+            Sprite s = f.create(obj);
+            if (s != null)
+                out.add(s);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.rsc_games.velocity.scene;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * Builds scene files for {@code SceneFile} (for level editors and build tools). Add
+ * objects in order; property setters apply to the most recently added object.
+ * <pre>
+ *     SceneFileWriter w = new SceneFileWriter();
+ *     w.addObject(SceneObjectTypes.IMAGE_SPRITE, "Tree", new Transform(new Point(40, 80)), "tree.png");
+ *     w.addObject(TYPE_COIN, "Coin0", new Transform(new Point(90, 80)), "coin.png").setInt("value", 5);
+ *     w.write("levels/level1.vscn");
+ * </pre>
+ */
+public class SceneFileWriter {
+    /**
+     * String table (and the index of every string in it).
+     */
+    private final ArrayList<String> strings = new ArrayList<String>();
+    private final HashMap<String, Integer> stringIndex = new HashMap<String, Integer>();
+
+    /**
+     * Object columns.
+     */
+    private int[] type = new int[64], name = new int[64], image = new int[64];
+    private int[] x = new int[64], y = new int[64], w = new int[64], h = new int[64];
+    private float[] rotation = new float[64];
+    private int[] scaleX = new int[64], scaleY = new int[64], sortOrder = new int[64], propEnd = new int[64];
+    private int count = 0;
+
+    /**
+     * Property columns.
+     */
+    private int[] propKey = new int[64], propValue = new int[64];
+    private byte[] propKind = new byte[64];
+    private int propCount = 0;
+
+    /**
+     * Add an object.
+     *
+     * @param type The type ID (see {@code SceneObjectTypes}).
+     * @param name The sprite name.
+     * @param t The object transform.
+     * @param image Image path (or null).
+     * @return This writer (to set properties on the object).
+     */
+    public SceneFileWriter addObject(int type, String name, Transform t, String image) {
+        if (count == this.type.length) {
+            int cap = count * 2;
+            this.type = Arrays.copyOf(this.type, cap);
+            this.name = Arrays.copyOf(this.name, cap);
+            this.image = Arrays.copyOf(this.image, cap);
+            x = Arrays.copyOf(x, cap);
+            y = Arrays.copyOf(y, cap);
+            w = Arrays.copyOf(w, cap);
+            h = Arrays.copyOf(h, cap);
+            rotation = Arrays.copyOf(rotation, cap);
+            scaleX = Arrays.copyOf(scaleX, cap);
+            scaleY = Arrays.copyOf(scaleY, cap);
+            sortOrder = Arrays.copyOf(sortOrder, cap);
+            propEnd = Arrays.copyOf(propEnd, cap);
+        }
+
+        Rect r = t.location;
+        this.type[count] = type;
+        this.name[count] = intern(name);
+        this.image[count] = image != null ? intern(image) : -1;
+        x[count] = r.getCenterX();
+        y[count] = r.getCenterY();
+        w[count] = r.getW();
+        h[count] = r.getH();
+        rotation[count] = t.rotation;
+        scaleX[count] = t.scale.x;
+        scaleY[count] = t.scale.y;
+        sortOrder[count] = t.sortOrder;
+        propEnd[count] = propCount;
+        count++;
+        return this;
+    }
+
+    /**
+     * Set an integer property on the last added object.
+     *
+     * @param key The property name.
+     * @param value The value.
+     * @return This writer.
+     */
+    public SceneFileWriter setInt(String key, int value) {
+        return addProperty(key, SceneFile.P_INT, value);
+    }
+
+    /**
+     * Set a float property on the last added object.
+     *
+     * @param key The property name.
+     * @param value The value.
+     * @return This writer.
+     */
+    public SceneFileWriter setFloat(String key, float value) {
+        return addProperty(key, SceneFile.P_FLOAT, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Set a string property on the last added object.
+     *
+     * @param key The property name.
+     * @param value The value.
+     * @return This writer.
+     */
+    public SceneFileWriter setString(String key, String value) {
+        return addProperty(key, SceneFile.P_STRING, intern(value));
+    }
+
+    /**
+     * Append a property to the last object.
+     *
+     * @param key The property name.
+     * @param kind Property kind.
+     * @param value Encoded value.
+     * @return This writer.
+     */
+    private SceneFileWriter addProperty(String key, byte kind, int value) {
+        if (count == 0)
+            throw new IllegalStateException("Add an object before setting properties!");
+
+        if (propCount == propKey.length) {
+            propKey = Arrays.copyOf(propKey, propCount * 2);
+            propValue = Arrays.copyOf(propValue, propCount * 2);
+            propKind = Arrays.copyOf(propKind, propCount * 2);
+        }
+
+        propKey[propCount] = intern(key);
+        propKind[propCount] = kind;
+        propValue[propCount] = value;
+        propEnd[count - 1] = ++propCount;
+        return this;
+    }
+
+    /**
+     * Get a string's index in the string table, adding it if needed.
+     *
+     * @param s The string.
+     * @return The index.
+     */
+    private int intern(String s) {
+        Integer i = stringIndex.get(s);
+        if (i != null)
+            return i;
+
+        if (s.getBytes(StandardCharsets.UTF_8).length > 0xFFFF)
+            throw new IllegalArgumentException("Scene file strings must be under 64 kB!");
+
+        stringIndex.put(s, strings.size());
+        strings.add(s);
+        return strings.size() - 1;
+    }
+
+    /**
+     * Encode the scene file.
+     *
+     * @return The file contents (flipped, ready to read).
+     */
+    public ByteBuffer toBuffer() {
+        byte[][] utf = new byte[strings.size()][];
+        int stringBytes = 0;
+        for (int i = 0; i < utf.length; i++) {
+            utf[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            stringBytes += 2 + utf[i].length;
+        }
+
+        int size = SceneFile.HEADER_SIZE + count * SceneFile.OBJECT_SIZE + propCount * SceneFile.PROPERTY_SIZE
+                   + stringBytes;
+        ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+
+        buf.putInt(SceneFile.MAGIC);
+        buf.putShort((short)SceneFile.FORMAT_VERSION);
+        buf.putShort((short)0);
+        buf.putInt(strings.size());
+        buf.putInt(count);
+        buf.putInt(propCount);
+
+        for (int[] col : new int[][] {type, name, image, x, y, w, h})
+            putInts(buf, col, count);
+        buf.asFloatBuffer().put(rotation, 0, count);
+        buf.position(buf.position() + count * 4);
+        for (int[] col : new int[][] {scaleX, scaleY, sortOrder, propEnd})
+            putInts(buf, col, count);
+
+        putInts(buf, propKey, propCount);
+        putInts(buf, propValue, propCount);
+        buf.put(propKind, 0, propCount);
+
+        for (byte[] s : utf) {
+            buf.putShort((short)s.length);
+            buf.put(s);
+        }
+
+        return buf.flip();
+    }
+
+    /**
+     * Write a column.
+     *
+     * @param buf The output buffer (advanced past the column).
+     * @param col The column.
+     * @param n Entries to write.
+     */
+    private static void putInts(ByteBuffer buf, int[] col, int n) {
+        buf.asIntBuffer().put(col, 0, n);
+        buf.position(buf.position() + n * 4);
+    }
+
+    /**
+     * Write the scene file to disk.
+     *
+     * @param path The output path.
+     * @throws IOException If the file can't be written.
+     */
+    public void write(String path) throws IOException {
+        ByteBuffer buf = toBuffer();
+
+        try (FileOutputStream out = new FileOutputStream(path)) {
+            out.getChannel().write(buf);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.rsc_games.velocity.scene;
+
+import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * The scene file object a {@code SceneObjectFactory} is creating a sprite for. A view
+ * into the file's packed arrays that is moved from object to object, so it is only
+ * valid during the {@code create()} call and must not be kept.
+ */
+public final class SceneObject {
+    /**
+     * The scene file.
+     */
+    private final SceneFile file;
+
+    /**
+     * Current object.
+     */
+    int index;
+
+    /**
+     * Create a view into a scene file.
+     *
+     * @param file The scene file.
+     */
+    SceneObject(SceneFile file) {
+        this.file = file;
+    }
+
+    /**
+     * Get the object's type ID.
+     *
+     * @return The type ID.
+     */
+    public int getType() {
+        return file.type[index];
+    }
+
+    /**
+     * Get the object's name.
+     *
+     * @return The sprite name.
+     */
+    public String getName() {
+        return file.strings[file.name[index]];
+    }
+
+    /**
+     * Get the object's image path.
+     *
+     * @return The image path (null if the object has none).
+     */
+    public String getImage() {
+        int i = file.image[index];
+        return i >= 0 ? file.strings[i] : null;
+    }
+
+    /**
+     * Create a new transform for the object (every sprite needs its own).
+     *
+     * @return The transform.
+     */
+    public Transform getTransform() {
+        return new Transform(new Rect(file.x[index], file.y[index], file.w[index], file.h[index]),
+                             file.rotation[index], new Point(file.scaleX[index], file.scaleY[index]),
+                             file.sortOrder[index]);
+    }
+
+    /**
+     * Get the object's position.
+     *
+     * @return The center position.
+     */
+    public Point getPos() {
+        return new Point(file.x[index], file.y[index]);
+    }
+
+    /**
+     * Find one of the object's properties.
+     *
+     * @param key The property name.
+     * @return The property index (-1 if the object doesn't have it).
+     */
+    private int find(String key) {
+        int end = file.propEnd[index];
+        int start = index > 0 ? file.propEnd[index - 1] : 0;
+
+        for (int i = start; i < end; i++) {
+            if (file.strings[file.propKey[i]].equals(key))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the object has a property.
+     *
+     * @param key The property name.
+     * @return If the property is set.
+     */
+    public boolean hasProperty(String key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Get an integer property.
+     *
+     * @param key The property name.
+     * @param def Value if the property isn't set.
+     * @return The value (float properties are truncated).
+     * @throws IllegalArgumentException If the property is a string.
+     */
+    public int getInt(String key, int def) {
+        int i = find(key);
+        if (i < 0)
+            return def;
+
+        switch (file.propKind[i]) {
+            case SceneFile.P_INT: return file.propValue[i];
+            case SceneFile.P_FLOAT: return (int)Float.intBitsToFloat(file.propValue[i]);
+            default: throw new IllegalArgumentException("Property " + key + " of " + getName() + " is not a number!");
+        }
+    }
+
+    /**
+     * Get a float property.
+     *
+     * @param key The property name.
+     * @param def Value if the property isn't set.
+     * @return The value.
+     * @throws IllegalArgumentException If the property is a string.
+     */
+    public float getFloat(String key, float def) {
+        int i = find(key);
+        if (i < 0)
+            return def;
+
+        switch (file.propKind[i]) {
+            case SceneFile.P_INT: return file.propValue[i];
+            case SceneFile.P_FLOAT: return Float.intBitsToFloat(file.propValue[i]);
+            default: throw new IllegalArgumentException("Property " + key + " of " + getName() + " is not a number!");
+        }
+    }
+
+    /**
+     * Get a string property.
+     *
+     * @param key The property name.
+     * @param def Value if the property isn't set.
+     * @return The value (numbers are converted).
+     */
+    public String getString(String key, String def) {
+        int i = find(key);
+        if (i < 0)
+            return def;
+
+        switch (file.propKind[i]) {
+            case SceneFile.P_INT: return Integer.toString(file.propValue[i]);
+            case SceneFile.P_FLOAT: return Float.toString(Float.intBitsToFloat(file.propValue[i]));
+            default: return file.strings[file.propValue[i]];
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.rsc_games.velocity.scene;
+
+import com.rsc_games.velocity.sprite.Sprite;
+
+/**
+ * Creates the sprite for one type of scene file object. Registered with
+ * {@code SceneObjectTypes}. Usually just a constructor reference wrapped in a lambda:
+ * <pre>
+ *     SceneObjectTypes.register(TYPE_COIN, o -> new Coin(o.getTransform(), o.getName(), o.getInt("value", 1)));
+ * </pre>
+ */
+@FunctionalInterface
+public interface SceneObjectFactory {
+    /**
+     * Create the sprite for an object. May be called on a scene preload thread.
+     *
+     * @param obj The object (only valid during this call).
+     * @return The sprite (or null to skip the object).
+     */
+    public Sprite create(SceneObject obj);
+}
@@ -0,0 +1,61 @@
+package com.rsc_games.velocity.scene;
+
+import java.util.Arrays;
+
+import com.rsc_games.velocity.sprite.ImageSprite;
+
+/**
+ * Registry mapping scene file type IDs to the factories creating their sprites. Games
+ * register their types before loading any scene files (for example in their
+ * {@code GlobalSceneDefs} constructor). IDs below {@code FIRST_USER_TYPE} are reserved
+ * for Velocity's own sprites.
+ */
+public class SceneObjectTypes {
+    /**
+     * Built in types.
+     */
+    public static final int IMAGE_SPRITE = 0;
+
+    /**
+     * First ID available to games.
+     */
+    public static final int FIRST_USER_TYPE = 64;
+
+    /**
+     * Factories indexed by type ID.
+     */
+    private static volatile SceneObjectFactory[] factories = new SceneObjectFactory[FIRST_USER_TYPE * 2];
+
+    static {
+        register(IMAGE_SPRITE, o -> new ImageSprite(o.getTransform(), o.getName(), o.getImage()));
+    }
+
+    /**
+     * Register (or replace) the factory for a type.
+     *
+     * @param type The type ID (non negative, kept small since the registry is an array).
+     * @param factory The factory.
+     */
+    public static synchronized void register(int type, SceneObjectFactory factory) {
+        if (type < 0)
+            throw new IllegalArgumentException("Scene object type IDs must not be negative!");
+
+        SceneObjectFactory[] f = factories;
+        if (type >= f.length)
+            f = Arrays.copyOf(f, Math.max(type + 1, f.length * 2));
+
+        f[type] = factory;
+        factories = f;
+    }
+
+    /**
+     * Get the factory for a type.
+     *
+     * @param type The type ID.
+     * @return The factory (null if the type isn't registered).
+     */
+    public static SceneObjectFactory get(int type) {
+        SceneObjectFactory[] f = factories;
+        return type >= 0 && type < f.length ? f[type] : null;
+    }
+}
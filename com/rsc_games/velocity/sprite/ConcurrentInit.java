@@ -0,0 +1,12 @@
+package com.rsc_games.velocity.sprite;
+
+/**
+ * Informs Velocity that the implementer's {@code onInit()} is thread safe, so the scene
+ * may initialize it on a worker thread in parallel with other such sprites (like sprites
+ * that only fetch their assets at init).
+ *
+ * A concurrent init must not touch the scene (no adding or removing sprites, no looking
+ * up other sprites) or any other shared state that isn't thread safe. Image loading is
+ * fine. These sprites are initialized before every other sprite in the scene.
+ */
+public interface ConcurrentInit {}
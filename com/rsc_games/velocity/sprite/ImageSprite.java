@@ -17,6 +17,12 @@ public class ImageSprite extends Renderable {
      */
     protected RendererImage img;
 
+    /**
+     * The image this sprite loaded itself (released when the sprite is deleted).
+     * Images passed in by the caller stay the caller's.
+     */
+    private RendererImage ownedImg;
+
     /**
      * Create an image sprite.
      * 
@@ -30,7 +36,7 @@ public class ImageSprite extends Renderable {
 
         // Only load an image if provided
         if (image != null) {
-            this.img = ImageLoader.loadImage(image);
+            this.img = this.ownedImg = ImageLoader.loadImage(image);
             this.transform.updateRect(new Point(img.getWidth(), img.getHeight()));
         }
     }
@@ -75,6 +81,16 @@ public class ImageSprite extends Renderable {
         //fb.blit(this.img, info);
     }
 
+    /**
+     * Release the image this sprite loaded.
+     */
+    @Override
+    protected void releaseResources() {
+        if (ownedImg != null)
+            ownedImg.release();
+        super.releaseResources();
+    }
+
     /**
      * Get the renderer image this sprite uses.
      * 
@@ -0,0 +1,382 @@
+package com.rsc_games.velocity.sprite;
+
+import java.util.SplittableRandom;
+
+import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.renderer.DrawInfo;
+import com.rsc_games.velocity.renderer.FrameBuffer;
+import com.rsc_games.velocity.renderer.ParticleBatch;
+import com.rsc_games.velocity.renderer.RendererImage;
+import com.rsc_games.velocity.system.ImageLoader;
+import com.rsc_games.velocity.util.Counter;
+import com.rsc_games.velocity.util.GlobalRandom;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * A particle effect drawn as one sprite. Particles aren't sprites: each is a slot in a
+ * set of arrays allocated once (position, velocity, life, size, rotation, color and
+ * image frame, one array per field), so emitting, simulating and drawing them
+ * allocates nothing. Dead particles are replaced by the last live one, so the live
+ * particles always fill the front of the arrays.
+ *
+ * New particles spawn anywhere inside the emitter rect (set its size with
+ * {@code transform.updateRect()}; the default is a single point) with a random
+ * lifetime, speed, direction, size and spin from the configured ranges. Particles
+ * are simulated in world space, so moving the emitter doesn't drag live ones along.
+ * <pre>
+ *     ParticleEmitter sparks = new ParticleEmitter(new Transform(new Point(200, 300)), "Sparks", "spark.png", 2000);
+ *     sparks.setRate(400).setLifetime(0.5f, 1.2f).setSpeed(80, 160).setDirection(-90, 30).setGravity(0, 300);
+ * </pre>
+ */
+public class ParticleEmitter extends Renderable {
+    /**
+     * Longest step {@code onTick()} simulates (in seconds), so a stall doesn't throw
+     * every particle across the screen.
+     */
+    private static final float MAX_STEP = 0.1f;
+
+    /**
+     * Particle capacity.
+     */
+    public final int capacity;
+
+    /**
+     * Particle state. Particle i lives at index i of every array.
+     */
+    private final float[] x, y, vx, vy;
+    private final float[] life, lifetime;
+    private final float[] size, rotation, spin;
+    private final int[] color;
+    private final short[] frame;
+    private int count = 0;
+
+    /**
+     * What the renderer draws (wraps the arrays above).
+     */
+    private final ParticleBatch batch;
+
+    /**
+     * The particle image if this emitter loaded it (released when the emitter is deleted).
+     */
+    private RendererImage ownedImg;
+
+    /**
+     * Emission settings.
+     */
+    private float rate = 0f, pending = 0f;
+    private float lifeMin = 1f, lifeMax = 1f;
+    private float speedMin = 0f, speedMax = 0f;
+    private float direction = 0f, spread = 180f;
+    private float sizeMin = 8f, sizeMax = 8f;
+    private float spinMin = 0f, spinMax = 0f;
+    private float gravityX = 0f, gravityY = 0f;
+    private int baseColor = 0xFFFFFFFF;
+    private boolean fadeOut = true;
+
+    /**
+     * Random source (seeded from {@code GlobalRandom}). Since {@code onTick()} steps by
+     * wall clock time, spawns only repeat exactly when {@code update()} is driven with a
+     * fixed step.
+     */
+    private final SplittableRandom random = new SplittableRandom(GlobalRandom.randint(0, Integer.MAX_VALUE));
+
+    /**
+     * Time since the last tick.
+     */
+    private final Counter clock = new Counter();
+
+    /**
+     * Create a particle emitter.
+     *
+     * @param transform The emitter position (and spawn area).
+     * @param name The name of the emitter.
+     * @param image The particle image path.
+     * @param capacity Most particles alive at once.
+     */
+    public ParticleEmitter(Transform transform, String name, String image, int capacity) {
+        this(transform, name, ImageLoader.loadImage(image), 1, capacity);
+        this.ownedImg = batch.image;
+    }
+
+    /**
+     * Create a particle emitter with an already loaded image (which stays the caller's).
+     *
+     * @param transform The emitter position (and spawn area).
+     * @param name The name of the emitter.
+     * @param image The particle image.
+     * @param frames Frames side by side in the image (each particle shows a random one).
+     * @param capacity Most particles alive at once.
+     */
+    public ParticleEmitter(Transform transform, String name, RendererImage image, int frames, int capacity) {
+        super(transform, name);
+
+        if (capacity <= 0 || frames <= 0)
+            throw new IllegalArgumentException("Particle emitters need a positive capacity and frame count!");
+
+        this.capacity = capacity;
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.vx = new float[capacity];
+        this.vy = new float[capacity];
+        this.life = new float[capacity];
+        this.lifetime = new float[capacity];
+        this.size = new float[capacity];
+        this.rotation = new float[capacity];
+        this.spin = new float[capacity];
+        this.color = new int[capacity];
+        this.frame = new short[capacity];
+        this.batch = new ParticleBatch(image, frames, x, y, size, rotation, color, frame);
+    }
+
+    /**
+     * Set the continuous emission rate.
+     *
+     * @param perSecond Particles emitted per second (0 to only emit bursts).
+     * @return This emitter.
+     */
+    public ParticleEmitter setRate(float perSecond) {
+        this.rate = perSecond;
+        return this;
+    }
+
+    /**
+     * Set the particle lifetime range.
+     *
+     * @param min Shortest lifetime (in seconds).
+     * @param max Longest lifetime (in seconds).
+     * @return This emitter.
+     */
+    public ParticleEmitter setLifetime(float min, float max) {
+        this.lifeMin = min;
+        this.lifeMax = max;
+        return this;
+    }
+
+    /**
+     * Set the initial speed range.
+     *
+     * @param min Lowest speed (in pixels per second).
+     * @param max Highest speed (in pixels per second).
+     * @return This emitter.
+     */
+    public ParticleEmitter setSpeed(float min, float max) {
+        this.speedMin = min;
+        this.speedMax = max;
+        return this;
+    }
+
+    /**
+     * Set the emission direction.
+     *
+     * @param angle Center direction (in degrees, 0 is right, 90 is down).
+     * @param spread Most a particle may deviate from it either way (in degrees).
+     * @return This emitter.
+     */
+    public ParticleEmitter setDirection(float angle, float spread) {
+        this.direction = angle;
+        this.spread = spread;
+        return this;
+    }
+
+    /**
+     * Set the particle size range.
+     *
+     * @param min Smallest size (in pixels).
+     * @param max Largest size (in pixels).
+     * @return This emitter.
+     */
+    public ParticleEmitter setSize(float min, float max) {
+        this.sizeMin = min;
+        this.sizeMax = max;
+        return this;
+    }
+
+    /**
+     * Set the particle spin range.
+     *
+     * @param min Slowest spin (in degrees per second).
+     * @param max Fastest spin (in degrees per second).
+     * @return This emitter.
+     */
+    public ParticleEmitter setSpin(float min, float max) {
+        this.spinMin = min;
+        this.spinMax = max;
+        return this;
+    }
+
+    /**
+     * Set the acceleration applied to every particle.
+     *
+     * @param ax X acceleration (in pixels per second squared).
+     * @param ay Y acceleration (in pixels per second squared).
+     * @return This emitter.
+     */
+    public ParticleEmitter setGravity(float ax, float ay) {
+        this.gravityX = ax;
+        this.gravityY = ay;
+        return this;
+    }
+
+    /**
+     * Set the particle color.
+     *
+     * @param argb The color (renderers may only use the alpha).
+     * @param fadeOut Whether particles fade out over their lifetime.
+     * @return This emitter.
+     */
+    public ParticleEmitter setColor(int argb, boolean fadeOut) {
+        this.baseColor = argb;
+        this.fadeOut = fadeOut;
+        return this;
+    }
+
+    /**
+     * Emit particles right away. Particles past the capacity are dropped.
+     *
+     * @param n Particles to emit.
+     */
+    public void burst(int n) {
+        Rect r = transform.location;
+        int rgb = baseColor & 0xFFFFFF, alpha = baseColor >>> 24;
+        n = Math.min(n, capacity - count);
+
+        for (int k = 0; k < n; k++) {
+            int i = count++;
+            double angle = Math.toRadians(direction + (random.nextDouble() * 2 - 1) * spread);
+            float speed = range(speedMin, speedMax);
+
+            x[i] = r.getDrawX() + (float)random.nextDouble() * r.getW();
+            y[i] = r.getDrawY() + (float)random.nextDouble() * r.getH();
+            vx[i] = (float)Math.cos(angle) * speed;
+            vy[i] = (float)Math.sin(angle) * speed;
+            life[i] = lifetime[i] = range(lifeMin, lifeMax);
+            size[i] = range(sizeMin, sizeMax);
+            rotation[i] = (float)random.nextDouble() * 360f;
+            spin[i] = range(spinMin, spinMax);
+            color[i] = (alpha << 24) | rgb;
+            frame[i] = (short)random.nextInt(batch.frames);
+        }
+    }
+
+    /**
+     * Pick a random value in a range.
+     *
+     * @param min Lower bound.
+     * @param max Upper bound.
+     * @return The value.
+     */
+    private float range(float min, float max) {
+        return min + (float)random.nextDouble() * (max - min);
+    }
+
+    /**
+     * Simulate every live particle, remove the dead ones and emit new ones. Called by
+     * {@code onTick()} with the time since the last tick; call it directly to drive the
+     * emitter with a fixed step instead.
+     *
+     * @param dt Time step (in seconds).
+     */
+    public void update(float dt) {
+        float gx = gravityX * dt, gy = gravityY * dt;
+        int n = count;
+
+        // One pass over flat arrays with no branches, so the JIT can vectorize it.
+        for (int i = 0; i < n; i++) {
+            vx[i] += gx;
+            vy[i] += gy;
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+            rotation[i] += spin[i] * dt;
+            life[i] -= dt;
+        }
+
+        // Replace dead particles with the last live one.
+        for (int i = 0; i < n;) {
+            if (life[i] > 0f) {
+                i++;
+                continue;
+            }
+
+            n--;
+            x[i] = x[n];
+            y[i] = y[n];
+            vx[i] = vx[n];
+            vy[i] = vy[n];
+            life[i] = life[n];
+            lifetime[i] = lifetime[n];
+            size[i] = size[n];
+            rotation[i] = rotation[n];
+            spin[i] = spin[n];
+            color[i] = color[n];
+            frame[i] = frame[n];
+        }
+        count = n;
+
+        if (fadeOut) {
+            int rgb = baseColor & 0xFFFFFF, alpha = baseColor >>> 24;
+            for (int i = 0; i < n; i++)
+                color[i] = ((int)(alpha * (life[i] / lifetime[i])) << 24) | rgb;
+        }
+
+        pending += rate * dt;
+        int spawn = (int)pending;
+        pending -= spawn;
+        burst(spawn);
+    }
+
+    /**
+     * Advance the particles by the time since the last tick.
+     */
+    @Override
+    protected void onTick() {
+        update(Math.min(clock.tick() / 1e9f, MAX_STEP));
+    }
+
+    /**
+     * Restart the tick clock, so the first tick doesn't simulate the time spent loading.
+     */
+    @Override
+    protected void onInit() {
+        clock.tick();
+    }
+
+    /**
+     * Draw every live particle as one draw.
+     *
+     * @param d Draw transform (the emitter rect in screen space).
+     * @param fb Rendering framebuffer.
+     */
+    @Override
+    public void render(DrawInfo d, FrameBuffer fb) {
+        // World to screen offset, taken from how the emitter rect was moved.
+        Rect r = d.drawRect;
+        batch.set(count, r.getDrawX() - transform.location.getDrawX(), r.getDrawY() - transform.location.getDrawY());
+        fb.drawParticles(batch, d.drawLayer);
+    }
+
+    /**
+     * Remove every live particle.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Get the amount of live particles.
+     *
+     * @return The particle count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Release the particle image if this emitter loaded it.
+     */
+    @Override
+    protected void releaseResources() {
+        if (ownedImg != null)
+            ownedImg.release();
+        super.releaseResources();
+    }
+}
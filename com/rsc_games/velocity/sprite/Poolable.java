@@ -0,0 +1,19 @@
+package com.rsc_games.velocity.sprite;
+
+/**
+ * Informs Velocity that the implementer can be recycled by {@code Scene.spawn()} and
+ * {@code Scene.despawn()} instead of being allocated for every spawn (bullets, pickups,
+ * enemies and the like).
+ *
+ * A despawned sprite goes through {@code onDeleted()} like a removed one but keeps its
+ * resources (like its image) in the pool. When it's spawned again, {@code onReuse()}
+ * runs first, then the spawn's setup (if any), then {@code onInit()} as usual. The
+ * transform still holds the previous life's location in {@code onReuse()}.
+ */
+public interface Poolable {
+    /**
+     * Reset the sprite's own state (health, velocity, timers...) to how a fresh
+     * instance starts out. Called right before the sprite is spawned again.
+     */
+    public void onReuse();
+}
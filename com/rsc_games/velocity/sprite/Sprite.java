@@ -1,10 +1,13 @@
 package com.rsc_games.velocity.sprite;
 
+import com.rsc_games.velocity.Rect;
 import com.rsc_games.velocity.renderer.DrawInfo;
 import com.rsc_games.velocity.renderer.FrameBuffer;
 import com.rsc_games.velocity.util.Logger;
 
 import com.rsc_games.velocity.util.MemTracerUtil;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.ResourceCleaner;
 import com.rsc_games.velocity.util.Transform;
 
 import com.rsc_games.velocity.config.GlobalAppConfig;
@@ -44,6 +47,17 @@ public abstract class Sprite {
      */
     public final String name;
 
+    /**
+     * Draw info the scene reuses to render this sprite every frame. Only rebuilt
+     * when the rotation or sort layer changes, since those are final in DrawInfo.
+     */
+    private DrawInfo drawInfo;
+
+    /**
+     * This sprite's slot in its scene's render grid (-1 if it isn't in one).
+     */
+    private int renderSlot = -1;
+
     /**
      * Create a sprite.
      * 
@@ -58,6 +72,40 @@ public abstract class Sprite {
 
         if (GlobalAppConfig.bcfg.LOG_MEMORY)
             MemTracerUtil.trackSprite(this);
+
+        // Report collection without a finalizer (the action must not reference this).
+        if (GlobalAppConfig.bcfg.LOG_GC || GlobalAppConfig.bcfg.LOG_MEMORY) {
+            String sname = name, cls = getClass().getSimpleName();
+            ResourceCleaner.onCollected(this, () -> {
+                if (GlobalAppConfig.bcfg.LOG_GC)
+                    Logger.log("velocity.Scene.gc", "Sprite " + sname + " GC'd!");
+
+                if (GlobalAppConfig.bcfg.LOG_MEMORY)
+                    MemTracerUtil.removeTracking(cls);
+            });
+        }
+    }
+
+    /**
+     * Internal. Get this sprite's render draw info for this frame, updated in place from
+     * the transform and moved by the given camera offset. Only valid until the next
+     * frame is rendered.
+     * 
+     * @param camX Camera top left X location.
+     * @param camY Camera top left Y location.
+     * @return The draw info.
+     */
+    public DrawInfo INTERNAL_getDrawInfo(int camX, int camY) {
+        DrawInfo d = this.drawInfo;
+
+        if (d == null || d.rot != transform.rotation || d.drawLayer != transform.sortOrder)
+            d = this.drawInfo = new DrawInfo(new Rect(0, 0, 0, 0), transform.rotation, 
+                                             new Point(transform.scale), transform.sortOrder);
+
+        d.drawRect.setTo(transform.location);
+        d.drawRect.translate(-camX, -camY);
+        d.scale.setTo(transform.scale);
+        return d;
     }
 
     public State getCurrentState() {
@@ -127,8 +175,67 @@ public abstract class Sprite {
 
         this.currentState = State.DELETED;
         onDeleted();
+        releaseResources();
+    }
+
+    /**
+     * Internal. Get this sprite's slot in its scene's render grid.
+     * 
+     * @return The slot (-1 if it isn't in a render grid).
+     */
+    public int INTERNAL_getRenderSlot() {
+        return this.renderSlot;
+    }
+
+    /**
+     * Internal. Set this sprite's slot in its scene's render grid.
+     * 
+     * @param slot The slot (-1 once removed).
+     */
+    public void INTERNAL_setRenderSlot(int slot) {
+        this.renderSlot = slot;
+    }
+
+    /**
+     * Internal. Despawn a {@code Poolable} sprite into its scene's pool: it's deleted
+     * ({@code onDeleted()} runs) but keeps its resources for the next spawn.
+     */
+    public final void INTERNAL_pool() {
+        if (!(this instanceof Poolable))
+            throw new IllegalStateException("Cannot pool sprite " + name + " (not Poolable)!");
+        if (hasReachedState(State.DELETED))
+            throw new IllegalStateException("Cannot re-delete sprite " + name + "!");
+
+        this.currentState = State.DELETED;
+        onDeleted();
+    }
+
+    /**
+     * Internal. Bring a pooled (or prewarmed, never initialized) sprite back for
+     * another spawn. It can be initialized again afterwards.
+     */
+    public final void INTERNAL_reuse() {
+        if (!(this instanceof Poolable) || this.currentState == State.ACTIVE)
+            throw new IllegalStateException("Cannot reuse sprite " + name + " (not pooled)!");
+
+        this.currentState = State.PREINIT;
+        ((Poolable)this).onReuse();
     }
 
+    /**
+     * Internal. Release the resources of a pooled sprite that won't be spawned again.
+     */
+    public final void INTERNAL_releasePooled() {
+        releaseResources();
+    }
+
+    /**
+     * Release engine resources this sprite created itself (like loaded images). Runs
+     * right after {@code onDeleted()}. Subclasses holding resources override this and
+     * must call {@code super.releaseResources()}.
+     */
+    protected void releaseResources() {}
+
     /**
      * Event callback. Invoked when the sprite in question is deleted either by the engine
      * or externally.
@@ -142,16 +249,4 @@ public abstract class Sprite {
      * @param info The draw transform.
      */
     public void DEBUG_render(FrameBuffer fb, DrawInfo info) {}
-
-    /**
-     * If memory tracking is active, remove this sprite from the memory tracker system.
-     */
-    protected void finalize() throws Throwable {
-        super.finalize();
-        if (GlobalAppConfig.bcfg.LOG_GC)
-            Logger.log("velocity.Scene.gc", "Sprite " + name + " GC'd!");
-
-        if (GlobalAppConfig.bcfg.LOG_MEMORY)
-            MemTracerUtil.removeTracking(this);
-    }
 }
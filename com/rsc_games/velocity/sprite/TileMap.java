@@ -0,0 +1,354 @@
+package com.rsc_games.velocity.sprite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.rsc_games.velocity.Rect;
+import com.rsc_games.velocity.renderer.DrawInfo;
+import com.rsc_games.velocity.renderer.FrameBuffer;
+import com.rsc_games.velocity.renderer.RendererImage;
+import com.rsc_games.velocity.renderer.TileBatch;
+import com.rsc_games.velocity.sprite.collision.Collidable;
+import com.rsc_games.velocity.system.ImageLoader;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * A grid of same sized tiles drawn and collided as one sprite. Made for tile levels
+ * that would otherwise take one {@code ImageSprite} or {@code RectCollider} per tile.
+ *
+ * Tiles are stored as a tile type ID per cell ({@code EMPTY} or a type from
+ * {@code addTile()}), in chunks of {@code CHUNK_SIZE} by {@code CHUNK_SIZE} cells that
+ * are only allocated once something is placed in them. Each chunk keeps its drawable
+ * tiles prebaked in a {@code TileBatch} (rebuilt when the chunk changes), and only the
+ * chunks on screen are drawn, each as a single drawcall.
+ *
+ * Tile maps are collidables: dynamic sprites collide with the solid tiles directly
+ * (see {@code solidOverlaps()}) instead of the whole map rect. The map is positioned
+ * by its center like every other sprite; rotation and scale are ignored.
+ * <pre>
+ *     TileMap map = new TileMap(new Transform(new Point(8000, 8000)), "Level", 500, 500, 32, 32);
+ *     int wall = map.addTile("wall.png", true);
+ *     int grass = map.addTile("grass.png", false);
+ *     map.setTile(0, 0, wall);
+ * </pre>
+ */
+public class TileMap extends Renderable implements Collidable {
+    /**
+     * Chunk width and height (in tiles).
+     */
+    public static final int CHUNK_SIZE = 32;
+
+    /**
+     * The empty tile type (draws nothing and isn't solid).
+     */
+    public static final int EMPTY = 0;
+
+    /**
+     * Map size (in tiles).
+     */
+    public final int width;
+    public final int height;
+
+    /**
+     * Tile size (in pixels).
+     */
+    public final int tileW;
+    public final int tileH;
+
+    /**
+     * Map size (in chunks).
+     */
+    private final int chunksX;
+    private final int chunksY;
+
+    /**
+     * Chunks, row by row (null until a tile is placed in them).
+     */
+    private final Chunk[] chunks;
+
+    /**
+     * Image and solidity of each tile type (type 0 is {@code EMPTY}).
+     */
+    private RendererImage[] images = new RendererImage[8];
+    private boolean[] solid = new boolean[8];
+    private int tileTypes = 1;
+
+    /**
+     * Images this map loaded itself (released when the map is deleted).
+     */
+    private final ArrayList<RendererImage> ownedImgs = new ArrayList<RendererImage>();
+
+    /**
+     * One chunk of tiles.
+     */
+    private static class Chunk {
+        /**
+         * Tile type of every cell (row by row).
+         */
+        final short[] tiles = new short[CHUNK_SIZE * CHUNK_SIZE];
+
+        /**
+         * Non-empty cells.
+         */
+        int used = 0;
+
+        /**
+         * The drawable tiles (rebuilt before drawing if {@code dirty}).
+         */
+        final TileBatch batch;
+        boolean dirty = true;
+
+        Chunk(int tileW, int tileH) {
+            this.batch = new TileBatch(CHUNK_SIZE, tileW, tileH);
+        }
+    }
+
+    /**
+     * Create an empty tile map.
+     *
+     * @param transform The map's center position.
+     * @param name The name of the map.
+     * @param width Map width (in tiles).
+     * @param height Map height (in tiles).
+     * @param tileW Tile width (in pixels).
+     * @param tileH Tile height (in pixels).
+     */
+    public TileMap(Transform transform, String name, int width, int height, int tileW, int tileH) {
+        super(transform, name);
+
+        if (width <= 0 || height <= 0 || tileW <= 0 || tileH <= 0)
+            throw new IllegalArgumentException("Tile maps need a positive size!");
+
+        this.width = width;
+        this.height = height;
+        this.tileW = tileW;
+        this.tileH = tileH;
+        this.chunksX = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunksY = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunks = new Chunk[chunksX * chunksY];
+        this.transform.updateRect(new Point(width * tileW, height * tileH));
+    }
+
+    /**
+     * Add a tile type drawn with an image loaded from disk.
+     *
+     * @param image The image path.
+     * @param solid Whether dynamic sprites collide with it.
+     * @return The tile type ID.
+     */
+    public int addTile(String image, boolean solid) {
+        RendererImage img = ImageLoader.loadImage(image);
+        ownedImgs.add(img);
+        return addTile(img, solid);
+    }
+
+    /**
+     * Add a tile type drawn with an already loaded image (which stays the caller's).
+     *
+     * @param image The image (null for an invisible tile, like a collision-only wall).
+     * @param solid Whether dynamic sprites collide with it.
+     * @return The tile type ID.
+     */
+    public int addTile(RendererImage image, boolean solid) {
+        if (tileTypes > Short.MAX_VALUE)
+            throw new IllegalStateException("Tile maps support at most " + Short.MAX_VALUE + " tile types!");
+
+        if (tileTypes == images.length) {
+            images = Arrays.copyOf(images, tileTypes * 2);
+            this.solid = Arrays.copyOf(this.solid, tileTypes * 2);
+        }
+
+        images[tileTypes] = image;
+        this.solid[tileTypes] = solid;
+        return tileTypes++;
+    }
+
+    /**
+     * Change whether a tile type is solid.
+     *
+     * @param type The tile type ID.
+     * @param solid Whether dynamic sprites collide with it.
+     */
+    public void setSolid(int type, boolean solid) {
+        checkType(type);
+        this.solid[type] = solid;
+    }
+
+    /**
+     * Place a tile.
+     *
+     * @param tx Tile column.
+     * @param ty Tile row.
+     * @param type The tile type ID (or {@code EMPTY} to clear the cell).
+     */
+    public void setTile(int tx, int ty, int type) {
+        if (tx < 0 || ty < 0 || tx >= width || ty >= height)
+            throw new IllegalArgumentException("Tile (" + tx + ", " + ty + ") is outside the " + width + "x" + height + " map!");
+        checkType(type);
+
+        int ci = (ty / CHUNK_SIZE) * chunksX + tx / CHUNK_SIZE;
+        Chunk c = chunks[ci];
+        if (c == null) {
+            if (type == EMPTY)
+                return;
+            c = chunks[ci] = new Chunk(tileW, tileH);
+        }
+
+        int cell = (ty % CHUNK_SIZE) * CHUNK_SIZE + tx % CHUNK_SIZE;
+        int old = c.tiles[cell];
+        if (old == type)
+            return;
+
+        c.tiles[cell] = (short)type;
+        c.used += (old == EMPTY ? 1 : 0) - (type == EMPTY ? 1 : 0);
+        c.dirty = true;
+
+        // Drop chunks that were cleared out.
+        if (c.used == 0)
+            chunks[ci] = null;
+    }
+
+    /**
+     * Get the tile type at a cell.
+     *
+     * @param tx Tile column.
+     * @param ty Tile row.
+     * @return The tile type ID ({@code EMPTY} outside the map).
+     */
+    public int getTile(int tx, int ty) {
+        if (tx < 0 || ty < 0 || tx >= width || ty >= height)
+            return EMPTY;
+
+        Chunk c = chunks[(ty / CHUNK_SIZE) * chunksX + tx / CHUNK_SIZE];
+        return c == null ? EMPTY : c.tiles[(ty % CHUNK_SIZE) * CHUNK_SIZE + tx % CHUNK_SIZE];
+    }
+
+    /**
+     * Determine if the tile at a cell is solid.
+     *
+     * @param tx Tile column.
+     * @param ty Tile row.
+     * @return If it's solid (never outside the map).
+     */
+    public boolean isSolid(int tx, int ty) {
+        return solid[getTile(tx, ty)];
+    }
+
+    /**
+     * Get the tile column at a world X location.
+     *
+     * @param x World X location (in pixels).
+     * @return The column (may be outside the map).
+     */
+    public int toTileX(int x) {
+        return Math.floorDiv(x - transform.location.getDrawX(), tileW);
+    }
+
+    /**
+     * Get the tile row at a world Y location.
+     *
+     * @param y World Y location (in pixels).
+     * @return The row (may be outside the map).
+     */
+    public int toTileY(int y) {
+        return Math.floorDiv(y - transform.location.getDrawY(), tileH);
+    }
+
+    /**
+     * Collision test against the solid tiles. Only the cells under the rect are
+     * looked at, so it costs the same on any map size. Same edge rules as
+     * {@code Rect.overlaps()}: touching a solid tile isn't overlapping it.
+     *
+     * @param r The rect (in world space).
+     * @return If any solid tile overlaps it.
+     */
+    public boolean solidOverlaps(Rect r) {
+        if (r.getW() <= 0 || r.getH() <= 0)
+            return false;
+
+        int tx0 = Math.max(toTileX(r.getDrawX()), 0), tx1 = Math.min(toTileX(r.getDrawX() + r.getW() - 1), width - 1);
+        int ty0 = Math.max(toTileY(r.getDrawY()), 0), ty1 = Math.min(toTileY(r.getDrawY() + r.getH() - 1), height - 1);
+
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                if (solid[getTile(tx, ty)])
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Draw the chunks that are on screen.
+     *
+     * @param d Draw transform (the map rect in screen space).
+     * @param fb Rendering framebuffer.
+     */
+    @Override
+    public void render(DrawInfo d, FrameBuffer fb) {
+        int x = d.drawRect.getDrawX(), y = d.drawRect.getDrawY();
+        int chunkW = CHUNK_SIZE * tileW, chunkH = CHUNK_SIZE * tileH;
+
+        // Chunks overlapping the viewport.
+        int cx0 = Math.max(Math.floorDiv(-x, chunkW), 0);
+        int cy0 = Math.max(Math.floorDiv(-y, chunkH), 0);
+        int cx1 = Math.min(Math.floorDiv(Camera.res.x - 1 - x, chunkW), chunksX - 1);
+        int cy1 = Math.min(Math.floorDiv(Camera.res.y - 1 - y, chunkH), chunksY - 1);
+
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                Chunk c = chunks[cy * chunksX + cx];
+                if (c == null)
+                    continue;
+
+                if (c.dirty)
+                    bake(c);
+                fb.blitTiles(c.batch, x + cx * chunkW, y + cy * chunkH, d.drawLayer);
+            }
+        }
+    }
+
+    /**
+     * Rebuild a chunk's batch from its tiles.
+     *
+     * @param c The chunk.
+     */
+    private void bake(Chunk c) {
+        short[] cells = new short[c.used], ids = new short[c.used];
+        int n = 0;
+
+        for (int i = 0; i < c.tiles.length; i++) {
+            int type = c.tiles[i];
+            if (type == EMPTY || images[type] == null)
+                continue;
+
+            cells[n] = (short)i;
+            ids[n++] = (short)type;
+        }
+
+        c.batch.set(images, cells, ids, n);
+        c.dirty = false;
+    }
+
+    /**
+     * Make sure a tile type exists.
+     *
+     * @param type The tile type ID.
+     */
+    private void checkType(int type) {
+        if (type < 0 || type >= tileTypes)
+            throw new IllegalArgumentException("Unknown tile type " + type + "!");
+    }
+
+    /**
+     * Release the images this map loaded.
+     */
+    @Override
+    protected void releaseResources() {
+        for (RendererImage img : ownedImgs)
+            img.release();
+        ownedImgs.clear();
+        super.releaseResources();
+    }
+}
@@ -2,20 +2,19 @@ package com.rsc_games.velocity.sprite.collision;
 
 import java.util.ArrayList;
 
+import com.rsc_games.velocity.AABBArray;
 import com.rsc_games.velocity.Line;
 import com.rsc_games.velocity.Rect;
 
 import java.awt.Color;
 
+import com.rsc_games.velocity.config.GlobalAppConfig;
 import com.rsc_games.velocity.renderer.DrawInfo;
 import com.rsc_games.velocity.renderer.FrameBuffer;
 import com.rsc_games.velocity.sprite.ImageSprite;
 import com.rsc_games.velocity.sprite.Sprite;
-import com.rsc_games.velocity.sprite.collision.CPredicate;
-import com.rsc_games.velocity.sprite.collision.DynamicPredicate;
+import com.rsc_games.velocity.sprite.TileMap;
 import com.rsc_games.velocity.sprite.collision.DynamicSprite;
-import com.rsc_games.velocity.sprite.collision.LinePredicate;
-import com.rsc_games.velocity.sprite.collision.RectPredicate;
 import com.rsc_games.velocity.util.Point;
 import com.rsc_games.velocity.util.Transform;
 
@@ -54,6 +53,16 @@ public class DynamicSprite extends ImageSprite implements DynamicEntity, Collida
     // TODO: Debug information
     private ArrayList<Rect> cachedRects;
 
+    /**
+     * Scratch rect for the collision sense tests.
+     */
+    private final Rect sense = new Rect(0, 0, 0, 0);
+
+    /**
+     * This sprite's box in the scene's collision bounds (-1 if not in there).
+     */
+    private int boundsIndex = -1;
+
     /**
      * Create a Dynamic Sprite.
      * 
@@ -86,114 +95,195 @@ public class DynamicSprite extends ImageSprite implements DynamicEntity, Collida
      */
     @Override
     public void simCollide(ArrayList<Sprite> others) {
-        this.col.setPos(this.transform.getPosition().add(coffset));
+        syncCollider();
+        beginCollide();
+
+        // Determine the absolute direction this body is moving.
+        // Required for properly displacing the body.
+        int moveX = this.transform.getX() - lastFramePos.x;
+        int moveY = this.transform.getY() - lastFramePos.y;
+
+        for (Sprite other : others) {
+            if (this != other)
+                collideWith(other, moveX, moveY);
+        }
+
+        this.lastFramePos.setTo(this.transform.getX(), this.transform.getY());
+    }
+
+    /**
+     * Simulate collision against the collidables whose bounds are near this sprite.
+     * Same result as {@code simCollide(others)}, but only the collidables found by one
+     * batch query against {@code bounds} are tested. Used by the scene tick.
+     * 
+     * Bounds are taken before any collision callback runs, so geometry moved inside
+     * {@code onCollision()} is only picked up on the next tick. This sprite's own box
+     * is updated once its collider has moved.
+     * 
+     * @param others Collidables for simulation.
+     * @param bounds Bounding boxes of {@code others} (same order).
+     * @param hits Scratch space for the query (at least {@code others.size()} long).
+     */
+    public void simCollide(ArrayList<Sprite> others, AABBArray bounds, int[] hits) {
+        syncCollider();
+        beginCollide();
+
+        if (boundsIndex >= 0 && boundsIndex < bounds.size() && others.get(boundsIndex) == this)
+            bounds.set(boundsIndex, this.col);
+
+        // Determine the absolute direction this body is moving.
+        int moveX = this.transform.getX() - lastFramePos.x;
+        int moveY = this.transform.getY() - lastFramePos.y;
+
+        // Farthest any sense rect can reach past the collider (see collideWith()), plus
+        // one pixel since overlaps don't count touching edges.
+        int margin = Math.max(Math.max(Math.abs(moveX), Math.abs(moveY)), 3) + 3;
+        int x0 = col.getDrawX() - margin, y0 = col.getDrawY() - margin;
+        int count = bounds.query(x0, y0, x0 + col.getW() + 2 * margin, y0 + col.getH() + 2 * margin, hits);
+
+        // Hits come back in ascending order, so callbacks fire in the same order as a
+        // full pass.
+        for (int i = 0; i < count; i++) {
+            Sprite other = others.get(hits[i]);
+            if (this != other)
+                collideWith(other, moveX, moveY);
+        }
+
+        this.lastFramePos.setTo(this.transform.getX(), this.transform.getY());
+    }
+
+    /**
+     * Internal. Set where this sprite's box is in the bounds passed to
+     * {@code simCollide()} (-1 if it isn't in there).
+     * 
+     * @param index The box index.
+     */
+    public void INTERNAL_setBoundsIndex(int index) {
+        this.boundsIndex = index;
+    }
+
+    /**
+     * Move the collider rect to the sprite's current position.
+     */
+    private void syncCollider() {
+        this.col.setPos(this.transform.getX() + coffset.x, this.transform.getY() + coffset.y);
+    }
+
+    /**
+     * Reset the collision state before a collision pass.
+     */
+    private void beginCollide() {
         cachedRects.clear();
         
         // NOTE: A true value in the movement array means MOVEMENT IS LOCKED!
         for (int i = 0; i < 4; i++) {
             moveDir[i] = false;
         }
+    }
 
-        // Determine the absolute direction this body is moving.
-        // Required for properly displacing the body.
-        Point movementDelta = this.transform.getPosition().sub(lastFramePos);
-        
-        //if (movementDelta.x != 0 || movementDelta.y != 0)
-        //    System.out.println("movement delta " + movementDelta);
+    /**
+     * Simulate collision with one collidable.
+     * 
+     * @param other The collidable.
+     * @param moveX Horizontal movement since last frame.
+     * @param moveY Vertical movement since last frame.
+     */
+    private void collideWith(Sprite other, int moveX, int moveY) {
+        // Sense rects are reused for every other sprite; only copied when they have to
+        // be kept around for the debug renderer.
+        boolean keepRects = GlobalAppConfig.bcfg.EN_DEBUG_RENDERER;
+        int colX = col.getCenterX(), colY = col.getCenterY();
+        int halfW = col.getW() / 2, halfH = col.getH() / 2;
 
         // Speculative collision system -- displacement not fully implemented.
-        for (Sprite other : others) {
-            if (this == other)
-                continue;
 
-            // TODO: Collider distance culling -- avoid more expensive collision testing
-            // if the colliders arent even nearby.
+        // TODO: Make the test rects 1 pixel wide for testing purposes so they
+        // don't collide with an existing wall.
+        boolean hit = false;
 
-            // TODO: Make the test rects 1 pixel wide for testing purposes so they
-            // don't collide with an existing wall.
-            boolean hit = false;
+        // TODO: Switch the current collision engine to use a sweep test-based collision system,
+        // then cap movement to the point of intersection based on the movement vector.
 
-            // TODO: Switch the current collision engine to use a sweep test-based collision system,
-            // then cap movement to the point of intersection based on the movement vector.
+        // SECTION 5: Fast-Moving Objects
 
-            // SECTION 5: Fast-Moving Objects
+        // As mentioned above, small and/or fast-moving objects can produce problems when 
+        // using a static collision test. There are several approaches that can be taken to 
+        // handle such objects -- the simplest is to constrain your game design so that such 
+        // objects aren't needed.
 
-            // As mentioned above, small and/or fast-moving objects can produce problems when 
-            // using a static collision test. There are several approaches that can be taken to 
-            // handle such objects -- the simplest is to constrain your game design so that such 
-            // objects aren't needed.
+        // If you absolutely must have them, there are two common methods to deal with small 
+        // and/or fast-moving objects: swept-collision tests, and multisampling.
 
-            // If you absolutely must have them, there are two common methods to deal with small 
-            // and/or fast-moving objects: swept-collision tests, and multisampling.
+        // --= sweep tests =--
 
-            // --= sweep tests =--
+        // Instead of testing for intersection between two static shapes, we can instead create 
+        // new shapes by sweeping the original shapes along their trajectory, and testing for 
+        // overlap between these swept shapes.
 
-            // Instead of testing for intersection between two static shapes, we can instead create 
-            // new shapes by sweeping the original shapes along their trajectory, and testing for 
-            // overlap between these swept shapes.
+        // The basic idea is described in [Gomez], for circle-circle and AABB-AABB sweep tests.
 
-            // The basic idea is described in [Gomez], for circle-circle and AABB-AABB sweep tests.
+        // --= multisampling =--
 
-            // --= multisampling =--
+        // A much simpler alternative to swept tests is to multisample; instead of performing a 
+        // single static test at the object's new position, perform several tests at several 
+        // positions located between the object's previous and new position. This technique was 
+        // used to collide the ragdoll in N.
 
-            // A much simpler alternative to swept tests is to multisample; instead of performing a 
-            // single static test at the object's new position, perform several tests at several 
-            // positions located between the object's previous and new position. This technique was 
-            // used to collide the ragdoll in N.
+        // If you make sure that the samples are always spaced at distances less than the 
+        // object's radius, this will produce excellent results. In our implementation, we 
+        // limit the maximum number of samples, so very high speeds will sometimes result in 
+        // problems; this is something that can be tweaked based on your specific application.
+        // Resolve the collision geometry once per sprite instead of once per test.
+        // Tile maps are tested against their solid tiles, not their whole rect.
+        Line otherLine = (other instanceof LineCollider) ? ((LineCollider)other).l : null;
+        TileMap otherTiles = (other instanceof TileMap) ? (TileMap)other : null;
+        Rect otherRect = (other instanceof DynamicSprite) ? ((DynamicSprite)other).col 
+                         : other.transform.location;
 
-            // If you make sure that the samples are always spaced at distances less than the 
-            // object's radius, this will produce excellent results. In our implementation, we 
-            // limit the maximum number of samples, so very high speeds will sometimes result in 
-            // problems; this is something that can be tweaked based on your specific application.
-            Point colPos = col.getPos();
-            Point halfSz = col.getWH().div(2);
-            
-            // Up sense (Working)
-            Rect hitCol = new Rect(colPos.sub(new Point(0, halfSz.y)), new Point(col.getW() - 2, 2));
-            if (hitN(hitCol, other, new Point(0, -1), movementDelta.y < 0 ? Math.abs(movementDelta.y) : 1)) {
-                //System.out.println("Hit thing above");
-                hit = true;
-                moveDir[DIR_UP] = true;
-            }
+        // Up sense (Working)
+        sense.set(colX, colY - halfH, col.getW() - 2, 2);
+        if (hitN(sense, otherLine, otherTiles, otherRect, 0, -1, moveY < 0 ? Math.abs(moveY) : 1)) {
+            //System.out.println("Hit thing above");
+            hit = true;
+            moveDir[DIR_UP] = true;
+        }
 
-            cachedRects.add(hitCol);
+        if (keepRects) cachedRects.add(sense.copy());
 
-            // Down sense (Working)
-            hitCol = new Rect(colPos.add(new Point(0, halfSz.y)), new Point(col.getW() - 2, 2));
-            if (hitN(hitCol, other, new Point(0, 1), movementDelta.y > 0 ? Math.abs(movementDelta.y) : 1)) {
-                //System.out.println("Hit thing below");
-                hit = true;
-                moveDir[DIR_DOWN] = true;
-            }
+        // Down sense (Working)
+        sense.set(colX, colY + halfH, col.getW() - 2, 2);
+        if (hitN(sense, otherLine, otherTiles, otherRect, 0, 1, moveY > 0 ? Math.abs(moveY) : 1)) {
+            //System.out.println("Hit thing below");
+            hit = true;
+            moveDir[DIR_DOWN] = true;
+        }
 
-            cachedRects.add(hitCol);
+        if (keepRects) cachedRects.add(sense.copy());
 
-            // Left sense (BROKEN)
-            hitCol = new Rect(colPos.sub(new Point(halfSz.x + 1, 0)), new Point(2, col.getH() - 2));
-            if (hitN(hitCol, other, new Point(-1, 0), movementDelta.x < 0 ? Math.abs(movementDelta.x) : 3)) {
-                //System.out.println("Hit thing left");
-                hit = true;
-                moveDir[DIR_LEFT] = true;
-            }
+        // Left sense (BROKEN)
+        sense.set(colX - (halfW + 1), colY, 2, col.getH() - 2);
+        if (hitN(sense, otherLine, otherTiles, otherRect, -1, 0, moveX < 0 ? Math.abs(moveX) : 3)) {
+            //System.out.println("Hit thing left");
+            hit = true;
+            moveDir[DIR_LEFT] = true;
+        }
 
-            cachedRects.add(hitCol);
+        if (keepRects) cachedRects.add(sense.copy());
 
-            // Right sense (FIXED DO NOT TOUCH IF YOU VALUE YOUR LIFE)
-            hitCol = new Rect(colPos.add(new Point(halfSz.x + 1, 0)), new Point(2, col.getH() - 2));
-            if (hitN(hitCol, other, new Point(1, 0), movementDelta.x > 0 ? Math.abs(movementDelta.x) : 2)) {
-                //System.out.println("Hit thing right");
-                hit = true;  
-                moveDir[DIR_RIGHT] = true;
-            }
+        // Right sense (FIXED DO NOT TOUCH IF YOU VALUE YOUR LIFE)
+        sense.set(colX + (halfW + 1), colY, 2, col.getH() - 2);
+        if (hitN(sense, otherLine, otherTiles, otherRect, 1, 0, moveX > 0 ? Math.abs(moveX) : 2)) {
+            //System.out.println("Hit thing right");
+            hit = true;  
+            moveDir[DIR_RIGHT] = true;
+        }
 
-            cachedRects.add(hitCol);
+        if (keepRects) cachedRects.add(sense.copy());
 
-            // Process a collision event if necessary.
-            if (hit)
-                this.onCollision(other);
-        }
+        // Process a collision event if necessary.
+        if (hit)
+            this.onCollision(other);
 
-        this.lastFramePos = this.transform.getPosition();
     }
 
     /**
@@ -219,27 +309,24 @@ public class DynamicSprite extends ImageSprite implements DynamicEntity, Collida
     /**
      * Attempt to hit a provided collider rect in maximum steps.
      * 
-     * @param r The collider rect.
-     * @param other The other sprite to simulate.
-     * @param step The size of each simulated step.
+     * @param r The collider rect (moved in place).
+     * @param otherLine The other sprite's line collider (null if it has a rect).
+     * @param otherTiles The other sprite if it's a tile map (null otherwise).
+     * @param otherRect The other sprite's collider rect.
+     * @param stepX X size of each simulated step.
+     * @param stepY Y size of each simulated step.
      * @param steps Maximum step count.
      * @return Whether the collidable was hit or not.
      */
-    private boolean hitN(Rect r, Sprite other, Point step, int steps) {
-        CPredicate p;
-
-        if (other instanceof LineCollider)
-            p = new LinePredicate((LineCollider)other);
-        else if (other instanceof DynamicSprite)
-            p = new DynamicPredicate((DynamicSprite)other);
-        else
-            p = new RectPredicate(other);
-
+    private boolean hitN(Rect r, Line otherLine, TileMap otherTiles, Rect otherRect, int stepX, int stepY, 
+                         int steps) {
         for (int i = 0; i < steps; i++) {
-            r.translate(step);
+            r.translate(stepX, stepY);
 
             // Hit the nearest collision target.
-            if (p.overlaps(r)) {
+            boolean overlaps = otherTiles != null ? otherTiles.solidOverlaps(r)
+                               : otherLine != null ? otherLine.overlaps(r) : otherRect.overlaps(r);
+            if (overlaps) {
                 //if (step.x != 0)
                 //    System.out.println("detected hit w/ vector " + step + " at i " + i);
 
@@ -328,61 +415,3 @@ public class DynamicSprite extends ImageSprite implements DynamicEntity, Collida
         return mv;
     }
 }
-
-/**
- * Collision abstraction tree for testing between different collider types.
- */
-interface CPredicate {
-    /**
-     * Test if a given collider overlaps with a given rect.
-     * 
-     * @param r Other rectangle.
-     * @return Whether they overlap.
-     */
-    public boolean overlaps(Rect r);
-}
-
-/**
- * Rect to rect version of the collision tree.
- */
-class RectPredicate implements CPredicate {
-    final Rect ir;
-
-    public RectPredicate(Sprite o) {
-        this.ir = o.transform.location;
-    }
-
-    public boolean overlaps(Rect r) {
-        return this.ir.overlaps(r);
-    }
-}
-
-/**
- * Dynamic body predicate (changes collision geometry)
- */
-class DynamicPredicate implements CPredicate {
-    final Rect dr;
-
-    public DynamicPredicate(DynamicSprite o) {
-        this.dr = o.col;
-    }
-
-    public boolean overlaps(Rect r) {
-        return this.dr.overlaps(r);
-    }
-}
-
-/**
- * Line to rect version of the collision tree.
- */
-class LinePredicate implements CPredicate {
-    final Line il;
-
-    public LinePredicate(LineCollider o) {
-        this.il = o.l;
-    }
-
-    public boolean overlaps(Rect r) {
-        return this.il.overlaps(r);
-    }
-}
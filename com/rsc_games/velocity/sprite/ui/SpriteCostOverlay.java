@@ -0,0 +1,71 @@
+package com.rsc_games.velocity.sprite.ui;
+
+import java.awt.Color;
+import java.util.ArrayList;
+
+import com.rsc_games.velocity.renderer.DrawInfo;
+import com.rsc_games.velocity.renderer.FrameBuffer;
+import com.rsc_games.velocity.util.Point;
+import com.rsc_games.velocity.util.SpriteAttribution;
+import com.rsc_games.velocity.util.Transform;
+
+/**
+ * Debug overlay listing the most expensive sprite classes recorded by
+ * {@code SpriteAttribution}. Enables attribution when created.
+ */
+public class SpriteCostOverlay extends UIText {
+    /**
+     * Frames between report refreshes. Formatting the report every frame would cost
+     * more than most sprites being measured.
+     */
+    static final int REFRESH_FRAMES = 60;
+
+    /**
+     * Amount of classes to list.
+     */
+    private final int lines;
+
+    /**
+     * The last formatted report.
+     */
+    private ArrayList<String> report = new ArrayList<String>();
+
+    /**
+     * Frames since the report was refreshed.
+     */
+    private int frames = REFRESH_FRAMES;
+
+    /**
+     * Create a sprite cost overlay.
+     * 
+     * @param transform The screen position.
+     * @param name The name of the sprite.
+     * @param c The text color.
+     * @param lines Amount of classes to list.
+     */
+    public SpriteCostOverlay(Transform transform, String name, Color c, int lines) {
+        super(transform, name, "Monospaced", c);
+        this.transform.sortOrder = 1;
+        this.lines = lines;
+        SpriteAttribution.setEnabled(true);
+    }
+
+    /**
+     * Draw the report, refreshing it every {@code REFRESH_FRAMES} frames.
+     * 
+     * @param d Draw info.
+     * @param fb Rendering framebuffer.
+     */
+    @Override
+    public void renderUI(DrawInfo d, FrameBuffer fb) {
+        if (++frames >= REFRESH_FRAMES) {
+            report = SpriteAttribution.topClasses(lines);
+            frames = 0;
+        }
+
+        Point coords = d.drawRect.getDrawLoc();
+
+        for (int i = 0; i < report.size(); i++)
+            fb.drawText(new Point(coords.x, coords.y + i * (size + 2)), report.get(i), this.font, this.color);
+    }
+}
@@ -47,6 +47,15 @@ public abstract class UIButton extends UIImage {
         this.offset = this.transform.getPosition();
     }
 
+    /**
+     * Release the hover image.
+     */
+    @Override
+    protected void releaseResources() {
+        hoverImage.release();
+        super.releaseResources();
+    }
+
     /**
      * Simulate a game tick. For the button, identify whether the mouse
      * is over the button.
@@ -16,6 +16,11 @@ public abstract class UIImage extends UIRenderable {
      */
     public RendererImage img;
 
+    /**
+     * The image this sprite loaded itself (released when the sprite is deleted).
+     */
+    private RendererImage ownedImg;
+
     /**
      * Create a UIImage.
      * 
@@ -26,7 +31,7 @@ public abstract class UIImage extends UIRenderable {
      */
     public UIImage(Transform transform, String name, String imagename) {
         super(transform, name);
-        this.img = ImageLoader.loadImage(imagename);
+        this.img = this.ownedImg = ImageLoader.loadImage(imagename);
         this.transform.updateRect(new Point(img.getWidth(), img.getHeight()));
     }
 
@@ -44,6 +49,16 @@ public abstract class UIImage extends UIRenderable {
         this.transform.updateRect(new Point(img.getWidth(), img.getHeight()));
     }
 
+    /**
+     * Release the image this sprite loaded.
+     */
+    @Override
+    protected void releaseResources() {
+        if (ownedImg != null)
+            ownedImg.release();
+        super.releaseResources();
+    }
+
     /**
      * Draw the image on screen.
      * 
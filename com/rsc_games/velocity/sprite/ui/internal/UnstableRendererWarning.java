@@ -50,6 +50,15 @@ public class UnstableRendererWarning extends UIImage {
             ImageLoader.loadImage(SystemResourceLoader.getSystemResourceLoader(), imgpath));
     }
 
+    /**
+     * Release the warning image (loaded here, not by the base class).
+     */
+    @Override
+    protected void releaseResources() {
+        img.release();
+        super.releaseResources();
+    }
+
     /**
      * Only show the pop-up once (even though it's injected into every scene).
      */
@@ -21,4 +21,15 @@ public class FileResourceLoader extends ResourceLoader {
         File f = new File(filePath);
         return new BufferedInputStream(new FileInputStream(f));
     }
+
+    /**
+     * Resources are plain files.
+     * 
+     * @param filePath The resource path.
+     * @return The file.
+     */
+    @Override
+    public File getFile(String filePath) {
+        return new File(filePath);
+    }
 }
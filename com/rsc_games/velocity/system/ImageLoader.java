@@ -6,6 +6,7 @@ import java.io.IOException;
 import javax.imageio.ImageIO;
 
 import com.rsc_games.velocity.PipelineManager;
+import com.rsc_games.velocity.ScenePreload;
 import com.rsc_games.velocity.config.GlobalAppConfig;
 import com.rsc_games.velocity.renderer.RenderPipeline;
 import com.rsc_games.velocity.renderer.RendererImage;
@@ -36,7 +37,8 @@ public class ImageLoader {
      * 
      * @implNote When configured to continue on image load failure this function will
      *  return a default image with a path of "__XX_VELOCITY_DEFAULT_TEXTURE__". It is
-     *  the VXRA renderer's job to provide this texture.
+     *  the VXRA renderer's job to provide this texture. Safe to call from a scene
+     *  preload thread; the GPU upload then happens later on the game thread.
      * 
      * @param ldr Specific resource loader to grab this resource from.
      * @param path Image path on disk.
@@ -44,21 +46,32 @@ public class ImageLoader {
      */
     public static RendererImage loadImage(ResourceLoader ldr, String path) {
         RenderPipeline rp = PipelineManager.getPipeline();
+        ScenePreload.INTERNAL_countAsset();
 
         // Determine if the requested image is already cached or if it needs to be loaded.
-        if (!rp.isTextureCached(path)) {
-            BufferedImage img = loadRawImage(ldr, path);
+        // The handle lookup can still miss if another thread's texture GC evicted the
+        // image in between.
+        RendererImage handle = rp.isTextureCached(path) ? rp.getTextureHandleFromPath(path) : null;
+        if (handle != null)
+            return handle;
 
+        BufferedImage img = loadRawImage(ldr, path);
+
+        // Registering leaves the entry unreferenced until the lookup below, so the
+        // texture GC may drop it in between. Just register it again then.
+        while (handle == null) {
             if (!rp.registerTexture(img, path)) {
                 if (GlobalAppConfig.bcfg.MISSING_IMAGE_FATAL)
                     throw new RuntimeException("Failed to load image at path " + path);
-    
+
                 Warnings.warn("velocity.system.Images", "Failed to load provided image (" + path + ")");
                 return rp.getTextureHandleFromPath("__XX_VELOCITY_DEFAULT_TEXTURE__");
             }
+
+            handle = rp.getTextureHandleFromPath(path);
         }
 
-        return rp.getTextureHandleFromPath(path);
+        return handle;
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.rsc_games.velocity.system;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 
 import com.rsc_games.velocity.system.ResourceLoader;
@@ -42,4 +43,15 @@ public abstract class ResourceLoader {
      * @throws IOException If there is no file or it cannot be loaded.
      */
     public abstract BufferedInputStream load(String filePath) throws IOException;
+
+    /**
+     * Get the plain file behind a resource, for loaders that can use it directly (like
+     * memory mapping scene files).
+     * 
+     * @param filePath The resource path.
+     * @return The file (null if the resource isn't a plain file).
+     */
+    public File getFile(String filePath) {
+        return null;
+    }
 }
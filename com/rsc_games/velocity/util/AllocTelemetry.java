@@ -0,0 +1,387 @@
+package com.rsc_games.velocity.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocation and GC pressure telemetry. When enabled, the engine measures how many bytes
+ * the game thread allocates in every phase of every frame, how many GC pauses happened
+ * and how long they took, and how much heap is left in use after each scene load.
+ *
+ * The last {@code HISTORY} frames are kept. Every {@code CHECK_INTERVAL} frames the
+ * average allocation rate of each phase is compared against its budget (if one was set)
+ * and against the rate measured right after the last scene load, so allocation creep in
+ * the tick and render paths shows up in the log long before it causes stutters.
+ *
+ * Only the thread that enabled telemetry is measured. When disabled, every call only
+ * reads one static flag.
+ */
+public class AllocTelemetry {
+    /**
+     * Measured phases.
+     */
+    public static final int FRAME = 0;
+    public static final int TICK = 1;
+    public static final int RENDER = 2;
+
+    /**
+     * Amount of measured phases.
+     */
+    public static final int PHASES = 3;
+
+    /**
+     * Phase names (for reports).
+     */
+    static final String[] PHASE_NAMES = {"frame", "tick", "render"};
+
+    /**
+     * Amount of frames kept.
+     */
+    public static final int HISTORY = 600;
+
+    /**
+     * Frames between regression checks.
+     */
+    public static final int CHECK_INTERVAL = 120;
+
+    /**
+     * A phase is flagged as creeping once its rate grows past this multiple of the
+     * rate measured after the last scene load...
+     */
+    public static final double CREEP_RATIO = 1.5;
+
+    /**
+     * ...and by at least this many bytes per frame (so tiny rates don't trip it).
+     */
+    public static final long CREEP_MIN_BYTES = 16 * 1024;
+
+    /**
+     * Whether telemetry is being recorded.
+     */
+    private static boolean enabled = false;
+
+    /**
+     * The measured thread.
+     */
+    private static Thread owner;
+
+    /**
+     * Per thread allocation counter.
+     */
+    private static com.sun.management.ThreadMXBean threadBean;
+
+    /**
+     * The JVM's collectors.
+     */
+    private static GarbageCollectorMXBean[] collectors;
+
+    /**
+     * Allocated bytes counter at the start of each open phase.
+     */
+    private static final long[] phaseStart = new long[PHASES];
+
+    /**
+     * Bytes allocated per phase and frame ({@code phase * HISTORY + slot}).
+     */
+    private static final long[] bytes = new long[PHASES * HISTORY];
+
+    /**
+     * GC pauses and pause time (in milliseconds) per frame.
+     */
+    private static final int[] gcCount = new int[HISTORY];
+    private static final long[] gcMillis = new long[HISTORY];
+
+    /**
+     * Collector totals at the end of the last frame.
+     */
+    private static long lastGCCount = 0, lastGCMillis = 0;
+
+    /**
+     * Totals since telemetry was enabled.
+     */
+    private static long totalGCCount = 0, totalGCMillis = 0;
+
+    /**
+     * Current frame number.
+     */
+    private static long frame = 0;
+
+    /**
+     * Per phase budget (in bytes per frame, -1 for none).
+     */
+    private static final long[] budget = {-1, -1, -1};
+
+    /**
+     * Per phase rate measured after the last scene load (-1 until measured).
+     */
+    private static final long[] baseline = {-1, -1, -1};
+
+    /**
+     * Whether each phase is currently flagged (so regressions are only logged once).
+     */
+    private static final boolean[] flagged = new boolean[PHASES];
+
+    /**
+     * First frame of the current scene.
+     */
+    private static long sceneStart = 0;
+
+    /**
+     * Scene load log.
+     */
+    private static final ArrayList<String> sceneNames = new ArrayList<String>();
+    private static final ArrayList<Long> sceneHeap = new ArrayList<Long>();
+
+    /**
+     * Enable or disable telemetry. The calling thread is measured.
+     *
+     * @param state Whether to record telemetry.
+     */
+    public static synchronized void setEnabled(boolean state) {
+        if (state && !enabled) {
+            if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+                Logger.warn("velocity.telemetry", "This JVM cannot measure thread allocations. Telemetry disabled.");
+                return;
+            }
+
+            threadBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+            if (!threadBean.isThreadAllocatedMemorySupported()) {
+                Logger.warn("velocity.telemetry", "This JVM cannot measure thread allocations. Telemetry disabled.");
+                return;
+            }
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+
+            List<GarbageCollectorMXBean> gcs = ManagementFactory.getGarbageCollectorMXBeans();
+            collectors = gcs.toArray(new GarbageCollectorMXBean[gcs.size()]);
+
+            owner = Thread.currentThread();
+            frame = 0;
+            sceneStart = 0;
+            Arrays.fill(baseline, -1);
+            Arrays.fill(flagged, false);
+            lastGCCount = collectorCount();
+            lastGCMillis = collectorMillis();
+        }
+
+        enabled = state;
+    }
+
+    /**
+     * Whether telemetry is enabled.
+     *
+     * @return If telemetry is recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set a phase's allocation budget. Exceeding it on average over a check interval
+     * logs a warning.
+     *
+     * @param phase The phase ({@code FRAME}, {@code TICK} or {@code RENDER}).
+     * @param bytesPerFrame Allowed bytes per frame (-1 for no budget).
+     */
+    public static synchronized void setBudget(int phase, long bytesPerFrame) {
+        budget[phase] = bytesPerFrame;
+    }
+
+    /**
+     * Start measuring a phase.
+     *
+     * @param phase The phase.
+     */
+    public static void begin(int phase) {
+        if (!enabled || Thread.currentThread() != owner)
+            return;
+
+        phaseStart[phase] = threadBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Stop measuring a phase and charge the allocations to the current frame.
+     *
+     * @param phase The phase.
+     */
+    public static void end(int phase) {
+        if (!enabled || Thread.currentThread() != owner)
+            return;
+
+        bytes[phase * HISTORY + (int)(frame % HISTORY)] = threadBean.getCurrentThreadAllocatedBytes() - phaseStart[phase];
+    }
+
+    /**
+     * Mark the end of a frame. Collects this frame's GC activity and runs the
+     * regression checks. Called by the engine after every tick.
+     */
+    public static synchronized void endFrame() {
+        if (!enabled || Thread.currentThread() != owner)
+            return;
+
+        int slot = (int)(frame % HISTORY);
+        long count = collectorCount();
+        long millis = collectorMillis();
+
+        gcCount[slot] = (int)(count - lastGCCount);
+        gcMillis[slot] = millis - lastGCMillis;
+        totalGCCount += count - lastGCCount;
+        totalGCMillis += millis - lastGCMillis;
+        lastGCCount = count;
+        lastGCMillis = millis;
+
+        frame++;
+
+        if ((frame - sceneStart) % CHECK_INTERVAL == 0)
+            checkRegressions();
+
+        // Clear the next slot so skipped phases don't report stale frames.
+        int next = (int)(frame % HISTORY);
+        for (int p = 0; p < PHASES; p++)
+            bytes[p * HISTORY + next] = 0;
+    }
+
+    /**
+     * Record the heap left in use after a scene load and restart the regression
+     * baseline. Called by the engine once the new scene is initialized.
+     *
+     * @param name The loaded scene.
+     */
+    public static synchronized void INTERNAL_sceneLoaded(String name) {
+        if (!enabled)
+            return;
+
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        sceneNames.add(name);
+        sceneHeap.add(used);
+
+        sceneStart = frame;
+        Arrays.fill(baseline, -1);
+        Arrays.fill(flagged, false);
+
+        Logger.log("velocity.telemetry", "Scene " + name + " loaded; heap in use: " + used / 1024 + " kB");
+    }
+
+    /**
+     * Compare the last check interval against the budgets and the scene baseline.
+     */
+    private static void checkRegressions() {
+        for (int p = 0; p < PHASES; p++) {
+            long avg = average(p, CHECK_INTERVAL);
+
+            // The first interval after a scene load is the baseline for the rest of it.
+            if (baseline[p] < 0) {
+                baseline[p] = avg;
+                continue;
+            }
+
+            boolean overBudget = budget[p] >= 0 && avg > budget[p];
+            boolean creeping = avg > baseline[p] * CREEP_RATIO && avg - baseline[p] >= CREEP_MIN_BYTES;
+
+            if ((overBudget || creeping) && !flagged[p]) {
+                Logger.warn("velocity.telemetry", "Allocation " + (overBudget ? "budget exceeded" : "creep")
+                            + " in " + PHASE_NAMES[p] + ": " + avg / 1024 + " kB/frame (scene baseline "
+                            + baseline[p] / 1024 + " kB/frame"
+                            + (budget[p] >= 0 ? ", budget " + budget[p] / 1024 + " kB/frame)" : ")"));
+            }
+
+            flagged[p] = overBudget || creeping;
+        }
+    }
+
+    /**
+     * Average bytes per frame of a phase over the most recent frames.
+     *
+     * @param phase The phase.
+     * @param frames Amount of frames (capped to the recorded history).
+     * @return The average (in bytes).
+     */
+    private static long average(int phase, int frames) {
+        int n = (int)Math.min(Math.min(frames, HISTORY), frame);
+        if (n == 0)
+            return 0;
+
+        long total = 0;
+        for (long f = frame - n; f < frame; f++)
+            total += bytes[phase * HISTORY + (int)(f % HISTORY)];
+
+        return total / n;
+    }
+
+    /**
+     * Get the recorded allocations of a phase, oldest frame first.
+     *
+     * @param phase The phase.
+     * @return Bytes allocated in each recorded frame.
+     */
+    public static synchronized long[] getHistory(int phase) {
+        int n = (int)Math.min(HISTORY, frame);
+        long[] out = new long[n];
+
+        for (int i = 0; i < n; i++)
+            out[i] = bytes[phase * HISTORY + (int)((frame - n + i) % HISTORY)];
+
+        return out;
+    }
+
+    /**
+     * Log an allocation and GC report for the recorded history.
+     */
+    public static synchronized void printReport() {
+        int n = (int)Math.min(HISTORY, frame);
+        Logger.log("velocity.telemetry", "Allocations over the last " + n + " frames:");
+
+        for (int p = 0; p < PHASES; p++) {
+            long[] h = getHistory(p);
+            if (h.length == 0)
+                continue;
+
+            Arrays.sort(h);
+            Logger.log("velocity.telemetry", String.format("\t%-8s avg %8.1f kB, p50 %8.1f kB, p99 %8.1f kB, max %8.1f kB",
+                       PHASE_NAMES[p], average(p, HISTORY) / 1024.0, h[h.length / 2] / 1024.0,
+                       h[(int)(h.length * 0.99)] / 1024.0, h[h.length - 1] / 1024.0));
+        }
+
+        int pauses = 0, worst = 0;
+        long pauseMillis = 0;
+        for (int i = 0; i < n; i++) {
+            pauses += gcCount[i];
+            pauseMillis += gcMillis[i];
+            if (gcMillis[i] > gcMillis[worst]) worst = i;
+        }
+
+        Logger.log("velocity.telemetry", "GC: " + pauses + " pauses (" + pauseMillis + " ms) in the last " + n
+                   + " frames, worst frame " + gcMillis[worst] + " ms; " + totalGCCount + " pauses ("
+                   + totalGCMillis + " ms) in total.");
+
+        for (int i = 0; i < sceneNames.size(); i++)
+            Logger.log("velocity.telemetry", "\tHeap after loading " + sceneNames.get(i) + ": "
+                       + sceneHeap.get(i) / 1024 + " kB");
+    }
+
+    /**
+     * Total collections of every collector.
+     *
+     * @return The collection count.
+     */
+    private static long collectorCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : collectors)
+            total += Math.max(0, gc.getCollectionCount());
+        return total;
+    }
+
+    /**
+     * Total collection time of every collector.
+     *
+     * @return The time (in milliseconds).
+     */
+    private static long collectorMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : collectors)
+            total += Math.max(0, gc.getCollectionTime());
+        return total;
+    }
+}
@@ -33,7 +33,7 @@ public class BytesFile {
 
     /**
      * Open a readable byte stream on a randomly accessable file. The file can either
-     * be opened with read or write permissions ("rb" or "wb", respectively).
+     * be opened with read, write or append permissions ("rb", "wb" or "ab", respectively).
      * 
      * @param path The relative file path to open.
      * @param access The file access modifier.
@@ -41,13 +41,31 @@ public class BytesFile {
      * @throws IOException Some unspecified I/O issue is preventing file load.
      */
     public BytesFile(String path, String access) throws FileNotFoundException, IOException {
+        open(path, access);
+    }
+
+    /**
+     * Open the file channel. "wb" creates the file or empties an existing one, "ab"
+     * creates it or appends to it.
+     * 
+     * @param path The file path.
+     * @param access The file access modifier.
+     * @throws IOException The file can't be opened.
+     */
+    private void open(String path, String access) throws IOException {
         switch (access) {
             case "rb": 
                 this.stream = Files.newByteChannel(Path.of(path), EnumSet.of(StandardOpenOption.READ));
                 this.canRead = true;
                 break;
             case "wb": 
-                this.stream = Files.newByteChannel(Path.of(path), EnumSet.of(StandardOpenOption.WRITE));
+                this.stream = Files.newByteChannel(Path.of(path), EnumSet.of(StandardOpenOption.WRITE,
+                                                   StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+                this.canWrite = true;
+                break;
+            case "ab": 
+                this.stream = Files.newByteChannel(Path.of(path), EnumSet.of(StandardOpenOption.WRITE,
+                                                   StandardOpenOption.CREATE, StandardOpenOption.APPEND));
                 this.canWrite = true;
                 break;
             default: { throw new IllegalArgumentException("Bad access modifier: " + access); }
@@ -71,17 +89,7 @@ public class BytesFile {
             Logger.log("velocity.system.TextFile", "Got absolute path " + fileRef
                        + "! Loading from filesystem!");
             
-            switch (access) {
-                case "rb": 
-                    this.stream = Files.newByteChannel(Path.of(path), EnumSet.of(StandardOpenOption.READ));
-                    this.canRead = true;
-                    break;
-                case "wb": 
-                    this.stream = Files.newByteChannel(Path.of(path), EnumSet.of(StandardOpenOption.WRITE));
-                    this.canWrite = true;
-                    break;
-                default: { throw new IllegalArgumentException("Bad access modifier: " + access); }
-            }
+            open(path, access);
             return;
         }
 
@@ -138,7 +146,8 @@ public class BytesFile {
         if (!this.canWrite)
             throw new IllegalStateException("Cannot write to a read-only file!");
 
-        this.stream.write(out);
+        while (out.hasRemaining())
+            this.stream.write(out);
     }
 
     /**
@@ -12,6 +12,35 @@ public class GlobalRandom {
      */
     private static Random random = new Random();
 
+    /**
+     * The seed the random was last seeded with.
+     */
+    private static long seed = random.nextLong();
+
+    static {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Reseed the random. Used by the input recorder so replayed sessions generate the
+     * same numbers as the recorded session.
+     * 
+     * @param seed The new seed.
+     */
+    public static synchronized void setSeed(long seed) {
+        GlobalRandom.seed = seed;
+        random.setSeed(seed);
+    }
+
+    /**
+     * Get the seed the random was last seeded with.
+     * 
+     * @return The seed.
+     */
+    public static long getSeed() {
+        return seed;
+    }
+
     /**
      * Generate a random number in the bounds [min, max).
      * 
@@ -1,8 +1,29 @@
 package com.rsc_games.velocity.util;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Locale;
+import java.util.function.Supplier;
+
 /**
  * Logger class for Velocity. Allows easier reading of error messages and allows hiding of lower
  * priority events.
+ *
+ * By default messages are written on the calling thread. Once {@code startAsync()} is called,
+ * messages are instead copied into a preallocated ring buffer and written by a background
+ * thread, so logging from the game thread never waits on the console. Messages with a
+ * {@code "{}"} format and primitive arguments are only formatted on the writer thread, and
+ * {@code Supplier} messages are only built if they pass the level check, so filtered and
+ * hot path logging costs next to nothing.
  */
 public class Logger {
     /**
@@ -25,37 +46,524 @@ public class Logger {
      */
     public static int level = 0;
 
+    /**
+     * Async ring size (in messages).
+     */
+    static final int RING_SIZE = 1 << 13;
+
+    /**
+     * Binary log magic ("VLOG") and version.
+     */
+    static final int BINARY_MAGIC = 0x564c4f47;
+    static final int BINARY_VERSION = 1;
+
+    /**
+     * Message kinds: a plain message, or a format with one long, two longs or one double.
+     */
+    private static final byte K_STR = 0;
+    private static final byte K_LONG = 1;
+    private static final byte K_LONG2 = 2;
+    private static final byte K_DOUBLE = 3;
+
+    /**
+     * Ring slots. A slot is only written while it is between {@code tail} and
+     * {@code head}, and only read by the writer thread.
+     */
+    private static final int[] rLevel = new int[RING_SIZE];
+    private static final byte[] rKind = new byte[RING_SIZE];
+    private static final String[] rModule = new String[RING_SIZE];
+    private static final String[] rMessage = new String[RING_SIZE];
+    private static final long[] rA = new long[RING_SIZE];
+    private static final long[] rB = new long[RING_SIZE];
+    private static final double[] rD = new double[RING_SIZE];
+    private static final long[] rTime = new long[RING_SIZE];
+
+    /**
+     * Guards the ring counters.
+     */
+    private static final Object ringLock = new Object();
+
+    /**
+     * Messages ever queued / written.
+     */
+    private static long head = 0, tail = 0;
+
+    /**
+     * Whether the writer thread is waiting for messages.
+     */
+    private static boolean writerIdle = false;
+
+    /**
+     * Whether messages go through the ring.
+     */
+    private static volatile boolean async = false;
+
+    /**
+     * Optional binary log output (only written by the writer thread once async).
+     */
+    private static DataOutputStream binary;
+
+    /**
+     * Base of the binary log timestamps.
+     */
+    private static long epoch = System.nanoTime();
+
+    /**
+     * Writer side format buffer.
+     */
+    private static final StringBuilder fmtBuffer = new StringBuilder(256);
+
+    /**
+     * Whether messages of a level would be written. Use it to skip building expensive
+     * messages.
+     *
+     * @param msgLevel The message level ({@code LOG_DEBUG}, {@code LOG_WARN} or {@code LOG_ERROR}).
+     * @return If the message passes the level filter.
+     */
+    public static boolean isEnabled(int msgLevel) {
+        return level <= msgLevel;
+    }
+
     /**
      * Log a message to the console.
-     * 
+     *
      * @param module The logging module.
      * @param message The message to print.
      */
     public static void log(String module, String message) {
         if (level > 0) return;
-        System.out.println("\033[32mI [" + module + "]: " + message + "\033[0m");
+        post(LOG_DEBUG, module, message, K_STR, 0, 0, 0);
+    }
+
+    /**
+     * Log a lazily built message to the console.
+     *
+     * @param module The logging module.
+     * @param message Builds the message (only called if it isn't filtered).
+     */
+    public static void log(String module, Supplier<String> message) {
+        if (level > 0) return;
+        post(LOG_DEBUG, module, message.get(), K_STR, 0, 0, 0);
+    }
+
+    /**
+     * Log a message to the console. Every {@code "{}"} in the format is replaced
+     * by the argument, only after the message passes the filter.
+     *
+     * @param module The logging module.
+     * @param format The message format.
+     * @param a The argument.
+     */
+    public static void log(String module, String format, long a) {
+        if (level > 0) return;
+        post(LOG_DEBUG, module, format, K_LONG, a, 0, 0);
+    }
+
+    /**
+     * Log a message with two arguments to the console.
+     *
+     * @param module The logging module.
+     * @param format The message format.
+     * @param a The first argument.
+     * @param b The second argument.
+     */
+    public static void log(String module, String format, long a, long b) {
+        if (level > 0) return;
+        post(LOG_DEBUG, module, format, K_LONG2, a, b, 0);
+    }
+
+    /**
+     * Log a message with a decimal argument to the console.
+     *
+     * @param module The logging module.
+     * @param format The message format.
+     * @param d The argument.
+     */
+    public static void log(String module, String format, double d) {
+        if (level > 0) return;
+        post(LOG_DEBUG, module, format, K_DOUBLE, 0, 0, d);
     }
 
     /**
      * Log a warning message to the console.
-     * 
+     *
      * @param module The logging module.
      * @param message The message to print.
      */
     public static void warn(String module, String message) {
         if (level > 1) return;
-        System.out.println("\033[33mW [" + module + "]: " + message + "\033[0m");
+        post(LOG_WARN, module, message, K_STR, 0, 0, 0);
     }
 
     /**
-     * Log an error message to the console.
-     * 
+     * Log a lazily built warning message to the console.
+     *
+     * @param module The logging module.
+     * @param message Builds the message (only called if it isn't filtered).
+     */
+    public static void warn(String module, Supplier<String> message) {
+        if (level > 1) return;
+        post(LOG_WARN, module, message.get(), K_STR, 0, 0, 0);
+    }
+
+    /**
+     * Log a warning message to the console. See {@code log(String, String, long)}.
+     *
+     * @param module The logging module.
+     * @param format The message format.
+     * @param a The argument.
+     */
+    public static void warn(String module, String format, long a) {
+        if (level > 1) return;
+        post(LOG_WARN, module, format, K_LONG, a, 0, 0);
+    }
+
+    /**
+     * Log a warning message with a decimal argument to the console.
+     *
+     * @param module The logging module.
+     * @param format The message format.
+     * @param d The argument.
+     */
+    public static void warn(String module, String format, double d) {
+        if (level > 1) return;
+        post(LOG_WARN, module, format, K_DOUBLE, 0, 0, d);
+    }
+
+    /**
+     * Log an error message to the console. Errors are always flushed before returning,
+     * so they make it out even if the app dies right after.
+     *
      * @param module The logging module.
      * @param message The message to print.
      */
     public static void error(String module, String message) {
         if (level > 2) return;
-        System.err.println("\033[31mE [" + module + "]: " + message + "\033[0m");
+        post(LOG_ERROR, module, message, K_STR, 0, 0, 0);
+        flush();
+    }
+
+    /**
+     * Log a lazily built error message to the console.
+     *
+     * @param module The logging module.
+     * @param message Builds the message (only called if it isn't filtered).
+     */
+    public static void error(String module, Supplier<String> message) {
+        if (level > 2) return;
+        error(module, message.get());
+    }
+
+    /**
+     * Switch to asynchronous logging. Starts the writer thread.
+     */
+    public static synchronized void startAsync() {
+        if (async)
+            return;
+
+        Thread writer = new Thread(Logger::writerLoop, "velocity.logger");
+        writer.setDaemon(true);
+        writer.start();
+
+        // The engine exits through System.exit(), so drain whatever is left.
+        Runtime.getRuntime().addShutdownHook(new Thread(Logger::flush, "velocity.logger.flush"));
+        async = true;
+    }
+
+    /**
+     * Whether messages are written by the background thread.
+     *
+     * @return If async logging is running.
+     */
+    public static boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Also write every message to a compact binary log. Messages are stored unformatted
+     * with a timestamp; use {@code dumpBinaryLog()} to read it back.
+     *
+     * @param path The log file path.
+     */
+    public static void openBinaryLog(String path) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+            out.writeInt(BINARY_MAGIC);
+            out.writeShort(BINARY_VERSION);
+            out.writeLong(System.currentTimeMillis());
+
+            // Swap between writer batches so no message is half written.
+            flush();
+            synchronized (fmtBuffer) {
+                if (binary != null)
+                    binary.close();
+
+                epoch = System.nanoTime();
+                binary = out;
+            }
+
+            Runtime.getRuntime().addShutdownHook(new Thread(Logger::closeBinaryLog, "velocity.logger.binary"));
+        }
+        catch (IOException ie) {
+            error("velocity.logger", "Unable to open binary log " + path + ": " + ie.getMessage());
+        }
+    }
+
+    /**
+     * Write out and close the binary log (if open).
+     */
+    public static void closeBinaryLog() {
+        flush();
+
+        synchronized (fmtBuffer) {
+            if (binary == null)
+                return;
+
+            try {
+                binary.close();
+            }
+            catch (IOException ie) {}
+            binary = null;
+        }
+    }
+
+    /**
+     * Print a binary log to the console.
+     *
+     * @param path The log file path.
+     */
+    public static void dumpBinaryLog(String path) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != BINARY_MAGIC || in.readUnsignedShort() != BINARY_VERSION)
+                throw new IllegalStateException(path + " is not a Velocity binary log!");
+
+            System.out.println("Log started at " + new Date(in.readLong()));
+            StringBuilder b = new StringBuilder();
+
+            while (true) {
+                long time;
+                try {
+                    time = in.readLong();
+                }
+                catch (EOFException ie) {
+                    break;
+                }
+
+                int lvl = in.readUnsignedByte();
+                byte kind = in.readByte();
+                String module = readString(in);
+                String message = readString(in);
+                long a = 0, bArg = 0;
+                double d = 0;
+
+                switch (kind) {
+                    case K_LONG: a = in.readLong(); break;
+                    case K_LONG2: a = in.readLong(); bArg = in.readLong(); break;
+                    case K_DOUBLE: d = in.readDouble(); break;
+                }
+
+                b.setLength(0);
+                b.append(String.format(Locale.ROOT, "%12.6f ", time / 1e9));
+                format(b, lvl, module, message, kind, a, bArg, d);
+                System.out.println(b);
+            }
+        }
+        catch (IOException ie) {
+            error("velocity.logger", "Unable to read binary log " + path + ": " + ie.getMessage());
+        }
+    }
+
+    /**
+     * Wait for every queued message to be written.
+     */
+    public static void flush() {
+        if (!async)
+            return;
+
+        synchronized (ringLock) {
+            while (tail != head) {
+                try {
+                    ringLock.wait(10);
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a message or queue it for the writer thread.
+     */
+    private static void post(int lvl, String module, String message, byte kind, long a, long b, double d) {
+        if (!async) {
+            synchronized (fmtBuffer) {
+                write(lvl, module, message, kind, a, b, d, System.nanoTime());
+            }
+            return;
+        }
+
+        synchronized (ringLock) {
+            // Never drop messages; a full ring applies backpressure instead.
+            while (head - tail == RING_SIZE) {
+                try {
+                    ringLock.wait();  // Woken up when the writer finishes a batch.
+                }
+                catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            int i = (int)(head & (RING_SIZE - 1));
+            rLevel[i] = lvl;
+            rKind[i] = kind;
+            rModule[i] = module;
+            rMessage[i] = message;
+            rA[i] = a;
+            rB[i] = b;
+            rD[i] = d;
+            rTime[i] = System.nanoTime();
+            head++;
+
+            if (writerIdle) {
+                writerIdle = false;
+                ringLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writer thread body. Drains the ring in batches.
+     */
+    private static void writerLoop() {
+        while (true) {
+            long from, to;
+
+            synchronized (ringLock) {
+                while (tail == head) {
+                    writerIdle = true;
+                    ringLock.notifyAll();  // Wake up flush().
+
+                    try {
+                        ringLock.wait();
+                    }
+                    catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+
+                from = tail;
+                to = head;
+            }
+
+            // Slots between tail and head are never touched by producers.
+            synchronized (fmtBuffer) {
+                for (long m = from; m < to; m++) {
+                    int i = (int)(m & (RING_SIZE - 1));
+                    write(rLevel[i], rModule[i], rMessage[i], rKind[i], rA[i], rB[i], rD[i], rTime[i]);
+                    rModule[i] = null;
+                    rMessage[i] = null;
+                }
+
+                System.out.flush();
+                if (binary != null) {
+                    try {
+                        binary.flush();
+                    }
+                    catch (IOException ie) {
+                        binary = null;
+                    }
+                }
+            }
+
+            synchronized (ringLock) {
+                tail = to;
+                ringLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Format and write one message to the console (and binary log).
+     */
+    private static void write(int lvl, String module, String message, byte kind, long a, long b, double d,
+                              long time) {
+        StringBuilder out = fmtBuffer;
+        out.setLength(0);
+        out.append(lvl == LOG_DEBUG ? "\033[32m" : (lvl == LOG_WARN ? "\033[33m" : "\033[31m"));
+        format(out, lvl, module, message, kind, a, b, d);
+        out.append("\033[0m");
+
+        PrintStream stream = (lvl == LOG_ERROR) ? System.err : System.out;
+        stream.println(out);
+
+        if (binary != null) {
+            try {
+                binary.writeLong(time - epoch);
+                binary.writeByte(lvl);
+                binary.writeByte(kind);
+                writeString(binary, module);
+                writeString(binary, message);
+
+                switch (kind) {
+                    case K_LONG: binary.writeLong(a); break;
+                    case K_LONG2: binary.writeLong(a); binary.writeLong(b); break;
+                    case K_DOUBLE: binary.writeDouble(d); break;
+                }
+            }
+            catch (IOException ie) {
+                binary = null;
+                System.err.println("\033[31mE [velocity.logger]: Binary log stopped: " + ie.getMessage() + "\033[0m");
+            }
+        }
+    }
+
+    /**
+     * Format a message (without colors).
+     */
+    private static void format(StringBuilder out, int lvl, String module, String message, byte kind,
+                               long a, long b, double d) {
+        out.append(lvl == LOG_DEBUG ? "I [" : (lvl == LOG_WARN ? "W [" : "E [")).append(module).append("]: ");
+
+        if (kind == K_STR) {
+            out.append(message);
+            return;
+        }
+
+        // Substitute the arguments into the "{}" placeholders in order.
+        int arg = 0, start = 0, at;
+        while ((at = message.indexOf("{}", start)) >= 0) {
+            out.append(message, start, at);
+
+            if (kind == K_DOUBLE && arg == 0) out.append(d);
+            else if (arg == 0) out.append(a);
+            else if (kind == K_LONG2 && arg == 1) out.append(b);
+            else out.append("{}");
+
+            arg++;
+            start = at + 2;
+        }
+        out.append(message, start, message.length());
+    }
+
+    /**
+     * Write a string as length prefixed UTF-8 (no 64k limit, unlike writeUTF()).
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] data = (s == null ? "null" : s).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    /**
+     * Read a string written by {@code writeString()}.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
     }
 
     /*
@@ -80,7 +80,7 @@ public class MemTracerUtil {
      * 
      * @param spr Sprite to be tracked.
      */
-    private void trackSprite0(Sprite spr) {
+    private synchronized void trackSprite0(Sprite spr) {
         WeakReference<Sprite> ref = new WeakReference<Sprite>(spr);
         this.spriteRefs.add(ref);
         this.trackedSprites++;
@@ -89,31 +89,29 @@ public class MemTracerUtil {
     }
 
     /**
-     * Add a new sprite to be tracked.
+     * Stop tracking a sprite that has been GC'd.
      * 
-     * @param spr Sprite to be tracked.
+     * @param className The collected sprite's class name.
      */
-    public static void removeTracking(Sprite spr) {
-        theMemTracer.removeTracking0(spr);
+    public static void removeTracking(String className) {
+        theMemTracer.removeTracking0(className);
     }
 
     /**
      * Remove a sprite from tracking. Generally occurs when the sprite
      * has been GC'd and has therefore been released properly.
      * 
-     * @param spr Sprite to remove tracking from.
+     * @param className The collected sprite's class name.
      */
-    private void removeTracking0(Sprite spr) {
-        for (WeakReference<Sprite> ref : spriteRefs) {
-            if (ref.get() == spr) {
-                spriteRefs.remove(ref);
-                break;
-            }
+    private synchronized void removeTracking0(String className) {
+        for (int i = spriteRefs.size() - 1; i >= 0; i--) {
+            if (spriteRefs.get(i).refersTo(null))
+                spriteRefs.remove(i);
         }
         this.trackedSprites--;
 
         Logger.log("velocity.system.MemTracer", "Deleted tracked sprite " 
-            + spr.getClass().getSimpleName() + ". Tracking " + trackedSprites
+            + className + ". Tracking " + trackedSprites
             + " sprites."
         );
     }
@@ -130,29 +128,36 @@ public class MemTracerUtil {
      * Print the current memory tracing statistics, like allocated sprites,
      * memory addresses, and leaked allocations.
      */
-    private void printMemoryStatistics0() {
+    private synchronized void printMemoryStatistics0() {
         // Clean out all of the GC'd weak references.
         for (int i = spriteRefs.size() - 1; i >= 0; i--) {
             if (spriteRefs.get(i).refersTo(null))
                 spriteRefs.remove(i);
         }
 
+        // Deleted sprites have released everything, so only sprites still active after
+        // their scene was unloaded count (no GC needed to tell). Preloaded sprites
+        // haven't been initialized yet.
+        int leaked = 0;
         for (WeakReference<Sprite> ref : spriteRefs) {
-            //if (ref.refersTo(null)) continue;
+            Sprite spr = ref.get();
+            if (spr == null || spr.getCurrentState() != Sprite.State.ACTIVE) 
+                continue;
+
             Logger.warn("velocity.system.MemTracer", "FOUND LEAKED ALLOCATION!");
-            printSpriteInfo(ref.get());
+            printSpriteInfo(spr);
+            leaked++;
         }
 
-        Time.sleepms(250);
-        if (this.trackedSprites <= 0) return;
+        if (leaked == 0) return;
 
         Logger.warn("velocity.system.MemTracer", "Leaked allocation reporting finished.");
         System.out.println();
         Logger.warn("velocity.system.MemTracer", "Leaked memory allocations between "
-                    + "scenes detected! Current sprite count: " + trackedSprites
-                    + ".\n\tNote: This is not guaranteed to be a leaked allocation. If you have:"
+                    + "scenes detected! Undeleted sprite count: " + leaked
+                    + " (" + trackedSprites + " not yet collected)."
+                    + "\n\tNote: This is not guaranteed to be a leaked allocation. If you have:"
                     + "\n\t - Allocated any sprites and moved them into the persistence pool."
-                    + "\n\t - GC has not finished collecting when Memory Tracing is performed."
                     + "\n\tThen this may not apply to you."
                     );
     }
@@ -1,6 +1,7 @@
 package com.rsc_games.velocity.util;
 
 import java.util.HashMap;
+import java.util.Map;
 
 import com.rsc_games.velocity.util.Persistence;
 
@@ -58,6 +59,15 @@ public class Persistence {
         return thePersistence.stash.containsKey(key);
     }
 
+    /**
+     * Internal. Get every stored element (used by save game snapshots). Game thread only.
+     * 
+     * @return The stored elements.
+     */
+    public static Map<String, Object> INTERNAL_getEntries() {
+        return thePersistence.stash;
+    }
+
     /**
      * Dump the contents of persistence to some output stream (ideally for
      * error analysis).
@@ -79,6 +79,105 @@ public class Point {
         this.y = (int)p.y;
     }
 
+    /**
+     * Set this point's location (in place).
+     * 
+     * @param x X location
+     * @param y Y location
+     * @return This point.
+     */
+    public Point setTo(int x, int y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    /**
+     * Copy another point's location into this one (in place).
+     * 
+     * @param other The point to copy.
+     * @return This point.
+     */
+    public Point setTo(Point other) {
+        this.x = other.x;
+        this.y = other.y;
+        return this;
+    }
+
+    /**
+     * Add another point to this one (in place).
+     * 
+     * @param other The other point to add.
+     * @return This point.
+     */
+    public Point addLocal(Point other) {
+        this.x += other.x;
+        this.y += other.y;
+        return this;
+    }
+
+    /**
+     * Add an offset to this point (in place).
+     * 
+     * @param dx X offset.
+     * @param dy Y offset.
+     * @return This point.
+     */
+    public Point addLocal(int dx, int dy) {
+        this.x += dx;
+        this.y += dy;
+        return this;
+    }
+
+    /**
+     * Subtract another point from this one (in place).
+     * 
+     * @param other The other point to subtract.
+     * @return This point.
+     */
+    public Point subLocal(Point other) {
+        this.x -= other.x;
+        this.y -= other.y;
+        return this;
+    }
+
+    /**
+     * Subtract an offset from this point (in place).
+     * 
+     * @param dx X offset.
+     * @param dy Y offset.
+     * @return This point.
+     */
+    public Point subLocal(int dx, int dy) {
+        this.x -= dx;
+        this.y -= dy;
+        return this;
+    }
+
+    /**
+     * Multiply this point by a scalar (in place).
+     * 
+     * @param other The scalar to multiply.
+     * @return This point.
+     */
+    public Point multLocal(int other) {
+        this.x *= other;
+        this.y *= other;
+        return this;
+    }
+
+    /**
+     * Divide this point by a scalar (in place).
+     * 
+     * @param other The scalar to divide by.
+     * @return This point.
+     */
+    public Point divLocal(int other) {
+        this.x /= other;
+        this.y /= other;
+        return this;
+    }
+
     /**
      * Add this and another point together.
      * 
@@ -187,9 +286,9 @@ public class Point {
      * @return Distance to the other point.
      */
     public int distanceTo(Point other) {
-        Point diff = this.sub(other);
-        Point vectDist = diff.mult(diff);
-        return (int)Math.sqrt(vectDist.x + vectDist.y);
+        int dx = this.x - other.x;
+        int dy = this.y - other.y;
+        return (int)Math.sqrt(dx * dx + dy * dy);
     }
 
     /**
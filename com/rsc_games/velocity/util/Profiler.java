@@ -0,0 +1,193 @@
+package com.rsc_games.velocity.util;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Engine-wide scoped profiler. Engine code marks sections with {@code begin()} /
+ * {@code end()} pairs and the profiler keeps the timing of every section over the
+ * last {@code FRAME_HISTORY} frames. The history can be exported in the Chrome
+ * trace event format and opened in {@code chrome://tracing} or Perfetto.
+ *
+ * Only sections on the thread that enabled the profiler are recorded. When the
+ * profiler is disabled, {@code begin()} and {@code end()} only read one static
+ * flag. Nothing is ever allocated while recording.
+ */
+public class Profiler {
+    /**
+     * Maximum nesting depth of sections.
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * Amount of completed sections kept.
+     */
+    public static final int MAX_EVENTS = 1 << 16;
+
+    /**
+     * Amount of frames kept for export.
+     */
+    public static final int FRAME_HISTORY = 300;
+
+    /**
+     * Whether sections are recorded.
+     */
+    private static boolean enabled = false;
+
+    /**
+     * The thread sections are recorded on.
+     */
+    private static Thread owner;
+
+    /**
+     * Open section names and start times.
+     */
+    private static final String[] stackName = new String[MAX_DEPTH];
+    private static final long[] stackStart = new long[MAX_DEPTH];
+
+    /**
+     * Current nesting depth.
+     */
+    private static int depth = 0;
+
+    /**
+     * Ring of completed sections.
+     */
+    private static final String[] evName = new String[MAX_EVENTS];
+    private static final long[] evStart = new long[MAX_EVENTS];
+    private static final long[] evDur = new long[MAX_EVENTS];
+    private static final int[] evDepth = new int[MAX_EVENTS];
+    private static final long[] evFrame = new long[MAX_EVENTS];
+
+    /**
+     * Total sections ever recorded. The ring slot is taken from the low bits.
+     */
+    private static long evTotal = 0;
+
+    /**
+     * Current frame number.
+     */
+    private static long frame = 0;
+
+    /**
+     * Time the profiler was enabled (trace timestamps are relative to this).
+     */
+    private static long epoch = 0;
+
+    /**
+     * Enable or disable the profiler. Sections are recorded on the calling thread.
+     *
+     * @param state Whether to record sections.
+     */
+    public static synchronized void setEnabled(boolean state) {
+        if (state && !enabled) {
+            owner = Thread.currentThread();
+            epoch = System.nanoTime();
+            depth = 0;
+            evTotal = 0;
+            frame = 0;
+        }
+
+        enabled = state;
+    }
+
+    /**
+     * Whether the profiler is recording.
+     *
+     * @return If sections are recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open a section. Must be closed with {@code end()}. Use string constants for the
+     * name; it is stored as is.
+     *
+     * @param name The section name.
+     */
+    public static void begin(String name) {
+        if (!enabled || Thread.currentThread() != owner)
+            return;
+
+        if (depth == MAX_DEPTH) {
+            depth++;  // Still tracked so the matching end() is ignored too.
+            return;
+        }
+
+        stackName[depth] = name;
+        stackStart[depth++] = System.nanoTime();
+    }
+
+    /**
+     * Close the innermost open section.
+     */
+    public static void end() {
+        if (!enabled || Thread.currentThread() != owner || depth == 0)
+            return;
+
+        if (--depth >= MAX_DEPTH)
+            return;
+
+        int i = (int)(evTotal++ & (MAX_EVENTS - 1));
+        evName[i] = stackName[depth];
+        evStart[i] = stackStart[depth];
+        evDur[i] = System.nanoTime() - stackStart[depth];
+        evDepth[i] = depth;
+        evFrame[i] = frame;
+    }
+
+    /**
+     * Mark the end of a frame. Called by the engine after every tick.
+     */
+    public static void endFrame() {
+        if (!enabled || Thread.currentThread() != owner)
+            return;
+
+        frame++;
+    }
+
+    /**
+     * Export the last {@code FRAME_HISTORY} frames in the Chrome trace event format.
+     * Should be called from the profiled thread (or after disabling the profiler).
+     *
+     * @param path Output file path.
+     * @return Whether the trace was written.
+     */
+    public static synchronized boolean exportChromeTrace(String path) {
+        long total = evTotal;
+        long first = Math.max(0, total - MAX_EVENTS);
+        long minFrame = frame - FRAME_HISTORY;
+
+        try (BufferedWriter w = new BufferedWriter(new FileWriter(path))) {
+            w.write("{\"traceEvents\":[\n");
+            boolean comma = false;
+
+            for (long e = first; e < total; e++) {
+                int i = (int)(e & (MAX_EVENTS - 1));
+                if (evFrame[i] < minFrame)
+                    continue;
+
+                if (comma) w.write(",\n");
+                comma = true;
+
+                // Complete ("X") events with microsecond timestamps.
+                w.write("{\"name\":\"" + evName[i] + "\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":"
+                        + String.format(Locale.ROOT, "%.3f", (evStart[i] - epoch) / 1e3) + ",\"dur\":"
+                        + String.format(Locale.ROOT, "%.3f", evDur[i] / 1e3) + ",\"args\":{\"frame\":" + evFrame[i]
+                        + ",\"depth\":" + evDepth[i] + "}}");
+            }
+
+            w.write("\n],\"displayTimeUnit\":\"ms\"}\n");
+        }
+        catch (IOException ie) {
+            Logger.error("velocity.profiler", "Unable to export trace to " + path + ": " + ie.getMessage());
+            return false;
+        }
+
+        Logger.log("velocity.profiler", "Exported profiler trace to " + path);
+        return true;
+    }
+}
@@ -0,0 +1,176 @@
+package com.rsc_games.velocity.util;
+
+import java.lang.ref.Cleaner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.rsc_games.velocity.config.GlobalAppConfig;
+
+/**
+ * Safety net for engine resources (texture references, lights, audio streams). Every
+ * resource is supposed to be released explicitly (sprites do it when deleted). If an
+ * owner becomes unreachable without being released, its release action is queued and
+ * run on the game thread at the start of the next tick, so release code never has to
+ * be thread safe.
+ *
+ * Replaces {@code finalize()}: nothing here needs a full GC to run promptly, and
+ * explicitly released resources cost the collector nothing.
+ */
+public class ResourceCleaner {
+    /**
+     * Resource number of owners registered without one.
+     */
+    private static final long NO_ID = Long.MIN_VALUE;
+
+    /**
+     * Notifies about unreachable owners.
+     */
+    private static final Cleaner cleaner = Cleaner.create(r -> {
+        Thread t = new Thread(r, "velocity.cleaner");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Release actions of owners that were collected without being released.
+     */
+    private static final ConcurrentLinkedQueue<Runnable> collected = new ConcurrentLinkedQueue<Runnable>();
+
+    /**
+     * Register a resource owner.
+     *
+     * @param owner The object owning the resource.
+     * @param what Resource description (for logs).
+     * @param release Releases the resource. Must not reference {@code owner}, or it
+     *  can never be collected.
+     * @return The handle used to release the resource.
+     */
+    public static Handle register(Object owner, String what, Runnable release) {
+        return new Handle(owner, what, NO_ID, release);
+    }
+
+    /**
+     * Register one of many numbered resource owners (like texture references). The
+     * description is only built if it's ever logged.
+     *
+     * @param owner The object owning the resource.
+     * @param what Resource kind (for logs).
+     * @param id Resource number (for logs).
+     * @param release Releases the resource. Must not reference {@code owner}.
+     * @return The handle used to release the resource.
+     */
+    public static Handle register(Object owner, String what, long id, Runnable release) {
+        return new Handle(owner, what, id, release);
+    }
+
+    /**
+     * Run an action on the game thread once an object has been collected. For
+     * bookkeeping only; resources should use {@code register()}.
+     *
+     * @param owner The object.
+     * @param action The action. Must not reference {@code owner}.
+     */
+    public static void onCollected(Object owner, Runnable action) {
+        cleaner.register(owner, () -> collected.add(action));
+    }
+
+    /**
+     * Internal. Run the release actions of collected owners. Called by the engine every
+     * tick on the game thread.
+     */
+    public static void INTERNAL_runCollected() {
+        Runnable r;
+        while ((r = collected.poll()) != null)
+            r.run();
+    }
+
+    /**
+     * A registered resource.
+     */
+    public static class Handle {
+        /**
+         * Release action state (shared with the cleaner, so must not reference the owner).
+         */
+        private final State state;
+
+        /**
+         * The cleaner registration.
+         */
+        private final Cleaner.Cleanable cleanable;
+
+        /**
+         * Register a resource.
+         *
+         * @param owner The owner.
+         * @param what Resource description.
+         * @param id Resource number (or {@code NO_ID}).
+         * @param release Release action.
+         */
+        private Handle(Object owner, String what, long id, Runnable release) {
+            this.state = new State(what, id, release);
+            this.cleanable = cleaner.register(owner, state);
+        }
+
+        /**
+         * Release the resource now. Only the first call does anything.
+         */
+        public void release() {
+            state.explicit = true;
+            cleanable.clean();
+        }
+    }
+
+    /**
+     * Cleaner action.
+     */
+    private static class State implements Runnable {
+        /**
+         * Resource description.
+         */
+        final String what;
+
+        /**
+         * Resource number (or {@code NO_ID}).
+         */
+        final long id;
+
+        /**
+         * Release action.
+         */
+        final Runnable release;
+
+        /**
+         * Whether the owner released the resource itself.
+         */
+        volatile boolean explicit = false;
+
+        /**
+         * Create the cleaner action.
+         *
+         * @param what Resource description.
+         * @param id Resource number (or {@code NO_ID}).
+         * @param release Release action.
+         */
+        State(String what, long id, Runnable release) {
+            this.what = what;
+            this.id = id;
+            this.release = release;
+        }
+
+        /**
+         * Run by {@code Cleanable.clean()} (at most once), either on release or once
+         * the owner was collected.
+         */
+        @Override
+        public void run() {
+            if (explicit) {
+                release.run();
+                return;
+            }
+
+            if (GlobalAppConfig.bcfg != null && GlobalAppConfig.bcfg.LOG_GC)
+                Logger.warn("velocity.cleaner", (id == NO_ID ? what : what + " " + id) 
+                            + " was never released; releasing it after GC.");
+            collected.add(release);
+        }
+    }
+}
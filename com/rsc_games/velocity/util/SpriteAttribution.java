@@ -0,0 +1,369 @@
+package com.rsc_games.velocity.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import com.rsc_games.velocity.sprite.Sprite;
+
+/**
+ * Per-sprite cost attribution. When enabled, the scene times every sprite's tick,
+ * collision, physics and render call and charges the time to both the sprite's class
+ * and its name, so frame spikes can be traced back to the sprite causing them.
+ *
+ * Timings are kept in log2 histograms (bucket {@code i} holds calls that took
+ * {@code [2^i, 2^(i+1))} ns), so recording never allocates once every sprite class
+ * and name has been seen. At most {@code MAX_NAMES} names are tracked per capture
+ * window (until {@code reset()}); sprites with any further names are charged together.
+ * When disabled, {@code start()} and {@code stop()} only read one static flag.
+ */
+public class SpriteAttribution {
+    /**
+     * Cost phases.
+     */
+    public static final int TICK = 0;
+    public static final int COLLIDE = 1;
+    public static final int PHYSICS = 2;
+    public static final int RENDER = 3;
+
+    /**
+     * Amount of cost phases.
+     */
+    public static final int PHASES = 4;
+
+    /**
+     * Phase names (for reports).
+     */
+    static final String[] PHASE_NAMES = {"tick", "collide", "physics", "render"};
+
+    /**
+     * Histogram buckets per phase (2^40 ns is far longer than any frame).
+     */
+    static final int BUCKETS = 40;
+
+    /**
+     * Most sprite names tracked at once, so games naming sprites "Bullet" + counter
+     * can't grow the name table forever.
+     */
+    static final int MAX_NAMES = 256;
+
+    /**
+     * Label of the entry charged for names past {@code MAX_NAMES}.
+     */
+    static final String OTHER_NAMES = "(other names)";
+
+    /**
+     * Whether costs are being recorded.
+     */
+    private static boolean enabled = false;
+
+    /**
+     * Costs per sprite class.
+     */
+    private static final CostTable byClass = new CostTable();
+
+    /**
+     * Costs per sprite name.
+     */
+    private static final CostTable byName = new CostTable();
+
+    /**
+     * Class id lookup. Classes are compared by identity, which is much cheaper than
+     * hashing the class name.
+     */
+    private static final IdentityHashMap<Class<?>, Integer> classIDs = new IdentityHashMap<>();
+
+    /**
+     * Name id lookup.
+     */
+    private static final HashMap<String, Integer> nameIDs = new HashMap<>();
+
+    /**
+     * Id of the {@code OTHER_NAMES} entry (-1 until the name table fills up).
+     */
+    private static int otherNamesID = -1;
+
+    /**
+     * Enable or disable attribution.
+     *
+     * @param state Whether to record sprite costs.
+     */
+    public static synchronized void setEnabled(boolean state) {
+        enabled = state;
+    }
+
+    /**
+     * Whether attribution is enabled.
+     *
+     * @return If sprite costs are recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start timing a sprite call.
+     *
+     * @return The start time (0 if disabled).
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stop timing a sprite call and charge the time to the sprite.
+     *
+     * @param s The sprite.
+     * @param phase The phase ({@code TICK}, {@code COLLIDE}, {@code PHYSICS} or {@code RENDER}).
+     * @param start The value returned by {@code start()}.
+     */
+    public static void stop(Sprite s, int phase, long start) {
+        if (!enabled || start == 0)
+            return;
+
+        record(s, phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Charge time to a sprite.
+     *
+     * @param s The sprite.
+     * @param phase The phase.
+     * @param nanos Time spent (in nanoseconds).
+     */
+    private static synchronized void record(Sprite s, int phase, long nanos) {
+        Class<?> c = s.getClass();
+        Integer cid = classIDs.get(c);
+        if (cid == null) {
+            cid = byClass.add(c.getSimpleName());
+            classIDs.put(c, cid);
+        }
+
+        Integer nid = nameIDs.get(s.name);
+        if (nid == null) {
+            if (nameIDs.size() < MAX_NAMES) {
+                nid = byName.add(s.name);
+                nameIDs.put(s.name, nid);
+            }
+            else {
+                if (otherNamesID < 0)
+                    otherNamesID = byName.add(OTHER_NAMES);
+                nid = otherNamesID;
+            }
+        }
+
+        byClass.record(cid, phase, nanos);
+        byName.record(nid, phase, nanos);
+    }
+
+    /**
+     * Forget every recorded cost and every seen sprite name (starting a new capture
+     * window).
+     */
+    public static synchronized void reset() {
+        byClass.clear();
+        byName.clearKeys();
+        nameIDs.clear();
+        otherNamesID = -1;
+    }
+
+    /**
+     * Get the most expensive sprite classes.
+     *
+     * @param n Maximum amount of lines.
+     * @return One formatted line per class, most expensive first.
+     */
+    public static synchronized ArrayList<String> topClasses(int n) {
+        return byClass.top(n);
+    }
+
+    /**
+     * Get the most expensive named sprites.
+     *
+     * @param n Maximum amount of lines.
+     * @return One formatted line per sprite name, most expensive first.
+     */
+    public static synchronized ArrayList<String> topNames(int n) {
+        return byName.top(n);
+    }
+
+    /**
+     * Log a hot sprite report.
+     *
+     * @param n Amount of classes and names to list.
+     */
+    public static synchronized void printReport(int n) {
+        Logger.log("velocity.attribution", "Hottest sprite classes:");
+        for (String line : byClass.top(n))
+            Logger.log("velocity.attribution", "\t" + line);
+
+        Logger.log("velocity.attribution", "Hottest named sprites:");
+        for (String line : byName.top(n))
+            Logger.log("velocity.attribution", "\t" + line);
+    }
+
+    /**
+     * Costs for a set of keys (classes or names), stored in flat primitive arrays
+     * indexed by key id.
+     */
+    static class CostTable {
+        /**
+         * Key labels by id.
+         */
+        String[] labels = new String[16];
+
+        /**
+         * Total time per key and phase ({@code id * PHASES + phase}).
+         */
+        long[] total = new long[16 * PHASES];
+
+        /**
+         * Call count per key and phase.
+         */
+        long[] calls = new long[16 * PHASES];
+
+        /**
+         * Longest call per key and phase.
+         */
+        long[] max = new long[16 * PHASES];
+
+        /**
+         * Histograms per key and phase ({@code (id * PHASES + phase) * BUCKETS + bucket}).
+         */
+        int[] hist = new int[16 * PHASES * BUCKETS];
+
+        /**
+         * Amount of keys.
+         */
+        int count = 0;
+
+        /**
+         * Add a key.
+         *
+         * @param label The key label.
+         * @return The key id.
+         */
+        int add(String label) {
+            if (count == labels.length) {
+                int cap = count * 2;
+                labels = Arrays.copyOf(labels, cap);
+                total = Arrays.copyOf(total, cap * PHASES);
+                calls = Arrays.copyOf(calls, cap * PHASES);
+                max = Arrays.copyOf(max, cap * PHASES);
+                hist = Arrays.copyOf(hist, cap * PHASES * BUCKETS);
+            }
+
+            labels[count] = label;
+            return count++;
+        }
+
+        /**
+         * Record a call.
+         *
+         * @param id The key id.
+         * @param phase The phase.
+         * @param nanos Call time.
+         */
+        void record(int id, int phase, long nanos) {
+            int i = id * PHASES + phase;
+            int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+
+            total[i] += nanos;
+            calls[i]++;
+            if (nanos > max[i]) max[i] = nanos;
+            hist[i * BUCKETS + bucket]++;
+        }
+
+        /**
+         * Zero every cost (keys are kept so their ids stay valid).
+         */
+        void clear() {
+            Arrays.fill(total, 0);
+            Arrays.fill(calls, 0);
+            Arrays.fill(max, 0);
+            Arrays.fill(hist, 0);
+        }
+
+        /**
+         * Drop every key and cost, shrinking back to the initial capacity.
+         */
+        void clearKeys() {
+            labels = new String[16];
+            total = new long[16 * PHASES];
+            calls = new long[16 * PHASES];
+            max = new long[16 * PHASES];
+            hist = new int[16 * PHASES * BUCKETS];
+            count = 0;
+        }
+
+        /**
+         * Total time of a key over every phase.
+         *
+         * @param id The key id.
+         * @return The time (in nanoseconds).
+         */
+        long keyTotal(int id) {
+            long t = 0;
+            for (int p = 0; p < PHASES; p++)
+                t += total[id * PHASES + p];
+            return t;
+        }
+
+        /**
+         * Approximate a percentile from a histogram (upper bound of the bucket it lands in).
+         *
+         * @param i Key/phase index.
+         * @param pct The percentile (0 - 1).
+         * @return Approximate call time (in nanoseconds).
+         */
+        long percentile(int i, double pct) {
+            long target = (long)Math.ceil(calls[i] * pct);
+            long seen = 0;
+
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += hist[i * BUCKETS + b];
+                if (seen >= target)
+                    return 2L << b;
+            }
+            return max[i];
+        }
+
+        /**
+         * Format the most expensive keys.
+         *
+         * @param n Maximum amount of lines.
+         * @return Formatted lines, most expensive first.
+         */
+        ArrayList<String> top(int n) {
+            Integer[] ids = new Integer[count];
+            for (int i = 0; i < count; i++)
+                ids[i] = i;
+
+            Arrays.sort(ids, (a, b) -> Long.compare(keyTotal(b), keyTotal(a)));
+            ArrayList<String> out = new ArrayList<String>();
+
+            for (int k = 0; k < Math.min(n, count); k++) {
+                int id = ids[k];
+                if (keyTotal(id) == 0)
+                    break;
+
+                StringBuilder line = new StringBuilder(String.format("%-24s %8.2f ms", labels[id], keyTotal(id) / 1e6));
+
+                for (int p = 0; p < PHASES; p++) {
+                    int i = id * PHASES + p;
+                    if (calls[i] == 0)
+                        continue;
+
+                    line.append(String.format(" | %s %d calls, avg %.1f us, p99 ~%.1f us, max %.1f us",
+                                PHASE_NAMES[p], calls[i], total[i] / 1e3 / calls[i],
+                                Math.min(percentile(i, 0.99), max[i]) / 1e3, max[i] / 1e3));
+                }
+
+                out.add(line.toString());
+            }
+
+            return out;
+        }
+    }
+}
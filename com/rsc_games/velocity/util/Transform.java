@@ -157,6 +157,34 @@ public class Transform implements Cloneable {
         return this.location.getPos();
     }
 
+    /**
+     * Set the center position of this transform.
+     * 
+     * @param x New center X position.
+     * @param y New center Y position.
+     */
+    public void setPosition(int x, int y) {
+        this.location.setPos(x, y);
+    }
+
+    /**
+     * Get this transform's center X location without allocating a point.
+     * 
+     * @return Current center X location.
+     */
+    public int getX() {
+        return this.location.getCenterX();
+    }
+
+    /**
+     * Get this transform's center Y location without allocating a point.
+     * 
+     * @return Current center Y location.
+     */
+    public int getY() {
+        return this.location.getCenterY();
+    }
+
     /**
      * Translate this transform.
      * 
@@ -166,6 +194,16 @@ public class Transform implements Cloneable {
         this.location.translate(delta);
     }
 
+    /**
+     * Translate this transform.
+     * 
+     * @param dx X distance to move.
+     * @param dy Y distance to move.
+     */
+    public void translate(int dx, int dy) {
+        this.location.translate(dx, dy);
+    }
+
     /**
      * Rotate this transform.
      * 
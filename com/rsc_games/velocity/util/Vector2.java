@@ -180,6 +180,101 @@ public class Vector2 {
         return new Vector2(this.x % other, this.y % other);
     }
 
+    /**
+     * Set this vector's components (in place).
+     * 
+     * @param x X component.
+     * @param y Y component.
+     * @return This vector.
+     */
+    public Vector2 setTo(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    /**
+     * Copy another vector into this one (in place).
+     * 
+     * @param other The vector to copy.
+     * @return This vector.
+     */
+    public Vector2 setTo(Vector2 other) {
+        this.x = other.x;
+        this.y = other.y;
+        return this;
+    }
+
+    /**
+     * Add another vector to this one (in place).
+     * 
+     * @param other The other vector.
+     * @return This vector.
+     */
+    public Vector2 addLocal(Vector2 other) {
+        this.x += other.x;
+        this.y += other.y;
+        return this;
+    }
+
+    /**
+     * Add an offset to this vector (in place).
+     * 
+     * @param dx X offset.
+     * @param dy Y offset.
+     * @return This vector.
+     */
+    public Vector2 addLocal(float dx, float dy) {
+        this.x += dx;
+        this.y += dy;
+        return this;
+    }
+
+    /**
+     * Subtract another vector from this one (in place).
+     * 
+     * @param other The other vector.
+     * @return This vector.
+     */
+    public Vector2 subLocal(Vector2 other) {
+        this.x -= other.x;
+        this.y -= other.y;
+        return this;
+    }
+
+    /**
+     * Multiply this vector by a scalar (in place).
+     * 
+     * @param other The scalar.
+     * @return This vector.
+     */
+    public Vector2 multLocal(float other) {
+        this.x *= other;
+        this.y *= other;
+        return this;
+    }
+
+    /**
+     * Divide this vector by a scalar (in place).
+     * 
+     * @param other The scalar.
+     * @return This vector.
+     */
+    public Vector2 divLocal(float other) {
+        this.x /= other;
+        this.y /= other;
+        return this;
+    }
+
+    /**
+     * Scale this vector to a length of 1 (in place).
+     * 
+     * @return This vector.
+     */
+    public Vector2 normalizeLocal() {
+        return this.divLocal((float)Math.sqrt(x * x + y * y));
+    }
+
     /**
      * Get the distance, to the nearest int, of this point from
      * another point.
@@ -188,9 +283,9 @@ public class Vector2 {
      * @return Distance to the other point.
      */
     public float distanceTo(Vector2 other) {
-        Vector2 diff = this.sub(other);
-        Vector2 vectDist = diff.mult(diff);
-        return (float)Math.sqrt(vectDist.x + vectDist.y);
+        float dx = this.x - other.x;
+        float dy = this.y - other.y;
+        return (float)Math.sqrt(dx * dx + dy * dy);
     }
 
     /**
@@ -234,6 +329,16 @@ public class Vector2 {
         return new Point(Math.round(this.x), Math.round(this.y));
     }
 
+    /**
+     * Approximate this point's value in integer pixel space into an existing point.
+     * 
+     * @param out Point to write to.
+     * @return {@code out}.
+     */
+    public Point approx(Point out) {
+        return out.setTo(Math.round(this.x), Math.round(this.y));
+    }
+
     /**
      * Print this object representation on screen.
      * 